@@ -0,0 +1,128 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons;
+
+import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.service.redis.codec.ModelCodecs;
+import io.kodokojo.commons.service.redis.codec.ProjectConfigurationStoreModelCodec;
+import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.*;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the encryption done on each store read and write: a project configuration as written by
+ * {@link io.kodokojo.commons.service.redis.RedisProjectStore}, and a password as written by
+ * {@link io.kodokojo.commons.service.redis.RedisUserRepository}. Legacy benchmarks use the formats written before AES-GCM,
+ * with a <code>Cipher</code> created on each call. Run with <code>-t 4</code> to measure the per thread <code>Cipher</code> cache under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AesGcmEngineBenchmark {
+
+    private static final String PASSWORD = "zD4Xq9mJ2kVr";
+
+    private SecretKey key;
+
+    private ProjectConfigurationStoreModel projectConfiguration;
+
+    private byte[] legacyProjectConfiguration;
+
+    private byte[] projectConfigurationValue;
+
+    private byte[] legacyPassword;
+
+    private byte[] password;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        key = keyGenerator.generateKey();
+        Set<BrickConfiguration> brickConfigurations = new HashSet<>();
+        brickConfigurations.add(new BrickConfiguration("gitlab", BrickType.SCM, "8.5.2-ce.0", Collections.singleton(new PortDefinition(80))));
+        brickConfigurations.add(new BrickConfiguration("jenkins", BrickType.CI, "1.651-alpine", Collections.singleton(new PortDefinition(8080))));
+        StackConfiguration stackConfiguration = new StackConfiguration("build-A", StackType.BUILD, brickConfigurations, 10022);
+        projectConfiguration = new ProjectConfigurationStoreModel("benchmark-entity", "benchmark-projectconfiguration", "benchmark", "benchmark-service", Collections.singletonList("benchmark-admin"), Collections.singleton(stackConfiguration), Arrays.asList("benchmark-admin", "benchmark-user"));
+
+        legacyProjectConfiguration = legacyWriteProjectConfiguration();
+        projectConfigurationValue = writeProjectConfiguration();
+        legacyPassword = legacyWritePassword();
+        password = writePassword();
+    }
+
+    @Benchmark
+    public byte[] legacyWriteProjectConfiguration() throws Exception {
+        Cipher cipher = Cipher.getInstance(RSAUtils.AES_CBC_PKCS5_PADDING);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec("0102030405060708".getBytes()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SealedObject sealedObject = new SealedObject(projectConfiguration, cipher);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new CipherOutputStream(out, cipher))) {
+            objectOutputStream.writeObject(sealedObject);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Serializable legacyReadProjectConfiguration() {
+        return RSAUtils.decryptObjectWithAES(key, legacyProjectConfiguration);
+    }
+
+    @Benchmark
+    public byte[] writeProjectConfiguration() {
+        return ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration);
+    }
+
+    @Benchmark
+    public ProjectConfigurationStoreModel readProjectConfiguration() {
+        return ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfigurationValue);
+    }
+
+    @Benchmark
+    public byte[] legacyWritePassword() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        return cipher.doFinal(PASSWORD.getBytes());
+    }
+
+    @Benchmark
+    public String legacyReadPassword() {
+        return RSAUtils.decryptWithAES(key, legacyPassword);
+    }
+
+    @Benchmark
+    public byte[] writePassword() {
+        return RSAUtils.encryptWithAES(key, PASSWORD);
+    }
+
+    @Benchmark
+    public String readPassword() {
+        return RSAUtils.decryptWithAES(key, password);
+    }
+
+}
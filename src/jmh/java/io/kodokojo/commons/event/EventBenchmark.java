@@ -0,0 +1,134 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building, serializing and parsing an {@link Event}, for small, medium and large payloads.
+ * Run with <code>-Djmh.args="-prof gc"</code> to get allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+
+    private static final String USER_PAYLOAD = "{\"id\":\"d9684b30a0e98b18821803e3d6f622b5816a447e\",\"email\":\"aletaxin@kodokojo.io\",\"username\":\"aletaxin\",\"entityId\":\"f78312857a2eff51507e7cfc702971dc936e8c32\"}";
+
+    @Param({"small", "medium", "large"})
+    public String payloadSize;
+
+    private final JsonToEventConverter jsonToEventConverter = new JsonToEventConverter() {};
+
+    private final GsonEventSerializer gsonEventSerializer = new GsonEventSerializer();
+
+    private final JsonParser jsonParser = new JsonParser();
+
+    private String payload;
+
+    private Event event;
+
+    private String json;
+
+    private JsonElement jsonElement;
+
+    @Setup
+    public void setup() {
+        payload = buildPayload(payloadSize);
+        event = newEventBuilder().build();
+        json = Event.convertToJson(event);
+        jsonElement = jsonParser.parse(json);
+    }
+
+    @Benchmark
+    public Event build() {
+        return newEventBuilder().build();
+    }
+
+    @Benchmark
+    public Event copyAndAddCustomHeader() {
+        return new EventBuilder(event).addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, "aletaxin").build();
+    }
+
+    @Benchmark
+    public String convertToJson() {
+        return Event.convertToJson(event);
+    }
+
+    @Benchmark
+    public Event convertFromJson() {
+        return jsonToEventConverter.converter(json);
+    }
+
+    @Benchmark
+    public String getPayload() {
+        return event.getPayload();
+    }
+
+    @Benchmark
+    public JsonElement gsonSerialize() {
+        return gsonEventSerializer.serialize(event, null, null);
+    }
+
+    @Benchmark
+    public Event gsonDeserialize() {
+        return gsonEventSerializer.deserialize(jsonElement, null, null);
+    }
+
+    private EventBuilder newEventBuilder() {
+        return new EventBuilder()
+                .setFrom("api@737b46e7-7668-44f3-9f93-f8000bceaaaa")
+                .setEventType("user_creation_request")
+                .setCategory(Event.Category.BUSINESS)
+                .setCorrelationId("5ce1e029-b477-4295-b549-a17d327037d5")
+                .addCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER, "f78312857a2eff51507e7cfc702971dc936e8c32")
+                .setJsonPayload(payload);
+    }
+
+    private static String buildPayload(String size) {
+        int userCount;
+        switch (size) {
+            case "small":
+                return USER_PAYLOAD;
+            case "medium":
+                userCount = 20;
+                break;
+            case "large":
+                userCount = 1000;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload size " + size);
+        }
+        StringBuilder sb = new StringBuilder("{\"users\":[");
+        for (int i = 0; i < userCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(USER_PAYLOAD);
+        }
+        return sb.append("]}").toString();
+    }
+
+}
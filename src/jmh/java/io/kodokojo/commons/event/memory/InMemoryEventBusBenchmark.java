@@ -0,0 +1,114 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.memory;
+
+import io.kodokojo.commons.config.MicroServiceConfig;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBus;
+import javaslang.control.Try;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end cost of the event bus without broker: publish then consume by another service, and request/reply.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryEventBusBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1", "4"})
+    public int instanceCount;
+
+    private final AtomicLong consumed = new AtomicLong();
+
+    private EventBus producer;
+
+    private EventBus consumer;
+
+    private Event event;
+
+    private long sent;
+
+    @Setup
+    public void setup() {
+        InMemoryEventBroker broker = new InMemoryEventBroker();
+        producer = new InMemoryEventBus(broker, microServiceConfig("gateway"), 1);
+        consumer = new InMemoryEventBus(broker, microServiceConfig("project"), instanceCount);
+        consumer.addEventListener(received -> {
+            if (received.getRequestReplyType() == Event.RequestReplyType.REQUEST) {
+                consumer.reply(received, new EventBuilder().setFrom(consumer.getFrom()).setEventType("pong").setJsonPayload("{}").build());
+            } else {
+                consumed.incrementAndGet();
+            }
+            return Try.success(Boolean.TRUE);
+        });
+        producer.connect();
+        consumer.connect();
+        event = new EventBuilder().setFrom(producer.getFrom()).setEventType("ping").setJsonPayload("{}").build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        producer.disconnect();
+        consumer.disconnect();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long publishAndConsume() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            producer.send(event);
+        }
+        sent += BATCH_SIZE;
+        while (consumed.get() < sent) {
+            Thread.yield();
+        }
+        return sent;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Event requestReply() throws InterruptedException {
+        return producer.request(event, 5, TimeUnit.SECONDS);
+    }
+
+    private static MicroServiceConfig microServiceConfig(String name) {
+        return new MicroServiceConfig() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String uuid() {
+                return name + "-benchmark";
+            }
+        };
+    }
+
+}
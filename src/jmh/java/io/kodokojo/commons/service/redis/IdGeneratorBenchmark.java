@@ -0,0 +1,82 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.event.CorrelationIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of identifier generation from 8 threads. Redis sequence is simulated by an <code>AtomicLong</code>,
+ * so <code>legacyId</code> doesn't include the round trip it did for each identifier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final String saltKey = new BigInteger(128, new SecureRandom()).toString(10);
+
+    private MessageDigest messageDigest;
+
+    private RedisIdGenerator idGenerator;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        messageDigest = MessageDigest.getInstance("SHA-1");
+        idGenerator = new RedisIdGenerator(sequence::addAndGet, RedisIdGenerator.DEFAULT_BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public String legacyId() {
+        String rand = new BigInteger(128, new SecureRandom()).toString(10);
+        String id = saltKey + rand + sequence.incrementAndGet();
+        synchronized (messageDigest) {
+            return RedisUtils.hexEncode(messageDigest.digest(id.getBytes()));
+        }
+    }
+
+    @Benchmark
+    public String leasedId() {
+        return idGenerator.generateId();
+    }
+
+    @Benchmark
+    public String uuidCorrelationId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String correlationId() {
+        return CorrelationIdGenerator.next();
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.model.StackType;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of recording a new brick state, by rewriting the whole project versus updating the single brick field.
+ * Require a Redis, set with <code>-Djmh.args="-p redisHost=... -p redisPort=..."</code>, excluded by default: run with <code>-Djmh.excludes=^$</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectStoreBenchmark {
+
+    private static final String[] BRICK_NAMES = {"gitlab", "jenkins", "nexus", "sonarqube", "dockerregistry"};
+
+    @Param({"localhost"})
+    public String redisHost;
+
+    @Param({"6379"})
+    public int redisPort;
+
+    @Param({"1", "10"})
+    public int stackCount;
+
+    private RedisProjectStore projectStore;
+
+    private Project project;
+
+    private BrickStateEvent brickStateEvent;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        SecretKey key = keyGenerator.generateKey();
+        projectStore = new RedisProjectStore(key, redisHost, redisPort, null);
+        Set<Stack> stacks = new HashSet<>();
+        for (int i = 0; i < stackCount; i++) {
+            String stackName = "build-" + i;
+            Set<BrickStateEvent> brickStateEvents = new HashSet<>();
+            for (String brickName : BRICK_NAMES) {
+                brickStateEvents.add(new BrickStateEvent("benchmark-projectconfiguration", stackName, "CI", brickName, BrickStateEvent.State.RUNNING, "https://" + brickName + "-benchmark.kodokojo.io", "latest"));
+            }
+            stacks.add(new Stack(stackName, StackType.BUILD, brickStateEvents));
+        }
+        project = new Project("benchmark-project", "benchmark-projectconfiguration", "benchmark", new Date(), stacks);
+        projectStore.updateProject(project);
+        brickStateEvent = new BrickStateEvent("benchmark-projectconfiguration", "build-0", "CI", "jenkins", BrickStateEvent.State.RUNNING, BrickStateEvent.State.STOPPED, null, null, "latest");
+    }
+
+    @TearDown
+    public void tearDown() {
+        projectStore.stop();
+    }
+
+    @Benchmark
+    public void updateProject() {
+        projectStore.updateProject(project);
+    }
+
+    @Benchmark
+    public boolean updateBrickState() {
+        return projectStore.updateBrickState(project.getIdentifier(), brickStateEvent);
+    }
+
+    @Benchmark
+    public Project read() {
+        return projectStore.getProjectByIdentifier(project.getIdentifier());
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
+import org.openjdk.jmh.annotations.*;
+import redis.clients.jedis.Jedis;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of writing a project configuration, with one round trip per command versus a single MULTI/EXEC, and of reading it.
+ * Require a Redis, set with <code>-Djmh.args="-p redisHost=... -p redisPort=..."</code>, excluded by default: run with <code>-Djmh.excludes=^$</code>. To simulate network latency on a local Redis,
+ * run <code>tc qdisc add dev lo root netem delay 1ms</code> before the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisStoreBenchmark {
+
+    @Param({"localhost"})
+    public String redisHost;
+
+    @Param({"6379"})
+    public int redisPort;
+
+    @Param({"2", "20"})
+    public int memberCount;
+
+    private SecretKey key;
+
+    private RedisProjectStore projectStore;
+
+    private Jedis jedis;
+
+    private ProjectConfigurationStoreModel projectConfiguration;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        key = keyGenerator.generateKey();
+        projectStore = new RedisProjectStore(key, redisHost, redisPort, null);
+        jedis = new Jedis(redisHost, redisPort);
+        List<String> admins = new ArrayList<>();
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            admins.add("benchmark-admin-" + i);
+            users.add("benchmark-user-" + i);
+        }
+        projectConfiguration = new ProjectConfigurationStoreModel("benchmark-entity", "benchmark-projectconfiguration", "benchmark", "benchmark-service", admins, Collections.emptySet(), users);
+        projectStore.updateProjectConfiguration(projectConfiguration);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jedis.close();
+        projectStore.stop();
+    }
+
+    @Benchmark
+    public void oneRoundTripPerCommand() {
+        String identifier = projectConfiguration.getIdentifier();
+        byte[] encryptedObject = RSAUtils.encryptObjectWithAES(key, projectConfiguration);
+        jedis.set(RedisUtils.aggregateKey(RedisProjectStore.PROJECTCONFIGURATION_PREFIX, identifier), encryptedObject);
+        for (String admin : projectConfiguration.getAdmins()) {
+            jedis.sadd(RedisUtils.aggregateKey(RedisProjectStore.USER_TO_PROJECTCONFIGS_PREFIX, admin), identifier.getBytes());
+        }
+        for (String user : projectConfiguration.getUsers()) {
+            jedis.sadd(RedisUtils.aggregateKey(RedisProjectStore.USER_TO_PROJECTCONFIGS_PREFIX, user), identifier.getBytes());
+        }
+        jedis.set(("projectConfigurationName/" + projectConfiguration.getName()).getBytes(), identifier.getBytes());
+    }
+
+    @Benchmark
+    public void transaction() {
+        projectStore.updateProjectConfiguration(projectConfiguration);
+    }
+
+    @Benchmark
+    public ProjectConfigurationStoreModel read() {
+        return projectStore.getProjectConfigurationById(projectConfiguration.getIdentifier());
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of compressing project values before encrypting them, on a project whose bricks went through their usual states.
+ * The size of each stored value, which is both the memory used by Redis for the value and the bytes sent on each read
+ * and write, is printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final String[][] BRICKS = {
+            {"gitlab", "SCM", "8.12.0-ce.0"},
+            {"jenkins", "CI", "1.651.3-alpine"},
+            {"nexus", "REPOSITORY", "oss"},
+            {"sonarqube", "QA", "latest"}
+    };
+
+    @Param({"1", "3"})
+    public int stackCount;
+
+    private SecretKey key;
+
+    private Project project;
+
+    private ProjectConfigurationStoreModel projectConfiguration;
+
+    private byte[] compressedProject;
+
+    private byte[] encryptedProject;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        key = keyGenerator.generateKey();
+        project = project(stackCount);
+        projectConfiguration = projectConfiguration(stackCount);
+
+        encryptedProject = write();
+        compressedProject = writeCompressed();
+        byte[] projectConfigurationValue = ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration);
+        byte[] compressedProjectConfigurationValue = ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration, CompressionDictionary.PROJECT);
+        System.out.printf("%nProject: %d bytes, compressed: %d bytes. ProjectConfiguration: %d bytes, compressed: %d bytes.%n", encryptedProject.length, compressedProject.length, projectConfigurationValue.length, compressedProjectConfigurationValue.length);
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return ModelCodecs.encodeEncrypted(key, ProjectCodec.INSTANCE, project);
+    }
+
+    @Benchmark
+    public byte[] writeCompressed() {
+        return ModelCodecs.encodeEncrypted(key, ProjectCodec.INSTANCE, project, CompressionDictionary.PROJECT);
+    }
+
+    @Benchmark
+    public Project read() {
+        return ModelCodecs.decodeEncrypted(key, ProjectCodec.INSTANCE, encryptedProject);
+    }
+
+    @Benchmark
+    public Project readCompressed() {
+        return ModelCodecs.decodeEncrypted(key, ProjectCodec.INSTANCE, compressedProject);
+    }
+
+    static Project project(int stackCount) {
+        String projectConfigurationIdentifier = "2b5e6d3f4a1c8e9b0d7f6a5c4b3e2d1f0a9b8c7d";
+        Set<Stack> stacks = new HashSet<>();
+        for (int i = 0; i < stackCount; i++) {
+            String stackName = "build-" + (char) ('A' + i);
+            Set<BrickStateEvent> brickStateEvents = new HashSet<>();
+            for (String[] brick : BRICKS) {
+                String url = "https://" + brick[0] + "-acme.kodokojo.io";
+                brickStateEvents.add(new BrickStateEvent(projectConfigurationIdentifier, stackName, brick[1], brick[0], BrickStateEvent.State.UNKNOWN, BrickStateEvent.State.STARTING, null, null, brick[2]));
+                brickStateEvents.add(new BrickStateEvent(projectConfigurationIdentifier, stackName, brick[1], brick[0], BrickStateEvent.State.STARTING, BrickStateEvent.State.CONFIGURING, url, null, brick[2]));
+                brickStateEvents.add(new BrickStateEvent(projectConfigurationIdentifier, stackName, brick[1], brick[0], BrickStateEvent.State.CONFIGURING, BrickStateEvent.State.RUNNING, url, null, brick[2]));
+            }
+            stacks.add(new Stack(stackName, StackType.BUILD, brickStateEvents));
+        }
+        return new Project("8f7e6d5c4b3a29180f1e2d3c4b5a69788f9e0d1c", projectConfigurationIdentifier, "acme", new Date(1476453600000L), stacks);
+    }
+
+    static ProjectConfigurationStoreModel projectConfiguration(int stackCount) {
+        Set<StackConfiguration> stackConfigurations = new HashSet<>();
+        for (int i = 0; i < stackCount; i++) {
+            Set<BrickConfiguration> brickConfigurations = new HashSet<>();
+            for (String[] brick : BRICKS) {
+                Map<String, Serializable> properties = new HashMap<>();
+                properties.put("url", "https://" + brick[0] + "-acme.kodokojo.io");
+                brickConfigurations.add(new BrickConfiguration(brick[0], BrickType.valueOf(brick[1]), brick[2], Collections.singleton(new PortDefinition(8080)), properties));
+            }
+            stackConfigurations.add(new StackConfiguration("build-" + (char) ('A' + i), StackType.BUILD, brickConfigurations, 10022 + i));
+        }
+        List<String> users = Arrays.asList("0a1b2c3d4e5f60718293a4b5c6d7e8f901234567", "1b2c3d4e5f60718293a4b5c6d7e8f90123456789");
+        return new ProjectConfigurationStoreModel("5f4e3d2c1b0a99887766554433221100ffeeddcc", "2b5e6d3f4a1c8e9b0d7f6a5c4b3e2d1f0a9b8c7d", "acme", "acme-service", users.subList(0, 1), stackConfigurations, users);
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of a project configuration, with Java serialization versus {@link ProjectConfigurationStoreModelCodec},
+ * in clear and encrypted as stored by {@link io.kodokojo.commons.service.redis.RedisProjectStore}.
+ * The size of each form is printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelCodecBenchmark {
+
+    @Param({"2", "20"})
+    public int memberCount;
+
+    private SecretKey key;
+
+    private ProjectConfigurationStoreModel projectConfiguration;
+
+    private byte[] serialized;
+
+    private byte[] encoded;
+
+    private byte[] legacyEncrypted;
+
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        key = keyGenerator.generateKey();
+        List<String> admins = new ArrayList<>();
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            admins.add("benchmark-admin-" + i);
+            users.add("benchmark-user-" + i);
+        }
+        Set<BrickConfiguration> brickConfigurations = new HashSet<>();
+        brickConfigurations.add(new BrickConfiguration("gitlab", BrickType.SCM, "8.5.2-ce.0", new HashSet<>(Arrays.asList(new PortDefinition(80), new PortDefinition(PortDefinition.Type.SSH, PortDefinition.DYNAMIC_PORT, 22)))));
+        brickConfigurations.add(new BrickConfiguration("jenkins", BrickType.CI, "1.651-alpine", Collections.singleton(new PortDefinition(8080))));
+        brickConfigurations.add(new BrickConfiguration("nexus", BrickType.REPOSITORY, "oss", Collections.singleton(new PortDefinition(8081))));
+        StackConfiguration stackConfiguration = new StackConfiguration("build-A", StackType.BUILD, brickConfigurations, 10022);
+        projectConfiguration = new ProjectConfigurationStoreModel("benchmark-entity", "benchmark-projectconfiguration", "benchmark", "benchmark-service", admins, Collections.singleton(stackConfiguration), users);
+
+        serialized = javaSerializationEncode();
+        encoded = codecEncode();
+        legacyEncrypted = legacyEncryptedEncode();
+        encrypted = encryptedEncode();
+        System.out.printf("%nJava serialization: %d bytes, codec: %d bytes, legacy encrypted: %d bytes, encrypted: %d bytes.%n", serialized.length, encoded.length, legacyEncrypted.length, encrypted.length);
+    }
+
+    @Benchmark
+    public byte[] javaSerializationEncode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(out)) {
+            objectOutputStream.writeObject(projectConfiguration);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaSerializationDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return ModelCodecs.encode(ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration);
+    }
+
+    @Benchmark
+    public ProjectConfigurationStoreModel codecDecode() {
+        return ModelCodecs.decode(ProjectConfigurationStoreModelCodec.INSTANCE, encoded);
+    }
+
+    @Benchmark
+    public byte[] legacyEncryptedEncode() {
+        return RSAUtils.encryptObjectWithAES(key, projectConfiguration);
+    }
+
+    @Benchmark
+    public Object legacyEncryptedDecode() {
+        return RSAUtils.decryptObjectWithAES(key, legacyEncrypted);
+    }
+
+    @Benchmark
+    public byte[] encryptedEncode() {
+        return ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration);
+    }
+
+    @Benchmark
+    public ProjectConfigurationStoreModel encryptedDecode() {
+        return ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, encrypted);
+    }
+
+}
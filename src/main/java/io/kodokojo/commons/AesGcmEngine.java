@@ -0,0 +1,188 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons;
+
+import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.*;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encrypt and authenticate values in a single pass with AES-GCM.
+ * <p>
+ * An encrypted value is {@link #FORMAT}, a random nonce of {@link #NONCE_LENGTH} bytes, then the cipher text followed by
+ * the authentication tag. <code>Cipher</code> instances are cached per thread, and initialized with a new nonce on each call.
+ * </p>
+ */
+public final class AesGcmEngine {
+
+    public static final int FORMAT = 0x47;
+
+    public static final int NONCE_LENGTH = 12;
+
+    public static final int TAG_LENGTH = 16;
+
+    public static final int OVERHEAD = 1 + NONCE_LENGTH + TAG_LENGTH;
+
+    private static final String AES_GCM_NO_PADDING = "AES/GCM/NoPadding";
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(AesGcmEngine::newCipher);
+
+    //  SecureRandom is thread safe, but synchronized on most platforms.
+    private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(SecureRandom::new);
+
+    private AesGcmEngine() {
+        // Utility class.
+    }
+
+    public static int encryptedLength(int plainLength) {
+        return plainLength + OVERHEAD;
+    }
+
+    /**
+     * @return <code>true</code> if given value may have been encrypted by this engine. Only a successful decryption prove it.
+     */
+    public static boolean isEncrypted(byte[] buffer, int offset, int length) {
+        return length >= OVERHEAD && (buffer[offset] & 0xFF) == FORMAT;
+    }
+
+    public static byte[] encrypt(Key key, byte[] plain) {
+        requireNonNull(plain, "plain must be defined.");
+        byte[] res = new byte[encryptedLength(plain.length)];
+        encrypt(key, plain, 0, plain.length, res, 0);
+        return res;
+    }
+
+    /**
+     * Encrypt directly into given output, which must have {@link #encryptedLength(int)} bytes available from <code>outputOffset</code>.
+     * @return The number of bytes written.
+     */
+    public static int encrypt(Key key, byte[] plain, int offset, int length, byte[] output, int outputOffset) {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(plain, "plain must be defined.");
+        requireNonNull(output, "output must be defined.");
+        if (output.length - outputOffset < encryptedLength(length)) {
+            throw new IllegalArgumentException("output must have " + encryptedLength(length) + " bytes available.");
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOMS.get().nextBytes(nonce);
+        output[outputOffset] = FORMAT;
+        System.arraycopy(nonce, 0, output, outputOffset + 1, NONCE_LENGTH);
+        Cipher cipher = CIPHERS.get();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            return 1 + NONCE_LENGTH + cipher.doFinal(plain, offset, length, output, outputOffset + 1 + NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt with AES-GCM.", e);
+        }
+    }
+
+    public static byte[] decrypt(Key key, byte[] encrypted) throws AEADBadTagException {
+        requireNonNull(encrypted, "encrypted must be defined.");
+        return decrypt(key, encrypted, 0, encrypted.length);
+    }
+
+    /**
+     * @throws AEADBadTagException If the value wasn't encrypted by this engine with given key, or was altered.
+     */
+    public static byte[] decrypt(Key key, byte[] encrypted, int offset, int length) throws AEADBadTagException {
+        requireNonNull(encrypted, "encrypted must be defined.");
+        byte[] res = new byte[Math.max(0, length - OVERHEAD)];
+        decrypt(key, encrypted, offset, length, res, 0);
+        return res;
+    }
+
+    /**
+     * Decrypt directly into given output, which must have <code>length - {@link #OVERHEAD}</code> bytes available from <code>outputOffset</code>.
+     * @return The number of bytes written.
+     * @throws AEADBadTagException If the value wasn't encrypted by this engine with given key, or was altered.
+     */
+    public static int decrypt(Key key, byte[] encrypted, int offset, int length, byte[] output, int outputOffset) throws AEADBadTagException {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(encrypted, "encrypted must be defined.");
+        requireNonNull(output, "output must be defined.");
+        if (!isEncrypted(encrypted, offset, length)) {
+            throw new AEADBadTagException("Value isn't encrypted with AES-GCM.");
+        }
+        Cipher cipher = CIPHERS.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, encrypted, offset + 1, NONCE_LENGTH));
+            return cipher.doFinal(encrypted, offset + 1 + NONCE_LENGTH, length - 1 - NONCE_LENGTH, output, outputOffset);
+        } catch (AEADBadTagException e) {
+            throw e;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to decrypt with AES-GCM.", e);
+        }
+    }
+
+    /**
+     * Encrypt everything written in the returned stream into <code>out</code>, in the same format as {@link #encrypt(Key, byte[])}.
+     * The value is only complete once the returned stream is closed.
+     */
+    public static OutputStream encryptingStream(Key key, OutputStream out) throws IOException {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(out, "out must be defined.");
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOMS.get().nextBytes(nonce);
+        //  A stream may outlive the current call, so it can't share the cached Cipher of the thread.
+        Cipher cipher = newCipher();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt with AES-GCM.", e);
+        }
+        out.write(FORMAT);
+        out.write(nonce);
+        return new CipherOutputStream(out, cipher);
+    }
+
+    /**
+     * Decrypt a value written by {@link #encryptingStream(Key, OutputStream)} or {@link #encrypt(Key, byte[])}.
+     * The authentication tag is checked at the end of the stream, so data read before must not be trusted until then.
+     */
+    public static InputStream decryptingStream(Key key, InputStream in) throws IOException {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(in, "in must be defined.");
+        if (in.read() != FORMAT) {
+            throw new StreamCorruptedException("Value isn't encrypted with AES-GCM.");
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        new DataInputStream(in).readFully(nonce);
+        Cipher cipher = newCipher();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to decrypt with AES-GCM.", e);
+        }
+        return new CipherInputStream(in, cipher);
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(AES_GCM_NO_PADDING);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("Unable to create an " + AES_GCM_NO_PADDING + " Cipher.", e);
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import javax.crypto.*;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
@@ -236,7 +237,21 @@ public class RSAUtils {
     }
 
 
+    /**
+     * Encrypt with AES-GCM, see {@link AesGcmEngine}.
+     */
     public static byte[] encryptWithAES(Key key, String data) {
+        return encryptWithAES(key, data, false);
+    }
+
+    /**
+     * @param legacyFormat Encrypt with AES/ECB as previous versions did, so they can still read the value during a rolling deploy.
+     */
+    public static byte[] encryptWithAES(Key key, String data, boolean legacyFormat) {
+        requireNonNull(data, "data must be defined.");
+        if (!legacyFormat) {
+            return encryptBytesWithAES(key, data.getBytes(StandardCharsets.UTF_8));
+        }
         try {
             Cipher cipher = Cipher.getInstance("AES");
             cipher.init(Cipher.ENCRYPT_MODE, key);
@@ -246,7 +261,15 @@ public class RSAUtils {
         }
     }
 
+    /**
+     * Decrypt a value written by {@link #encryptWithAES(Key, String)}, or by its previous AES/ECB implementation.
+     */
     public static String decryptWithAES(Key key, byte[] encrypted) {
+        requireNonNull(encrypted, "encrypted must be defined.");
+        byte[] decrypted = decryptWithAESGcm(key, encrypted, 0, encrypted.length);
+        if (decrypted != null) {
+            return new String(decrypted, StandardCharsets.UTF_8);
+        }
         try {
             Cipher cipher = Cipher.getInstance("AES");
             cipher.init(Cipher.DECRYPT_MODE, key);
@@ -256,12 +279,59 @@ public class RSAUtils {
         }
     }
 
-    public static byte[] encryptObjectWithAES(Key key, Serializable data) {
-        requireNonNull(key, "key must be defined.");
-        if (!AES.equals(key.getAlgorithm())) {
-            throw new IllegalArgumentException("key must be an AES key, not a  " + key.getAlgorithm() + " .");
+    public static byte[] encryptBytesWithAES(Key key, byte[] data) {
+        requireAesKey(key);
+        requireNonNull(data, "data must be defined.");
+        return AesGcmEngine.encrypt(key, data);
+    }
+
+    /**
+     * Decrypt a value written by {@link #encryptBytesWithAES(Key, byte[])}, or by its previous AES/CBC implementation.
+     */
+    public static byte[] decryptBytesWithAES(Key key, byte[] encrypted, int offset, int length) {
+        requireAesKey(key);
+        requireNonNull(encrypted, "encrypted must be defined.");
+        byte[] decrypted = decryptWithAESGcm(key, encrypted, offset, length);
+        if (decrypted != null) {
+            return decrypted;
         }
+        try {
+            Cipher cipher = Cipher.getInstance(AES_CBC_PKCS5_PADDING);
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key.getEncoded(), AES), new IvParameterSpec(IV_PARAMETERSPEC_BYTES));
+            return cipher.doFinal(encrypted, offset, length);
+        } catch (InvalidAlgorithmParameterException | NoSuchPaddingException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to create Cipher", e);
+        }
+    }
+
+    /**
+     * Serialize then encrypt once with AES-GCM.
+     */
+    public static byte[] encryptObjectWithAES(Key key, Serializable data) {
+        return encryptObjectWithAES(key, data, false);
+    }
+
+    /**
+     * @param legacyFormat Write a <code>SealedObject</code> inside a <code>CipherOutputStream</code>, both with AES/CBC, as previous
+     *                     versions did, so they can still read the value during a rolling deploy.
+     */
+    public static byte[] encryptObjectWithAES(Key key, Serializable data, boolean legacyFormat) {
+        requireAesKey(key);
         requireNonNull(data, "data must be defined.");
+        if (legacyFormat) {
+            return encryptSealedObjectWithAES(key, data);
+        }
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(out)) {
+                objectOutputStream.writeObject(data);
+            }
+            return AesGcmEngine.encrypt(key, out.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to serialize " + data.getClass().getName(), e);
+        }
+    }
+
+    private static byte[] encryptSealedObjectWithAES(Key key, Serializable data) {
         try {
             IvParameterSpec iv = new IvParameterSpec(IV_PARAMETERSPEC_BYTES);
             Cipher cipher = Cipher.getInstance(AES_CBC_PKCS5_PADDING);
@@ -279,13 +349,20 @@ public class RSAUtils {
         }
     }
 
+    /**
+     * Decrypt a value written by {@link #encryptObjectWithAES(Key, Serializable)}, or by its previous implementation
+     * which wrote a <code>SealedObject</code> inside a <code>CipherOutputStream</code>.
+     */
     public static Serializable decryptObjectWithAES(Key key, byte[] encrypted) {
-        requireNonNull(key, "key must be defined.");
-        if (!key.getAlgorithm().equals("AES")) {
-            throw new IllegalArgumentException("key must be an AES key, not a  " + key.getAlgorithm() + " .");
-        }
+        requireAesKey(key);
         requireNonNull(encrypted, "encrypted must be defined.");
+        byte[] decrypted = decryptWithAESGcm(key, encrypted, 0, encrypted.length);
         try {
+            if (decrypted != null) {
+                try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(decrypted))) {
+                    return (Serializable) objectInputStream.readObject();
+                }
+            }
             IvParameterSpec iv = new IvParameterSpec(IV_PARAMETERSPEC_BYTES);
             SecretKeySpec spec = new SecretKeySpec(key.getEncoded(), AES);
             Cipher cipher = Cipher.getInstance(AES_CBC_PKCS5_PADDING);
@@ -302,5 +379,23 @@ public class RSAUtils {
         }
     }
 
+    //  Return null if the value wasn't encrypted with AES-GCM, to fallback on legacy formats.
+    private static byte[] decryptWithAESGcm(Key key, byte[] encrypted, int offset, int length) {
+        if (!AesGcmEngine.isEncrypted(encrypted, offset, length)) {
+            return null;
+        }
+        try {
+            return AesGcmEngine.decrypt(key, encrypted, offset, length);
+        } catch (AEADBadTagException e) {
+            return null;
+        }
+    }
+
+    private static void requireAesKey(Key key) {
+        requireNonNull(key, "key must be defined.");
+        if (!AES.equals(key.getAlgorithm())) {
+            throw new IllegalArgumentException("key must be an AES key, not a  " + key.getAlgorithm() + " .");
+        }
+    }
 
 }
@@ -0,0 +1,52 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface EventJournalConfig extends PropertyConfig {
+
+    @Key(value = "journal.enabled", defaultValue = "false")
+    Boolean enabled();
+
+    /**
+     * Directory of journal segments, required when journal is enabled.
+     */
+    @Key(value = "journal.directory")
+    String directory();
+
+    @Key(value = "journal.segment.maxSize", defaultValue = "67108864")
+    Long segmentMaxSize();
+
+    @Key(value = "journal.index.interval", defaultValue = "128")
+    Integer indexInterval();
+
+    /**
+     * Max size in bytes of all journal segments, oldest segments are deleted beyond. <code>0</code> for no limit.
+     */
+    @Key(value = "journal.retention.maxSize", defaultValue = "1073741824")
+    Long retentionMaxSize();
+
+    /**
+     * Max age in milliseconds of a journal segment since its last write. <code>0</code> for no limit.
+     */
+    @Key(value = "journal.retention.maxAgeMillis", defaultValue = "604800000")
+    Long retentionMaxAgeMillis();
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface EventSchedulerConfig extends PropertyConfig {
+
+    /**
+     * Schedule events received by listeners bound with {@link io.kodokojo.commons.config.module.EventBusModule}, or later added to its EventBus like an {@link io.kodokojo.commons.service.actor.EventToEndpointGateway}, fairly between organisations.
+     */
+    @Key(value = "scheduler.enabled", defaultValue = "false")
+    Boolean enabled();
+
+    @Key(value = "scheduler.workers", defaultValue = "8")
+    Integer workers();
+
+    /**
+     * Maximum number of events waiting to be processed, receiving a new event block while this capacity is reached.
+     */
+    @Key(value = "scheduler.capacity", defaultValue = "1000")
+    Integer capacity();
+
+    /**
+     * Number of events an organisation of weight 1 may process on each round.
+     */
+    @Key(value = "scheduler.quantum", defaultValue = "1")
+    Integer quantum();
+
+    @Key(value = "scheduler.organisation.maxConcurrency", defaultValue = "2")
+    Integer organisationMaxConcurrency();
+
+    /**
+     * Max number of events without organisation processed at the same time, <code>0</code> to only be limited by the number of workers.
+     */
+    @Key(value = "scheduler.noOrganisation.maxConcurrency", defaultValue = "0")
+    Integer noOrganisationMaxConcurrency();
+
+    /**
+     * Weight of organisations which should get a larger share, like <code>organisationId1:4,organisationId2:2</code>. Default weight is 1.
+     */
+    @Key("scheduler.organisation.weights")
+    String organisationWeights();
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface NearCacheConfig extends PropertyConfig {
+
+    @Key(value = "cache.enabled", defaultValue = "false")
+    Boolean enabled();
+
+    @Key(value = "cache.ttlMillis", defaultValue = "60000")
+    Long ttlMillis();
+
+    /**
+     * Each user weigh 1.
+     */
+    @Key(value = "cache.users.maxWeight", defaultValue = "10000")
+    Long usersMaxWeight();
+
+    /**
+     * Each project configuration weigh 1 plus its number of team leaders and users.
+     */
+    @Key(value = "cache.projectConfigurations.maxWeight", defaultValue = "20000")
+    Long projectConfigurationsMaxWeight();
+
+}
@@ -58,4 +58,30 @@ public interface RabbitMqConfig extends PropertyConfig {
 
     @Key(value = "rabbitmq.virtualhost", defaultValue = "/")
     String virtualHost();
+
+    /**
+     * Timeout of requests is the observed p99 reply latency multiplied by this factor, bounded by the duration given by the caller.
+     * <code>0</code> disable adaptive timeouts. Only applied to event types listed in <code>rabbitmq.request.timeout.adaptiveEventTypes</code>.
+     */
+    @Key(value = "rabbitmq.request.timeout.p99Factor", defaultValue = "0")
+    Integer requestTimeoutP99Factor();
+
+    /**
+     * Event types, separated by commas, which requests may have their timeout adapted from observed reply latencies.
+     */
+    @Key(value = "rabbitmq.request.timeout.adaptiveEventTypes")
+    String requestTimeoutAdaptiveEventTypes();
+
+    @Key(value = "rabbitmq.request.timeout.minSampleCount", defaultValue = "50")
+    Integer requestTimeoutMinSampleCount();
+
+    /**
+     * Number of partitions of the business queue, <code>0</code> to use a single business queue.
+     * Partitioning require the consistent hash exchange plugin, and disables hedged requests.
+     */
+    @Key(value = "rabbitmq.business.partitions", defaultValue = "0")
+    Integer businessPartitionCount();
+
+    @Key(value = "rabbitmq.business.partitions.heartbeatMillis", defaultValue = "5000")
+    Long businessPartitionHeartbeatMillis();
 }
@@ -28,6 +28,24 @@ public interface RedisConfig extends PropertyConfig {
 
     String REDIS_PASSWORD = "redis.password";
 
+    String REDIS_COMPRESSION = "redis.compression";
+
+    String REDIS_LEGACY_FORMAT = "redis.legacyFormat";
+
+    String REDIS_MODE = "redis.mode";
+
+    String REDIS_NODES = "redis.nodes";
+
+    String REDIS_REPLICAS = "redis.replicas";
+
+    String REDIS_READ_YOUR_WRITES_MILLIS = "redis.readYourWritesMillis";
+
+    String REDIS_IO_THREADS = "redis.io.threads";
+
+    String REDIS_IO_QUEUE_SIZE = "redis.io.queueSize";
+
+    String REDIS_IO_PIPELINED = "redis.io.pipelined";
+
     @Key(value = REDIS_HOST, defaultValue = "redis")
     String host();
 
@@ -37,4 +55,59 @@ public interface RedisConfig extends PropertyConfig {
     @Key(value = REDIS_PASSWORD)
     String password();
 
+    /**
+     * Compress project and organisation values before encrypting them. Values are read whatever this setting.
+     */
+    @Key(value = REDIS_COMPRESSION, defaultValue = "false")
+    Boolean compression();
+
+    /**
+     * Write values with Java serialization and the AES formats of previous versions, so they can read them during a rolling deploy.
+     * Set to <code>false</code> once no instance of a previous version is running. Values are read whatever this setting.
+     */
+    @Key(value = REDIS_LEGACY_FORMAT, defaultValue = "true")
+    Boolean legacyFormat();
+
+    /**
+     * How keys are spread over Redis nodes: <code>standalone</code>, <code>sharded</code> over standalone nodes by consistent hashing, or <code>cluster</code>.
+     */
+    @Key(value = REDIS_MODE, defaultValue = "standalone")
+    String mode();
+
+    /**
+     * Redis nodes as <code>host:port</code> separated by commas, for <code>sharded</code> and <code>cluster</code> modes. Default to <code>host:port</code>.
+     */
+    @Key(value = REDIS_NODES)
+    String nodes();
+
+    /**
+     * Replicas of the Redis node as <code>host:port</code> separated by commas, read by services using {@link io.kodokojo.commons.config.module.RedisReadOnlyModule} in <code>standalone</code> mode.
+     */
+    @Key(value = REDIS_REPLICAS)
+    String replicas();
+
+    /**
+     * Delay after a write of a service during which its reads are sent to the primary node rather than to a replica which may lag.
+     */
+    @Key(value = REDIS_READ_YOUR_WRITES_MILLIS, defaultValue = "1000")
+    Long readYourWritesMillis();
+
+    /**
+     * Threads running the store calls a repository composes concurrently.
+     */
+    @Key(value = REDIS_IO_THREADS, defaultValue = "16")
+    Integer ioThreads();
+
+    /**
+     * Store calls waiting for an I/O thread, beyond which calls run on the calling thread.
+     */
+    @Key(value = REDIS_IO_QUEUE_SIZE, defaultValue = "1000")
+    Integer ioQueueSize();
+
+    /**
+     * Merge users fetched concurrently by a repository into a single read.
+     */
+    @Key(value = REDIS_IO_PIPELINED, defaultValue = "false")
+    Boolean ioPipelined();
+
 }
@@ -0,0 +1,41 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface TracingConfig extends PropertyConfig {
+
+    String SINK_MEMORY = "memory";
+
+    String SINK_FILE = "file";
+
+    @Key(value = "tracing.sampleRate", defaultValue = "0")
+    Double sampleRate();
+
+    @Key(value = "tracing.sink", defaultValue = SINK_MEMORY)
+    String sink();
+
+    @Key(value = "tracing.file", defaultValue = "/tmp/kodokojo-spans.log")
+    String file();
+
+    @Key(value = "tracing.memory.capacity", defaultValue = "10000")
+    Integer memoryCapacity();
+
+}
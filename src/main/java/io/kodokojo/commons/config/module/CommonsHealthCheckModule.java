@@ -4,11 +4,14 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.name.Names;
 import io.kodokojo.commons.config.RabbitMqConfig;
 import io.kodokojo.commons.config.RedisConfig;
 import io.kodokojo.commons.service.healthcheck.HealthChecker;
+import io.kodokojo.commons.service.healthcheck.HttpHealthCheckEndpoint;
 import io.kodokojo.commons.service.healthcheck.RabbitMqHealthChecker;
 import io.kodokojo.commons.service.healthcheck.RedisHealthChecker;
+import io.kodokojo.commons.spark.SparkEndpoint;
 
 public class CommonsHealthCheckModule extends AbstractModule {
 
@@ -17,6 +20,8 @@ public class CommonsHealthCheckModule extends AbstractModule {
         Multibinder<HealthChecker> sparkEndpointBinder = Multibinder.newSetBinder(binder(), HealthChecker.class);
         sparkEndpointBinder.addBinding().to(RedisHealthChecker.class);
         sparkEndpointBinder.addBinding().to(RabbitMqHealthChecker.class);
+        // Other modules may add operational endpoints served next to the health check, like CommonsMetricsModule.
+        Multibinder.newSetBinder(binder(), SparkEndpoint.class, Names.named(HttpHealthCheckEndpoint.OPERATIONAL_ENDPOINTS));
     }
 
     @Singleton
@@ -0,0 +1,27 @@
+package io.kodokojo.commons.config.module;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.name.Names;
+import io.kodokojo.commons.service.healthcheck.HttpHealthCheckEndpoint;
+import io.kodokojo.commons.service.metrics.HttpMetricsEndpoint;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+import io.kodokojo.commons.spark.SparkEndpoint;
+
+public class CommonsMetricsModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        Multibinder<SparkEndpoint> sparkEndpointBinder = Multibinder.newSetBinder(binder(), SparkEndpoint.class, Names.named(HttpHealthCheckEndpoint.OPERATIONAL_ENDPOINTS));
+        sparkEndpointBinder.addBinding().to(HttpMetricsEndpoint.class);
+    }
+
+    @Singleton
+    @Provides
+    HttpMetricsEndpoint provideHttpMetricsEndpoint(MetricRegistry metricRegistry) {
+        return new HttpMetricsEndpoint(metricRegistry);
+    }
+
+}
@@ -126,10 +126,34 @@ public class CommonsPropertyModule extends AbstractModule {
     @Singleton
     RedisConfig provideRedisConfig(PropertyValueProvider valueProvider) {
         RedisConfig redisConfig = createConfig(RedisConfig.class, valueProvider);
-        LOGGER.info("Redis instance : {}:{}", redisConfig.host(), redisConfig.port());
+        LOGGER.info("Redis instance : {}:{} in {} mode", redisConfig.host(), redisConfig.port(), redisConfig.mode());
         return redisConfig;
     }
 
+    @Provides
+    @Singleton
+    TracingConfig provideTracingConfig(PropertyValueProvider valueProvider) {
+        return createConfig(TracingConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    EventJournalConfig provideEventJournalConfig(PropertyValueProvider valueProvider) {
+        return createConfig(EventJournalConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    EventSchedulerConfig provideEventSchedulerConfig(PropertyValueProvider valueProvider) {
+        return createConfig(EventSchedulerConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    NearCacheConfig provideNearCacheConfig(PropertyValueProvider valueProvider) {
+        return createConfig(NearCacheConfig.class, valueProvider);
+    }
+
     @Provides
     @Singleton
     ElasticSearchConfig provideElasticSearchConfig(PropertyValueProvider valueProvider) {
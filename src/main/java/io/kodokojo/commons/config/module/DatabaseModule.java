@@ -18,12 +18,18 @@
 package io.kodokojo.commons.config.module;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import io.kodokojo.commons.config.ElasticSearchConfig;
 import io.kodokojo.commons.config.RedisConfig;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.cache.NearCacheInvalidationPublisher;
 import io.kodokojo.commons.service.elasticsearch.ElasticSearchSearcher;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
+import io.kodokojo.commons.service.redis.RedisKeyRouter;
+import io.kodokojo.commons.service.redis.RedisKeyRouters;
 import io.kodokojo.commons.service.redis.RedisOrganisationStore;
 import io.kodokojo.commons.service.redis.RedisProjectStore;
 import io.kodokojo.commons.service.redis.RedisUserRepository;
@@ -44,10 +50,31 @@ public class DatabaseModule extends AbstractModule {
 
     @Provides
     @Singleton
-    Repository provideRepository(OrganisationStore organisationStore, ProjectStore projectStore, @Named("securityKey") SecretKey secretKey, RedisConfig redisConfig, ElasticSearchSearcher elasticSearchSearcher,  ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisUserRepository redisUserManager = new RedisUserRepository(secretKey, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    IoExecutor provideIoExecutor(RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        IoExecutor ioExecutor = new IoExecutor("redis-io", redisConfig.ioThreads(), redisConfig.ioQueueSize());
+        applicationLifeCycleManager.addService(ioExecutor);
+        return ioExecutor;
+    }
+
+    /**
+     * Shared by all stores, so they share their connections. Closed once the application stops, stores leave it open.
+     */
+    @Provides
+    @Singleton
+    RedisKeyRouter provideRedisKeyRouter(RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        RedisKeyRouter redisKeyRouter = RedisKeyRouters.create(redisConfig);
+        applicationLifeCycleManager.addService(RedisKeyRouters.closeOnStop(redisKeyRouter));
+        return redisKeyRouter;
+    }
+
+    @Provides
+    @Singleton
+    Repository provideRepository(OrganisationStore organisationStore, ProjectStore projectStore, @Named("securityKey") SecretKey secretKey, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ElasticSearchSearcher elasticSearchSearcher,  ApplicationLifeCycleManager applicationLifeCycleManager, IoExecutor ioExecutor, Provider<EventBus> eventBusProvider, EventBuilderFactory eventBuilderFactory) {
+        RedisUserRepository redisUserManager = new RedisUserRepository(secretKey, redisKeyRouter, redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(redisUserManager);
-        return new Repository(redisUserManager, redisUserManager, organisationStore, projectStore, elasticSearchSearcher);
+        //  Near caches of other services are invalidated once a write succeeded.
+        NearCacheInvalidationPublisher nearCacheInvalidationPublisher = new NearCacheInvalidationPublisher(eventBusProvider, eventBuilderFactory);
+        return new Repository(redisUserManager, redisUserManager, organisationStore, projectStore, elasticSearchSearcher, ioExecutor, redisConfig.ioPipelined(), nearCacheInvalidationPublisher);
     }
 
     @Provides
@@ -83,16 +110,16 @@ public class DatabaseModule extends AbstractModule {
 
     @Provides
     @Singleton
-    OrganisationStore provideEntityStore(@Named("securityKey") SecretKey key, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisOrganisationStore entityStore = new RedisOrganisationStore(key, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    OrganisationStore provideEntityStore(@Named("securityKey") SecretKey key, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        RedisOrganisationStore entityStore = new RedisOrganisationStore(key, redisKeyRouter, redisConfig.compression(), redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(entityStore);
         return entityStore;
     }
 
     @Provides
     @Singleton
-    ProjectStore provideProjectStore(@Named("securityKey") SecretKey key, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisProjectStore redisProjectStore = new RedisProjectStore(key, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    ProjectStore provideProjectStore(@Named("securityKey") SecretKey key, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        RedisProjectStore redisProjectStore = new RedisProjectStore(key, redisKeyRouter, redisConfig.compression(), redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(redisProjectStore);
         return redisProjectStore;
     }
@@ -18,25 +18,45 @@
 package io.kodokojo.commons.config.module;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
+import io.kodokojo.commons.config.EventJournalConfig;
+import io.kodokojo.commons.config.EventSchedulerConfig;
 import io.kodokojo.commons.config.MicroServiceConfig;
 import io.kodokojo.commons.config.RabbitMqConfig;
+import io.kodokojo.commons.config.TracingConfig;
+import io.kodokojo.commons.event.CompositeEventListener;
 import io.kodokojo.commons.event.DefaultEventBuilderFactory;
 import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.event.JsonToEventConverter;
+import io.kodokojo.commons.event.journal.EventJournal;
+import io.kodokojo.commons.event.trace.EventTracer;
+import io.kodokojo.commons.event.trace.FileSpanSink;
+import io.kodokojo.commons.event.trace.InMemorySpanSink;
+import io.kodokojo.commons.event.trace.SpanSink;
 import io.kodokojo.commons.model.ServiceInfo;
 import io.kodokojo.commons.rabbitmq.RabbitMqConnectionFactory;
 import io.kodokojo.commons.rabbitmq.RabbitMqEventBus;
+import io.kodokojo.commons.service.actor.WeightedFairEventScheduler;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
+import io.kodokojo.commons.service.metrics.EventBusMetrics;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+
+import java.io.File;
+import java.util.Set;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
 
 public class EventBusModule extends AbstractModule {
 
     @Override
     protected void configure() {
-        // Nothing to do.
+        //  Other modules may add listeners registered on the EventBus, like RedisReadOnlyModule.
+        Multibinder.newSetBinder(binder(), EventBus.EventListener.class);
     }
 
 
@@ -48,10 +68,10 @@ public class EventBusModule extends AbstractModule {
 
     @Provides
     @Singleton
-    RabbitMqEventBus provideRabbitMqEventBus(RabbitMqConfig rabbitMqConfig, MicroServiceConfig microServiceConfig, RabbitMqConnectionFactory rabbitMqConnectionFactory, EventBuilderFactory eventBuilderFactory, ApplicationLifeCycleManager applicationLifeCycleManager, ServiceInfo serviceInfo) {
+    RabbitMqEventBus provideRabbitMqEventBus(RabbitMqConfig rabbitMqConfig, MicroServiceConfig microServiceConfig, RabbitMqConnectionFactory rabbitMqConnectionFactory, EventBuilderFactory eventBuilderFactory, ApplicationLifeCycleManager applicationLifeCycleManager, ServiceInfo serviceInfo, EventTracer eventTracer, EventBusMetrics eventBusMetrics, EventJournalConfig eventJournalConfig, Provider<EventJournal> eventJournalProvider, EventSchedulerConfig eventSchedulerConfig, MetricRegistry metricRegistry, Set<EventBus.EventListener> eventListeners) {
 
         //RabbitMqEventBus rabbitMqEventBus = new RabbitMqEventBus(rabbitMqConfig, microServiceConfig, rabbitMqConnectionFactory, new JsonToEventConverter() {        }, eventBuilderFactory, serviceInfo);
-        RabbitMqEventBus rabbitMqEventBus = new RabbitMqEventBus(rabbitMqConfig, rabbitMqConnectionFactory, new JsonToEventConverter() {}, microServiceConfig, serviceInfo);
+        RabbitMqEventBus rabbitMqEventBus = new RabbitMqEventBus(rabbitMqConfig, rabbitMqConnectionFactory, new JsonToEventConverter() {}, microServiceConfig, serviceInfo, eventTracer, eventBusMetrics);
                 applicationLifeCycleManager.addService(new ApplicationLifeCycleListener() {
                     @Override
                     public void start() {
@@ -63,6 +83,22 @@ public class EventBusModule extends AbstractModule {
                         rabbitMqEventBus.disconnect();
                     }
                 });
+        if (eventJournalConfig.enabled()) {
+            EventJournal eventJournal = eventJournalProvider.get();
+            applicationLifeCycleManager.addService(eventJournal);
+            rabbitMqEventBus.addEventListener(eventJournal);
+            rabbitMqEventBus.addPublishedEventListener(eventJournal);
+        }
+        if (eventSchedulerConfig.enabled()) {
+            //  Events are acknowledged once all bound listeners, and listeners added later like an EventToEndpointGateway, processed them.
+            CompositeEventListener scheduledListeners = new CompositeEventListener();
+            eventListeners.forEach(scheduledListeners::addEventListener);
+            WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(scheduledListeners, eventSchedulerConfig, metricRegistry);
+            applicationLifeCycleManager.addService(scheduler);
+            rabbitMqEventBus.scheduleEventListenersWith(scheduler, scheduledListeners);
+        } else {
+            eventListeners.forEach(rabbitMqEventBus::addEventListener);
+        }
         return rabbitMqEventBus;
     }
 
@@ -72,6 +108,32 @@ public class EventBusModule extends AbstractModule {
         return rabbitMqEventBus;
     }
 
+    @Provides
+    @Singleton
+    EventJournal provideEventJournal(EventJournalConfig eventJournalConfig) {
+        if (isBlank(eventJournalConfig.directory())) {
+            throw new IllegalStateException("journal.directory must be defined to enable the event journal.");
+        }
+        return new EventJournal(new File(eventJournalConfig.directory()), eventJournalConfig.segmentMaxSize(), eventJournalConfig.indexInterval(), eventJournalConfig.retentionMaxSize(), eventJournalConfig.retentionMaxAgeMillis());
+    }
+
+    @Provides
+    @Singleton
+    SpanSink provideSpanSink(TracingConfig tracingConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        if (TracingConfig.SINK_FILE.equals(tracingConfig.sink())) {
+            FileSpanSink fileSpanSink = new FileSpanSink(new File(tracingConfig.file()));
+            applicationLifeCycleManager.addService(fileSpanSink);
+            return fileSpanSink;
+        }
+        return new InMemorySpanSink(tracingConfig.memoryCapacity());
+    }
+
+    @Provides
+    @Singleton
+    EventTracer provideEventTracer(TracingConfig tracingConfig, SpanSink spanSink) {
+        return new EventTracer(tracingConfig.sampleRate(), spanSink);
+    }
+
     @Provides
     @Singleton
     RabbitMqConnectionFactory proviRabbitMqConnectionFactory() {
@@ -0,0 +1,104 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.config.module;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
+import io.kodokojo.commons.config.MicroServiceConfig;
+import io.kodokojo.commons.event.DefaultEventBuilderFactory;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.memory.InMemoryEventBroker;
+import io.kodokojo.commons.event.memory.InMemoryEventBus;
+import io.kodokojo.commons.event.trace.EventTracer;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
+
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Replace {@link EventBusModule} to run without RabbitMq, in a single node or in a load test.
+ * Services which must exchange events in a same JVM must share the same {@link InMemoryEventBroker}.
+ */
+public class InMemoryEventBusModule extends AbstractModule {
+
+    private final InMemoryEventBroker broker;
+
+    private final int instanceCount;
+
+    public InMemoryEventBusModule(InMemoryEventBroker broker, int instanceCount) {
+        requireNonNull(broker, "broker must be defined.");
+        if (instanceCount < 1) {
+            throw new IllegalArgumentException("instanceCount must be greater than 0.");
+        }
+        this.broker = broker;
+        this.instanceCount = instanceCount;
+    }
+
+    public InMemoryEventBusModule() {
+        this(new InMemoryEventBroker(), 1);
+    }
+
+    @Override
+    protected void configure() {
+        bind(InMemoryEventBroker.class).toInstance(broker);
+        Multibinder.newSetBinder(binder(), EventBus.EventListener.class);
+    }
+
+    @Singleton
+    @Provides
+    EventBuilderFactory provideEventBuilderFactory(MicroServiceConfig microServiceConfig) {
+        return new DefaultEventBuilderFactory(microServiceConfig);
+    }
+
+    @Provides
+    @Singleton
+    InMemoryEventBus provideInMemoryEventBus(MicroServiceConfig microServiceConfig, ApplicationLifeCycleManager applicationLifeCycleManager, Set<EventBus.EventListener> eventListeners) {
+        InMemoryEventBus inMemoryEventBus = new InMemoryEventBus(broker, microServiceConfig, instanceCount);
+        eventListeners.forEach(inMemoryEventBus::addEventListener);
+        applicationLifeCycleManager.addService(new ApplicationLifeCycleListener() {
+            @Override
+            public void start() {
+                //
+            }
+
+            @Override
+            public void stop() {
+                inMemoryEventBus.disconnect();
+            }
+        });
+        return inMemoryEventBus;
+    }
+
+    @Provides
+    @Singleton
+    EventBus provideEventBus(InMemoryEventBus inMemoryEventBus) {
+        return inMemoryEventBus;
+    }
+
+    @Provides
+    @Singleton
+    EventTracer provideEventTracer() {
+        return EventTracer.disabled();
+    }
+
+}
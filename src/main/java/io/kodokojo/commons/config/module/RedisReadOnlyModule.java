@@ -20,10 +20,22 @@ package io.kodokojo.commons.config.module;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
 import io.kodokojo.commons.config.ElasticSearchConfig;
+import io.kodokojo.commons.config.NearCacheConfig;
 import io.kodokojo.commons.config.RedisConfig;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.cache.CachingProjectFetcher;
+import io.kodokojo.commons.service.cache.CachingUserFetcher;
+import io.kodokojo.commons.service.cache.NearCache;
+import io.kodokojo.commons.service.cache.NearCacheInvalidator;
 import io.kodokojo.commons.service.elasticsearch.ElasticSearchSearcher;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+import io.kodokojo.commons.service.redis.RedisKeyRouter;
+import io.kodokojo.commons.service.redis.RedisKeyRouters;
 import io.kodokojo.commons.service.redis.RedisOrganisationStore;
 import io.kodokojo.commons.service.redis.RedisProjectStore;
 import io.kodokojo.commons.service.redis.RedisUserRepository;
@@ -43,28 +55,53 @@ public class RedisReadOnlyModule extends AbstractModule {
         Multibinder<UserRepository> multibinder = Multibinder.newSetBinder(binder(), UserRepository.class);
         multibinder.addBinding().toProvider(RedisUserManagerProvider.class);
         */
+        Multibinder.newSetBinder(binder(), EventBus.EventListener.class).addBinding().to(NearCacheInvalidator.class);
     }
 
     @Provides
     @Singleton
-    Repository provideRepository(OrganisationStore organisationStore, ProjectStore projectStore, @Named("securityKey")SecretKey secretKey, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisUserRepository redisUserManager = new RedisUserRepository(secretKey, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    IoExecutor provideIoExecutor(RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        IoExecutor ioExecutor = new IoExecutor("redis-io", redisConfig.ioThreads(), redisConfig.ioQueueSize());
+        applicationLifeCycleManager.addService(ioExecutor);
+        return ioExecutor;
+    }
+
+    /**
+     * Shared by all stores, so they share their connections, and a read following a write of this instance is sent where the write is visible.
+     * Closed once the application stops, stores leave it open.
+     */
+    @Provides
+    @Singleton
+    RedisKeyRouter provideRedisKeyRouter(RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        RedisKeyRouter redisKeyRouter = RedisKeyRouters.createReadOnly(redisConfig);
+        applicationLifeCycleManager.addService(RedisKeyRouters.closeOnStop(redisKeyRouter));
+        return redisKeyRouter;
+    }
+
+    @Provides
+    @Singleton
+    Repository provideRepository(OrganisationStore organisationStore, ProjectStore projectStore, UserFetcher userFetcher, @Named("securityKey")SecretKey secretKey, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager, IoExecutor ioExecutor) {
+        RedisUserRepository redisUserManager = new RedisUserRepository(secretKey, redisKeyRouter, redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(redisUserManager);
-        return new Repository(redisUserManager,redisUserManager, organisationStore, projectStore);
+        return new Repository(redisUserManager, userFetcher, organisationStore, projectStore, null, ioExecutor, redisConfig.ioPipelined());
     }
 
     @Provides
     @Singleton
-    UserFetcher provideUserRepository( @Named("securityKey")SecretKey secretKey, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisUserRepository redisUserManager = new RedisUserRepository(secretKey, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    UserFetcher provideUserRepository( @Named("securityKey")SecretKey secretKey, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager, NearCacheConfig nearCacheConfig, MetricRegistry metricRegistry) {
+        RedisUserRepository redisUserManager = new RedisUserRepository(secretKey, redisKeyRouter, redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(redisUserManager);
+        if (nearCacheConfig.enabled()) {
+            NearCache<String, User> users = new NearCache<>("users", nearCacheConfig.usersMaxWeight(), nearCacheConfig.ttlMillis(), user -> 1, metricRegistry);
+            return new CachingUserFetcher(redisUserManager, users);
+        }
         return redisUserManager;
     }
 
     @Provides
     @Singleton
-    OrganisationStore provideEntityStore(@Named("securityKey") SecretKey key, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisOrganisationStore entityStore = new RedisOrganisationStore(key, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    OrganisationStore provideEntityStore(@Named("securityKey") SecretKey key, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        RedisOrganisationStore entityStore = new RedisOrganisationStore(key, redisKeyRouter, redisConfig.compression(), redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(entityStore);
         return entityStore;
     }
@@ -77,18 +114,28 @@ public class RedisReadOnlyModule extends AbstractModule {
 
     @Provides
     @Singleton
-    ProjectStore provideProjectStore(@Named("securityKey") SecretKey key, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        RedisProjectStore redisProjectStore = new RedisProjectStore(key, redisConfig.host(), redisConfig.port(), redisConfig.password());
+    ProjectStore provideProjectStore(@Named("securityKey") SecretKey key, RedisKeyRouter redisKeyRouter, RedisConfig redisConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        RedisProjectStore redisProjectStore = new RedisProjectStore(key, redisKeyRouter, redisConfig.compression(), redisConfig.legacyFormat());
         applicationLifeCycleManager.addService(redisProjectStore);
         return redisProjectStore;
     }
 
     @Provides
     @Singleton
-    ProjectFetcher provideProjectFetcher(Repository repository) {
+    ProjectFetcher provideProjectFetcher(Repository repository, NearCacheConfig nearCacheConfig, MetricRegistry metricRegistry) {
+        if (nearCacheConfig.enabled()) {
+            NearCache<String, ProjectConfiguration> projectConfigurations = new NearCache<>("project_configurations", nearCacheConfig.projectConfigurationsMaxWeight(), nearCacheConfig.ttlMillis(), CachingProjectFetcher::weigh, metricRegistry);
+            return new CachingProjectFetcher(repository, projectConfigurations);
+        }
         return repository;
     }
 
+    @Provides
+    @Singleton
+    NearCacheInvalidator provideNearCacheInvalidator(UserFetcher userFetcher, ProjectFetcher projectFetcher) {
+        return new NearCacheInvalidator(userFetcher, projectFetcher);
+    }
+
 
     @Provides
     @Singleton
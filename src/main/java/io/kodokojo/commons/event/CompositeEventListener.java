@@ -0,0 +1,61 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import javaslang.control.Try;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Give each received event to all its listeners, in registration order. Listeners may be added while events are received.
+ * Returns the failure of the last listener which failed, or <code>true</code>.
+ */
+public class CompositeEventListener implements EventBus.EventListener {
+
+    private final Set<EventBus.EventListener> eventListeners = new CopyOnWriteArraySet<>();
+
+    public void addEventListener(EventBus.EventListener eventListener) {
+        requireNonNull(eventListener, "eventListener must be defined.");
+        eventListeners.add(eventListener);
+    }
+
+    public void removeEventListener(EventBus.EventListener eventListener) {
+        requireNonNull(eventListener, "eventListener must be defined.");
+        eventListeners.remove(eventListener);
+    }
+
+    public boolean isEmpty() {
+        return eventListeners.isEmpty();
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        requireNonNull(event, "event must be defined.");
+        Try<Boolean> res = Try.success(Boolean.TRUE);
+        for (EventBus.EventListener eventListener : eventListeners) {
+            Try<Boolean> received = eventListener.receive(event);
+            if (received.isFailure()) {
+                res = received;
+            }
+        }
+        return res;
+    }
+}
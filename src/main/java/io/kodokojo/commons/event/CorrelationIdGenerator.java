@@ -0,0 +1,42 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generate correlation identifiers from a random prefix drawn once per JVM and an increasing counter,
+ * which is much cheaper than a random UUID and never blocks on the entropy source.
+ * Identifiers aren't secrets, they only have to be unique.
+ */
+public final class CorrelationIdGenerator {
+
+    private static final String PREFIX = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, Character.MAX_RADIX) + "-";
+
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private CorrelationIdGenerator() {
+        // Utility class.
+    }
+
+    public static String next() {
+        return PREFIX + Long.toString(COUNTER.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Immutable custom headers of an {@link Event}, stored in a single array of alternate keys and values.
+ * <p>
+ * An instance is shared as is between events and builders, changing a header with {@link #with(String, String)} only copy the array.
+ * Well known keys are interned, so lookup of a header by an {@link Event} constant match by reference.
+ * </p>
+ */
+public final class CustomHeaders extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = 6201245416823447412L;
+
+    public static final CustomHeaders EMPTY = new CustomHeaders(new String[0]);
+
+    private static final Map<String, String> WELL_KNOWN_KEYS = new HashMap<>();
+
+    static {
+        for (String key : new String[]{
+                Event.REQUESTER_ID_CUSTOM_HEADER,
+                Event.ORGANISATION_ID_CUSTOM_HEADER,
+                Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER,
+                Event.USER_ID_CUSTOM_HEADER,
+                Event.BROADCAST_FROM_CUSTOM_HEADER,
+                Event.TRACE_ID_CUSTOM_HEADER,
+                Event.SPAN_ID_CUSTOM_HEADER,
+                Event.PARENT_SPAN_ID_CUSTOM_HEADER}) {
+            WELL_KNOWN_KEYS.put(key, key);
+        }
+    }
+
+    private final String[] entries;
+
+    private CustomHeaders(String[] entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return Given headers if they already are {@link CustomHeaders}, an immutable copy otherwise. <code>null</code> values are ignored.
+     */
+    public static CustomHeaders copyOf(Map<String, String> headers) {
+        if (headers instanceof CustomHeaders) {
+            return (CustomHeaders) headers;
+        }
+        if (headers == null || headers.isEmpty()) {
+            return EMPTY;
+        }
+        String[] entries = new String[headers.size() * 2];
+        int size = 0;
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getValue() != null) {
+                entries[size++] = intern(entry.getKey());
+                entries[size++] = entry.getValue();
+            }
+        }
+        return size == 0 ? EMPTY : new CustomHeaders(size == entries.length ? entries : Arrays.copyOf(entries, size));
+    }
+
+    /**
+     * @return Well known instance of given key if any, given key otherwise.
+     */
+    public static String intern(String key) {
+        String wellKnown = WELL_KNOWN_KEYS.get(key);
+        return wellKnown == null ? key : wellKnown;
+    }
+
+    /**
+     * @return Headers with given header set to given value, or removed if value is <code>null</code>.
+     */
+    public CustomHeaders with(String key, String value) {
+        if (isBlank(key)) {
+            throw new IllegalArgumentException("key must be defined.");
+        }
+        if (value == null) {
+            return without(key);
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            if (value.equals(entries[index + 1])) {
+                return this;
+            }
+            String[] copy = entries.clone();
+            copy[index + 1] = value;
+            return new CustomHeaders(copy);
+        }
+        String[] copy = Arrays.copyOf(entries, entries.length + 2);
+        copy[entries.length] = intern(key);
+        copy[entries.length + 1] = value;
+        return new CustomHeaders(copy);
+    }
+
+    public CustomHeaders without(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return this;
+        }
+        if (entries.length == 2) {
+            return EMPTY;
+        }
+        String[] copy = new String[entries.length - 2];
+        System.arraycopy(entries, 0, copy, 0, index);
+        System.arraycopy(entries, index + 2, copy, index, entries.length - index - 2);
+        return new CustomHeaders(copy);
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : entries[index + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return entries.length / 2;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < entries.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(entries[index], entries[index + 1]);
+                        index += 2;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CustomHeaders.this.size();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object readResolve() {
+        if (entries.length == 0) {
+            return EMPTY;
+        }
+        for (int i = 0; i < entries.length; i += 2) {
+            entries[i] = intern(entries[i]);
+        }
+        return this;
+    }
+
+}
@@ -21,7 +21,6 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
@@ -96,6 +95,10 @@ public class Event implements Serializable {
         return headers.getCustom();
     }
 
+    public String getCustomHeader(String key) {
+        return headers.getCustomHeader(key);
+    }
+
     public String getPayload() {
         return payload;
     }
@@ -145,7 +148,7 @@ public class Event implements Serializable {
 
         private final int maxRedeliveryCount;
 
-        private final Map<String, String> custom;
+        private final CustomHeaders custom;
 
 
         public Header(Category category, String from,  RequestReplyType requestReplyType, String replyTo, String correlationId, long creationDate, long ttl,int redeliveryCount, int maxRedeliveryCount, String eventType, Map<String, String> custom) {
@@ -156,11 +159,7 @@ public class Event implements Serializable {
             if (isBlank(eventType)) {
                 throw new IllegalArgumentException("eventType must be defined.");
             }
-            if (custom == null) {
-                this.custom = new HashMap<>();
-            } else {
-                this.custom = custom;
-            }
+            this.custom = CustomHeaders.copyOf(custom);
             this.category = category;
             this.from = from;
             if (requestReplyType == null) {
@@ -232,8 +231,15 @@ public class Event implements Serializable {
             return maxRedeliveryCount;
         }
 
+        /**
+         * @return A read only view of custom headers.
+         */
         public Map<String, String> getCustom() {
-            return new HashMap<>(custom);
+            return custom;
+        }
+
+        public String getCustomHeader(String key) {
+            return custom.get(key);
         }
 
         @Override
@@ -294,13 +300,21 @@ public class Event implements Serializable {
 
     //  Technical
     public static final String SERVICE_CONNECT_TYPE = "service_connection";
+    public static final String SERVICE_PARTITION_HEARTBEAT_TYPE = "service_partition_heartbeat";
+    public static final String SERVICE_PARTITION_LEAVE_TYPE = "service_partition_leave";
+    public static final String NEAR_CACHE_USERS_INVALIDATION_TYPE = "near_cache_users_invalidation";
+    public static final String NEAR_CACHE_PROJECTCONFIG_INVALIDATION_TYPE = "near_cache_projectconfig_invalidation";
 
 
     //  Business
     public static final String REQUESTER_ID_CUSTOM_HEADER = "requester_id";
     public static final String ORGANISATION_ID_CUSTOM_HEADER = "organisation_id";
     public static final String PROJECTCONFIGURATION_ID_CUSTOM_HEADER = "projectconfiguration_id";
+    public static final String USER_ID_CUSTOM_HEADER = "user_id";
     public static final String BROADCAST_FROM_CUSTOM_HEADER = "broadcast_from";
+    public static final String TRACE_ID_CUSTOM_HEADER = "trace_id";
+    public static final String SPAN_ID_CUSTOM_HEADER = "span_id";
+    public static final String PARENT_SPAN_ID_CUSTOM_HEADER = "parent_span_id";
 
     public static final String USER_CREATION_REQUEST = "user_creation_request";
     public static final String USER_CREATION_REPLY = "user_creation_reply";
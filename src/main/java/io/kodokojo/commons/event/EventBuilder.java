@@ -19,10 +19,9 @@ package io.kodokojo.commons.event;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.collections4.MapUtils;
+import io.kodokojo.commons.event.trace.EventTracer;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
@@ -44,7 +43,7 @@ public class EventBuilder {
 
     private String eventType;
 
-    private Map<String, String> custom;
+    private CustomHeaders custom = CustomHeaders.EMPTY;
 
     private String payload;
 
@@ -71,7 +70,7 @@ public class EventBuilder {
         maxRedeliveryCount = copyFrom.getMaxRedeliveryCount();
         redeliveryCount = copyFrom.getRedeliveryCount();
         eventType = copyFrom.getEventType();
-        custom = copyFrom.getCustom();
+        custom = CustomHeaders.copyOf(copyFrom.getCustom());
         payload = copyFrom.getPayload();
     }
 
@@ -85,9 +84,6 @@ public class EventBuilder {
         if (isBlank(eventType)) {
             throw new IllegalArgumentException("eventType must be defined.");
         }
-        if (custom == null) {
-            custom = new HashMap<>();
-        }
         if (category == null) {
             category = Event.Category.BUSINESS;
         }
@@ -161,7 +157,7 @@ public class EventBuilder {
 
     public EventBuilder setCustom(Map<String, String> custom) {
         requireNonNull(custom, "custom must be defined.");
-        this.custom = custom;
+        this.custom = CustomHeaders.copyOf(custom);
         return this;
     }
 
@@ -170,13 +166,31 @@ public class EventBuilder {
         if (isBlank(header)) {
             throw new IllegalArgumentException("header must be defined.");
         }
-        Map<String, String> fromCustom = from.getCustom();
-        if (MapUtils.isNotEmpty(fromCustom) && fromCustom.containsKey(header)) {
-            custom.put(header, fromCustom.get(header));
+        String value = from.getCustomHeader(header);
+        if (value != null) {
+            custom = custom.with(header, value);
         }
         return this;
     }
 
+    /**
+     * Propagate trace of given event, if any, to the event in build: keep the trace id, use <code>parent</code> span as parent span.
+     */
+    public EventBuilder continueTrace(Event parent) {
+        requireNonNull(parent, "parent must be defined.");
+        String traceId = parent.getCustomHeader(Event.TRACE_ID_CUSTOM_HEADER);
+        if (isBlank(traceId)) {
+            return this;
+        }
+        addCustomHeader(Event.TRACE_ID_CUSTOM_HEADER, traceId);
+        String parentSpanId = parent.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER);
+        if (parentSpanId != null) {
+            addCustomHeader(Event.PARENT_SPAN_ID_CUSTOM_HEADER, parentSpanId);
+        }
+        addCustomHeader(Event.SPAN_ID_CUSTOM_HEADER, EventTracer.newIdentifier());
+        return this;
+    }
+
     public EventBuilder setJsonPayload(String payload) {
         requireNonNull(payload, "payload must be defined.");
         this.payload = payload;
@@ -197,7 +211,7 @@ public class EventBuilder {
         correlationId = copyFrom.getCorrelationId();
         creationDate = copyFrom.getCreationDate();
         eventType = copyFrom.getEventType();
-        custom = copyFrom.getCustom();
+        custom = CustomHeaders.copyOf(copyFrom.getCustom());
         payload = copyFrom.getPayload();
         return this;
     }
@@ -218,6 +232,9 @@ public class EventBuilder {
         return eventType;
     }
 
+    /**
+     * @return A read only view of custom headers.
+     */
     public Map<String, String> getCustom() {
         return custom;
     }
@@ -230,10 +247,7 @@ public class EventBuilder {
         if (isBlank(key)) {
             throw new IllegalArgumentException("key must be defined.");
         }
-        if (custom == null) {
-            custom = new HashMap<>();
-        }
-        custom.put(key, value);
+        custom = custom.with(key, value);
         return this;
     }
 }
@@ -21,6 +21,8 @@ import javaslang.control.Try;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 public interface EventBus {
@@ -41,6 +43,26 @@ public interface EventBus {
 
     Event request(Event request, int duration, TimeUnit timeUnit) throws InterruptedException;
 
+    /**
+     * Send a request and wait for its reply.
+     * @param duration Max duration to wait the reply, may be shortened from observed reply latencies of this event type.
+     * @param hedged If <code>true</code>, the request is sent again when no reply had been received after observed p95 latency.
+     *               Only use it for idempotent requests, first received reply is returned. Ignored when the bus
+     *               can't reach another consumer, like a RabbitMqEventBus with a partitioned business queue.
+     */
+    Event request(Event request, int duration, TimeUnit timeUnit, boolean hedged) throws InterruptedException;
+
+    /**
+     * Broadcast a request to all connected instances of a service and gather their replies.
+     * @param request The request to broadcast.
+     * @param targetService Name of the service which instances receive the request.
+     * @param expectedReplyCount Number of replies after which we stop to wait.
+     * @param duration Max duration to wait replies.
+     * @param timeUnit Time unit of duration.
+     * @return Replies received before reaching <code>expectedReplyCount</code> or timeout, never <code>null</code>.
+     */
+    List<Event> requestAll(Event request, String targetService, int expectedReplyCount, int duration, TimeUnit timeUnit) throws InterruptedException;
+
     void reply(Event request, Event reply);
 
     void addEventListener(EventListener eventListener);
@@ -55,4 +77,28 @@ public interface EventBus {
 
     }
 
+    /**
+     * Listener which process events asynchronously. An EventBus acknowledges an event only once the future returned by
+     * {@link #receiveAsync(Event)} completes, and reject it if the future completes exceptionally.
+     */
+    interface AsyncEventListener extends EventListener {
+
+        CompletableFuture<Boolean> receiveAsync(Event event);
+
+        /**
+         * Wait for the event to be processed.
+         */
+        @Override
+        default Try<Boolean> receive(Event event) {
+            return Try.of(() -> {
+                try {
+                    return receiveAsync(event).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+    }
+
 }
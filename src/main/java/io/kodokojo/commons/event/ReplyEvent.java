@@ -22,7 +22,9 @@ import org.slf4j.LoggerFactory;
 
 import java.text.SimpleDateFormat;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -37,34 +39,79 @@ public class ReplyEvent {
 
     private final CountDownLatch replyDefined;
 
-    private long timeout;
+    private final List<Event> replies = new ArrayList<>();
 
-    private Event reply;
+    private final String requestEventType;
 
-    public ReplyEvent(String correlationId) {
+    private final long creationDate;
+
+    private long timeout;
+
+    public ReplyEvent(String correlationId, String requestEventType, int expectedReplyCount) {
         if (isBlank(correlationId)) {
             throw new IllegalArgumentException("correlationId must be defined.");
         }
+        if (expectedReplyCount < 1) {
+            throw new IllegalArgumentException("expectedReplyCount must be greater than 0.");
+        }
         this.correlationId = correlationId;
-        this.replyDefined = new CountDownLatch(1);
+        this.requestEventType = requestEventType;
+        this.replyDefined = new CountDownLatch(expectedReplyCount);
+        this.creationDate = System.currentTimeMillis();
+    }
+
+    public ReplyEvent(String correlationId, int expectedReplyCount) {
+        this(correlationId, null, expectedReplyCount);
+    }
+
+    public ReplyEvent(String correlationId) {
+        this(correlationId, 1);
     }
 
     public void setReply(Event reply) {
         requireNonNull(reply, "reply must be defined.");
-        this.reply = reply;
-        replyDefined.countDown();
+        synchronized (replies) {
+            if (replyDefined.getCount() > 0) {
+                replies.add(reply);
+                replyDefined.countDown();
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> when all expected replies had been received.
+     */
+    public boolean isComplete() {
+        return replyDefined.getCount() == 0;
     }
 
     public String getCorrelationId() {
         return correlationId;
     }
 
+    public String getRequestEventType() {
+        return requestEventType;
+    }
+
+    public long getCreationDate() {
+        return creationDate;
+    }
+
 
     public long getTimeout() {
         return timeout;
     }
 
     public Event getReply(long time, TimeUnit timeUnit) throws InterruptedException {
+        List<Event> res = getReplies(time, timeUnit);
+        return res.isEmpty() ? null : res.get(0);
+    }
+
+    /**
+     * Wait until all expected replies are received or timeout is exceeded.
+     * @return Replies received before timeout, may contain less replies than expected.
+     */
+    public List<Event> getReplies(long time, TimeUnit timeUnit) throws InterruptedException {
         timeout = System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(time, timeUnit);
 
 
@@ -80,6 +127,8 @@ public class ReplyEvent {
             LOGGER.debug("Timeout exceed");
         }
 
-        return reply;
+        synchronized (replies) {
+            return new ArrayList<>(replies);
+        }
     }
 }
@@ -0,0 +1,161 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Keep a sliding window of reply latencies per event type to compute request timeouts from observed latencies.
+ * <p>
+ * Timeouts are only adapted for event types explicitly enabled, requests which timed out must be recorded at their timeout value.
+ * </p>
+ */
+public class ReplyLatencyTracker {
+
+    public static final int DEFAULT_WINDOW_SIZE = 512;
+
+    private static final long MIN_TIMEOUT_MILLIS = 250;
+
+    private final int windowSize;
+
+    private final int minSampleCount;
+
+    private final int p99Factor;
+
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private final Set<String> adaptiveEventTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param windowSize Number of latencies kept by event type.
+     * @param minSampleCount Number of latencies required before adapting timeouts.
+     * @param p99Factor Timeout is computed as p99 multiplied by this factor, a value lower than 1 disable adaptive timeout.
+     */
+    public ReplyLatencyTracker(int windowSize, int minSampleCount, int p99Factor) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be greater than 0.");
+        }
+        if (minSampleCount > windowSize) {
+            throw new IllegalArgumentException("minSampleCount must be lower or equals to windowSize.");
+        }
+        this.windowSize = windowSize;
+        this.minSampleCount = Math.max(1, minSampleCount);
+        this.p99Factor = p99Factor;
+    }
+
+    /**
+     * Allow {@link #adaptTimeout(String, long)} to shorten the timeout of given event type.
+     */
+    public void enableAdaptiveTimeout(String eventType) {
+        if (isBlank(eventType)) {
+            throw new IllegalArgumentException("eventType must be defined.");
+        }
+        adaptiveEventTypes.add(eventType);
+    }
+
+    public void record(String eventType, long latencyMillis) {
+        if (isBlank(eventType)) {
+            throw new IllegalArgumentException("eventType must be defined.");
+        }
+        windows.computeIfAbsent(eventType, type -> new LatencyWindow(windowSize)).add(Math.max(0, latencyMillis));
+    }
+
+    public int sampleCount(String eventType) {
+        LatencyWindow window = isBlank(eventType) ? null : windows.get(eventType);
+        return window == null ? 0 : window.count();
+    }
+
+    /**
+     * @param percentile Expected percentile, between 0 and 100.
+     * @return The observed latency in milliseconds for given percentile, or <code>-1</code> if not enough latencies are known.
+     */
+    public long percentile(String eventType, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100.");
+        }
+        LatencyWindow window = isBlank(eventType) ? null : windows.get(eventType);
+        if (window == null) {
+            return -1;
+        }
+        long[] samples = window.snapshot();
+        if (samples.length < minSampleCount) {
+            return -1;
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil((percentile / 100) * samples.length) - 1;
+        return samples[Math.max(0, Math.min(samples.length - 1, index))];
+    }
+
+    /**
+     * Compute the timeout to apply to a request.
+     * @param maxTimeoutMillis Max timeout expected by the caller.
+     * @return A multiple of the observed p99 bounded by <code>maxTimeoutMillis</code>, or <code>maxTimeoutMillis</code> if adaptive timeout isn't enabled for this event type or not enough latencies are known.
+     */
+    public long adaptTimeout(String eventType, long maxTimeoutMillis) {
+        if (p99Factor < 1 || eventType == null || !adaptiveEventTypes.contains(eventType)) {
+            return maxTimeoutMillis;
+        }
+        long p99 = percentile(eventType, 99);
+        if (p99 < 0) {
+            return maxTimeoutMillis;
+        }
+        return Math.min(maxTimeoutMillis, Math.max(MIN_TIMEOUT_MILLIS, p99 * p99Factor));
+    }
+
+    /**
+     * @return Delay in milliseconds after which a duplicated request may be sent, or <code>-1</code> if not enough latencies are known.
+     */
+    public long hedgeDelay(String eventType) {
+        return percentile(eventType, 95);
+    }
+
+    private static class LatencyWindow {
+
+        private final long[] samples;
+
+        private int index;
+
+        private int count;
+
+        LatencyWindow(int size) {
+            samples = new long[size];
+        }
+
+        synchronized void add(long latency) {
+            samples[index] = latency;
+            index = (index + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(samples, count);
+        }
+    }
+
+}
@@ -0,0 +1,514 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.journal;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.JsonToEventConverter;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import javaslang.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Append events to segmented local files, in order to replay them later.
+ * <p>
+ * Events are queued by {@link #append(Event)} then written sequentially, by batch, from a single writer thread.
+ * Each record is prefixed by its length, a CRC32 of its content and the event creation date.
+ * Each record is identified by its offset, a sequence number starting from <code>0</code>; a segment file is named with the offset of its first record.
+ * Indexes are kept in memory and rebuilt from segments on {@link #start()}.
+ * </p>
+ * <p>
+ * Oldest segments are deleted, with their indexed records, when the journal exceed its retention size or when they exceed the retention age.
+ * Retention is applied on start and each time a new segment is created; the segment currently written is never deleted.
+ * </p>
+ */
+public class EventJournal implements EventBus.EventListener, ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventJournal.class);
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private static final int MAX_BATCH_SIZE = 512;
+
+    private static final int QUEUE_CAPACITY = 65536;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final File directory;
+
+    private final long segmentMaxSize;
+
+    private final long retentionMaxSize;
+
+    private final long retentionMaxAgeMillis;
+
+    private final JournalIndex index;
+
+    private final JsonToEventConverter jsonToEventConverter = new JsonToEventConverter() {};
+
+    private final BlockingQueue<Event> pending = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final ConcurrentSkipListMap<Long, File> segments = new ConcurrentSkipListMap<>();
+
+    private volatile long nextOffset;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    //  Following fields are only accessed by the writer thread once started.
+
+    private DataOutputStream output;
+
+    private long currentSegmentBase;
+
+    private long currentSegmentSize;
+
+    /**
+     * @param retentionMaxSize Max size in bytes of all segments, <code>0</code> for no limit.
+     * @param retentionMaxAgeMillis Max age of a segment since its last write, <code>0</code> for no limit.
+     */
+    public EventJournal(File directory, long segmentMaxSize, int indexInterval, long retentionMaxSize, long retentionMaxAgeMillis) {
+        requireNonNull(directory, "directory must be defined.");
+        if (segmentMaxSize <= 0) {
+            throw new IllegalArgumentException("segmentMaxSize must be greater than 0.");
+        }
+        if (retentionMaxSize < 0) {
+            throw new IllegalArgumentException("retentionMaxSize must be positive.");
+        }
+        if (retentionMaxAgeMillis < 0) {
+            throw new IllegalArgumentException("retentionMaxAgeMillis must be positive.");
+        }
+        this.directory = directory;
+        this.segmentMaxSize = segmentMaxSize;
+        this.retentionMaxSize = retentionMaxSize;
+        this.retentionMaxAgeMillis = retentionMaxAgeMillis;
+        this.index = new JournalIndex(indexInterval);
+    }
+
+    public EventJournal(File directory, long segmentMaxSize, int indexInterval) {
+        this(directory, segmentMaxSize, indexInterval, 0, 0);
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        return Try.of(() -> append(event));
+    }
+
+    /**
+     * Queue given event to be written, without waiting for the write.
+     *
+     * @return <code>false</code> if journal is stopped or if too many events are waiting to be written.
+     */
+    public boolean append(Event event) {
+        requireNonNull(event, "event must be defined.");
+        if (!running) {
+            return false;
+        }
+        boolean queued = pending.offer(event);
+        if (!queued) {
+            LOGGER.warn("Journal queue is full, drop event {} with correlationId {}.", event.getEventType(), event.getCorrelationId());
+        }
+        return queued;
+    }
+
+    /**
+     * @return Offset of the next written event, all events with a lower offset are readable.
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public List<Event> findByCorrelationId(String correlationId) {
+        requireNonNull(correlationId, "correlationId must be defined.");
+        List<Event> res = new ArrayList<>();
+        for (JournalIndex.Location location : index.locations(correlationId)) {
+            File segment = segments.get(location.segmentBase);
+            if (location.sequence < nextOffset && segment != null) {
+                try (DataInputStream input = open(segment, location.position)) {
+                    res.add(decode(readRecord(input)));
+                } catch (IOException e) {
+                    LOGGER.error("Unable to read event at offset {} from journal {}.", location.sequence, directory.getAbsolutePath(), e);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Send all events from given offset to given listeners.
+     *
+     * @param maxEventsPerSecond Maximum rate of replayed events, <code>0</code> to replay as fast as possible.
+     * @return Number of replayed events.
+     */
+    public long replay(long fromOffset, Collection<EventBus.EventListener> eventListeners, int maxEventsPerSecond) throws IOException {
+        return replay(Math.max(0, fromOffset), Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, eventListeners, maxEventsPerSecond);
+    }
+
+    /**
+     * Send all events created between given dates, inclusive, to given listeners.
+     *
+     * @param maxEventsPerSecond Maximum rate of replayed events, <code>0</code> to replay as fast as possible.
+     * @return Number of replayed events.
+     */
+    public long replayBetween(long fromCreationDate, long toCreationDate, Collection<EventBus.EventListener> eventListeners, int maxEventsPerSecond) throws IOException {
+        long fromOffset = index.firstSequenceFrom(fromCreationDate);
+        long toOffset = index.endSequenceTo(toCreationDate);
+        if (fromOffset < 0 || toOffset < 0) {
+            return 0;
+        }
+        return replay(fromOffset, toOffset, fromCreationDate, toCreationDate, eventListeners, maxEventsPerSecond);
+    }
+
+    private long replay(long fromOffset, long toOffset, long fromCreationDate, long toCreationDate, Collection<EventBus.EventListener> eventListeners, int maxEventsPerSecond) throws IOException {
+        requireNonNull(eventListeners, "eventListeners must be defined.");
+        if (maxEventsPerSecond < 0) {
+            throw new IllegalArgumentException("maxEventsPerSecond must be positive.");
+        }
+        long intervalNanos = maxEventsPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxEventsPerSecond;
+        long[] replayed = {0};
+        long[] nextDeliveryNanos = {System.nanoTime()};
+        read(fromOffset, toOffset, (offset, creationDate, data) -> {
+            if (creationDate < fromCreationDate || creationDate > toCreationDate) {
+                return;
+            }
+            if (intervalNanos > 0) {
+                long wait = nextDeliveryNanos[0] - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextDeliveryNanos[0] = Math.max(nextDeliveryNanos[0], System.nanoTime() - intervalNanos) + intervalNanos;
+            }
+            Event event = decode(data);
+            for (EventBus.EventListener eventListener : eventListeners) {
+                if (eventListener != this) {
+                    Try<Boolean> res = eventListener.receive(event);
+                    if (res.isFailure()) {
+                        LOGGER.warn("Listener {} fail to process replayed event at offset {}.", eventListener, offset, res.getCause());
+                    }
+                }
+            }
+            replayed[0]++;
+        });
+        return replayed[0];
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalStateException("Unable to create journal directory " + directory.getAbsolutePath());
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read journal from directory " + directory.getAbsolutePath(), e);
+        }
+        applyRetention();
+        running = true;
+        writer = new Thread(this::writeLoop, "event-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        LOGGER.info("Event journal started in {} at offset {}.", directory.getAbsolutePath(), nextOffset);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeOutput();
+        LOGGER.info("Event journal stopped at offset {}.", nextOffset);
+    }
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !pending.isEmpty()) {
+            try {
+                Event first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                LOGGER.error("Unable to write {} events in journal {}, drop them.", batch.size(), directory.getAbsolutePath(), e);
+                rollback();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Event> batch) throws IOException {
+        long offset = nextOffset;
+        ensureSegment(offset);
+        for (Event event : batch) {
+            byte[] data = Event.convertToJson(event).getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            long position = currentSegmentSize;
+            output.writeInt(data.length);
+            output.writeInt((int) crc.getValue());
+            output.writeLong(event.getCreationDate());
+            output.write(data);
+            currentSegmentSize += RECORD_HEADER_SIZE + data.length;
+            index.add(offset++, currentSegmentBase, position, event.getCreationDate(), event.getCorrelationId());
+        }
+        output.flush();
+        nextOffset = offset;
+    }
+
+    private void ensureSegment(long offset) throws IOException {
+        if (output != null && currentSegmentSize < segmentMaxSize) {
+            return;
+        }
+        closeOutput();
+        File file = segments.get(currentSegmentBase);
+        if (file == null || currentSegmentSize >= segmentMaxSize) {
+            file = new File(directory, String.format("%020d%s", offset, SEGMENT_SUFFIX));
+            segments.put(offset, file);
+            currentSegmentBase = offset;
+            currentSegmentSize = 0;
+            applyRetention();
+        }
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), WRITE_BUFFER_SIZE));
+    }
+
+    /**
+     * Remove a partially written batch from current segment.
+     */
+    private void rollback() {
+        closeOutput();
+        index.truncate(nextOffset);
+        File file = segments.get(currentSegmentBase);
+        if (file == null) {
+            return;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            long committedSize = 0;
+            JournalIndex.Location last = index.floor(nextOffset - 1);
+            if (last != null && last.segmentBase == currentSegmentBase) {
+                committedSize = last.position;
+                try (DataInputStream input = open(file, last.position)) {
+                    for (long offset = last.sequence; offset < nextOffset; offset++) {
+                        committedSize += RECORD_HEADER_SIZE + readRecord(input).length;
+                    }
+                }
+            }
+            randomAccessFile.setLength(committedSize);
+            currentSegmentSize = committedSize;
+        } catch (IOException e) {
+            LOGGER.error("Unable to rollback segment {}, start a new segment.", file.getAbsolutePath(), e);
+            currentSegmentSize = segmentMaxSize;
+        }
+    }
+
+    /**
+     * Delete oldest segments while the journal exceed its retention, except the segment currently written.
+     */
+    private void applyRetention() {
+        if (retentionMaxSize == 0 && retentionMaxAgeMillis == 0) {
+            return;
+        }
+        long totalSize = 0;
+        for (File segment : segments.values()) {
+            totalSize += segment.length();
+        }
+        long expiredBefore = retentionMaxAgeMillis == 0 ? 0 : System.currentTimeMillis() - retentionMaxAgeMillis;
+        Map.Entry<Long, File> oldest = segments.firstEntry();
+        while (oldest != null && oldest.getKey() != currentSegmentBase) {
+            File file = oldest.getValue();
+            long size = file.length();
+            boolean tooLarge = retentionMaxSize > 0 && totalSize > retentionMaxSize;
+            if (!tooLarge && file.lastModified() >= expiredBefore) {
+                return;
+            }
+            Map.Entry<Long, File> next = segments.higherEntry(oldest.getKey());
+            segments.remove(oldest.getKey());
+            index.prune(next == null ? nextOffset : next.getKey());
+            if (!file.delete()) {
+                LOGGER.warn("Unable to delete journal segment {}.", file.getAbsolutePath());
+            }
+            LOGGER.debug("Journal segment {} deleted by retention.", file.getName());
+            totalSize -= size;
+            oldest = next;
+        }
+    }
+
+    private void closeOutput() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOGGER.error("Unable to close journal segment {}.", currentSegmentBase, e);
+            }
+            output = null;
+        }
+    }
+
+    /**
+     * Rebuild indexes from existing segments, and truncate a partially written record at the end of last segment.
+     */
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        long offset = 0;
+        for (int i = 0; i < files.length; i++) {
+            File file = files[i];
+            long base = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+            if (base != offset) {
+                LOGGER.warn("Journal segment {} doesn't start at expected offset {}.", file.getName(), offset);
+                offset = base;
+            }
+            segments.put(base, file);
+            long position = 0;
+            long length = file.length();
+            try (DataInputStream input = open(file, 0)) {
+                while (position + RECORD_HEADER_SIZE <= length) {
+                    int size = input.readInt();
+                    int crc = input.readInt();
+                    long creationDate = input.readLong();
+                    if (size < 0 || position + RECORD_HEADER_SIZE + size > length) {
+                        break;
+                    }
+                    byte[] data = new byte[size];
+                    input.readFully(data);
+                    if (!isValid(data, crc)) {
+                        break;
+                    }
+                    index.add(offset++, base, position, creationDate, decode(data).getCorrelationId());
+                    position += RECORD_HEADER_SIZE + size;
+                }
+            }
+            if (position < length) {
+                LOGGER.warn("Journal segment {} contains an invalid record at position {}, truncate it.", file.getName(), position);
+                try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                    randomAccessFile.setLength(position);
+                }
+            }
+            currentSegmentBase = base;
+            currentSegmentSize = position;
+        }
+        nextOffset = offset;
+    }
+
+    private void read(long fromOffset, long toOffset, RecordVisitor visitor) throws IOException {
+        long limit = Math.min(toOffset, nextOffset);
+        Map.Entry<Long, File> firstSegment = segments.firstEntry();
+        JournalIndex.Location start = firstSegment == null ? null : index.floor(Math.max(fromOffset, firstSegment.getKey()));
+        if (start == null || fromOffset >= limit || !segments.containsKey(start.segmentBase)) {
+            return;
+        }
+        long segmentBase = start.segmentBase;
+        long offset = start.sequence;
+        DataInputStream input = open(segments.get(segmentBase), start.position);
+        try {
+            while (offset < limit) {
+                Map.Entry<Long, File> nextSegment = segments.higherEntry(segmentBase);
+                if (nextSegment != null && offset >= nextSegment.getKey()) {
+                    input.close();
+                    segmentBase = nextSegment.getKey();
+                    input = open(nextSegment.getValue(), 0);
+                    continue;
+                }
+                int size = input.readInt();
+                int crc = input.readInt();
+                long creationDate = input.readLong();
+                byte[] data = new byte[size];
+                input.readFully(data);
+                if (offset >= fromOffset) {
+                    if (!isValid(data, crc)) {
+                        throw new IOException("Record at offset " + offset + " is corrupted.");
+                    }
+                    visitor.visit(offset, creationDate, data);
+                }
+                offset++;
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    private Event decode(byte[] data) {
+        return jsonToEventConverter.converter(new String(data, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readRecord(DataInputStream input) throws IOException {
+        int size = input.readInt();
+        int crc = input.readInt();
+        input.readLong();
+        byte[] data = new byte[size];
+        input.readFully(data);
+        if (!isValid(data, crc)) {
+            throw new IOException("Record is corrupted.");
+        }
+        return data;
+    }
+
+    private static boolean isValid(byte[] data, int expectedCrc) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue() == expectedCrc;
+    }
+
+    private static DataInputStream open(File file, long position) throws IOException {
+        FileInputStream fileInputStream = new FileInputStream(file);
+        fileInputStream.getChannel().position(position);
+        return new DataInputStream(new BufferedInputStream(fileInputStream));
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long offset, long creationDate, byte[] data) throws IOException;
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.journal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * In memory indexes of an {@link EventJournal}:
+ * <ul>
+ *     <li>a sparse index which reference one record every <code>interval</code> records and the first record of each segment, with the creation date range of the block of records it starts;</li>
+ *     <li>a hash index which reference all records by correlationId.</li>
+ * </ul>
+ */
+class JournalIndex {
+
+    private final int interval;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final Map<String, List<Location>> byCorrelationId = new ConcurrentHashMap<>();
+
+    JournalIndex(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be greater than 0.");
+        }
+        this.interval = interval;
+    }
+
+    void add(long sequence, long segmentBase, long position, long creationDate, String correlationId) {
+        synchronized (entries) {
+            if (sequence % interval == 0 || sequence == segmentBase || entries.isEmpty()) {
+                entries.add(new Entry(sequence, segmentBase, position, creationDate));
+            } else {
+                Entry block = entries.get(entries.size() - 1);
+                block.minCreationDate = Math.min(block.minCreationDate, creationDate);
+                block.maxCreationDate = Math.max(block.maxCreationDate, creationDate);
+            }
+        }
+        if (!isBlank(correlationId)) {
+            byCorrelationId.computeIfAbsent(correlationId, id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(new Location(sequence, segmentBase, position));
+        }
+    }
+
+    /**
+     * @return Indexed location of the nearest record before given sequence, <code>null</code> if index is empty.
+     */
+    Location floor(long sequence) {
+        synchronized (entries) {
+            int low = 0;
+            int high = entries.size() - 1;
+            Entry res = null;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                Entry entry = entries.get(middle);
+                if (entry.sequence <= sequence) {
+                    res = entry;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return res;
+        }
+    }
+
+    /**
+     * @return First sequence of the first block which may contain a record created at or after given date, <code>-1</code> if none.
+     */
+    long firstSequenceFrom(long creationDate) {
+        synchronized (entries) {
+            for (Entry entry : entries) {
+                if (entry.maxCreationDate >= creationDate) {
+                    return entry.sequence;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @return Sequence following the last block which may contain a record created at or before given date, <code>-1</code> if none.
+     */
+    long endSequenceTo(long creationDate) {
+        synchronized (entries) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry entry = entries.get(i);
+                if (entry.minCreationDate <= creationDate) {
+                    return i == entries.size() - 1 ? Long.MAX_VALUE : entries.get(i + 1).sequence;
+                }
+            }
+            return -1;
+        }
+    }
+
+    List<Location> locations(String correlationId) {
+        List<Location> locations = byCorrelationId.get(correlationId);
+        if (locations == null) {
+            return Collections.emptyList();
+        }
+        synchronized (locations) {
+            return new ArrayList<>(locations);
+        }
+    }
+
+    /**
+     * Remove all references to records from given sequence, used when a write fail.
+     */
+    void truncate(long sequence) {
+        synchronized (entries) {
+            entries.removeIf(entry -> entry.sequence >= sequence);
+        }
+        Iterator<List<Location>> iterator = byCorrelationId.values().iterator();
+        while (iterator.hasNext()) {
+            List<Location> locations = iterator.next();
+            locations.removeIf(location -> location.sequence >= sequence);
+            if (locations.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all references to records before given sequence, used when oldest segments are deleted.
+     */
+    void prune(long sequence) {
+        synchronized (entries) {
+            entries.removeIf(entry -> entry.sequence < sequence);
+        }
+        Iterator<List<Location>> iterator = byCorrelationId.values().iterator();
+        while (iterator.hasNext()) {
+            List<Location> locations = iterator.next();
+            locations.removeIf(location -> location.sequence < sequence);
+            if (locations.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    static class Location {
+
+        final long sequence;
+
+        final long segmentBase;
+
+        final long position;
+
+        Location(long sequence, long segmentBase, long position) {
+            this.sequence = sequence;
+            this.segmentBase = segmentBase;
+            this.position = position;
+        }
+    }
+
+    private static class Entry extends Location {
+
+        private long minCreationDate;
+
+        private long maxCreationDate;
+
+        private Entry(long sequence, long segmentBase, long position, long creationDate) {
+            super(sequence, segmentBase, position);
+            this.minCreationDate = creationDate;
+            this.maxCreationDate = creationDate;
+        }
+    }
+
+}
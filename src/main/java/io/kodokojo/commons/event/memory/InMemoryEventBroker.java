@@ -0,0 +1,92 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.memory;
+
+import io.kodokojo.commons.event.Event;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Route events between {@link InMemoryEventBus} of a same JVM, reproducing the exchanges declared by {@link io.kodokojo.commons.rabbitmq.RabbitMqEventBus}:
+ * <ul>
+ *     <li>broadcast reach the local queue of all connected instances;</li>
+ *     <li>service broadcast reach the local queue of all connected instances of a service;</li>
+ *     <li>send reach the business queue of each service, where instances of the service compete;</li>
+ *     <li>reply reach the local queue of the requester.</li>
+ * </ul>
+ */
+public class InMemoryEventBroker {
+
+    private final Map<String, InMemoryQueue> businessQueues = new ConcurrentHashMap<>();
+
+    private final Map<String, InMemoryEventBus> instances = new ConcurrentHashMap<>();
+
+    InMemoryQueue businessQueue(String serviceName) {
+        return businessQueues.computeIfAbsent(serviceName, name -> new InMemoryQueue());
+    }
+
+    void register(InMemoryEventBus eventBus) {
+        instances.put(eventBus.getLocalQueueName(), eventBus);
+    }
+
+    void unregister(InMemoryEventBus eventBus) {
+        instances.remove(eventBus.getLocalQueueName());
+    }
+
+    void broadcast(Event event) {
+        requireNonNull(event, "event must be defined.");
+        instances.values().forEach(instance -> instance.enqueueLocal(event));
+    }
+
+    void broadcastToService(String serviceName, Event event) {
+        requireNonNull(event, "event must be defined.");
+        instances.values().stream()
+                .filter(instance -> instance.getServiceName().equals(serviceName))
+                .forEach(instance -> instance.enqueueLocal(event));
+    }
+
+    void send(Event event) {
+        requireNonNull(event, "event must be defined.");
+        businessQueues.values().forEach(queue -> queue.offer(event));
+    }
+
+    /**
+     * @return <code>false</code> if no instance listen on given local queue.
+     */
+    boolean sendTo(String localQueueName, Event event) {
+        requireNonNull(event, "event must be defined.");
+        InMemoryEventBus instance = instances.get(localQueueName);
+        if (instance == null) {
+            return false;
+        }
+        instance.enqueueLocal(event);
+        return true;
+    }
+
+    /**
+     * @return Number of events waiting in the business queue of given service.
+     */
+    public int businessQueueSize(String serviceName) {
+        InMemoryQueue queue = businessQueues.get(serviceName);
+        return queue == null ? 0 : queue.size();
+    }
+
+}
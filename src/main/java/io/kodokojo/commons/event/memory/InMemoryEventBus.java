@@ -0,0 +1,308 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.memory;
+
+import io.kodokojo.commons.config.MicroServiceConfig;
+import io.kodokojo.commons.event.CorrelationIdGenerator;
+import io.kodokojo.commons.event.DefaultEventBuilderFactory;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.ReplyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * {@link EventBus} which exchange events through an {@link InMemoryEventBroker}, without any broker process.
+ * <p>
+ * Each simulated instance of the service is a consumer thread competing on the business queue of the service.
+ * Local queue, which receive broadcasts and replies, is consumed by a single thread.
+ * </p>
+ */
+public class InMemoryEventBus implements EventBus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryEventBus.class);
+
+    private final InMemoryEventBroker broker;
+
+    private final String serviceName;
+
+    private final String from;
+
+    private final String localQueueName;
+
+    private final int instanceCount;
+
+    private final EventBuilderFactory eventBuilderFactory;
+
+    private final InMemoryQueue localQueue = new InMemoryQueue();
+
+    private final Set<EventListener> eventListeners = new CopyOnWriteArraySet<>();
+
+    private final Map<String, ReplyEvent> requests = new ConcurrentHashMap<>();
+
+    private final List<Thread> consumers = new ArrayList<>();
+
+    private volatile boolean connected;
+
+    public InMemoryEventBus(InMemoryEventBroker broker, MicroServiceConfig microServiceConfig, int instanceCount) {
+        requireNonNull(broker, "broker must be defined.");
+        requireNonNull(microServiceConfig, "microServiceConfig must be defined.");
+        if (instanceCount < 1) {
+            throw new IllegalArgumentException("instanceCount must be greater than 0.");
+        }
+        this.broker = broker;
+        this.serviceName = microServiceConfig.name();
+        this.from = microServiceConfig.name() + "@" + microServiceConfig.uuid();
+        this.localQueueName = microServiceConfig.name() + "-" + microServiceConfig.uuid();
+        this.instanceCount = instanceCount;
+        this.eventBuilderFactory = new DefaultEventBuilderFactory(microServiceConfig);
+    }
+
+    String getServiceName() {
+        return serviceName;
+    }
+
+    String getLocalQueueName() {
+        return localQueueName;
+    }
+
+    void enqueueLocal(Event event) {
+        localQueue.offer(event);
+    }
+
+    @Override
+    public void connect() {
+        if (!connected) {
+            synchronized (consumers) {
+                if (!connected) {
+                    connected = true;
+                    broker.register(this);
+                    InMemoryQueue businessQueue = broker.businessQueue(serviceName);
+                    startConsumer(localQueue, localQueueName);
+                    for (int i = 0; i < instanceCount; i++) {
+                        startConsumer(businessQueue, serviceName + "-business-" + i);
+                    }
+                    LOGGER.info("In memory event bus connected for {} with {} simulated instance(s).", from, instanceCount);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void connect(Set<EventListener> eventListeners) {
+        requireNonNull(eventListeners, "eventListeners must be defined.");
+        this.eventListeners.addAll(eventListeners);
+        connect();
+    }
+
+    @Override
+    public String getFrom() {
+        return from;
+    }
+
+    @Override
+    public void broadcast(Event event) {
+        requireNonNull(event, "event must be defined.");
+        connect();
+        broker.broadcast(event);
+    }
+
+    @Override
+    public void broadcastToSameService(Event event) {
+        requireNonNull(event, "event must be defined.");
+        connect();
+        EventBuilder eventBuilder = new EventBuilder(event);
+        eventBuilder.addCustomHeader(Event.BROADCAST_FROM_CUSTOM_HEADER, from);
+        broker.broadcastToService(serviceName, eventBuilder.build());
+    }
+
+    @Override
+    public void send(Event event) {
+        requireNonNull(event, "event must be defined.");
+        connect();
+        broker.send(event);
+    }
+
+    @Override
+    public void send(Set<Event> events) {
+        requireNonNull(events, "events must be defined.");
+        connect();
+        events.forEach(broker::send);
+    }
+
+    @Override
+    public Event request(Event request, int duration, TimeUnit timeUnit) throws InterruptedException {
+        requireNonNull(request, "event must be defined.");
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        connect();
+        ReplyEvent replyEvent = new ReplyEvent(CorrelationIdGenerator.next(), request.getEventType(), 1);
+        try {
+            broker.send(buildRequest(request, replyEvent));
+            return replyEvent.getReply(duration, timeUnit);
+        } finally {
+            requests.remove(replyEvent.getCorrelationId());
+        }
+    }
+
+    /**
+     * There is no broker latency to hedge against, <code>hedged</code> is ignored.
+     */
+    @Override
+    public Event request(Event request, int duration, TimeUnit timeUnit, boolean hedged) throws InterruptedException {
+        return request(request, duration, timeUnit);
+    }
+
+    @Override
+    public List<Event> requestAll(Event request, String targetService, int expectedReplyCount, int duration, TimeUnit timeUnit) throws InterruptedException {
+        requireNonNull(request, "event must be defined.");
+        if (isBlank(targetService)) {
+            throw new IllegalArgumentException("targetService must be defined.");
+        }
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        if (expectedReplyCount < 1) {
+            throw new IllegalArgumentException("expectedReplyCount must be greater than 0.");
+        }
+        connect();
+        ReplyEvent replyEvent = new ReplyEvent(CorrelationIdGenerator.next(), expectedReplyCount);
+        try {
+            broker.broadcastToService(targetService, buildRequest(request, replyEvent));
+            return replyEvent.getReplies(duration, timeUnit);
+        } finally {
+            requests.remove(replyEvent.getCorrelationId());
+        }
+    }
+
+    private Event buildRequest(Event request, ReplyEvent replyEvent) {
+        requests.put(replyEvent.getCorrelationId(), replyEvent);
+        EventBuilder eventBuilder = new EventBuilder(request);
+        eventBuilder.setFrom(from)
+                .setRequestReplyType(Event.RequestReplyType.REQUEST)
+                .setReplyTo(localQueueName)
+                .setCorrelationId(replyEvent.getCorrelationId());
+        return eventBuilder.build();
+    }
+
+    @Override
+    public void reply(Event request, Event reply) {
+        requireNonNull(request, "request must be defined.");
+        requireNonNull(reply, "reply must be defined.");
+        if (request.getRequestReplyType() != Event.RequestReplyType.REQUEST) {
+            throw new IllegalArgumentException("Following event isn't a Request: " + Event.convertToJson(request));
+        }
+        if (isBlank(request.getReplyTo())) {
+            throw new IllegalArgumentException("Unable to Reply to Unknown destination");
+        }
+        if (isBlank(request.getCorrelationId())) {
+            throw new IllegalArgumentException("Unable to reply to a request without correlationId");
+        }
+        connect();
+        EventBuilder eventBuilder = eventBuilderFactory.create();
+        eventBuilder.setEvent(reply)
+                .setRequestReplyType(Event.RequestReplyType.REPLY)
+                .setCorrelationId(request.getCorrelationId())
+                .continueTrace(request);
+        if (!broker.sendTo(request.getReplyTo(), eventBuilder.build())) {
+            LOGGER.warn("Unable to reply to {}, no instance connected on this queue.", request.getReplyTo());
+        }
+    }
+
+    @Override
+    public void addEventListener(EventListener eventListener) {
+        requireNonNull(eventListener, "eventListener must be defined.");
+        eventListeners.add(eventListener);
+    }
+
+    @Override
+    public void removeEvenListener(EventListener eventListener) {
+        requireNonNull(eventListener, "eventListener must be defined.");
+        eventListeners.remove(eventListener);
+    }
+
+    @Override
+    public void disconnect() {
+        synchronized (consumers) {
+            if (connected) {
+                connected = false;
+                broker.unregister(this);
+                for (Thread consumer : consumers) {
+                    try {
+                        consumer.join(TimeUnit.SECONDS.toMillis(5));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                consumers.clear();
+            }
+        }
+    }
+
+    private void startConsumer(InMemoryQueue queue, String name) {
+        Thread consumer = new Thread(() -> {
+            while (connected) {
+                Event event = queue.poll();
+                if (event != null) {
+                    dispatch(event);
+                }
+            }
+        }, "in-memory-event-bus-" + name);
+        consumer.setDaemon(true);
+        consumers.add(consumer);
+        consumer.start();
+    }
+
+    private void dispatch(Event event) {
+        if (from.equals(event.getFrom())) {
+            LOGGER.debug("We are sender, ignore this message.");
+            return;
+        }
+        if (event.getRequestReplyType() == Event.RequestReplyType.REPLY) {
+            ReplyEvent replyEvent = event.getCorrelationId() == null ? null : requests.get(event.getCorrelationId());
+            if (replyEvent != null) {
+                replyEvent.setReply(event);
+                if (replyEvent.isComplete()) {
+                    requests.remove(event.getCorrelationId());
+                }
+            }
+        }
+        if (from.equals(event.getCustomHeader(Event.BROADCAST_FROM_CUSTOM_HEADER))) {
+            LOGGER.debug("Ignore a broacasted message sent by us.");
+            return;
+        }
+        for (EventListener eventListener : eventListeners) {
+            try {
+                eventListener.receive(event);
+            } catch (RuntimeException e) {
+                LOGGER.error("Listener {} fail to process following event:\n{}", eventListener, Event.convertToPrettyJson(event), e);
+            }
+        }
+    }
+
+}
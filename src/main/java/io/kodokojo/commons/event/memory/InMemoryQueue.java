@@ -0,0 +1,70 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.memory;
+
+import io.kodokojo.commons.event.Event;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock free unbounded queue, consumers park when the queue is empty and are unparked by producers.
+ */
+class InMemoryQueue {
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Thread> parkedConsumers = new ConcurrentLinkedQueue<>();
+
+    void offer(Event event) {
+        events.offer(event);
+        Thread consumer = parkedConsumers.poll();
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * @return Next event, or <code>null</code> if none is available after a short wait.
+     */
+    Event poll() {
+        Event event = events.poll();
+        if (event != null) {
+            return event;
+        }
+        Thread current = Thread.currentThread();
+        parkedConsumers.offer(current);
+        //  Check again to not miss an event offered before we were registered as parked.
+        event = events.poll();
+        if (event == null) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            event = events.poll();
+        }
+        parkedConsumers.remove(current);
+        return event;
+    }
+
+    int size() {
+        return events.size();
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.trace;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+
+import javax.inject.Inject;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Start traces on sampled {@link Event}s and record the duration of each processing phase as {@link Span}.
+ * Trace context is propagated in Event custom headers, see {@link EventBuilder#continueTrace(Event)}.
+ */
+public class EventTracer {
+
+    public static final String PUBLISH = "publish";
+
+    public static final String BROKER = "broker";
+
+    public static final String DECODE = "decode";
+
+    public static final String HANDLE = "handle";
+
+    public static final String ACTOR_ASK = "actor_ask";
+
+    public static final String ACK = "ack";
+
+    public static final String NACK = "nack";
+
+    private static final EventTracer DISABLED = new EventTracer(0, null);
+
+    private final double sampleRate;
+
+    private final SpanSink spanSink;
+
+    /**
+     * @param sampleRate Ratio of new traces started, between 0 and 1.
+     * @param spanSink Where to export spans, tracing is disabled when <code>null</code>.
+     */
+    public EventTracer(double sampleRate, SpanSink spanSink) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1.");
+        }
+        this.sampleRate = sampleRate;
+        this.spanSink = spanSink;
+    }
+
+    /**
+     * Disabled tracer, injected in applications which don't bind an EventTracer, like those without an event bus module.
+     */
+    @Inject
+    public EventTracer() {
+        this(0, null);
+    }
+
+    public static EventTracer disabled() {
+        return DISABLED;
+    }
+
+    public static String newIdentifier() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    public boolean isEnabled() {
+        return spanSink != null;
+    }
+
+    public static boolean isTraced(Event event) {
+        requireNonNull(event, "event must be defined.");
+        return event.getCustomHeader(Event.TRACE_ID_CUSTOM_HEADER) != null;
+    }
+
+    /**
+     * Start a new trace on given event if it isn't already traced and it is sampled.
+     * @return The given event, or a copy which contains trace headers.
+     */
+    public Event trace(Event event) {
+        requireNonNull(event, "event must be defined.");
+        if (!isEnabled() || sampleRate <= 0 || isTraced(event)) {
+            return event;
+        }
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return event;
+        }
+        return new EventBuilder(event)
+                .addCustomHeader(Event.TRACE_ID_CUSTOM_HEADER, newIdentifier())
+                .addCustomHeader(Event.SPAN_ID_CUSTOM_HEADER, newIdentifier())
+                .build();
+    }
+
+    /**
+     * Export a span for a phase of given event processing if event is traced.
+     * @param durationNanos Duration of the phase which just ended.
+     */
+    public void record(Event event, String phase, long durationNanos) {
+        if (!isEnabled() || event == null || !isTraced(event)) {
+            return;
+        }
+        long durationMicros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, durationNanos));
+        long startDate = System.currentTimeMillis() - TimeUnit.MICROSECONDS.toMillis(durationMicros);
+        spanSink.export(new Span(event.getCustomHeader(Event.TRACE_ID_CUSTOM_HEADER),
+                newIdentifier(),
+                event.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER),
+                phase,
+                event.getEventType(),
+                event.getFrom(),
+                startDate,
+                durationMicros));
+    }
+
+}
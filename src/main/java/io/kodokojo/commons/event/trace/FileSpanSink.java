@@ -0,0 +1,90 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.trace;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Append exported spans to a local file, one Json document per line.
+ */
+public class FileSpanSink implements SpanSink, ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSpanSink.class);
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final File file;
+
+    private final Gson gson = new GsonBuilder().create();
+
+    private Writer writer;
+
+    private int pending;
+
+    public FileSpanSink(File file) {
+        requireNonNull(file, "file must be defined.");
+        this.file = file;
+    }
+
+    @Override
+    public void export(Span span) {
+        requireNonNull(span, "span must be defined.");
+        String line = gson.toJson(span);
+        synchronized (this) {
+            try {
+                if (writer == null) {
+                    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+                }
+                writer.write(line);
+                writer.write('\n');
+                if (++pending >= FLUSH_EVERY) {
+                    writer.flush();
+                    pending = 0;
+                }
+            } catch (IOException e) {
+                LOGGER.error("Unable to write span in file {}.", file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        //  Nothing to do.
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOGGER.error("Unable to close span file {}.", file.getAbsolutePath(), e);
+            }
+            writer = null;
+        }
+    }
+}
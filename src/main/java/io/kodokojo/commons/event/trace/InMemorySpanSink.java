@@ -0,0 +1,63 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keep the latest exported spans in memory, oldest spans are dropped once capacity is reached.
+ */
+public class InMemorySpanSink implements SpanSink {
+
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    public InMemorySpanSink(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0.");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void export(Span span) {
+        requireNonNull(span, "span must be defined.");
+        spans.offer(span);
+        if (size.incrementAndGet() > capacity && spans.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    public List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public void clear() {
+        while (spans.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+}
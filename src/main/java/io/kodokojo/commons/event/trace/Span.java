@@ -0,0 +1,110 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.trace;
+
+import java.io.Serializable;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Timing of a processing phase of an {@link io.kodokojo.commons.event.Event}.
+ */
+public class Span implements Serializable {
+
+    private final String traceId;
+
+    private final String spanId;
+
+    private final String parentSpanId;
+
+    private final String name;
+
+    private final String eventType;
+
+    private final String from;
+
+    private final long startDate;
+
+    private final long durationMicros;
+
+    public Span(String traceId, String spanId, String parentSpanId, String name, String eventType, String from, long startDate, long durationMicros) {
+        if (isBlank(traceId)) {
+            throw new IllegalArgumentException("traceId must be defined.");
+        }
+        if (isBlank(spanId)) {
+            throw new IllegalArgumentException("spanId must be defined.");
+        }
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.eventType = eventType;
+        this.from = from;
+        this.startDate = startDate;
+        this.durationMicros = durationMicros;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public long getStartDate() {
+        return startDate;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "Span{" +
+                "traceId='" + traceId + '\'' +
+                ", spanId='" + spanId + '\'' +
+                ", parentSpanId='" + parentSpanId + '\'' +
+                ", name='" + name + '\'' +
+                ", eventType='" + eventType + '\'' +
+                ", from='" + from + '\'' +
+                ", startDate=" + startDate +
+                ", durationMicros=" + durationMicros +
+                '}';
+    }
+}
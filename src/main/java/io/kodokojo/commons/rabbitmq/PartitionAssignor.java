@@ -0,0 +1,88 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.rabbitmq;
+
+import io.kodokojo.commons.event.Event;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Assign business queue partitions to the instances of a service with rendezvous hashing: each partition goes to the member
+ * with the highest score, so all members compute the same assignment, and only partitions of a leaving or joining member move.
+ */
+public final class PartitionAssignor {
+
+    private PartitionAssignor() {
+        // Utility class
+    }
+
+    public static Set<Integer> assignedPartitions(String memberId, Collection<String> members, int partitionCount) {
+        requireNonNull(memberId, "memberId must be defined.");
+        requireNonNull(members, "members must be defined.");
+        Set<Integer> res = new HashSet<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            String owner = null;
+            long ownerScore = 0;
+            for (String member : members) {
+                long score = score(member, partition);
+                if (owner == null || score > ownerScore || (score == ownerScore && member.compareTo(owner) > 0)) {
+                    owner = member;
+                    ownerScore = score;
+                }
+            }
+            if (memberId.equals(owner)) {
+                res.add(partition);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return Key used by the consistent hash exchange to choose the partition of an event: its project configuration, else its organisation.
+     * <code>null</code> if event isn't related to any of them.
+     */
+    public static String partitionKey(Event event) {
+        requireNonNull(event, "event must be defined.");
+        String key = event.getCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER);
+        if (key == null) {
+            key = event.getCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER);
+        }
+        return key;
+    }
+
+    static long score(String member, int partition) {
+        //  FNV-1a of member, mixed with partition by a 64 bits finalizer.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < member.length(); i++) {
+            hash ^= member.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= partition * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.rabbitmq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Consume the business queue partitions assigned to this instance, given the members of the service currently known.
+ * <p>
+ * Members are discovered from heartbeats and expire when no heartbeat had been received since <code>memberTimeoutMillis</code>.
+ * During a rebalance, a partition may be consumed by two instances until both have seen the same members.
+ * </p>
+ */
+class PartitionedBusinessConsumer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedBusinessConsumer.class);
+
+    private final RabbitMqConsumer consumer;
+
+    private final String queuePrefix;
+
+    private final int partitionCount;
+
+    private final String memberId;
+
+    private final long memberTimeoutMillis;
+
+    private final Map<String, Long> members = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String> consumerTags = new HashMap<>();
+
+    PartitionedBusinessConsumer(RabbitMqConsumer consumer, String queuePrefix, int partitionCount, String memberId, long memberTimeoutMillis) {
+        requireNonNull(consumer, "consumer must be defined.");
+        if (isBlank(queuePrefix)) {
+            throw new IllegalArgumentException("queuePrefix must be defined.");
+        }
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be greater than 0.");
+        }
+        if (isBlank(memberId)) {
+            throw new IllegalArgumentException("memberId must be defined.");
+        }
+        this.consumer = consumer;
+        this.queuePrefix = queuePrefix;
+        this.partitionCount = partitionCount;
+        this.memberId = memberId;
+        this.memberTimeoutMillis = memberTimeoutMillis;
+        members.put(memberId, Long.MAX_VALUE);
+    }
+
+    static String partitionQueueName(String queuePrefix, int partition) {
+        return queuePrefix + "-" + partition;
+    }
+
+    /**
+     * @return <code>true</code> if given member wasn't known.
+     */
+    boolean memberSeen(String member) {
+        return members.put(member, System.currentTimeMillis()) == null;
+    }
+
+    void memberLeft(String member) {
+        if (!memberId.equals(member)) {
+            members.remove(member);
+        }
+    }
+
+    synchronized Set<Integer> getAssignedPartitions() {
+        return new HashSet<>(consumerTags.keySet());
+    }
+
+    synchronized void rebalance() {
+        long expiredBefore = System.currentTimeMillis() - memberTimeoutMillis;
+        members.entrySet().removeIf(entry -> entry.getValue() < expiredBefore);
+        Set<Integer> assigned = PartitionAssignor.assignedPartitions(memberId, members.keySet(), partitionCount);
+        Iterator<Map.Entry<Integer, String>> iterator = consumerTags.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (!assigned.contains(entry.getKey())) {
+                try {
+                    consumer.cancel(entry.getValue());
+                    iterator.remove();
+                } catch (IOException e) {
+                    LOGGER.error("Unable to stop consuming partition {}.", entry.getKey(), e);
+                }
+            }
+        }
+        for (Integer partition : assigned) {
+            if (!consumerTags.containsKey(partition)) {
+                try {
+                    consumerTags.put(partition, consumer.consume(partitionQueueName(queuePrefix, partition)));
+                } catch (IOException e) {
+                    LOGGER.error("Unable to consume partition {}.", partition, e);
+                }
+            }
+        }
+        LOGGER.debug("Consume partitions {} shared between {} members.", consumerTags.keySet(), members.size());
+    }
+
+}
@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
 import static java.util.Objects.requireNonNull;
 
@@ -38,7 +39,18 @@ public class RabbitMqConsumer implements Consumer {
 
     public interface RabbitMqListener {
 
-        void receive(Channel channel, String consumerTag, Envelope envelope, AMQP.BasicProperties properties, String payloa);
+        /**
+         * @return <code>null</code> to acknowledge the message once this method returns, or a stage completed once the message is processed.
+         * Message is rejected if this method throws a RuntimeException or if the stage completes exceptionally.
+         */
+        CompletionStage<?> receive(Channel channel, String consumerTag, Envelope envelope, AMQP.BasicProperties properties, String payloa);
+
+        /**
+         * Called once the message received had been acked or nacked.
+         */
+        default void acknowledged(Envelope envelope, boolean ack, long durationNanos) {
+            //  Nothing to do.
+        }
 
     }
 
@@ -58,24 +70,64 @@ public class RabbitMqConsumer implements Consumer {
         }
     }
 
+    /**
+     * @return Consumer tag of the new subscription on given queue.
+     */
+    public String consume(String queueName) throws IOException {
+        requireNonNull(queueName, "queueName must be defined.");
+        String consumerTag = channel.basicConsume(queueName, false, this);
+        channel.basicQos(50);
+        return consumerTag;
+    }
+
+    public void cancel(String consumerTag) throws IOException {
+        requireNonNull(consumerTag, "consumerTag must be defined.");
+        channel.basicCancel(consumerTag);
+    }
+
     @Override
     public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
         String message = new String(body, UTF_8);
-        //synchronized (channel) {
+        CompletionStage<?> processed;
         try {
-            listener.receive(channel, consumerTag, envelope, properties, message);
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Ack message with delivery tag '{}' from exchange '{}' on channel {}", envelope.getDeliveryTag(), envelope.getExchange(), channel.getChannelNumber());
-            }
-            channel.basicAck(envelope.getDeliveryTag(), false);
+            processed = listener.receive(channel, consumerTag, envelope, properties, message);
         } catch (RuntimeException e) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Following exception occur while process message with tag '{}', NACK this message.", envelope.getDeliveryTag(), e);
             }
-            channel.basicNack(envelope.getDeliveryTag(), false, false);
+            acknowledge(envelope, false);
+            return;
+        }
+        if (processed == null) {
+            acknowledge(envelope, true);
+        } else {
+            processed.whenComplete((result, e) -> {
+                if (e != null && LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Following exception occur while process message with tag '{}', NACK this message.", envelope.getDeliveryTag(), e);
+                }
+                try {
+                    acknowledge(envelope, e == null);
+                } catch (IOException ioe) {
+                    LOGGER.error("Unable to acknowledge message with delivery tag '{}'.", envelope.getDeliveryTag(), ioe);
+                }
+            });
         }
-        //}
+    }
 
+    private void acknowledge(Envelope envelope, boolean ack) throws IOException {
+        long ackStart = System.nanoTime();
+        //  Messages processed asynchronously are acknowledged from other threads than the consumer one.
+        synchronized (channel) {
+            if (ack) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Ack message with delivery tag '{}' from exchange '{}' on channel {}", envelope.getDeliveryTag(), envelope.getExchange(), channel.getChannelNumber());
+                }
+                channel.basicAck(envelope.getDeliveryTag(), false);
+            } else {
+                channel.basicNack(envelope.getDeliveryTag(), false, false);
+            }
+        }
+        listener.acknowledged(envelope, ack, System.nanoTime() - ackStart);
     }
 
     @Override
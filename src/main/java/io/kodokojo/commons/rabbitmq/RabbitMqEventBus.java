@@ -20,19 +20,31 @@ package io.kodokojo.commons.rabbitmq;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
 import com.rabbitmq.client.MessageProperties;
 import io.kodokojo.commons.config.MicroServiceConfig;
 import io.kodokojo.commons.config.RabbitMqConfig;
 import io.kodokojo.commons.event.*;
+import io.kodokojo.commons.event.trace.EventTracer;
+import io.kodokojo.commons.service.metrics.EventBusMetrics;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
 import io.kodokojo.commons.model.ServiceInfo;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
@@ -48,6 +60,11 @@ public class RabbitMqEventBus implements EventBus {
 
     private static final String X_DEAD_LETTER_EXCHANGE = "x-dead-letter-exchange";
 
+    private static final String X_CONSISTENT_HASH = "x-consistent-hash";
+
+    //  With the consistent hash exchange, binding key is the weight of the queue.
+    private static final String PARTITION_WEIGHT = "1";
+
     private final RabbitMqConfig rabbitMqConfig;
 
     private final Object monitor = new Object();
@@ -70,23 +87,44 @@ public class RabbitMqEventBus implements EventBus {
 
     private final Set<EventListener> waitingListeners = new HashSet<>();
 
+    private final Set<EventListener> publishedListeners = new CopyOnWriteArraySet<>();
+
+    private volatile CompositeEventListener scheduledListeners;
+
     private final Map<String, ReplyEvent> requests = new ConcurrentHashMap<>();
 
+    private final Set<String> declaredServiceBroadcastExchanges = ConcurrentHashMap.newKeySet();
+
+    private final ReplyLatencyTracker replyLatencyTracker;
+
+    private final EventTracer eventTracer;
+
+    private final EventBusMetrics eventBusMetrics;
+
     private final ServiceInfo serviceInfo;
 
+    private final AtomicLong partitionKeySequence = new AtomicLong();
+
     protected Connection connection;
 
     protected RabbitMqConsumer consumer;
 
     protected RabbitMqProducer producer;
 
+    private PartitionedBusinessConsumer partitionedBusinessConsumer;
 
-    public RabbitMqEventBus(RabbitMqConfig rabbitMqConfig, RabbitMqConnectionFactory connectionFactory, JsonToEventConverter jsonToEventConverter, MicroServiceConfig microServiceConfig, ServiceInfo serviceInfo) {
+    private ScheduledExecutorService partitionHeartbeat;
+
+    public RabbitMqEventBus(RabbitMqConfig rabbitMqConfig, RabbitMqConnectionFactory connectionFactory, JsonToEventConverter jsonToEventConverter, MicroServiceConfig microServiceConfig, ServiceInfo serviceInfo, EventTracer eventTracer, EventBusMetrics eventBusMetrics) {
         requireNonNull(rabbitMqConfig, "rabbitMqConfig must be defined.");
         requireNonNull(connectionFactory, "connectionFactory must be defined.");
         requireNonNull(jsonToEventConverter, "jsonToEventConverter must be defined.");
         requireNonNull(microServiceConfig, "microServiceConfig must be defined.");
         requireNonNull(serviceInfo, "serviceInfo must be defined.");
+        requireNonNull(eventTracer, "eventTracer must be defined.");
+        requireNonNull(eventBusMetrics, "eventBusMetrics must be defined.");
+        this.eventTracer = eventTracer;
+        this.eventBusMetrics = eventBusMetrics;
         eventBuilderFactory = new DefaultEventBuilderFactory(microServiceConfig);
 
         this.rabbitMqConfig = rabbitMqConfig;
@@ -96,8 +134,25 @@ public class RabbitMqEventBus implements EventBus {
         this.serviceInfo = serviceInfo;
         this.businessQueueName = rabbitMqConfig.serviceQueueName() + "-business";
         this.localQueueName = rabbitMqConfig.serviceQueueName() + "-" + microServiceConfig.uuid();
-        this.serviceBroadcastExhangeName = microServiceConfig.name() + "-broadcast";
+        this.serviceBroadcastExhangeName = serviceBroadcastExchangeName(microServiceConfig.name());
         this.from = microServiceConfig.name() + "@" + microServiceConfig.uuid();
+        this.replyLatencyTracker = new ReplyLatencyTracker(ReplyLatencyTracker.DEFAULT_WINDOW_SIZE, rabbitMqConfig.requestTimeoutMinSampleCount(), rabbitMqConfig.requestTimeoutP99Factor());
+        String adaptiveTimeoutEventTypes = rabbitMqConfig.requestTimeoutAdaptiveEventTypes();
+        if (StringUtils.isNotBlank(adaptiveTimeoutEventTypes)) {
+            Arrays.stream(adaptiveTimeoutEventTypes.split(","))
+                    .map(String::trim)
+                    .filter(StringUtils::isNotBlank)
+                    .forEach(replyLatencyTracker::enableAdaptiveTimeout);
+        }
+        eventBusMetrics.registerPendingRequests(requests::size);
+    }
+
+    public RabbitMqEventBus(RabbitMqConfig rabbitMqConfig, RabbitMqConnectionFactory connectionFactory, JsonToEventConverter jsonToEventConverter, MicroServiceConfig microServiceConfig, ServiceInfo serviceInfo, EventTracer eventTracer) {
+        this(rabbitMqConfig, connectionFactory, jsonToEventConverter, microServiceConfig, serviceInfo, eventTracer, new EventBusMetrics(new MetricRegistry()));
+    }
+
+    public RabbitMqEventBus(RabbitMqConfig rabbitMqConfig, RabbitMqConnectionFactory connectionFactory, JsonToEventConverter jsonToEventConverter, MicroServiceConfig microServiceConfig, ServiceInfo serviceInfo) {
+        this(rabbitMqConfig, connectionFactory, jsonToEventConverter, microServiceConfig, serviceInfo, EventTracer.disabled());
     }
 
     @Override
@@ -138,6 +193,7 @@ public class RabbitMqEventBus implements EventBus {
     private void initConnection() throws IOException {
 
         connection = connectionFactory.createFromRabbitMqConfig(rabbitMqConfig);
+        declaredServiceBroadcastExchanges.clear();
 
         //  Configure default Exchange, service queue, etc...
         Channel channel = connection.createChannel();
@@ -153,12 +209,28 @@ public class RabbitMqEventBus implements EventBus {
 
 
         channel.exchangeDeclare(rabbitMqConfig.businessExchangeName(), FANOUT, true, false, args);
-        AMQP.Queue.DeclareOk declareOk = channel.queueDeclare(businessQueueName, true, false, false, args);
 
-        int consumerCount = declareOk.getConsumerCount();
-        int messageCount = declareOk.getMessageCount();
-
-        channel.queueBind(businessQueueName, rabbitMqConfig.businessExchangeName(), "");
+        int partitionCount = rabbitMqConfig.businessPartitionCount();
+        int consumerCount = 0;
+        int messageCount = 0;
+        if (partitionCount > 0) {
+            String partitionExchangeName = businessQueueName + "-partitions";
+            channel.exchangeDeclare(partitionExchangeName, X_CONSISTENT_HASH, true, false, args);
+            channel.exchangeBind(partitionExchangeName, rabbitMqConfig.businessExchangeName(), "");
+            for (int i = 0; i < partitionCount; i++) {
+                String partitionQueueName = PartitionedBusinessConsumer.partitionQueueName(businessQueueName, i);
+                AMQP.Queue.DeclareOk declareOk = channel.queueDeclare(partitionQueueName, true, false, false, args);
+                consumerCount = Math.max(consumerCount, declareOk.getConsumerCount());
+                messageCount += declareOk.getMessageCount();
+                channel.queueBind(partitionQueueName, partitionExchangeName, PARTITION_WEIGHT);
+            }
+            migrateUnpartitionedBusinessQueue(partitionExchangeName);
+        } else {
+            AMQP.Queue.DeclareOk declareOk = channel.queueDeclare(businessQueueName, true, false, false, args);
+            consumerCount = declareOk.getConsumerCount();
+            messageCount = declareOk.getMessageCount();
+            channel.queueBind(businessQueueName, rabbitMqConfig.businessExchangeName(), "");
+        }
 
         channel.exchangeDeclare(rabbitMqConfig.broadcastExchangeName(), FANOUT, true, false, args);
         channel.exchangeDeclare(microServiceConfig.name(), FANOUT, false, false, args);
@@ -171,41 +243,22 @@ public class RabbitMqEventBus implements EventBus {
         channel.queueBind(localQueueName, serviceBroadcastExhangeName, "");
 
 
-        RabbitMqConsumer.RabbitMqListener listener = (channelInner, consumerTag, envelope, properties, payload) -> {
-            Event event = jsonToEventConverter.converter(payload);
-            if (from.equals(event.getFrom())) {
-                LOGGER.debug("We are sender, ignore this message.");
-            } else {
-                String correlationId = event.getCorrelationId();
-                if (event.getRequestReplyType() == Event.RequestReplyType.REPLY) {
-                    if (requests.containsKey(correlationId)) {
-                        requests.get(correlationId).setReply(event);
-                        requests.remove(correlationId);
-                        LOGGER.debug("Receive and remove request for following reply to request with correlation ID : {}\n{}", correlationId, Event.convertToPrettyJson(event));
-                    } else {
-                        LOGGER.debug("Receive a Reply form a Request we don't request [correlationId:{}]:\n{}", correlationId, Event.convertToPrettyJson(event));
-                    }
-                }
-                Map<String, String> custom = event.getCustom();
-                if (custom.containsKey(Event.BROADCAST_FROM_CUSTOM_HEADER) &&
-                        from.equals(custom.get(Event.BROADCAST_FROM_CUSTOM_HEADER))) {
-                    LOGGER.debug("Ignore a broacasted message sent by us.");
-                } else {
-                    for (EventListener eventListener : waitingListeners) {
-                        eventListener.receive(event);
-                    }
-                }
-
-            }
-        };
+        RabbitMqConsumer.RabbitMqListener listener = new EventBusDeliveryListener();
 
         Set<String> queues = new HashSet<>();
         queues.add(localQueueName);
         consumer = new RabbitMqConsumer(localChannel, queues, listener);
-        queues = new HashSet<>();
-        queues.add(businessQueueName);
-        consumer = new RabbitMqConsumer(channel, queues, listener);
         producer = new RabbitMqProducer(publishChannel);
+        if (partitionCount > 0) {
+            long heartbeatMillis = rabbitMqConfig.businessPartitionHeartbeatMillis();
+            consumer = new RabbitMqConsumer(channel, new HashSet<>(), listener);
+            partitionedBusinessConsumer = new PartitionedBusinessConsumer(consumer, businessQueueName, partitionCount, from, 3 * heartbeatMillis);
+            startPartitionHeartbeat(heartbeatMillis);
+        } else {
+            queues = new HashSet<>();
+            queues.add(businessQueueName);
+            consumer = new RabbitMqConsumer(channel, queues, listener);
+        }
 
 
         EventBuilder eventBuilder = eventBuilderFactory.create();
@@ -223,6 +276,66 @@ public class RabbitMqEventBus implements EventBus {
         );
     }
 
+    private void startPartitionHeartbeat(long heartbeatMillis) {
+        partitionHeartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "business-partition-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        partitionHeartbeat.scheduleAtFixedRate(() -> sendPartitionEvent(Event.SERVICE_PARTITION_HEARTBEAT_TYPE), 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+        //  Give a heartbeat period to other instances to announce themselves before choosing our partitions.
+        partitionHeartbeat.scheduleAtFixedRate(this::rebalancePartitions, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void sendPartitionEvent(String eventType) {
+        try {
+            EventBuilder eventBuilder = eventBuilderFactory.create();
+            eventBuilder.setCategory(Event.Category.TECHNICAL)
+                    .setEventType(eventType);
+            broadcastToSameService(eventBuilder.build());
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to send {} event.", eventType, e);
+        }
+    }
+
+    private void rebalancePartitions() {
+        try {
+            partitionedBusinessConsumer.rebalance();
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to rebalance business queue partitions.", e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if given event is a partition membership event, which isn't dispatched to listeners.
+     */
+    private boolean handlePartitionEvent(Event event) {
+        if (Event.SERVICE_PARTITION_HEARTBEAT_TYPE.equals(event.getEventType())) {
+            if (partitionedBusinessConsumer.memberSeen(event.getFrom())) {
+                //  Let the new member know us without waiting next heartbeat.
+                sendPartitionEvent(Event.SERVICE_PARTITION_HEARTBEAT_TYPE);
+                rebalancePartitions();
+            }
+            return true;
+        } else if (Event.SERVICE_PARTITION_LEAVE_TYPE.equals(event.getEventType())) {
+            partitionedBusinessConsumer.memberLeft(event.getFrom());
+            rebalancePartitions();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Events of a same project configuration, or else of a same organisation, are routed to the same partition to keep their order.
+     */
+    private String businessRoutingKey(Event event) {
+        String partitionKey = PartitionAssignor.partitionKey(event);
+        if (partitionKey == null) {
+            partitionKey = event.getCorrelationId() == null ? Long.toString(partitionKeySequence.incrementAndGet()) : event.getCorrelationId();
+        }
+        return partitionKey;
+    }
+
     @Override
     public String getFrom() {
         return from;
@@ -232,9 +345,10 @@ public class RabbitMqEventBus implements EventBus {
     public void broadcast(Event event) {
         requireNonNull(event, "event must be defined.");
         connect();
+        event = eventTracer.trace(event);
         String message = Event.convertToJson(event);
         try {
-            producer.publish(rabbitMqConfig.broadcastExchangeName(), message, null, null);
+            publish(event, rabbitMqConfig.broadcastExchangeName(), message, null, null);
         } catch (Exception e) {
             LOGGER.error("An error occur while broadcasting following event:\n{}", Event.convertToPrettyJson(event), e);
         }
@@ -247,10 +361,10 @@ public class RabbitMqEventBus implements EventBus {
 
         EventBuilder eventBuilder = new EventBuilder(event);
         eventBuilder.addCustomHeader(Event.BROADCAST_FROM_CUSTOM_HEADER, from);
-        Event eventToSend = eventBuilder.build();
+        Event eventToSend = eventTracer.trace(eventBuilder.build());
         String message = Event.convertToJson(eventToSend);
         try {
-            producer.publish(serviceBroadcastExhangeName, message, null, null);
+            publish(eventToSend, serviceBroadcastExhangeName, message, null, null);
         } catch (Exception e) {
             LOGGER.error("An error occur while broadcasting following event:\n{}", Event.convertToPrettyJson(eventToSend), e);
         }
@@ -260,9 +374,10 @@ public class RabbitMqEventBus implements EventBus {
     public void send(Event event) {
         requireNonNull(event, "event must be defined.");
         connect();
+        event = eventTracer.trace(event);
         String message = Event.convertToJson(event);
         try {
-            producer.publish(rabbitMqConfig.businessExchangeName(), message, null, null);
+            publish(event, rabbitMqConfig.businessExchangeName(), message, businessRoutingKey(event), null);
         } catch (Exception e) {
             LOGGER.error("Unable to send event:\n{}", Event.convertToPrettyJson(event), e);
         }
@@ -272,9 +387,23 @@ public class RabbitMqEventBus implements EventBus {
     public void send(Set<Event> events) {
         requireNonNull(events, "events must be defined.");
         connect();
-        List<String> messages = events.stream().map(Event::convertToJson).collect(Collectors.toList());
+        List<Event> toSend = events.stream().map(eventTracer::trace).collect(Collectors.toList());
+        List<String> messages = toSend.stream().map(Event::convertToJson).collect(Collectors.toList());
+        List<String> routingKeys = toSend.stream().map(this::businessRoutingKey).collect(Collectors.toList());
         try {
-            producer.publish(rabbitMqConfig.businessExchangeName(), messages, null, null);
+            String exchangeName = rabbitMqConfig.businessExchangeName();
+            long publishStart = System.nanoTime();
+            eventBusMetrics.publishing();
+            int published = 0;
+            try {
+                producer.publish(exchangeName, messages, routingKeys, null);
+                published = messages.size();
+                toSend.forEach(this::notifyPublished);
+            } finally {
+                long duration = System.nanoTime() - publishStart;
+                eventBusMetrics.published(exchangeName, published, duration);
+                toSend.forEach(event -> eventTracer.record(event, EventTracer.PUBLISH, duration));
+            }
         } catch (Exception e) {
             LOGGER.error("Unable to send a list of events.", e);
         }
@@ -282,21 +411,171 @@ public class RabbitMqEventBus implements EventBus {
 
     @Override
     public Event request(Event request, int duration, TimeUnit timeUnit) throws InterruptedException {
+        return request(request, duration, timeUnit, false);
+    }
+
+    @Override
+    public Event request(Event request, int duration, TimeUnit timeUnit, boolean hedged) throws InterruptedException {
+        requireNonNull(request, "event must be defined.");
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        connect();
+
+        String eventType = request.getEventType();
+        String correlationId = CorrelationIdGenerator.next();
+        ReplyEvent replyEvent = new ReplyEvent(correlationId, eventType, 1);
+        long timeout = replyLatencyTracker.adaptTimeout(eventType, timeUnit.toMillis(duration));
+
+        publishRequest(request, replyEvent, rabbitMqConfig.businessExchangeName());
+
+        long hedgeDelay = hedged && isHedgingEnabled() ? replyLatencyTracker.hedgeDelay(eventType) : -1;
+        Event reply;
+        if (hedgeDelay > 0 && hedgeDelay < timeout) {
+            reply = replyEvent.getReply(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (reply == null) {
+                LOGGER.debug("No reply after {}ms for request with correlationId {}, sending a hedged request.", hedgeDelay, correlationId);
+                //  Same correlationId, only the first reply will be kept.
+                publishRequest(request, replyEvent, rabbitMqConfig.businessExchangeName());
+                reply = replyEvent.getReply(timeout - hedgeDelay, TimeUnit.MILLISECONDS);
+            }
+        } else {
+            reply = replyEvent.getReply(timeout, TimeUnit.MILLISECONDS);
+        }
+        if (reply == null) {
+            //  Without this sample, observed latencies would only contain fast replies and timeouts could only shrink.
+            replyLatencyTracker.record(eventType, timeout);
+        }
+        return reply;
+    }
+
+    /**
+     * A hedged request would have the same routing key, so reach the same partition and its single consumer;
+     * requests are never hedged when the business queue is partitioned.
+     */
+    boolean isHedgingEnabled() {
+        Integer partitionCount = rabbitMqConfig.businessPartitionCount();
+        return partitionCount == null || partitionCount <= 0;
+    }
+
+    /**
+     * Let the timeout of requests of given event type be shortened from their observed reply latencies,
+     * when <code>rabbitmq.request.timeout.p99Factor</code> is set.
+     */
+    public void enableAdaptiveTimeout(String eventType) {
+        replyLatencyTracker.enableAdaptiveTimeout(eventType);
+    }
+
+    @Override
+    public List<Event> requestAll(Event request, String targetService, int expectedReplyCount, int duration, TimeUnit timeUnit) throws InterruptedException {
         requireNonNull(request, "event must be defined.");
+        if (isBlank(targetService)) {
+            throw new IllegalArgumentException("targetService must be defined.");
+        }
+        if (expectedReplyCount < 1) {
+            throw new IllegalArgumentException("expectedReplyCount must be greater than 0.");
+        }
         connect();
 
+        String correlationId = CorrelationIdGenerator.next();
+        ReplyEvent replyEvent = new ReplyEvent(correlationId, expectedReplyCount);
+
+        publishRequest(request, replyEvent, declareServiceBroadcastExchange(targetService));
+        try {
+            return replyEvent.getReplies(duration, timeUnit);
+        } finally {
+            requests.remove(correlationId);
+        }
+    }
+
+    /**
+     * Stop routing business events to the queue used before partitioning, move the events it still holds to the partition exchange, then delete it.
+     * While instances of a previous version still consume this queue, they drain it themselves and it will be deleted on a next start.
+     */
+    private void migrateUnpartitionedBusinessQueue(String partitionExchangeName) throws IOException {
+        Channel migrationChannel = connection.createChannel();
+        try {
+            AMQP.Queue.DeclareOk declareOk;
+            try {
+                declareOk = migrationChannel.queueDeclarePassive(businessQueueName);
+            } catch (IOException e) {
+                //  Queue doesn't exist, the broker closed the channel.
+                LOGGER.debug("No business queue {} left from a previous version.", businessQueueName);
+                return;
+            }
+            migrationChannel.queueUnbind(businessQueueName, rabbitMqConfig.businessExchangeName(), "");
+            if (declareOk.getConsumerCount() > 0) {
+                LOGGER.warn("Business queue {} is still consumed by {} instance(s) without partitioning, keep it until they stop.", businessQueueName, declareOk.getConsumerCount());
+                return;
+            }
+            migrationChannel.confirmSelect();
+            int moved = 0;
+            GetResponse response;
+            while ((response = migrationChannel.basicGet(businessQueueName, false)) != null) {
+                Event event = jsonToEventConverter.converter(new String(response.getBody(), StandardCharsets.UTF_8));
+                migrationChannel.basicPublish(partitionExchangeName, businessRoutingKey(event), response.getProps(), response.getBody());
+                migrationChannel.waitForConfirmsOrDie();
+                migrationChannel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                moved++;
+            }
+            migrationChannel.queueDelete(businessQueueName, true, true);
+            LOGGER.info("Business queue {} replaced by {} partitions, {} waiting event(s) moved to partitions.", businessQueueName, rabbitMqConfig.businessPartitionCount(), moved);
+        } catch (IOException e) {
+            LOGGER.error("Unable to migrate business queue {} to partitions, retry on next start.", businessQueueName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while moving events of business queue " + businessQueueName, e);
+        } finally {
+            if (migrationChannel.isOpen()) {
+                try {
+                    migrationChannel.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to close migration channel.", e);
+                }
+            }
+        }
+    }
+
+    private static String serviceBroadcastExchangeName(String serviceName) {
+        return serviceName + "-broadcast";
+    }
+
+    /**
+     * Declare the broadcast exchange of given service, publishing on an exchange which don't exist yet would close the channel.
+     * @return Name of the exchange.
+     */
+    private String declareServiceBroadcastExchange(String serviceName) {
+        String exchangeName = serviceBroadcastExchangeName(serviceName);
+        if (!declaredServiceBroadcastExchanges.contains(exchangeName)) {
+            Map<String, Object> args = new HashMap<>();
+            args.put(X_DEAD_LETTER_EXCHANGE, rabbitMqConfig.deadLetterExchangeName());
+            synchronized (monitor) {
+                try {
+                    Channel channel = connection.createChannel();
+                    try {
+                        channel.exchangeDeclare(exchangeName, FANOUT, false, false, args);
+                    } finally {
+                        channel.close();
+                    }
+                    declaredServiceBroadcastExchanges.add(exchangeName);
+                } catch (Exception e) {
+                    LOGGER.error("Unable to declare broadcast exchange of service {}.", serviceName, e);
+                }
+            }
+        }
+        return exchangeName;
+    }
+
+    private void publishRequest(Event request, ReplyEvent replyEvent, String exchangeName) {
+        String correlationId = replyEvent.getCorrelationId();
         EventBuilder eventBuilder = new EventBuilder(request);
-        String correlationId = UUID.randomUUID().toString();
         eventBuilder
                 .setRequestReplyType(Event.RequestReplyType.REQUEST)
                 .setReplyTo(localQueueName)
                 .setCorrelationId(correlationId);
 
-        ReplyEvent replyEvent = new ReplyEvent(correlationId);
-
         addEventRequest(replyEvent);
 
-        String message = Event.convertToJson(eventBuilder.build());
+        Event event = eventTracer.trace(eventBuilder.build());
+        String message = Event.convertToJson(event);
 
         AMQP.BasicProperties props = new AMQP.BasicProperties
                 .Builder()
@@ -306,12 +585,10 @@ public class RabbitMqEventBus implements EventBus {
                 .build();
 
         try {
-            producer.publish(rabbitMqConfig.businessExchangeName(), message, null, props);
+            publish(event, exchangeName, message, businessRoutingKey(event), props);
         } catch (Exception e) {
             LOGGER.error("Unable to publish request with correlationId {}.", correlationId, e);
         }
-
-        return replyEvent.getReply(duration, timeUnit);
     }
 
     @Override
@@ -343,20 +620,22 @@ public class RabbitMqEventBus implements EventBus {
         } else if (!request.getCorrelationId().equals(reply.getCorrelationId())) {
             throw new IllegalArgumentException("Request correlationId " + request.getCorrelationId() + " is different in reply [" + reply.getCorrelationId() + "].");
         }
+        if (!EventTracer.isTraced(reply)) {
+            eventBuilder.continueTrace(request);
+        }
 
         AMQP.BasicProperties props = new AMQP.BasicProperties
                 .Builder()
                 .correlationId(request.getCorrelationId())
                 .deliveryMode(MessageProperties.PERSISTENT_TEXT_PLAIN.getDeliveryMode())
                 .build();
-        Event event = eventBuilder.build();
+        Event event = eventTracer.trace(eventBuilder.build());
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Sending following Reply to {}:\n{}", request.getReplyTo(), Event.convertToPrettyJson(event));
         }
         String message = Event.convertToJson(event);
         try {
-
-            producer.publish("", message, request.getReplyTo(), props);
+            publish(event, "", message, request.getReplyTo(), props);
         } catch (Exception e) {
             LOGGER.error("Unable to publish reply with correletaionId {} to {}", event.getCorrelationId(), request.getReplyTo(), e);
         }
@@ -366,19 +645,58 @@ public class RabbitMqEventBus implements EventBus {
     @Override
     public void addEventListener(EventListener eventListener) {
         requireNonNull(eventListener, "eventListener must be defined.");
-        waitingListeners.add(eventListener);
+        if (scheduledListeners == null) {
+            waitingListeners.add(eventListener);
+        } else {
+            scheduledListeners.addEventListener(eventListener);
+        }
     }
 
     @Override
     public void removeEvenListener(EventListener eventListener) {
         requireNonNull(eventListener, "eventListener must be defined.");
         waitingListeners.remove(eventListener);
+        if (scheduledListeners != null) {
+            scheduledListeners.removeEventListener(eventListener);
+        }
+    }
+
+    /**
+     * Give received events to <code>scheduler</code>, like a {@link io.kodokojo.commons.service.actor.WeightedFairEventScheduler}
+     * which hands them to <code>scheduledListeners</code>. Listeners added afterwards, like an
+     * {@link io.kodokojo.commons.service.actor.EventToEndpointGateway}, are added to <code>scheduledListeners</code> instead of
+     * receiving events directly from the consumer.
+     */
+    public void scheduleEventListenersWith(AsyncEventListener scheduler, CompositeEventListener scheduledListeners) {
+        requireNonNull(scheduler, "scheduler must be defined.");
+        requireNonNull(scheduledListeners, "scheduledListeners must be defined.");
+        waitingListeners.add(scheduler);
+        this.scheduledListeners = scheduledListeners;
+    }
+
+    /**
+     * Add a listener which receive each event successfully published by this bus, like an {@link io.kodokojo.commons.event.journal.EventJournal}.
+     */
+    public void addPublishedEventListener(EventListener eventListener) {
+        requireNonNull(eventListener, "eventListener must be defined.");
+        publishedListeners.add(eventListener);
+    }
+
+    public void removePublishedEventListener(EventListener eventListener) {
+        requireNonNull(eventListener, "eventListener must be defined.");
+        publishedListeners.remove(eventListener);
     }
 
     @Override
     public void disconnect() {
         if (isConnected()) {
             synchronized (monitor) {
+                if (partitionHeartbeat != null) {
+                    partitionHeartbeat.shutdownNow();
+                    partitionHeartbeat = null;
+                    //  Other instances take over our partitions without waiting our heartbeat to expire.
+                    sendPartitionEvent(Event.SERVICE_PARTITION_LEAVE_TYPE);
+                }
                 if (connection != null) {
                     try {
                         connection.close();
@@ -391,11 +709,100 @@ public class RabbitMqEventBus implements EventBus {
     }
 
 
+    private class EventBusDeliveryListener implements RabbitMqConsumer.RabbitMqListener {
+
+        //  Events waiting to be acknowledged, by envelope identity since asynchronous listeners acknowledge from other threads.
+        private final Map<Envelope, Event> delivered = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        @Override
+        public CompletionStage<?> receive(Channel channel, String consumerTag, Envelope envelope, AMQP.BasicProperties properties, String payload) {
+            long decodeStart = System.nanoTime();
+            Event event = jsonToEventConverter.converter(payload);
+            long decodeDuration = System.nanoTime() - decodeStart;
+            eventBusMetrics.decoded(event.getEventType(), decodeDuration);
+            eventTracer.record(event, EventTracer.DECODE, decodeDuration);
+            eventTracer.record(event, EventTracer.BROKER, TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - event.getCreationDate()));
+            delivered.put(envelope, event);
+            if (from.equals(event.getFrom())) {
+                LOGGER.debug("We are sender, ignore this message.");
+            } else if (partitionedBusinessConsumer != null && handlePartitionEvent(event)) {
+                LOGGER.debug("Receive business partition event {} from {}.", event.getEventType(), event.getFrom());
+            } else {
+                String correlationId = event.getCorrelationId();
+                if (event.getRequestReplyType() == Event.RequestReplyType.REPLY) {
+                    ReplyEvent replyEvent = correlationId == null ? null : requests.get(correlationId);
+                    if (replyEvent != null) {
+                        if (replyEvent.getRequestEventType() != null && !replyEvent.isComplete()) {
+                            long replyLatency = System.currentTimeMillis() - replyEvent.getCreationDate();
+                            replyLatencyTracker.record(replyEvent.getRequestEventType(), replyLatency);
+                            eventBusMetrics.replied(replyEvent.getRequestEventType(), TimeUnit.MILLISECONDS.toNanos(replyLatency));
+                        }
+                        replyEvent.setReply(event);
+                        if (replyEvent.isComplete()) {
+                            requests.remove(correlationId);
+                            LOGGER.debug("Receive and remove request for following reply to request with correlation ID : {}\n{}", correlationId, Event.convertToPrettyJson(event));
+                        }
+                    } else {
+                        LOGGER.debug("Receive a Reply form a Request we don't request [correlationId:{}]:\n{}", correlationId, Event.convertToPrettyJson(event));
+                    }
+                }
+                if (from.equals(event.getCustomHeader(Event.BROADCAST_FROM_CUSTOM_HEADER))) {
+                    LOGGER.debug("Ignore a broacasted message sent by us.");
+                } else {
+                    long handleStart = System.nanoTime();
+                    List<CompletableFuture<Boolean>> processing = new ArrayList<>();
+                    for (EventListener eventListener : waitingListeners) {
+                        if (eventListener instanceof AsyncEventListener) {
+                            processing.add(((AsyncEventListener) eventListener).receiveAsync(event));
+                        } else {
+                            eventListener.receive(event);
+                        }
+                    }
+                    if (!processing.isEmpty()) {
+                        return CompletableFuture.allOf(processing.toArray(new CompletableFuture[processing.size()]))
+                                .whenComplete((result, e) -> eventTracer.record(event, EventTracer.HANDLE, System.nanoTime() - handleStart));
+                    }
+                    eventTracer.record(event, EventTracer.HANDLE, System.nanoTime() - handleStart);
+                }
+
+            }
+            return null;
+        }
+
+        @Override
+        public void acknowledged(Envelope envelope, boolean ack, long durationNanos) {
+            Event event = delivered.remove(envelope);
+            eventBusMetrics.acknowledged(ack);
+            eventTracer.record(event, ack ? EventTracer.ACK : EventTracer.NACK, durationNanos);
+        }
+    }
+
+    private void publish(Event event, String exchangeName, String message, String routingKey, AMQP.BasicProperties props) throws Exception {
+        long publishStart = System.nanoTime();
+        eventBusMetrics.publishing();
+        int published = 0;
+        try {
+            producer.publish(exchangeName, message, routingKey, props);
+            published = 1;
+            notifyPublished(event);
+        } finally {
+            long duration = System.nanoTime() - publishStart;
+            eventBusMetrics.published(exchangeName, published, duration);
+            eventTracer.record(event, EventTracer.PUBLISH, duration);
+        }
+    }
+
+    private void notifyPublished(Event event) {
+        for (EventListener eventListener : publishedListeners) {
+            eventListener.receive(event);
+        }
+    }
+
     private void addEventRequest(ReplyEvent event) {
         requireNonNull(event, "event must be defined.");
         connect();
         long now = System.currentTimeMillis();
-        List<Map.Entry<String, ReplyEvent>> toRemove = requests.entrySet().stream().filter(entry -> entry.getValue().getTimeout() < now).collect(Collectors.toList());
+        List<Map.Entry<String, ReplyEvent>> toRemove = requests.entrySet().stream().filter(entry -> entry.getValue().getTimeout() > 0 && entry.getValue().getTimeout() < now).collect(Collectors.toList());
         toRemove.forEach(entry -> {
             LOGGER.warn("Unable to get reply before timeout for following event request, removing it : {}", entry.getKey());
             requests.remove(entry.getKey());
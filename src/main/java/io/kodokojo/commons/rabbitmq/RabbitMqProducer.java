@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
@@ -40,13 +41,25 @@ public class RabbitMqProducer {
     }
 
     public boolean publish(String exchange, List<String> messages, String routingKey, AMQP.BasicProperties props) throws Exception {
+        requireNonNull(messages, "messages must be defined.");
+        return publish(exchange, messages, Collections.nCopies(messages.size(), routingKey), props);
+    }
+
+    /**
+     * Publish messages with their own routing key, <code>routingKeys</code> must have the same size than <code>messages</code>.
+     */
+    public boolean publish(String exchange, List<String> messages, List<String> routingKeys, AMQP.BasicProperties props) throws Exception {
         if (isBlank(exchange)) {
             throw new IllegalArgumentException("exchange must be defined.");
         }
         requireNonNull(messages, "messages must be defined.");
+        requireNonNull(routingKeys, "routingKeys must be defined.");
+        if (messages.size() != routingKeys.size()) {
+            throw new IllegalArgumentException("routingKeys must contain a routing key for each message.");
+        }
         PublishCallback callback = channel -> {
-            for (String m : messages) {
-                channel.basicPublish(exchange, routingKey, props, m.getBytes());
+            for (int i = 0; i < messages.size(); i++) {
+                channel.basicPublish(exchange, routingKeys.get(i), props, messages.get(i).getBytes());
             }
         };
         return publishAndAck(callback);
@@ -29,6 +29,7 @@ import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.event.EventBuilder;
 import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.trace.EventTracer;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
 import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
@@ -63,6 +64,8 @@ public abstract class AbstractEventEndpointActor extends AbstractActor {
 
     protected final EventBuilderFactory eventBuilderFactory;
 
+    protected final EventTracer eventTracer;
+
     @Inject
     public AbstractEventEndpointActor(Injector injector) {
         requireNonNull(injector, "injector must be defined.");
@@ -70,6 +73,7 @@ public abstract class AbstractEventEndpointActor extends AbstractActor {
         userFetcher = injector.getInstance(UserFetcher.class);
         eventBuilderFactory = injector.getInstance(EventBuilderFactory.class);
         eventBus = injector.getInstance(EventBus.class);
+        eventTracer = injector.getInstance(EventTracer.class);
 
         receive(messageMatcherBuilder()
                 .match(EventFromEventBusWrapper.class, wrapper -> {
@@ -88,6 +92,7 @@ public abstract class AbstractEventEndpointActor extends AbstractActor {
                     eventBuilder.setPayload(msg.payloadReply());
                     eventBuilder.setEventType(msg.eventType());
                     eventBuilder.setCategory(Event.Category.BUSINESS);
+                    eventBuilder.continueTrace(msg.originalEvent());
                     Event event = eventBuilder.build();
                     eventBus.reply(msg.originalEvent(), event);
                     onEventReplyableMessagePostReply(msg, eventBuilderFactory);
@@ -121,7 +126,7 @@ public abstract class AbstractEventEndpointActor extends AbstractActor {
     public void receive(Event event, ActorRef sender) {
         requireNonNull(event, "event must be defined.");
         User requester = null;
-        String requesterIdentifier = event.getCustom().get(Event.REQUESTER_ID_CUSTOM_HEADER);
+        String requesterIdentifier = event.getCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER);
         if (StringUtils.isNotBlank(requesterIdentifier)) {
             requester = userFetcher.getUserByIdentifier(requesterIdentifier);
         }
@@ -129,11 +134,13 @@ public abstract class AbstractEventEndpointActor extends AbstractActor {
         eventBusOriginMessageTry.andThen(tupleTry -> {
             if (tupleTry.actorRef != null && tupleTry.eventBusOriginMessage != null && tupleTry.eventBusOriginMessage.requireToBeCompleteBeforeAckEventBus()) {
                 LOGGER.debug("Delegate processing to actor {}.", tupleTry.actorRef);
+                long askStart = System.nanoTime();
                 Future<Object> future = Patterns.ask(tupleTry.actorRef, tupleTry.eventBusOriginMessage, tupleTry.eventBusOriginMessage.timeout());
                 Patterns.pipe(future, getContext().dispatcher()).to(sender);
                 future.onComplete(new OnComplete() {
                     @Override
                     public void onComplete(Throwable failure, Object result) throws Throwable {
+                        eventTracer.record(event, EventTracer.ACTOR_ASK, System.nanoTime() - askStart);
                         if (failure == null) {
                             if (result instanceof EventReplyableMessage) {
                                 self().tell(result, self());
@@ -93,7 +93,7 @@ public abstract class AbstractEventRequestGatewayActor extends AbstractActor {
         }
         EventBusMsgResult eventBusMsgResult = null;
         try {
-            Event reply = eventBus.request(event, msg.duration(), msg.timeunit());
+            Event reply = eventBus.request(event, msg.duration(), msg.timeunit(), msg.hedgeable());
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Receive reply Event :\n{}", Event.convertToPrettyJson(reply));
             }
@@ -0,0 +1,412 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.actor;
+
+import io.kodokojo.commons.config.EventSchedulerConfig;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import io.kodokojo.commons.service.metrics.Histogram;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+import javaslang.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Queue received events by organisation and hand them to a delegate, like an {@link EventToEndpointGateway}, using a deficit round robin
+ * between organisations. An organisation may only have <code>organisationMaxConcurrency</code> events processed at the same time,
+ * so one organisation can't starve the others by sending many events. Events without organisation share their own queue, capped
+ * by <code>noOrganisationMaxConcurrency</code>.
+ * <p>
+ * Events of a same project configuration are processed one at a time, in the order they were received.
+ * Events are acknowledged on the EventBus once processed by the delegate; until started, events are given directly to the delegate.
+ * </p>
+ */
+public class WeightedFairEventScheduler implements EventBus.AsyncEventListener, ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeightedFairEventScheduler.class);
+
+    public static final String NO_ORGANISATION = "none";
+
+    private final EventBus.EventListener delegate;
+
+    private final int workerCount;
+
+    private final int capacity;
+
+    private final int quantum;
+
+    private final int organisationMaxConcurrency;
+
+    private final int noOrganisationMaxConcurrency;
+
+    private final Map<String, Integer> weights;
+
+    private final MetricRegistry registry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition workAvailable = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Map<String, OrganisationQueue> organisations = new HashMap<>();
+
+    //  Organisations with queued events, in round robin order.
+    private final Deque<OrganisationQueue> active = new ArrayDeque<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private int queued;
+
+    private volatile boolean running;
+
+    /**
+     * @param noOrganisationMaxConcurrency Max number of events without organisation processed at the same time, <code>0</code> to only be limited by <code>workerCount</code>.
+     */
+    public WeightedFairEventScheduler(EventBus.EventListener delegate, int workerCount, int capacity, int quantum, int organisationMaxConcurrency, int noOrganisationMaxConcurrency, Map<String, Integer> weights, MetricRegistry registry) {
+        requireNonNull(delegate, "delegate must be defined.");
+        requireNonNull(weights, "weights must be defined.");
+        requireNonNull(registry, "registry must be defined.");
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be greater than 0.");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0.");
+        }
+        if (quantum < 1) {
+            throw new IllegalArgumentException("quantum must be greater than 0.");
+        }
+        if (organisationMaxConcurrency < 1) {
+            throw new IllegalArgumentException("organisationMaxConcurrency must be greater than 0.");
+        }
+        if (noOrganisationMaxConcurrency < 0) {
+            throw new IllegalArgumentException("noOrganisationMaxConcurrency must be positive.");
+        }
+        this.delegate = delegate;
+        this.workerCount = workerCount;
+        this.capacity = capacity;
+        this.quantum = quantum;
+        this.organisationMaxConcurrency = organisationMaxConcurrency;
+        this.noOrganisationMaxConcurrency = noOrganisationMaxConcurrency == 0 ? workerCount : noOrganisationMaxConcurrency;
+        this.weights = new HashMap<>(weights);
+        this.registry = registry;
+    }
+
+    public WeightedFairEventScheduler(EventBus.EventListener delegate, EventSchedulerConfig eventSchedulerConfig, MetricRegistry registry) {
+        this(delegate,
+                eventSchedulerConfig.workers(),
+                eventSchedulerConfig.capacity(),
+                eventSchedulerConfig.quantum(),
+                eventSchedulerConfig.organisationMaxConcurrency(),
+                eventSchedulerConfig.noOrganisationMaxConcurrency(),
+                parseWeights(eventSchedulerConfig.organisationWeights()),
+                registry);
+    }
+
+    /**
+     * @param weights Weights like <code>organisationId1:4,organisationId2:2</code>.
+     */
+    static Map<String, Integer> parseWeights(String weights) {
+        Map<String, Integer> res = new HashMap<>();
+        if (isBlank(weights)) {
+            return res;
+        }
+        for (String weight : weights.split(",")) {
+            int separator = weight.lastIndexOf(':');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Invalid organisation weight '" + weight + "', expected organisationId:weight.");
+            }
+            int value = Integer.parseInt(weight.substring(separator + 1).trim());
+            if (value < 1) {
+                throw new IllegalArgumentException("Weight of organisation " + weight.substring(0, separator).trim() + " must be greater than 0.");
+            }
+            res.put(weight.substring(0, separator).trim(), value);
+        }
+        return res;
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(this::work, "event-scheduler-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.info("Event scheduler started with {} workers.", workerCount);
+    }
+
+    /**
+     * Stop receiving new events, then wait for queued events to be processed.
+     */
+    @Override
+    public void stop() {
+        List<Thread> toJoin;
+        lock.lock();
+        try {
+            running = false;
+            workAvailable.signalAll();
+            notFull.signalAll();
+            toJoin = new ArrayList<>(workers);
+            workers.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : toJoin) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        LOGGER.info("Event scheduler stopped.");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> receiveAsync(Event event) {
+        requireNonNull(event, "event must be defined.");
+        if (!running) {
+            return process(event);
+        }
+        String organisation = event.getCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER);
+        if (isBlank(organisation)) {
+            organisation = NO_ORGANISATION;
+        }
+        Pending pending = null;
+        lock.lock();
+        try {
+            while (running && queued >= capacity) {
+                notFull.await();
+            }
+            if (running) {
+                OrganisationQueue organisationQueue = organisations.computeIfAbsent(organisation, this::createOrganisationQueue);
+                if (organisationQueue.events.isEmpty()) {
+                    organisationQueue.deficit = 0;
+                    active.addLast(organisationQueue);
+                }
+                pending = new Pending(event);
+                organisationQueue.events.addLast(pending);
+                organisationQueue.depth++;
+                queued++;
+                workAvailable.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<Boolean> res = new CompletableFuture<>();
+            res.completeExceptionally(e);
+            return res;
+        } finally {
+            lock.unlock();
+        }
+        return pending == null ? process(event) : pending.processed;
+    }
+
+    private CompletableFuture<Boolean> process(Event event) {
+        CompletableFuture<Boolean> res = new CompletableFuture<>();
+        try {
+            Try<Boolean> processed = delegate.receive(event);
+            if (processed.isFailure()) {
+                LOGGER.error("Unable to process event {}.", event.getEventType(), processed.getCause());
+            }
+            res.complete(processed.isSuccess() && Boolean.TRUE.equals(processed.get()));
+        } catch (RuntimeException e) {
+            res.completeExceptionally(e);
+        }
+        return res;
+    }
+
+    private OrganisationQueue createOrganisationQueue(String organisation) {
+        int maxConcurrency = NO_ORGANISATION.equals(organisation) ? noOrganisationMaxConcurrency : organisationMaxConcurrency;
+        OrganisationQueue res = new OrganisationQueue(organisation, weights.getOrDefault(organisation, 1), maxConcurrency,
+                registry.histogram("kodokojo_scheduler_wait_duration_seconds", "Time spent by an event waiting to be processed.", "organisation", organisation));
+        registry.gauge("kodokojo_scheduler_queue_depth", "Number of events waiting to be processed.", () -> res.depth, "organisation", organisation);
+        registry.gauge("kodokojo_scheduler_in_flight", "Number of events being processed.", () -> res.inFlight, "organisation", organisation);
+        return res;
+    }
+
+    private void work() {
+        while (true) {
+            OrganisationQueue organisationQueue;
+            Pending pending;
+            lock.lock();
+            try {
+                organisationQueue = nextEligible();
+                while (organisationQueue == null) {
+                    if (!running && queued == 0) {
+                        return;
+                    }
+                    workAvailable.awaitUninterruptibly();
+                    organisationQueue = nextEligible();
+                }
+                pending = organisationQueue.pollFirstReady();
+                if (pending.key != null) {
+                    organisationQueue.busyKeys.add(pending.key);
+                }
+                organisationQueue.depth--;
+                organisationQueue.inFlight++;
+                queued--;
+                if (organisationQueue.events.isEmpty()) {
+                    active.remove(organisationQueue);
+                }
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            OrganisationQueue served = organisationQueue;
+            served.waitDuration.record(System.nanoTime() - pending.queuedAt);
+            CompletableFuture<Boolean> processed = process(pending.event);
+            lock.lock();
+            try {
+                served.inFlight--;
+                if (pending.key != null) {
+                    served.busyKeys.remove(pending.key);
+                }
+                //  A capped organisation, or an event of the released project configuration, may be eligible again.
+                workAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            processed.whenComplete((result, e) -> {
+                if (e == null) {
+                    pending.processed.complete(result);
+                } else {
+                    LOGGER.error("Unable to process event {} of organisation {}.", pending.event.getEventType(), served.organisation, e);
+                    pending.processed.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deficit round robin: the organisation at head of <code>active</code> is served while it has credit, then get
+     * <code>quantum * weight</code> credits and go to the tail. Organisations which reached their concurrency cap, or which only have
+     * events of project configurations being processed, are skipped.
+     *
+     * @return Organisation from which next event must be taken, debited of one credit, or <code>null</code> if none is eligible.
+     */
+    private OrganisationQueue nextEligible() {
+        int visits = 2 * active.size();
+        while (visits-- > 0) {
+            OrganisationQueue head = active.peekFirst();
+            if (head.inFlight >= head.maxConcurrency || !head.hasReady()) {
+                active.addLast(active.pollFirst());
+            } else if (head.deficit < 1) {
+                head.deficit += quantum * head.weight;
+                active.addLast(active.pollFirst());
+            } else {
+                head.deficit--;
+                return head;
+            }
+        }
+        return null;
+    }
+
+    private static class OrganisationQueue {
+
+        private final String organisation;
+
+        private final int weight;
+
+        private final int maxConcurrency;
+
+        private final Histogram waitDuration;
+
+        private final Deque<Pending> events = new ArrayDeque<>();
+
+        //  Project configurations which have an event being processed.
+        private final Set<String> busyKeys = new HashSet<>();
+
+        private int deficit;
+
+        //  Updated under lock, read by metrics.
+        private volatile int depth;
+
+        private volatile int inFlight;
+
+        OrganisationQueue(String organisation, int weight, int maxConcurrency, Histogram waitDuration) {
+            this.organisation = organisation;
+            this.weight = weight;
+            this.maxConcurrency = maxConcurrency;
+            this.waitDuration = waitDuration;
+        }
+
+        boolean hasReady() {
+            if (busyKeys.isEmpty()) {
+                return !events.isEmpty();
+            }
+            for (Pending pending : events) {
+                if (pending.key == null || !busyKeys.contains(pending.key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return Oldest event which project configuration has no event being processed; as events of a busy project configuration
+         * are all skipped, it is also the oldest event of its project configuration.
+         */
+        Pending pollFirstReady() {
+            Iterator<Pending> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                Pending pending = iterator.next();
+                if (pending.key == null || !busyKeys.contains(pending.key)) {
+                    iterator.remove();
+                    return pending;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Pending {
+
+        private final Event event;
+
+        private final String key;
+
+        private final long queuedAt = System.nanoTime();
+
+        private final CompletableFuture<Boolean> processed = new CompletableFuture<>();
+
+        Pending(Event event) {
+            this.event = event;
+            this.key = event.getCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER);
+        }
+    }
+
+}
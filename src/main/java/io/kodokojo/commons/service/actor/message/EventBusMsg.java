@@ -44,6 +44,14 @@ public interface EventBusMsg {
         return 1;
     }
 
+    /**
+     * Allow the EventBus to send this request again when reply is slower than usual.
+     * Must only be <code>true</code> for idempotent requests.
+     */
+    default boolean hedgeable() {
+        return false;
+    }
+
     default String requestIdentifier() {
         return null;
     };
@@ -0,0 +1,145 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * {@link ProjectFetcher} which keep project configurations read by identifier or by name in a {@link NearCache}.
+ * Cached project configurations are shared between callers and must not be modified.
+ */
+public class CachingProjectFetcher implements ProjectFetcher {
+
+    private static final String BY_IDENTIFIER = "id/";
+
+    private static final String BY_NAME = "name/";
+
+    private final ProjectFetcher delegate;
+
+    private final NearCache<String, ProjectConfiguration> projectConfigurations;
+
+    public CachingProjectFetcher(ProjectFetcher delegate, NearCache<String, ProjectConfiguration> projectConfigurations) {
+        requireNonNull(delegate, "delegate must be defined.");
+        requireNonNull(projectConfigurations, "projectConfigurations must be defined.");
+        this.delegate = delegate;
+        this.projectConfigurations = projectConfigurations;
+    }
+
+    @Override
+    public ProjectConfiguration getProjectConfigurationById(String identifier) {
+        if (isBlank(identifier)) {
+            throw new IllegalArgumentException("identifier must be defined.");
+        }
+        return projectConfigurations.get(BY_IDENTIFIER + identifier, key -> delegate.getProjectConfigurationById(identifier));
+    }
+
+    @Override
+    public ProjectConfiguration getProjectConfigurationByName(String name) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        return projectConfigurations.get(BY_NAME + name, key -> delegate.getProjectConfigurationByName(name));
+    }
+
+    @Override
+    public Project getProjectByIdentifier(String identifier) {
+        return delegate.getProjectByIdentifier(identifier);
+    }
+
+    @Override
+    public Set<String> getProjectConfigIdsByUserIdentifier(String userIdentifier) {
+        return delegate.getProjectConfigIdsByUserIdentifier(userIdentifier);
+    }
+
+    @Override
+    public String getProjectIdByProjectConfigurationId(String projectConfigurationId) {
+        return delegate.getProjectIdByProjectConfigurationId(projectConfigurationId);
+    }
+
+    @Override
+    public Project getProjectByProjectConfigurationId(String projectConfigurationId) {
+        return delegate.getProjectByProjectConfigurationId(projectConfigurationId);
+    }
+
+    @Override
+    public Set<String> getStackNames(String projectIdentifier) {
+        return delegate.getStackNames(projectIdentifier);
+    }
+
+    @Override
+    public Stack getStack(String projectIdentifier, String stackName) {
+        return delegate.getStack(projectIdentifier, stackName);
+    }
+
+    /**
+     * Invalidate given project configuration, cached by identifier or by name.
+     */
+    public void invalidate(String identifier) {
+        requireNonNull(identifier, "identifier must be defined.");
+        projectConfigurations.invalidateIf(projectConfiguration -> identifier.equals(projectConfiguration.getIdentifier()));
+    }
+
+    /**
+     * Invalidate project configurations given user is a team leader or a user of.
+     */
+    public void invalidateUser(String userIdentifier) {
+        requireNonNull(userIdentifier, "userIdentifier must be defined.");
+        projectConfigurations.invalidateIf(projectConfiguration -> contains(projectConfiguration.getTeamLeaders(), userIdentifier) || contains(projectConfiguration.getUsers(), userIdentifier));
+    }
+
+    public void invalidateAll() {
+        projectConfigurations.invalidateAll();
+    }
+
+    /**
+     * @return Weight of a project configuration, 1 plus its team leaders and users.
+     */
+    public static int weigh(ProjectConfiguration projectConfiguration) {
+        return 1 + count(projectConfiguration.getTeamLeaders()) + count(projectConfiguration.getUsers());
+    }
+
+    private static boolean contains(Iterator<User> users, String userIdentifier) {
+        while (users.hasNext()) {
+            User user = users.next();
+            if (user != null && userIdentifier.equals(user.getIdentifier())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int count(Iterator<?> iterator) {
+        int res = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            res++;
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.model.UserService;
+import io.kodokojo.commons.service.repository.UserFetcher;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * {@link UserFetcher} which keep users read by identifier in a {@link NearCache}.
+ */
+public class CachingUserFetcher implements UserFetcher {
+
+    private final UserFetcher delegate;
+
+    private final NearCache<String, User> users;
+
+    public CachingUserFetcher(UserFetcher delegate, NearCache<String, User> users) {
+        requireNonNull(delegate, "delegate must be defined.");
+        requireNonNull(users, "users must be defined.");
+        this.delegate = delegate;
+        this.users = users;
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        long loadGeneration = users.loading();
+        User user = delegate.getUserByUsername(username);
+        if (user != null) {
+            users.putIfNotInvalidated(user.getIdentifier(), user, loadGeneration);
+        }
+        return user;
+    }
+
+    @Override
+    public User getUserByIdentifier(String identifier) {
+        if (isBlank(identifier)) {
+            throw new IllegalArgumentException("identifier must be defined.");
+        }
+        return users.get(identifier, delegate::getUserByIdentifier);
+    }
+
+    @Override
+    public List<User> getUsersByIdentifiers(Collection<String> identifiers) {
+        requireNonNull(identifiers, "identifiers must be defined.");
+        long loadGeneration = users.loading();
+        Map<String, User> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String identifier : identifiers) {
+            User user = users.getIfPresent(identifier);
+            if (user == null) {
+                missing.add(identifier);
+            } else {
+                found.put(identifier, user);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<String> toFetch = new ArrayList<>(missing);
+            List<User> fetched = delegate.getUsersByIdentifiers(toFetch);
+            for (int i = 0; i < toFetch.size(); i++) {
+                User user = fetched.get(i);
+                if (user != null) {
+                    users.putIfNotInvalidated(toFetch.get(i), user, loadGeneration);
+                    found.put(toFetch.get(i), user);
+                }
+            }
+        }
+        List<User> res = new ArrayList<>(identifiers.size());
+        identifiers.forEach(identifier -> res.add(found.get(identifier)));
+        return res;
+    }
+
+    @Override
+    public UserService getUserServiceByName(String name) {
+        return delegate.getUserServiceByName(name);
+    }
+
+    @Override
+    public UserService getUserServiceByIdentifier(String identifier) {
+        return delegate.getUserServiceByIdentifier(identifier);
+    }
+
+    public void invalidate(String identifier) {
+        users.invalidate(identifier);
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+    }
+
+}
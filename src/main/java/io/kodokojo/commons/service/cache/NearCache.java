@@ -0,0 +1,278 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.service.metrics.Counter;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * In process cache bounded by weight, with a time to live, using a segmented LRU eviction: a new entry goes in a probation
+ * segment and is promoted to the protected segment on its second access, so a scan of values read once don't evict the values
+ * frequently read.
+ * <p>
+ * A value loaded while an invalidation occurs isn't cached, so an invalidation is never lost.
+ * </p>
+ */
+public class NearCache<K, V> {
+
+    //  Share of the max weight kept for values accessed more than once.
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final long maxWeight;
+
+    private final long protectedMaxWeight;
+
+    private final long ttlMillis;
+
+    private final ToIntFunction<V> weigher;
+
+    private final LongSupplier clock;
+
+    //  Access ordered, eldest first.
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    private long probationWeight;
+
+    private long protectedWeight;
+
+    private long generation;
+
+    public NearCache(String name, long maxWeight, long ttlMillis, ToIntFunction<V> weigher, MetricRegistry registry, LongSupplier clock) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be greater than 0.");
+        }
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("ttlMillis must be greater than 0.");
+        }
+        requireNonNull(weigher, "weigher must be defined.");
+        requireNonNull(registry, "registry must be defined.");
+        requireNonNull(clock, "clock must be defined.");
+        this.maxWeight = maxWeight;
+        this.protectedMaxWeight = maxWeight * PROTECTED_PERCENT / 100;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.clock = clock;
+        this.hits = registry.counter("kodokojo_cache_hits_total", "Number of values found in cache.", "cache", name);
+        this.misses = registry.counter("kodokojo_cache_misses_total", "Number of values not found in cache.", "cache", name);
+        this.evictions = registry.counter("kodokojo_cache_evictions_total", "Number of values evicted from cache to respect its max weight.", "cache", name);
+        registry.gauge("kodokojo_cache_weight", "Weight of values in cache.", this::getWeight, "cache", name);
+        registry.gauge("kodokojo_cache_hit_ratio", "Ratio of values found in cache since start.", this::getHitRatio, "cache", name);
+    }
+
+    public NearCache(String name, long maxWeight, long ttlMillis, ToIntFunction<V> weigher, MetricRegistry registry) {
+        this(name, maxWeight, ttlMillis, weigher, registry, System::currentTimeMillis);
+    }
+
+    /**
+     * @return Cached value of given key, else value returned by <code>loader</code>. A <code>null</code> value isn't cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(loader, "loader must be defined.");
+        long loadGeneration;
+        synchronized (this) {
+            V value = getIfPresent(key);
+            if (value != null) {
+                return value;
+            }
+            loadGeneration = generation;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            putIfNotInvalidated(key, loaded, loadGeneration);
+        }
+        return loaded;
+    }
+
+    /**
+     * @return Token to give to {@link #putIfNotInvalidated(Object, Object, long)} once values had been loaded.
+     */
+    public synchronized long loading() {
+        return generation;
+    }
+
+    /**
+     * Put a loaded value, unless an invalidation occurs since <code>loadGeneration</code> had been returned by {@link #loading()}.
+     */
+    public synchronized void putIfNotInvalidated(K key, V value, long loadGeneration) {
+        if (loadGeneration == generation) {
+            put(key, value);
+        }
+    }
+
+    public synchronized V getIfPresent(K key) {
+        requireNonNull(key, "key must be defined.");
+        Entry<V> entry = protectedSegment.get(key);
+        if (entry == null) {
+            entry = probation.remove(key);
+            if (entry != null) {
+                probationWeight -= entry.weight;
+                if (!isExpired(entry)) {
+                    promote(key, entry);
+                }
+            }
+        }
+        if (entry == null || isExpired(entry)) {
+            if (entry != null) {
+                remove(key);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(value, "value must be defined.");
+        remove(key);
+        int weight = Math.max(1, weigher.applyAsInt(value));
+        if (weight > maxWeight) {
+            return;
+        }
+        probation.put(key, new Entry<>(value, weight, clock.getAsLong() + ttlMillis));
+        probationWeight += weight;
+        evict();
+    }
+
+    public synchronized void invalidate(K key) {
+        requireNonNull(key, "key must be defined.");
+        generation++;
+        remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        requireNonNull(predicate, "predicate must be defined.");
+        generation++;
+        probationWeight -= removeIf(probation, predicate);
+        protectedWeight -= removeIf(protectedSegment, predicate);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        probation.clear();
+        protectedSegment.clear();
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    public synchronized long getWeight() {
+        return probationWeight + protectedWeight;
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long requestCount = hitCount + misses.get();
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    private void promote(K key, Entry<V> entry) {
+        protectedSegment.put(key, entry);
+        protectedWeight += entry.weight;
+        //  Demoted values get another chance in probation.
+        Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+        while (protectedWeight > protectedMaxWeight && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> demoted = eldest.next();
+            if (demoted.getKey().equals(key)) {
+                continue;
+            }
+            eldest.remove();
+            protectedWeight -= demoted.getValue().weight;
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationWeight += demoted.getValue().weight;
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = probation.entrySet().iterator();
+        while (probationWeight + protectedWeight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> evicted = eldest.next();
+            eldest.remove();
+            probationWeight -= evicted.getValue().weight;
+            evictions.increment();
+        }
+    }
+
+    private void remove(K key) {
+        Entry<V> entry = probation.remove(key);
+        if (entry != null) {
+            probationWeight -= entry.weight;
+        }
+        entry = protectedSegment.remove(key);
+        if (entry != null) {
+            protectedWeight -= entry.weight;
+        }
+    }
+
+    private long removeIf(Map<K, Entry<V>> segment, Predicate<V> predicate) {
+        long removed = 0;
+        Iterator<Entry<V>> iterator = segment.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next();
+            if (predicate.test(entry.value)) {
+                iterator.remove();
+                removed += entry.weight;
+            }
+        }
+        return removed;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return entry.expireAt <= clock.getAsLong();
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final int weight;
+
+        private final long expireAt;
+
+        Entry(V value, int weight, long expireAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.repository.RepositoryWriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Provider;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Broadcast to all services an invalidation of the entries of their near caches changed by a write, handled by {@link NearCacheInvalidator}.
+ * It is sent once the write succeeded, so a service reloading the entry on invalidation reads the written value.
+ */
+public class NearCacheInvalidationPublisher implements RepositoryWriteListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCacheInvalidationPublisher.class);
+
+    private final Provider<EventBus> eventBusProvider;
+
+    private final EventBuilderFactory eventBuilderFactory;
+
+    /**
+     * @param eventBusProvider Provide the EventBus when a write is notified, as listeners of the EventBus may depend on the repository.
+     */
+    public NearCacheInvalidationPublisher(Provider<EventBus> eventBusProvider, EventBuilderFactory eventBuilderFactory) {
+        requireNonNull(eventBusProvider, "eventBusProvider must be defined.");
+        requireNonNull(eventBuilderFactory, "eventBuilderFactory must be defined.");
+        this.eventBusProvider = eventBusProvider;
+        this.eventBuilderFactory = eventBuilderFactory;
+    }
+
+    @Override
+    public void userWritten(String userIdentifier) {
+        requireNonNull(userIdentifier, "userIdentifier must be defined.");
+        broadcast(eventBuilderFactory.create()
+                .setEventType(Event.NEAR_CACHE_USERS_INVALIDATION_TYPE)
+                .addCustomHeader(Event.USER_ID_CUSTOM_HEADER, userIdentifier));
+    }
+
+    @Override
+    public void projectConfigurationWritten(String projectConfigurationIdentifier) {
+        requireNonNull(projectConfigurationIdentifier, "projectConfigurationIdentifier must be defined.");
+        broadcast(eventBuilderFactory.create()
+                .setEventType(Event.NEAR_CACHE_PROJECTCONFIG_INVALIDATION_TYPE)
+                .addCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER, projectConfigurationIdentifier));
+    }
+
+    private void broadcast(EventBuilder eventBuilder) {
+        Event event = eventBuilder.setCategory(Event.Category.TECHNICAL)
+                .setJsonPayload("{}")
+                .build();
+        LOGGER.debug("Broadcast near cache invalidation {}.", event.getEventType());
+        eventBusProvider.get().broadcast(event);
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import javaslang.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Invalidate near caches of {@link CachingUserFetcher} and {@link CachingProjectFetcher} on invalidations broadcast by
+ * {@link NearCacheInvalidationPublisher} once a write succeeded, and on events sent once project configurations changed.
+ * Requests aren't used: the entry would be reloaded before the request is processed, and kept until its time to live expires.
+ * Replies neither: they are only sent to the requester.
+ * <p>
+ * An invalidation of a user only invalidates this user, and the project configurations it belongs to.
+ * </p>
+ */
+public class NearCacheInvalidator implements EventBus.EventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCacheInvalidator.class);
+
+    private static final Set<String> USER_EVENT_TYPES = Collections.singleton(Event.NEAR_CACHE_USERS_INVALIDATION_TYPE);
+
+    private static final Set<String> PROJECTCONFIGURATION_EVENT_TYPES = new HashSet<>(Arrays.asList(
+            Event.NEAR_CACHE_PROJECTCONFIG_INVALIDATION_TYPE,
+            Event.PROJECTCONFIG_CREATION_EVENT,
+            Event.PROJECTCONFIG_STARTED,
+            Event.USER_ADD_TO_PROJECT,
+            Event.USER_REMOVE_TO_PROJECT
+    ));
+
+    private final CachingUserFetcher userFetcher;
+
+    private final CachingProjectFetcher projectFetcher;
+
+    /**
+     * Fetchers which aren't caching fetchers are ignored.
+     */
+    public NearCacheInvalidator(UserFetcher userFetcher, ProjectFetcher projectFetcher) {
+        requireNonNull(userFetcher, "userFetcher must be defined.");
+        requireNonNull(projectFetcher, "projectFetcher must be defined.");
+        this.userFetcher = userFetcher instanceof CachingUserFetcher ? (CachingUserFetcher) userFetcher : null;
+        this.projectFetcher = projectFetcher instanceof CachingProjectFetcher ? (CachingProjectFetcher) projectFetcher : null;
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        requireNonNull(event, "event must be defined.");
+        String eventType = event.getEventType();
+        if (USER_EVENT_TYPES.contains(eventType)) {
+            String userId = event.getCustomHeader(Event.USER_ID_CUSTOM_HEADER);
+            LOGGER.debug("Invalidate cached user {} and its project configurations on event {}.", userId, eventType);
+            //  Project configurations contain their users.
+            if (isBlank(userId)) {
+                if (userFetcher != null) {
+                    userFetcher.invalidateAll();
+                }
+                if (projectFetcher != null) {
+                    projectFetcher.invalidateAll();
+                }
+            } else {
+                if (userFetcher != null) {
+                    userFetcher.invalidate(userId);
+                }
+                if (projectFetcher != null) {
+                    projectFetcher.invalidateUser(userId);
+                }
+            }
+        } else if (PROJECTCONFIGURATION_EVENT_TYPES.contains(eventType) && projectFetcher != null) {
+            String projectConfigurationId = event.getCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER);
+            LOGGER.debug("Invalidate cached project configuration {} on event {}.", projectConfigurationId, eventType);
+            if (isBlank(projectConfigurationId)) {
+                projectFetcher.invalidateAll();
+            } else {
+                projectFetcher.invalidate(projectConfigurationId);
+            }
+        }
+        return Try.success(Boolean.TRUE);
+    }
+
+}
@@ -9,6 +9,8 @@ import org.slf4j.LoggerFactory;
 import spark.Spark;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -20,6 +22,11 @@ public class HttpHealthCheckEndpoint implements SparkEndpoint, ApplicationLifeCy
 
     public static final String HEALTHCHECK_PATH = "/healthcheck";
 
+    /**
+     * Name qualifying the set of {@link SparkEndpoint} served next to the health check, like metrics.
+     */
+    public static final String OPERATIONAL_ENDPOINTS = "operational";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpHealthCheckEndpoint.class);
 
     private static final String JSON_CONTENT_TYPE = "application/json";
@@ -28,16 +35,24 @@ public class HttpHealthCheckEndpoint implements SparkEndpoint, ApplicationLifeCy
 
     private final Set<CachedHealthChecker> healthCheckers;
 
+    private final Set<SparkEndpoint> sparkEndpoints;
+
     @Inject
-    public HttpHealthCheckEndpoint(ApplicationConfig applicationConfig, Set<HealthChecker> healthCheckers) {
+    public HttpHealthCheckEndpoint(ApplicationConfig applicationConfig, Set<HealthChecker> healthCheckers, @Named(OPERATIONAL_ENDPOINTS) Set<SparkEndpoint> sparkEndpoints) {
         requireNonNull(applicationConfig, "applicationConfig must be defined.");
         requireNonNull(healthCheckers, "healthCheckers must be defined.");
+        requireNonNull(sparkEndpoints, "sparkEndpoints must be defined.");
         this.applicationConfig = applicationConfig;
+        this.sparkEndpoints = sparkEndpoints;
         this.healthCheckers = healthCheckers.stream()
                 .map(CachedHealthChecker::new)
                 .collect(Collectors.toSet());
     }
 
+    public HttpHealthCheckEndpoint(ApplicationConfig applicationConfig, Set<HealthChecker> healthCheckers) {
+        this(applicationConfig, healthCheckers, Collections.emptySet());
+    }
+
     @Override
     public void start() {
         Spark.port(applicationConfig.port());
@@ -71,6 +86,7 @@ public class HttpHealthCheckEndpoint implements SparkEndpoint, ApplicationLifeCy
             }
             return healthChecks;
         }, new JsonTransformer());
+        sparkEndpoints.forEach(SparkEndpoint::configure);
     }
 
 }
@@ -0,0 +1,114 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.metrics;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Metrics of an {@link io.kodokojo.commons.event.EventBus}. Per label metrics are cached to avoid a registry lookup on each event.
+ */
+@Singleton
+public class EventBusMetrics {
+
+    public static final String DEFAULT_EXCHANGE = "amq.default";
+
+    private static final String UNKNOWN_EVENT_TYPE = "unknown";
+
+    private final MetricRegistry registry;
+
+    private final Map<String, Counter> published = new ConcurrentHashMap<>();
+
+    private final Map<String, Histogram> publishConfirmDurations = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> consumed = new ConcurrentHashMap<>();
+
+    private final Map<String, Histogram> requestDurations = new ConcurrentHashMap<>();
+
+    private final Histogram decodeDuration;
+
+    private final Counter acked;
+
+    private final Counter nacked;
+
+    private final AtomicInteger outboundInFlight = new AtomicInteger();
+
+    @Inject
+    public EventBusMetrics(MetricRegistry registry) {
+        requireNonNull(registry, "registry must be defined.");
+        this.registry = registry;
+        this.decodeDuration = registry.histogram("kodokojo_eventbus_decode_duration_seconds", "Time spent to decode a received event.");
+        this.acked = registry.counter("kodokojo_eventbus_acknowledged_total", "Number of received message acknowledged.");
+        this.nacked = registry.counter("kodokojo_eventbus_rejected_total", "Number of received message not acknowledged.");
+        registry.gauge("kodokojo_eventbus_outbound_depth", "Number of publication waiting for or holding the publish channel.", outboundInFlight::get);
+    }
+
+    public void registerPendingRequests(IntSupplier pendingRequests) {
+        requireNonNull(pendingRequests, "pendingRequests must be defined.");
+        registry.gauge("kodokojo_eventbus_pending_requests", "Number of requests waiting for a reply.", pendingRequests::getAsInt);
+    }
+
+    public void publishing() {
+        outboundInFlight.incrementAndGet();
+    }
+
+    /**
+     * Must be call once for each call to {@link #publishing()}.
+     *
+     * @param exchange Exchange on which messages had been published, <code>null</code> or empty for default exchange.
+     * @param messageCount Number of messages published, <code>0</code> if publication failed.
+     * @param durationNanos Time spent to publish and get broker confirmation.
+     */
+    public void published(String exchange, int messageCount, long durationNanos) {
+        outboundInFlight.decrementAndGet();
+        if (messageCount > 0) {
+            String exchangeName = isBlank(exchange) ? DEFAULT_EXCHANGE : exchange;
+            published.computeIfAbsent(exchangeName, e -> registry.counter("kodokojo_eventbus_published_total", "Number of message published.", "exchange", e))
+                    .add(messageCount);
+            publishConfirmDurations.computeIfAbsent(exchangeName, e -> registry.histogram("kodokojo_eventbus_publish_confirm_duration_seconds", "Time spent to publish and get broker confirmation.", "exchange", e))
+                    .record(durationNanos);
+        }
+    }
+
+    public void decoded(String eventType, long durationNanos) {
+        decodeDuration.record(durationNanos);
+        consumed.computeIfAbsent(eventType == null ? UNKNOWN_EVENT_TYPE : eventType, t -> registry.counter("kodokojo_eventbus_consumed_total", "Number of event received.", "event_type", t))
+                .increment();
+    }
+
+    public void acknowledged(boolean ack) {
+        if (ack) {
+            acked.increment();
+        } else {
+            nacked.increment();
+        }
+    }
+
+    public void replied(String requestEventType, long durationNanos) {
+        requestDurations.computeIfAbsent(requestEventType == null ? UNKNOWN_EVENT_TYPE : requestEventType, t -> registry.histogram("kodokojo_eventbus_request_duration_seconds", "Round trip time between a request and its reply.", "event_type", t))
+                .record(durationNanos);
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.metrics;
+
+import io.kodokojo.commons.spark.SparkEndpoint;
+
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+import static spark.Spark.get;
+
+/**
+ * Expose all metrics in Prometheus text format.
+ */
+public class HttpMetricsEndpoint implements SparkEndpoint {
+
+    public static final String METRICS_PATH = "/metrics";
+
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public HttpMetricsEndpoint(MetricRegistry metricRegistry) {
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public void configure() {
+        get(METRICS_PATH, (request, response) -> {
+            response.type(PrometheusTextFormatter.CONTENT_TYPE);
+            return PrometheusTextFormatter.format(metricRegistry);
+        });
+    }
+
+}
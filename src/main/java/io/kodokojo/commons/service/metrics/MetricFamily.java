@@ -0,0 +1,83 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * All metrics which share a same name, each one identified by its label values.
+ */
+public class MetricFamily {
+
+    public enum Type {
+        COUNTER,
+        GAUGE,
+        SUMMARY
+    }
+
+    private final String name;
+
+    private final String help;
+
+    private final Type type;
+
+    private final Map<List<String>, Object> metrics = new ConcurrentHashMap<>();
+
+    MetricFamily(String name, String help, Type type) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        this.name = name;
+        this.help = help;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return Metrics indexed by their labels, as a list of label name and label value pairs.
+     */
+    public Map<List<String>, Object> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T getOrCreate(List<String> labels, Function<List<String>, T> factory) {
+        return (T) metrics.computeIfAbsent(labels, factory);
+    }
+
+    void put(List<String> labels, Object metric) {
+        metrics.put(labels, metric);
+    }
+}
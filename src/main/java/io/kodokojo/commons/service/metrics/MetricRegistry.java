@@ -0,0 +1,80 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.metrics;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Hold all metrics of the application. Labels are given as label name and label value pairs.
+ */
+@Singleton
+public class MetricRegistry {
+
+    private final Map<String, MetricFamily> families = new ConcurrentSkipListMap<>();
+
+    @Inject
+    public MetricRegistry() {
+        super();
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return family(name, help, MetricFamily.Type.COUNTER).getOrCreate(toLabels(labels), l -> new Counter());
+    }
+
+    /**
+     * Histogram are exposed as a summary, they are expected to record durations in nanoseconds.
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return family(name, help, MetricFamily.Type.SUMMARY).getOrCreate(toLabels(labels), l -> new Histogram());
+    }
+
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        requireNonNull(supplier, "supplier must be defined.");
+        family(name, help, MetricFamily.Type.GAUGE).put(toLabels(labels), supplier);
+    }
+
+    public Collection<MetricFamily> getFamilies() {
+        return new ArrayList<>(families.values());
+    }
+
+    private MetricFamily family(String name, String help, MetricFamily.Type type) {
+        MetricFamily family = families.computeIfAbsent(name, n -> new MetricFamily(n, help, type));
+        if (family.getType() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.getType() + ".");
+        }
+        return family;
+    }
+
+    private static List<String> toLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be defined as label name and label value pairs.");
+        }
+        return Arrays.asList(labels);
+    }
+
+}
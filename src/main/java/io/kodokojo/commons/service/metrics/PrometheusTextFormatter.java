@@ -0,0 +1,106 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Format a {@link MetricRegistry} in the Prometheus text exposition format.
+ */
+public class PrometheusTextFormatter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private PrometheusTextFormatter() {
+        // Utility class
+    }
+
+    public static String format(MetricRegistry registry) {
+        requireNonNull(registry, "registry must be defined.");
+        StringBuilder sb = new StringBuilder();
+        for (MetricFamily family : registry.getFamilies()) {
+            String name = family.getName();
+            sb.append("# HELP ").append(name).append(' ').append(escapeHelp(family.getHelp())).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(family.getType().name().toLowerCase()).append('\n');
+            for (Map.Entry<List<String>, Object> entry : family.getMetrics().entrySet()) {
+                List<String> labels = entry.getKey();
+                Object metric = entry.getValue();
+                switch (family.getType()) {
+                    case COUNTER:
+                        appendSample(sb, name, labels, ((Counter) metric).get());
+                        break;
+                    case GAUGE:
+                        appendSample(sb, name, labels, ((DoubleSupplier) metric).getAsDouble());
+                        break;
+                    case SUMMARY:
+                        Histogram histogram = (Histogram) metric;
+                        for (double quantile : QUANTILES) {
+                            List<String> quantileLabels = new ArrayList<>(labels);
+                            quantileLabels.add("quantile");
+                            quantileLabels.add(Double.toString(quantile));
+                            appendSample(sb, name, quantileLabels, histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND);
+                        }
+                        appendSample(sb, name + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+                        appendSample(sb, name + "_count", labels, histogram.getCount());
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown metric type " + family.getType());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendSample(StringBuilder sb, String name, List<String> labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{');
+            for (int i = 0; i < labels.size(); i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labels.get(i)).append("=\"").append(escapeLabelValue(labels.get(i + 1))).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private static String escapeHelp(String help) {
+        return help == null ? "" : help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
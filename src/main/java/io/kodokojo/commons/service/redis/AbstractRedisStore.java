@@ -22,81 +22,225 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
-import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
 
-import java.math.BigInteger;
 import java.security.Key;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import static org.apache.commons.lang.StringUtils.isBlank;
+import static java.util.Objects.requireNonNull;
 
+/**
+ * Base of stores whose keys are spread over Redis nodes by a {@link RedisKeyRouter}.
+ * Keys of an entity are built with {@link RedisKeyRouter#tag(String)} of its identifier, so they are written in a single transaction.
+ */
 public abstract class AbstractRedisStore implements ApplicationLifeCycleListener{
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractRedisStore.class);
 
-    protected final String saltKey;
+    private static final int MGET_CHUNK_SIZE = 100;
 
     protected final Key key;
 
-    protected final JedisPool pool;
+    protected final RedisKeyRouter router;
+
+    private final RedisIdGenerator idGenerator;
 
-    protected final MessageDigest messageDigest;
+    private final boolean routerOwned;
 
     public AbstractRedisStore(Key key, String host, int port, String password) {
+        this(key, RedisKeyRouters.standalone(host, port, password), true);
+    }
+
+    /**
+     * @param router Router of the store, which may be shared by several stores: it is closed by whoever created it, see {@link RedisKeyRouters#closeOnStop(RedisKeyRouter)}.
+     */
+    public AbstractRedisStore(Key key, RedisKeyRouter router) {
+        this(key, router, false);
+    }
+
+    /**
+     * @param routerOwned <code>true</code> if the router was created for this store only, it is then closed when the store stops.
+     */
+    protected AbstractRedisStore(Key key, RedisKeyRouter router, boolean routerOwned) {
         if (key == null) {
             throw new IllegalArgumentException("key must be defined.");
         }
-        if (isBlank(host)) {
-            throw new IllegalArgumentException("host must be defined.");
-        }
+        requireNonNull(router, "router must be defined.");
         this.key = key;
-        pool = createJedisPool(host, port, password);
-        try {
-            messageDigest = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Unable to get instance of SHA-1 digest");
-        }
-
-        SecureRandom secureRandom = new SecureRandom();
-        saltKey = new BigInteger(128, secureRandom).toString(10);
+        this.router = router;
+        this.routerOwned = routerOwned;
+        idGenerator = new RedisIdGenerator(router, getGenerateIdKey(), RedisIdGenerator.DEFAULT_BLOCK_SIZE);
     }
 
     protected abstract String getStoreName();
 
+    /**
+     * @return Key of the sequence identifiers are generated from, must not depend on the state of the store as it is called by the constructor.
+     */
     protected abstract String getGenerateIdKey();
 
-    protected JedisPool createJedisPool(String host, int port, String password) {
-        JedisPoolConfig poolConfig = new JedisPoolConfig();
-        poolConfig.setTestOnBorrow(true);
-
-        return new JedisPool(poolConfig, host, port, Protocol.DEFAULT_TIMEOUT, password);
+    /**
+     * @return Lua scripts run by this store, loaded on start.
+     */
+    protected List<RedisScript> getScripts() {
+        return Collections.emptyList();
     }
 
     @Override
     public void start() {
-        //  Nothing to do
+        //  Scripts are loaded on their first NOSCRIPT reply anyway, loading them now spares it to first calls.
+        for (JedisPool pool : router.getPools()) {
+            try (Jedis jedis = pool.getResource()) {
+                getScripts().forEach(script -> script.load(jedis));
+            }
+        }
     }
 
     @Override
     public void stop() {
         LOGGER.info("Stopping {}.", getStoreName());
-        if (pool != null) {
-            pool.destroy();
+        if (routerOwned) {
+            router.close();
         }
     }
 
+    /**
+     * Run given command writing given key on the node serving this key. Other keys used by the command must be in the same partition.
+     */
+    protected <T> T write(byte[] key, Function<Jedis, T> command) {
+        return RedisKeyRouters.write(router, key, command);
+    }
+
+    /**
+     * Run given command on the node serving given key, never on a replica, without marking the key as written.
+     * Other keys used by the command must be in the same partition.
+     */
+    protected <T> T execute(byte[] key, Function<Jedis, T> command) {
+        return RedisKeyRouters.execute(router, key, command);
+    }
+
+    /**
+     * Run given read-only command on a node serving given key, which may be a replica. Other keys used by the command must be in the same partition.
+     */
+    protected <T> T read(byte[] key, Function<Jedis, T> command) {
+        return RedisKeyRouters.read(router, key, command);
+    }
+
+    protected byte[] get(byte[] key) {
+        return read(key, jedis -> jedis.get(key));
+    }
+
+    /**
+     * Read the values of given keys, with a round trip per node.
+     *
+     * @return Value of each key, <code>null</code> for a missing key.
+     */
+    protected List<byte[]> getAll(List<byte[]> keys) {
+        requireNonNull(keys, "keys must be defined.");
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!router.isPartitioned()) {
+            //  Built by the command, as a read retried on another node runs it again.
+            return read(keys.get(0), jedis -> {
+                List<byte[]> res = new ArrayList<>(keys.size());
+                for (int start = 0; start < keys.size(); start += MGET_CHUNK_SIZE) {
+                    res.addAll(jedis.mget(keys.subList(start, Math.min(start + MGET_CHUNK_SIZE, keys.size())).toArray(new byte[0][])));
+                }
+                return res;
+            });
+        }
+        return RedisKeyRouters.retryOnRedirection(router, () -> {
+            Map<JedisPool, List<Integer>> indexesByNode = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                indexesByNode.computeIfAbsent(router.getPool(keys.get(i)), pool -> new ArrayList<>()).add(i);
+            }
+            byte[][] values = new byte[keys.size()][];
+            indexesByNode.forEach((pool, indexes) -> {
+                try (Jedis jedis = pool.getResource()) {
+                    //  MGET is refused over keys of several slots, a pipeline of GET isn't.
+                    Pipeline pipeline = jedis.pipelined();
+                    List<Response<byte[]>> responses = new ArrayList<>(indexes.size());
+                    indexes.forEach(index -> responses.add(pipeline.get(keys.get(index))));
+                    pipeline.sync();
+                    for (int i = 0; i < indexes.size(); i++) {
+                        values[indexes.get(i)] = responses.get(i).get();
+                    }
+                }
+            });
+            List<byte[]> res = new ArrayList<>(keys.size());
+            Collections.addAll(res, values);
+            return res;
+        });
+    }
+
+    /**
+     * Read the identifier stored in an index key, then the value of this identifier in key <code>valuePrefix</code> followed by
+     * the identifier tag. The value key is only known once the index is read, so they are read one after the other.
+     *
+     * @return The identifier followed by its value, <code>null</code> if the index or the value doesn't exist.
+     */
+    protected byte[][] getByIndex(byte[] indexKey, String valuePrefix) {
+        byte[] identifier = get(indexKey);
+        if (identifier == null) {
+            return null;
+        }
+        byte[] value = get(RedisUtils.aggregateKey(valuePrefix, router.tag(new String(identifier))));
+        return value == null ? null : new byte[][]{identifier, value};
+    }
+
+    /**
+     * Apply given writes with a round trip per node, in a MULTI/EXEC per partition.
+     * Writes are applied again if a node replied it doesn't serve a key anymore, they must be safe to apply twice.
+     */
+    protected void writeBatch(Consumer<RedisWriteBatch> writes) {
+        try {
+            newWriteBatch(writes).execute();
+        } catch (JedisDataException e) {
+            if (!router.isPartitioned()) {
+                throw e;
+            }
+            //  A write queued in a MULTI to a moved key abort the EXEC without telling where the key moved.
+            LOGGER.debug("Unable to apply writes of {}, refreshing nodes of keys.", getStoreName(), e);
+            router.refresh();
+            newWriteBatch(writes).execute();
+        }
+    }
+
+    private RedisWriteBatch newWriteBatch(Consumer<RedisWriteBatch> writes) {
+        RedisWriteBatch batch = new RedisWriteBatch(router);
+        writes.accept(batch);
+        return batch;
+    }
+
     protected String generateId() {
-        try (Jedis jedis = pool.getResource()) {
+        return idGenerator.generateId();
+    }
+
+    /**
+     * @return Key of given entity, with its identifier as a hash tag so other keys of this entity are in the same partition.
+     */
+    protected byte[] entityKey(String prefix, String identifier) {
+        return RedisUtils.aggregateKey(prefix, router.tag(identifier));
+    }
 
-            SecureRandom secureRandom = new SecureRandom();
-            String rand = new BigInteger(128, secureRandom).toString(10);
-            String id = saltKey + rand +  jedis.incr(getGenerateIdKey()).toString();
-            String newId = RedisUtils.hexEncode(messageDigest.digest(id.getBytes()));
-            return newId;
+    /**
+     * @return Identifier of given entity key, built by {@link #entityKey(String, String)} with given prefix.
+     */
+    protected String entityIdentifier(String prefix, String entityKey) {
+        String tag = entityKey.substring(prefix.length());
+        if (router.isPartitioned() && tag.startsWith("{") && tag.endsWith("}")) {
+            return tag.substring(1, tag.length() - 1);
         }
+        return tag;
     }
 
 }
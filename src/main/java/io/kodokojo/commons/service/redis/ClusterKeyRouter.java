@@ -0,0 +1,165 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Keys of a Redis Cluster, routed to the master serving their hash slot.
+ * Slots are read from <code>CLUSTER SLOTS</code> of any known node, on first use and on {@link #refresh()}.
+ */
+public class ClusterKeyRouter implements RedisKeyRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterKeyRouter.class);
+
+    static final int SLOT_COUNT = 16384;
+
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private final List<HostAndPort> seeds;
+
+    private final String password;
+
+    private final Map<HostAndPort, JedisPool> pools = new ConcurrentHashMap<>();
+
+    private volatile JedisPool[] slots;
+
+    public ClusterKeyRouter(List<HostAndPort> seeds, String password) {
+        if (seeds == null || seeds.isEmpty()) {
+            throw new IllegalArgumentException("seeds must be defined.");
+        }
+        this.seeds = new ArrayList<>(seeds);
+        this.password = password;
+    }
+
+    @Override
+    public JedisPool getPool(byte[] key) {
+        JedisPool[] current = slots;
+        if (current == null) {
+            refresh();
+            current = slots;
+        }
+        int slot = slot(key);
+        JedisPool pool = current[slot];
+        if (pool == null) {
+            throw new JedisConnectionException("No Redis node serve slot " + slot + ".");
+        }
+        return pool;
+    }
+
+    @Override
+    public Collection<JedisPool> getPools() {
+        if (slots == null) {
+            refresh();
+        }
+        return new ArrayList<>(pools.values());
+    }
+
+    @Override
+    public Object getPartition(byte[] key) {
+        return slot(key);
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        return true;
+    }
+
+    @Override
+    public String tag(String identifier) {
+        return "{" + identifier + "}";
+    }
+
+    @Override
+    public synchronized void refresh() {
+        List<HostAndPort> nodes = new ArrayList<>(pools.keySet());
+        nodes.addAll(seeds);
+        JedisException lastError = null;
+        for (HostAndPort node : nodes) {
+            try (Jedis jedis = new Jedis(node.getHost(), node.getPort())) {
+                if (!isBlank(password)) {
+                    jedis.auth(password);
+                }
+                slots = readSlots(jedis.clusterSlots());
+                LOGGER.debug("Read slots of Redis cluster from {}.", node);
+                return;
+            } catch (JedisException e) {
+                LOGGER.debug("Unable to read slots of Redis cluster from {}.", node, e);
+                lastError = e;
+            }
+        }
+        throw new JedisConnectionException("Unable to read slots of Redis cluster from " + nodes + ".", lastError);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(JedisPool::destroy);
+        pools.clear();
+    }
+
+    //  Each slot range is its first and last slots, then its master and replicas, each as its host and port.
+    private JedisPool[] readSlots(List<Object> slotRanges) {
+        JedisPool[] res = new JedisPool[SLOT_COUNT];
+        for (Object slotRange : slotRanges) {
+            List<?> range = (List<?>) slotRange;
+            int first = ((Long) range.get(0)).intValue();
+            int last = ((Long) range.get(1)).intValue();
+            List<?> master = (List<?>) range.get(2);
+            HostAndPort hostAndPort = new HostAndPort(new String((byte[]) master.get(0)), ((Long) master.get(1)).intValue());
+            JedisPool pool = pools.computeIfAbsent(hostAndPort, node -> RedisKeyRouters.createPool(node.getHost(), node.getPort(), password));
+            for (int slot = first; slot <= last; slot++) {
+                res[slot] = pool;
+            }
+        }
+        return res;
+    }
+
+    static int slot(byte[] key) {
+        int[] bounds = RedisKeyRouters.hashTagBounds(key);
+        int crc = 0;
+        for (int i = bounds[0]; i < bounds[1]; i++) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ key[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc & (SLOT_COUNT - 1);
+    }
+
+}
@@ -29,10 +29,14 @@ class OrganisationModelRedis implements Serializable {
 
     private final boolean concrete;
 
+    OrganisationModelRedis(String identifier, String name, boolean concrete) {
+        this.identifier = identifier;
+        this.name = name;
+        this.concrete = concrete;
+    }
+
     public OrganisationModelRedis(OrganisationStoreModel model) {
-        this.identifier = model.getIdentifier();
-        this.name = model.getName();
-        this.concrete = model.isConcrete();
+        this(model.getIdentifier(), model.getName(), model.isConcrete());
     }
 
     public String getIdentifier() {
@@ -0,0 +1,69 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Fields of a {@link Project} stored apart from its stacks.
+ */
+class ProjectHeaderRedis {
+
+    private final String identifier;
+
+    private final String projectConfigurationIdentifier;
+
+    private final String name;
+
+    private final Date snapshotDate;
+
+    ProjectHeaderRedis(String identifier, String projectConfigurationIdentifier, String name, Date snapshotDate) {
+        this.identifier = identifier;
+        this.projectConfigurationIdentifier = projectConfigurationIdentifier;
+        this.name = name;
+        this.snapshotDate = snapshotDate;
+    }
+
+    ProjectHeaderRedis(Project project) {
+        this(project.getIdentifier(), project.getProjectConfigurationIdentifier(), project.getName(), project.getSnapshotDate());
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getProjectConfigurationIdentifier() {
+        return projectConfigurationIdentifier;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Date getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    Project toProject(Set<Stack> stacks) {
+        return new Project(identifier, projectConfigurationIdentifier, name, snapshotDate, stacks);
+    }
+}
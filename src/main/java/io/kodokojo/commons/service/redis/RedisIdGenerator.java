@@ -0,0 +1,121 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.util.function.LongUnaryOperator;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Generate unique and opaque identifiers without a Redis round trip for each of them.
+ * <p>
+ * Each thread leases a block of <code>blockSize</code> sequence numbers from Redis with a single <code>INCRBY</code>,
+ * then hands them out locally without any lock. A sequence number is turned into an identifier by encrypting it with AES
+ * under a random key of this generator: as a permutation, it keeps identifiers unique, and without the key they can't
+ * be guessed from one another. Numbers of a block not consumed by a thread are lost, the sequence only grows.
+ * </p>
+ */
+public class RedisIdGenerator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private static final String AES_ECB_NO_PADDING = "AES/ECB/NoPadding";
+
+    private static final int BLOCK_LENGTH = 16;
+
+    private final LongUnaryOperator leaseBlock;
+
+    private final int blockSize;
+
+    private final SecretKey permutationKey;
+
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(this::newCipher);
+
+    //  Next and last sequence numbers leased by current thread.
+    private final ThreadLocal<long[]> leases = ThreadLocal.withInitial(() -> new long[]{1, 0});
+
+    public RedisIdGenerator(RedisKeyRouter router, String sequenceKey, int blockSize) {
+        this(leaseFromRedis(router, sequenceKey), blockSize);
+    }
+
+    /**
+     * @param leaseBlock Given a block size, reserve that many sequence numbers and return the last of them.
+     */
+    RedisIdGenerator(LongUnaryOperator leaseBlock, int blockSize) {
+        requireNonNull(leaseBlock, "leaseBlock must be defined.");
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be greater than 0.");
+        }
+        this.leaseBlock = leaseBlock;
+        this.blockSize = blockSize;
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+            keyGenerator.init(128);
+            permutationKey = keyGenerator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate an AES key.", e);
+        }
+    }
+
+    public String generateId() {
+        long[] lease = leases.get();
+        if (lease[0] > lease[1]) {
+            long last = leaseBlock.applyAsLong(blockSize);
+            lease[0] = last - blockSize + 1;
+            lease[1] = last;
+        }
+        return permute(lease[0]++);
+    }
+
+    private String permute(long sequence) {
+        byte[] block = new byte[BLOCK_LENGTH];
+        for (int i = 0; i < Long.BYTES; i++) {
+            block[BLOCK_LENGTH - 1 - i] = (byte) (sequence >>> (8 * i));
+        }
+        try {
+            return RedisUtils.hexEncode(ciphers.get().doFinal(block));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt sequence number " + sequence + ".", e);
+        }
+    }
+
+    private Cipher newCipher() {
+        try {
+            Cipher cipher = Cipher.getInstance(AES_ECB_NO_PADDING);
+            cipher.init(Cipher.ENCRYPT_MODE, permutationKey);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create an " + AES_ECB_NO_PADDING + " cipher.", e);
+        }
+    }
+
+    private static LongUnaryOperator leaseFromRedis(RedisKeyRouter router, String sequenceKey) {
+        requireNonNull(router, "router must be defined.");
+        if (isBlank(sequenceKey)) {
+            throw new IllegalArgumentException("sequenceKey must be defined.");
+        }
+        byte[] key = sequenceKey.getBytes();
+        return blockSize -> RedisKeyRouters.write(router, key, jedis -> jedis.incrBy(key, blockSize));
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Choose the Redis node serving a key.
+ * <p>
+ * Keys sharing a hash tag, the part of the key between the first <code>{</code> and the next <code>}</code>, are served by the
+ * same node and belong to the same partition: a transaction or a script may only use keys of a single partition.
+ * Stores build the keys of an entity with {@link #tag(String)} of its identifier, so they stay together.
+ * </p>
+ */
+public interface RedisKeyRouter {
+
+    JedisPool getPool(byte[] key);
+
+    /**
+     * @return Pools of all nodes, to load scripts or scan keys.
+     */
+    Collection<JedisPool> getPools();
+
+    /**
+     * @return Partition of given key, equal for keys which may be used in the same transaction.
+     */
+    Object getPartition(byte[] key);
+
+    /**
+     * @return <code>false</code> if all keys are in a single partition.
+     */
+    boolean isPartitioned();
+
+    /**
+     * @return Given identifier as a hash tag if keys are partitioned, unchanged otherwise so keys of a single node keep their names.
+     */
+    String tag(String identifier);
+
+    /**
+     * Run given read-only command on a node serving given key, which may be a replica.
+     */
+    default <T> T read(byte[] key, Function<Jedis, T> command) {
+        try (Jedis jedis = getPool(key).getResource()) {
+            return command.apply(jedis);
+        }
+    }
+
+    /**
+     * Called before a write of given key is sent, so following reads of this instance may be sent where the write is visible.
+     */
+    default void written(byte[] key) {
+        //  Reads and writes are sent to the same nodes.
+    }
+
+    /**
+     * Read again which node serve which key, after a node replied it doesn't serve a key anymore.
+     */
+    void refresh();
+
+    void close();
+
+}
@@ -0,0 +1,225 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.config.RedisConfig;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+public class RedisKeyRouters {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisKeyRouters.class);
+
+    public static final String STANDALONE_MODE = "standalone";
+
+    public static final String SHARDED_MODE = "sharded";
+
+    public static final String CLUSTER_MODE = "cluster";
+
+    private RedisKeyRouters() {
+        // Utility class.
+    }
+
+    /**
+     * Create the router of the mode set in given configuration:
+     * <ul>
+     *     <li><code>standalone</code>: all keys on node <code>host:port</code>;</li>
+     *     <li><code>sharded</code>: keys spread over standalone nodes <code>nodes</code> by consistent hashing;</li>
+     *     <li><code>cluster</code>: keys of a Redis Cluster, discovered from nodes <code>nodes</code>.</li>
+     * </ul>
+     * Nodes default to <code>host:port</code>.
+     */
+    public static RedisKeyRouter create(RedisConfig redisConfig) {
+        requireNonNull(redisConfig, "redisConfig must be defined.");
+        String mode = isBlank(redisConfig.mode()) ? STANDALONE_MODE : redisConfig.mode().trim().toLowerCase();
+        List<HostAndPort> nodes = isBlank(redisConfig.nodes()) ? Collections.singletonList(new HostAndPort(redisConfig.host(), redisConfig.port())) : parseNodes(redisConfig.nodes());
+        LOGGER.debug("Connecting to Redis in {} mode on {}.", mode, nodes);
+        switch (mode) {
+            case STANDALONE_MODE:
+                return standalone(redisConfig.host(), redisConfig.port(), redisConfig.password());
+            case SHARDED_MODE:
+                Map<String, JedisPool> pools = new LinkedHashMap<>();
+                nodes.forEach(node -> pools.put(node.toString(), createPool(node.getHost(), node.getPort(), redisConfig.password())));
+                return new ShardedKeyRouter(pools);
+            case CLUSTER_MODE:
+                return new ClusterKeyRouter(nodes, redisConfig.password());
+            default:
+                throw new IllegalArgumentException("Redis mode " + redisConfig.mode() + " is unknown, expected " + STANDALONE_MODE + ", " + SHARDED_MODE + " or " + CLUSTER_MODE + ".");
+        }
+    }
+
+    /**
+     * Create the router of given configuration for services which mostly read: in standalone mode, reads are spread over
+     * <code>replicas</code> if any, see {@link ReplicaKeyRouter}.
+     */
+    public static RedisKeyRouter createReadOnly(RedisConfig redisConfig) {
+        RedisKeyRouter router = create(redisConfig);
+        if (isBlank(redisConfig.replicas())) {
+            return router;
+        }
+        if (router.isPartitioned()) {
+            router.close();
+            throw new IllegalArgumentException("Redis replicas are only supported in " + STANDALONE_MODE + " mode.");
+        }
+        Map<String, JedisPool> replicas = new LinkedHashMap<>();
+        parseNodes(redisConfig.replicas()).forEach(node -> replicas.put(node.toString(), createPool(node.getHost(), node.getPort(), redisConfig.password())));
+        LOGGER.debug("Reading from Redis replicas {}.", replicas.keySet());
+        return new ReplicaKeyRouter(router, replicas, redisConfig.readYourWritesMillis());
+    }
+
+    /**
+     * @return Listener closing given router when the application stops, registered by whoever created a router shared by several stores.
+     */
+    public static ApplicationLifeCycleListener closeOnStop(RedisKeyRouter router) {
+        requireNonNull(router, "router must be defined.");
+        return new ApplicationLifeCycleListener() {
+            @Override
+            public void start() {
+                //  Nothing to do.
+            }
+
+            @Override
+            public void stop() {
+                LOGGER.info("Closing connections to Redis.");
+                router.close();
+            }
+        };
+    }
+
+    public static RedisKeyRouter standalone(String host, int port, String password) {
+        return new StandaloneKeyRouter(createPool(host, port, password));
+    }
+
+    public static JedisPool createPool(String host, int port, String password) {
+        if (isBlank(host)) {
+            throw new IllegalArgumentException("host must be defined.");
+        }
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setTestOnBorrow(true);
+
+        return new JedisPool(poolConfig, host, port, Protocol.DEFAULT_TIMEOUT, password);
+    }
+
+    /**
+     * @param nodes Nodes as <code>host:port</code>, separated by commas.
+     */
+    static List<HostAndPort> parseNodes(String nodes) {
+        List<HostAndPort> res = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            String hostAndPort = node.trim();
+            int separator = hostAndPort.lastIndexOf(':');
+            if (separator < 1 || separator == hostAndPort.length() - 1) {
+                throw new IllegalArgumentException("Redis node " + hostAndPort + " must be defined as host:port.");
+            }
+            try {
+                res.add(new HostAndPort(hostAndPort.substring(0, separator), Integer.parseInt(hostAndPort.substring(separator + 1))));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Redis node " + hostAndPort + " must be defined as host:port.", e);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Run given command writing given key on the node serving this key, see {@link RedisKeyRouter#written(byte[])}.
+     */
+    public static <T> T write(RedisKeyRouter router, byte[] key, Function<Jedis, T> command) {
+        requireNonNull(router, "router must be defined.");
+        requireNonNull(key, "key must be defined.");
+        router.written(key);
+        return execute(router, key, command);
+    }
+
+    /**
+     * Run given command on the node serving given key, never on a replica: reads which must see the latest writes use it,
+     * commands writing the key use {@link #write(RedisKeyRouter, byte[], Function)}.
+     */
+    public static <T> T execute(RedisKeyRouter router, byte[] key, Function<Jedis, T> command) {
+        requireNonNull(router, "router must be defined.");
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(command, "command must be defined.");
+        return retryOnRedirection(router, () -> {
+            try (Jedis jedis = router.getPool(key).getResource()) {
+                return command.apply(jedis);
+            }
+        });
+    }
+
+    /**
+     * Run given read-only command on a node serving given key, which may be a replica.
+     */
+    public static <T> T read(RedisKeyRouter router, byte[] key, Function<Jedis, T> command) {
+        requireNonNull(router, "router must be defined.");
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(command, "command must be defined.");
+        return retryOnRedirection(router, () -> router.read(key, command));
+    }
+
+    /**
+     * Run given commands, and run them again once after refreshing the router if a node replied it doesn't serve a key
+     * anymore, as happens while slots of a cluster move. Commands must be safe to run twice.
+     */
+    public static <T> T retryOnRedirection(RedisKeyRouter router, Supplier<T> commands) {
+        try {
+            return commands.get();
+        } catch (JedisRedirectionException e) {
+            LOGGER.debug("Redis node redirected to {}, refreshing nodes of keys.", e.getTargetNode(), e);
+            router.refresh();
+            return commands.get();
+        }
+    }
+
+    /**
+     * Bounds of the hash tag of given key: the part between the first <code>{</code> and the next <code>}</code> if not empty,
+     * the whole key otherwise.
+     *
+     * @return First index of the hash tag, then the index following its end.
+     */
+    static int[] hashTagBounds(byte[] key) {
+        for (int start = 0; start < key.length; start++) {
+            if (key[start] == '{') {
+                for (int end = start + 1; end < key.length; end++) {
+                    if (key[end] == '}') {
+                        return end > start + 1 ? new int[]{start + 1, end} : new int[]{0, key.length};
+                    }
+                }
+                break;
+            }
+        }
+        return new int[]{0, key.length};
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.service.cache.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Answer whether a key <code>prefix + name</code> exists, from a {@link BloomFilter} of the names when it rules the name out,
+ * and from Redis otherwise.
+ * <p>
+ * The filter is loaded by scanning the keys with the prefix, then every {@link #RELOAD_INTERVAL_MILLIS} in background.
+ * Names added through this instance are put in the filter at once, names added by other instances are only known from the
+ * next reload: use it for hints like name availability, and let writes check names in Redis.
+ * Until the first load, every name is checked in Redis.
+ * </p>
+ */
+class RedisNameFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisNameFilter.class);
+
+    static final long RELOAD_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int EXPECTED_NAMES = 100000;
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private static final int SCAN_COUNT = 1000;
+
+    private final String prefix;
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private volatile BloomFilter bloomFilter;
+
+    //  Filter being loaded, which receive names added meanwhile.
+    private volatile BloomFilter nextBloomFilter;
+
+    private volatile long loadDate;
+
+    RedisNameFilter(String prefix) {
+        if (isBlank(prefix)) {
+            throw new IllegalArgumentException("prefix must be defined.");
+        }
+        this.prefix = prefix;
+    }
+
+    /**
+     * Build a new filter from the keys in Redis, scanned on every node, unless a load is already running.
+     */
+    void load(RedisKeyRouter router) {
+        requireNonNull(router, "router must be defined.");
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            BloomFilter loaded = new BloomFilter(EXPECTED_NAMES, FALSE_POSITIVE_PROBABILITY);
+            nextBloomFilter = loaded;
+            ScanParams scanParams = new ScanParams().match(prefix + "*").count(SCAN_COUNT);
+            int count = 0;
+            for (JedisPool pool : router.getPools()) {
+                try (Jedis jedis = pool.getResource()) {
+                    String cursor = ScanParams.SCAN_POINTER_START;
+                    do {
+                        ScanResult<String> result = jedis.scan(cursor, scanParams);
+                        for (String key : result.getResult()) {
+                            loaded.put(key.substring(prefix.length()));
+                            count++;
+                        }
+                        cursor = result.getStringCursor();
+                    } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+                }
+            }
+            bloomFilter = loaded;
+            loadDate = System.currentTimeMillis();
+            LOGGER.debug("Loaded {} names of keys {} in filter.", count, prefix);
+        } catch (JedisException e) {
+            LOGGER.warn("Unable to load names of keys {} in filter, they are checked in Redis.", prefix, e);
+        } finally {
+            nextBloomFilter = null;
+            loading.set(false);
+        }
+    }
+
+    void add(String name) {
+        requireNonNull(name, "name must be defined.");
+        //  Read the loading filter first: once a load ends, its filter is the current one.
+        BloomFilter loading = nextBloomFilter;
+        if (loading != null) {
+            loading.put(name);
+        }
+        BloomFilter current = bloomFilter;
+        if (current != null) {
+            current.put(name);
+        }
+    }
+
+    boolean exists(RedisKeyRouter router, String name) {
+        requireNonNull(router, "router must be defined.");
+        requireNonNull(name, "name must be defined.");
+        BloomFilter current = bloomFilter;
+        if (current != null) {
+            if (!loading.get() && System.currentTimeMillis() - loadDate > RELOAD_INTERVAL_MILLIS) {
+                CompletableFuture.runAsync(() -> load(router));
+            }
+            if (!current.mightContain(name)) {
+                return false;
+            }
+        }
+        byte[] key = RedisUtils.aggregateKey(prefix, name);
+        return RedisKeyRouters.read(router, key, jedis -> jedis.exists(key));
+    }
+
+}
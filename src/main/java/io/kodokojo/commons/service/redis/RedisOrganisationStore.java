@@ -17,19 +17,23 @@
  */
 package io.kodokojo.commons.service.redis;
 
-import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.commons.service.redis.codec.CompressionDictionary;
+import io.kodokojo.commons.service.redis.codec.ModelCodecs;
 import io.kodokojo.commons.service.repository.store.OrganisationStore;
 import io.kodokojo.commons.service.repository.store.OrganisationStoreModel;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 import javax.inject.Inject;
 import java.security.Key;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import static org.apache.commons.lang.StringUtils.isBlank;
 
@@ -44,9 +48,41 @@ public class RedisOrganisationStore extends AbstractRedisStore implements Organi
     public static final String USERS_KEY = "/users";
     public static final String PROJECT_CONFIGS_KEY = "/projectConfigs";
 
+    private final CompressionDictionary compressionDictionary;
+
+    private final boolean legacyFormat;
+
     @Inject
     public RedisOrganisationStore(Key key, String host, int port, String password) {
-        super(key, host, port, password);
+        this(key, host, port, password, false);
+    }
+
+    /**
+     * @param compression Compress values with {@link CompressionDictionary#ORGANISATION} before encrypting them.
+     */
+    public RedisOrganisationStore(Key key, String host, int port, String password, boolean compression) {
+        this(key, RedisKeyRouters.standalone(host, port, password), compression, true, true);
+    }
+
+    /**
+     * @param compression Compress values with {@link CompressionDictionary#ORGANISATION} before encrypting them.
+     */
+    public RedisOrganisationStore(Key key, RedisKeyRouter router, boolean compression) {
+        this(key, router, compression, true);
+    }
+
+    /**
+     * @param compression Compress values with {@link CompressionDictionary#ORGANISATION} before encrypting them.
+     * @param legacyFormat Write values in the format of previous versions, see {@link ModelCodecs}.
+     */
+    public RedisOrganisationStore(Key key, RedisKeyRouter router, boolean compression, boolean legacyFormat) {
+        this(key, router, compression, legacyFormat, false);
+    }
+
+    private RedisOrganisationStore(Key key, RedisKeyRouter router, boolean compression, boolean legacyFormat, boolean routerOwned) {
+        super(key, router, routerOwned);
+        this.compressionDictionary = compression ? CompressionDictionary.ORGANISATION : null;
+        this.legacyFormat = legacyFormat;
     }
 
     @Override
@@ -65,25 +101,29 @@ public class RedisOrganisationStore extends AbstractRedisStore implements Organi
         if (isBlank(entityIdentifier)) {
             throw new IllegalArgumentException("entityIdentifier must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] entityKey = RedisUtils.aggregateKey(ENTITY_PREFIX, entityIdentifier);
-            if (jedis.exists(entityKey)) {
-                byte[] encrypted = jedis.get(entityKey);
-                OrganisationModelRedis organisationModelRedis = (OrganisationModelRedis) RSAUtils.decryptObjectWithAES(key, encrypted);
-                String adminsKey = ENTITY_PREFIX + entityIdentifier + ADMINS_KEY;
-                String userKey = ENTITY_PREFIX + entityIdentifier + USERS_KEY;
-                String projectConfigKey = ENTITY_PREFIX + entityIdentifier + PROJECT_CONFIGS_KEY;
+        byte[] entityKey = entityKey(ENTITY_PREFIX, entityIdentifier);
+        return read(entityKey, jedis -> {
+            //  Read the organisation and its members in a single round trip.
+            Pipeline pipeline = jedis.pipelined();
+            Response<byte[]> encryptedResponse = pipeline.get(entityKey);
+            Response<Set<String>> usersResponse = pipeline.smembers(setKey(entityIdentifier, USERS_KEY));
+            Response<Set<String>> adminsResponse = pipeline.smembers(setKey(entityIdentifier, ADMINS_KEY));
+            Response<Set<String>> projectConfigurationsResponse = pipeline.smembers(setKey(entityIdentifier, PROJECT_CONFIGS_KEY));
+            pipeline.sync();
+            byte[] encrypted = encryptedResponse.get();
+            if (encrypted != null) {
+                OrganisationModelRedis organisationModelRedis = ModelCodecs.decodeEncrypted(key, OrganisationModelRedisCodec.INSTANCE, encrypted);
                 List<String> users = new ArrayList<>();
-                users.addAll(jedis.smembers(userKey));
+                users.addAll(usersResponse.get());
                 List<String> admins = new ArrayList<>();
-                admins.addAll(jedis.smembers(adminsKey));
+                admins.addAll(adminsResponse.get());
                 List<String> projectConfiguration = new ArrayList<>();
-                projectConfiguration.addAll(jedis.smembers(projectConfigKey));
+                projectConfiguration.addAll(projectConfigurationsResponse.get());
                 OrganisationStoreModel entity = new OrganisationStoreModel(organisationModelRedis.getIdentifier(), organisationModelRedis.getName(), organisationModelRedis.isConcrete(), projectConfiguration, admins, users);
                 return entity;
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     @Override
@@ -95,29 +135,29 @@ public class RedisOrganisationStore extends AbstractRedisStore implements Organi
             LOGGER.warn("Try to add organisation {} which have already an ID ({}), we don't insert it in redis.", organisation.getName(), organisation.getIdentifier());
             return organisation.getIdentifier();
         }
-        try (Jedis jedis = pool.getResource()) {
-            String id = generateId();
-            List<String> admins = organisation.getAdmins();
-            List<String> users = organisation.getUsers();
-            List<String> projectConfigurations = organisation.getProjectConfigurations();
+        String id = generateId();
+        List<String> admins = organisation.getAdmins();
+        List<String> users = organisation.getUsers();
+        List<String> projectConfigurations = organisation.getProjectConfigurations();
 
-            OrganisationModelRedis organisationModelRedis = new OrganisationModelRedis(organisation);
+        OrganisationModelRedis organisationModelRedis = new OrganisationModelRedis(organisation);
 
-            //LOGGER.debug("Using key {}", key.getAlgorithm());
+        //LOGGER.debug("Using key {}", key.getAlgorithm());
 
-            byte[] encryptedObject = RSAUtils.encryptObjectWithAES(key, organisationModelRedis);
-            jedis.set(RedisUtils.aggregateKey(ENTITY_PREFIX, id), encryptedObject);
+        byte[] encryptedObject = ModelCodecs.encodeEncrypted(key, OrganisationModelRedisCodec.INSTANCE, organisationModelRedis, compressionDictionary, legacyFormat);
+        writeBatch(batch -> {
+            batch.set(entityKey(ENTITY_PREFIX, id), encryptedObject);
             if (CollectionUtils.isNotEmpty(admins)) {
-                jedis.sadd(ENTITY_PREFIX + id + ADMINS_KEY, admins.toArray(new String[admins.size()]));
+                batch.sadd(setKey(id, ADMINS_KEY), admins.toArray(new String[admins.size()]));
             }
             if (CollectionUtils.isNotEmpty(users)) {
-                jedis.sadd(ENTITY_PREFIX + id + USERS_KEY, users.toArray(new String[users.size()]));
+                batch.sadd(setKey(id, USERS_KEY), users.toArray(new String[users.size()]));
             }
             if (CollectionUtils.isNotEmpty(projectConfigurations)) {
-                jedis.sadd(ENTITY_PREFIX + id + PROJECT_CONFIGS_KEY, projectConfigurations.toArray(new String[projectConfigurations.size()]));
+                batch.sadd(setKey(id, PROJECT_CONFIGS_KEY), projectConfigurations.toArray(new String[projectConfigurations.size()]));
             }
-            return id;
-        }
+        });
+        return id;
     }
 
     @Override
@@ -128,11 +168,13 @@ public class RedisOrganisationStore extends AbstractRedisStore implements Organi
         if (isBlank(organisationIdentifier)) {
             throw new IllegalArgumentException("organisationIdentifier must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            if (jedis.exists(RedisUtils.aggregateKey(ENTITY_PREFIX, organisationIdentifier))) {
-                jedis.sadd(ENTITY_PREFIX + organisationIdentifier + USERS_KEY, userIdentifier);
+        byte[] entityKey = entityKey(ENTITY_PREFIX, organisationIdentifier);
+        write(entityKey, jedis -> {
+            if (jedis.exists(entityKey)) {
+                jedis.sadd(setKey(organisationIdentifier, USERS_KEY), userIdentifier);
             }
-        }
+            return null;
+        });
     }
 
     @Override
@@ -143,12 +185,34 @@ public class RedisOrganisationStore extends AbstractRedisStore implements Organi
         if (isBlank(organisationIdentifier)) {
             throw new IllegalArgumentException("organisationIdentifier must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            if (jedis.exists(RedisUtils.aggregateKey(ENTITY_PREFIX, organisationIdentifier))) {
-                jedis.sadd(ENTITY_PREFIX + organisationIdentifier + ADMINS_KEY, userIdentifier);
+        byte[] entityKey = entityKey(ENTITY_PREFIX, organisationIdentifier);
+        write(entityKey, jedis -> {
+            if (jedis.exists(entityKey)) {
+                jedis.sadd(setKey(organisationIdentifier, ADMINS_KEY), userIdentifier);
             }
+            return null;
+        });
+    }
+
+    @Override
+    public Iterator<String> scanOrganisationUsers(String organisationIdentifier, int pageSize) {
+        if (isBlank(organisationIdentifier)) {
+            throw new IllegalArgumentException("organisationIdentifier must be defined.");
         }
+        return RedisScanIterator.sscan(router, setKey(organisationIdentifier, USERS_KEY), pageSize);
     }
 
+    @Override
+    public Iterator<String> scanOrganisationAdmins(String organisationIdentifier, int pageSize) {
+        if (isBlank(organisationIdentifier)) {
+            throw new IllegalArgumentException("organisationIdentifier must be defined.");
+        }
+        return RedisScanIterator.sscan(router, setKey(organisationIdentifier, ADMINS_KEY), pageSize);
+    }
+
+    //  Sets of an organisation are in the same partition as the organisation.
+    private String setKey(String organisationIdentifier, String set) {
+        return ENTITY_PREFIX + router.tag(organisationIdentifier) + set;
+    }
 
 }
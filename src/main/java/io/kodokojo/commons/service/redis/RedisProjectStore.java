@@ -18,20 +18,35 @@
 package io.kodokojo.commons.service.redis;
 
 import io.kodokojo.commons.model.Project;
-import io.kodokojo.commons.RSAUtils;
 import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.commons.service.redis.codec.BrickStateEventCodec;
+import io.kodokojo.commons.service.redis.codec.CompressionDictionary;
+import io.kodokojo.commons.service.redis.codec.ModelCodecs;
+import io.kodokojo.commons.service.redis.codec.ProjectCodec;
+import io.kodokojo.commons.service.redis.codec.ProjectConfigurationStoreModelCodec;
+import io.kodokojo.commons.service.redis.codec.StackCodec;
 import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
 import io.kodokojo.commons.service.repository.store.ProjectStore;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
 
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -40,12 +55,45 @@ import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 
+/**
+ * Store projects as a hash <code>projectHash/&lt;projectId&gt;</code> holding the project fields and one field per stack,
+ * and a hash <code>projectHash/&lt;projectId&gt;/&lt;stackName&gt;</code> per stack holding one field per brick state.
+ * Each field is encrypted on its own, so a brick state is added without rewriting the whole project.
+ * Like the set of brick states of a {@link Stack}, a stack keeps every state of its bricks, one per brick, version and state.
+ * Stack and brick names, brick versions and states are part of field and key names, they are stored in clear.
+ * <p>
+ * Projects previously stored as a single value in <code>project/&lt;projectId&gt;</code> are still read.
+ * While values are written in the legacy format, projects are written in this single value, so previous versions still find them.
+ * Otherwise they are moved to the hash layout on their next update.
+ * </p>
+ * <p>
+ * The identifier of a project is indexed by its name in <code>projectName/&lt;name&gt;</code>, which is set when the project is added
+ * and from which names are loaded in the name filter.
+ * </p>
+ * <p>
+ * On partitioned Redis nodes, the project identifier is a hash tag in these key names, so all keys of a project are in the same partition.
+ * </p>
+ */
 public class RedisProjectStore extends AbstractRedisStore implements ProjectStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisProjectStore.class);
 
     public static final String PROJECT_PREFIX = "project/";
 
+    public static final String PROJECT_HASH_PREFIX = "projectHash/";
+
+    private static final String PROJECT_FIELD = "project";
+
+    private static final String STACK_FIELD_PREFIX = "stack/";
+
+    //  KEYS[1] is the hash of a project, KEYS[2] the hash of one of its stacks. ARGV[1] is the field of this stack in the project hash, ARGV[2] and ARGV[3] the field of a brick state and its encrypted value.
+    private static final RedisScript UPDATE_BRICK_STATE_SCRIPT = new RedisScript("if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end\n" +
+            "redis.call('HSET', KEYS[2], ARGV[2], ARGV[3])\n" +
+            "return 1");
+
+    //  Attempts to replace a project while other writes modify it, before giving up.
+    private static final int MAX_REPLACE_ATTEMPTS = 10;
+
     private static final String PROJECTCONFIGURATION_ID_KEY = "projectConfigurationId";
 
     public static final String PROJECTCONFIGURATION_PREFIX = "projectConfiguration/";
@@ -58,8 +106,45 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
 
     private static final String PROJECTCONFIG_NAME_TO_PROJECT_IDENTIFIER = "projectConfigurationName/";
 
+    //  Identifier of a project, by project name.
+    public static final String PROJECT_NAME_PREFIX = "projectName/";
+
+    private final CompressionDictionary compressionDictionary;
+
+    private final boolean legacyFormat;
+
+    private final RedisNameFilter projectNameFilter = new RedisNameFilter(PROJECT_NAME_PREFIX);
+
     public RedisProjectStore(Key key, String host, int port, String password) {
-        super(key, host, port, password);
+        this(key, host, port, password, false);
+    }
+
+    /**
+     * @param compression Compress values with {@link CompressionDictionary#PROJECT} before encrypting them.
+     */
+    public RedisProjectStore(Key key, String host, int port, String password, boolean compression) {
+        this(key, RedisKeyRouters.standalone(host, port, password), compression, true, true);
+    }
+
+    /**
+     * @param compression Compress values with {@link CompressionDictionary#PROJECT} before encrypting them.
+     */
+    public RedisProjectStore(Key key, RedisKeyRouter router, boolean compression) {
+        this(key, router, compression, true);
+    }
+
+    /**
+     * @param compression Compress values with {@link CompressionDictionary#PROJECT} before encrypting them.
+     * @param legacyFormat Write values in the format of previous versions, see {@link ModelCodecs}.
+     */
+    public RedisProjectStore(Key key, RedisKeyRouter router, boolean compression, boolean legacyFormat) {
+        this(key, router, compression, legacyFormat, false);
+    }
+
+    private RedisProjectStore(Key key, RedisKeyRouter router, boolean compression, boolean legacyFormat, boolean routerOwned) {
+        super(key, router, routerOwned);
+        this.compressionDictionary = compression ? CompressionDictionary.PROJECT : null;
+        this.legacyFormat = legacyFormat;
     }
 
     @Override
@@ -72,6 +157,17 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         return PROJECTCONFIGURATION_ID_KEY;
     }
 
+    @Override
+    public void start() {
+        super.start();
+        projectNameFilter.load(router);
+    }
+
+    @Override
+    protected List<RedisScript> getScripts() {
+        return Collections.singletonList(UPDATE_BRICK_STATE_SCRIPT);
+    }
+
     @Override
     public boolean projectNameIsValid(String projectName) {
         if (isBlank(projectName)) {
@@ -79,10 +175,7 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         }
         Matcher matcher = PROJECT_NAME_PATTERN.matcher(projectName);
         if (matcher.matches()) {
-            try (Jedis jedis = pool.getResource()) {
-                byte[] key = RedisUtils.aggregateKey(PROJECT_PREFIX, projectName);
-                return !jedis.exists(key);
-            }
+            return !projectNameFilter.exists(router, projectName);
         }
         return false;
     }
@@ -112,13 +205,10 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(identifier)) {
             throw new IllegalArgumentException("identifier must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] projectConfigKey = RedisUtils.aggregateKey(PROJECTCONFIGURATION_PREFIX, identifier);
-            if (jedis.exists(projectConfigKey)) {
-                byte[] encrypted = jedis.get(projectConfigKey);
-                ProjectConfigurationStoreModel projectConfiguration = (ProjectConfigurationStoreModel) RSAUtils.decryptObjectWithAES(key, encrypted);
-                return projectConfiguration;
-            }
+        byte[] encrypted = get(entityKey(PROJECTCONFIGURATION_PREFIX, identifier));
+        if (encrypted != null) {
+            ProjectConfigurationStoreModel projectConfiguration = ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, encrypted);
+            return projectConfiguration;
         }
         return null;
     }
@@ -130,21 +220,33 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(projectConfigurationIdentifier)) {
             throw new IllegalArgumentException("projectConfigurationIdentifier must be defined.");
         }
-        if (projectNameIsValid(project.getName())) {
-            try (Jedis jedis = pool.getResource()) {
-                String identifier = generateId();
-                Project toAdd = new Project(identifier, projectConfigurationIdentifier, project.getName(), project.getSnapshotDate(), project.getStacks());
-                byte[] encryptedObject = RSAUtils.encryptObjectWithAES(key, toAdd);
-                jedis.set(RedisUtils.aggregateKey(PROJECT_PREFIX, identifier), encryptedObject);
-                jedis.set(RedisUtils.aggregateKey(PROJECTCONFIG_TO_PROJECT_PREFIX, projectConfigurationIdentifier), identifier.getBytes());
-                return identifier;
-            }
-        } else {
-            try (Jedis jedis = pool.getResource()) {
-                byte[] projectKey = RedisUtils.aggregateKey(PROJECT_PREFIX, project.getName());
-                return jedis.exists(projectKey) ? new String(jedis.get(projectKey)) : null;
-            }
+        if (isBlank(project.getName()) || !PROJECT_NAME_PATTERN.matcher(project.getName()).matches()) {
+            return null;
         }
+        //  The name filter only gives hints, the name is claimed in Redis.
+        byte[] nameKey = RedisUtils.aggregateKey(PROJECT_NAME_PREFIX, project.getName());
+        String identifier = generateId();
+        if (!Long.valueOf(1).equals(write(nameKey, jedis -> jedis.setnx(nameKey, identifier.getBytes())))) {
+            byte[] projectId = execute(nameKey, jedis -> jedis.get(nameKey));
+            return projectId == null ? null : new String(projectId);
+        }
+        projectNameFilter.add(project.getName());
+        Project toAdd = new Project(identifier, projectConfigurationIdentifier, project.getName(), project.getSnapshotDate(), project.getStacks());
+        try {
+            writeBatch(batch -> {
+                if (legacyFormat) {
+                    batch.set(legacyProjectKey(identifier), encodeLegacyProject(toAdd));
+                } else {
+                    encodeProject(toAdd).forEach(batch::hmset);
+                }
+                batch.set(RedisUtils.aggregateKey(PROJECTCONFIG_TO_PROJECT_PREFIX, projectConfigurationIdentifier), identifier.getBytes());
+            });
+        } catch (RuntimeException e) {
+            //  Only this call set the name, with SETNX.
+            write(nameKey, jedis -> jedis.del(nameKey));
+            throw e;
+        }
+        return identifier;
 
     }
 
@@ -154,10 +256,32 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(project.getIdentifier())) {
             throw new IllegalArgumentException("Project identifier() must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] encryptedObject = RSAUtils.encryptObjectWithAES(key, project);
-            jedis.set(RedisUtils.aggregateKey(PROJECT_PREFIX, project.getIdentifier()), encryptedObject);
+        byte[] projectKey = projectKey(project.getIdentifier());
+        write(projectKey, jedis -> replaceProject(jedis, project.getIdentifier(), connection -> project));
+    }
+
+    @Override
+    public boolean updateBrickState(String projectIdentifier, BrickStateEvent brickStateEvent) {
+        if (isBlank(projectIdentifier)) {
+            throw new IllegalArgumentException("projectIdentifier must be defined.");
         }
+        requireNonNull(brickStateEvent, "brickStateEvent must be defined.");
+        byte[] projectKey = projectKey(projectIdentifier);
+        return write(projectKey, jedis -> {
+            if (!legacyFormat) {
+                String stackName = brickStateEvent.getStackName();
+                Object updated = UPDATE_BRICK_STATE_SCRIPT.eval(jedis, 2, projectKey, stackKey(projectIdentifier, stackName), stackField(stackName),
+                        brickStateField(brickStateEvent), ModelCodecs.encodeEncrypted(key, BrickStateEventCodec.INSTANCE, brickStateEvent, compressionDictionary, false));
+                if (Long.valueOf(1).equals(updated)) {
+                    return true;
+                }
+                if (!jedis.exists(legacyProjectKey(projectIdentifier))) {
+                    return false;
+                }
+            }
+            //  The project is a single value, rewritten with the state added.
+            return replaceProject(jedis, projectIdentifier, connection -> withBrickState(readProject(connection, projectIdentifier), brickStateEvent));
+        });
     }
 
     @Override
@@ -165,14 +289,9 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(userIdentifier)) {
             throw new IllegalArgumentException("userIdentifier must be defined.");
         }
-        Set<String> res = new HashSet<>();
-        try (Jedis jedis = pool.getResource()) {
-            byte[] projectConfigKey = RedisUtils.aggregateKey(USER_TO_PROJECTCONFIGS_PREFIX, userIdentifier);
-            if (jedis.exists(projectConfigKey)) {
-                res.addAll(jedis.smembers(projectConfigKey).stream().map(String::new).collect(Collectors.toSet()));
-            }
-        }
-        return res;
+        //  SMEMBERS return an empty set for a missing key.
+        byte[] projectConfigKey = RedisUtils.aggregateKey(USER_TO_PROJECTCONFIGS_PREFIX, userIdentifier);
+        return read(projectConfigKey, jedis -> jedis.smembers(projectConfigKey).stream().map(String::new).collect(Collectors.toSet()));
     }
 
     @Override
@@ -180,13 +299,8 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(projectConfigurationId)) {
             throw new IllegalArgumentException("projectConfigurationId must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] projectConfigKey = RedisUtils.aggregateKey(PROJECTCONFIG_TO_PROJECT_PREFIX, projectConfigurationId);
-            if (jedis.exists(projectConfigKey)) {
-                return new String(jedis.get(projectConfigKey));
-            }
-        }
-        return null;
+        byte[] projectId = get(RedisUtils.aggregateKey(PROJECTCONFIG_TO_PROJECT_PREFIX, projectConfigurationId));
+        return projectId == null ? null : new String(projectId);
     }
 
     @Override
@@ -194,14 +308,8 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(projectConfigurationId)) {
             throw new IllegalArgumentException("projectConfigurationId must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] projectConfigKey = RedisUtils.aggregateKey(PROJECTCONFIG_TO_PROJECT_PREFIX, projectConfigurationId);
-            if (jedis.exists(projectConfigKey)) {
-                String projectId = new String(jedis.get(projectConfigKey));
-                return getProjectByIdentifier(projectId);
-            }
-        }
-        return null;
+        String projectId = getProjectIdByProjectConfigurationId(projectConfigurationId);
+        return projectId == null ? null : getProjectByIdentifier(projectId);
     }
 
     @Override
@@ -209,12 +317,9 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(name)) {
             throw new IllegalArgumentException("name must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] aggregateKey = RedisUtils.aggregateKey(PROJECTCONFIG_NAME_TO_PROJECT_IDENTIFIER, name);
-            if (jedis.exists(aggregateKey)) {
-                String projectConfigurationIdentifier = new String(jedis.get(aggregateKey));
-                return getProjectConfigurationById(projectConfigurationIdentifier);
-            }
+        byte[][] projectConfigurationIdAndValue = getByIndex(RedisUtils.aggregateKey(PROJECTCONFIG_NAME_TO_PROJECT_IDENTIFIER, name), PROJECTCONFIGURATION_PREFIX);
+        if (projectConfigurationIdAndValue != null) {
+            return ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfigurationIdAndValue[1]);
         }
         return null;
     }
@@ -224,38 +329,256 @@ public class RedisProjectStore extends AbstractRedisStore implements ProjectStor
         if (isBlank(identifier)) {
             throw new IllegalArgumentException("identifier must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            byte[] projectKey = RedisUtils.aggregateKey(PROJECT_PREFIX, identifier);
-            if (jedis.exists(projectKey)) {
-                byte[] encrypted = jedis.get(projectKey);
-                return (Project) RSAUtils.decryptObjectWithAES(key, encrypted);
+        return read(projectKey(identifier), jedis -> readProject(jedis, identifier));
+    }
+
+    //  Given connection must be to a node serving the project.
+    private Project readProject(Jedis jedis, String identifier) {
+        Pipeline fieldsPipeline = jedis.pipelined();
+        Response<Map<byte[], byte[]>> projectFields = fieldsPipeline.hgetAll(projectKey(identifier));
+        Response<byte[]> legacyProject = fieldsPipeline.get(legacyProjectKey(identifier));
+        fieldsPipeline.sync();
+        Map<byte[], byte[]> fields = projectFields.get();
+        if (fields.isEmpty()) {
+            return legacyProject.get() == null ? null : ModelCodecs.decodeEncrypted(key, ProjectCodec.INSTANCE, legacyProject.get());
+        }
+        ProjectHeaderRedis header = null;
+        List<Stack> stacks = new ArrayList<>();
+        for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+            String fieldName = new String(field.getKey());
+            if (PROJECT_FIELD.equals(fieldName)) {
+                header = ModelCodecs.decodeEncrypted(key, ProjectHeaderRedisCodec.INSTANCE, field.getValue());
+            } else if (fieldName.startsWith(STACK_FIELD_PREFIX)) {
+                stacks.add(ModelCodecs.decodeEncrypted(key, StackCodec.INSTANCE, field.getValue()));
             }
         }
-        return null;
+        if (header == null) {
+            return null;
+        }
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<Map<byte[], byte[]>>> brickStates = stacks.stream()
+                .map(stack -> pipeline.hgetAll(stackKey(identifier, stack.getName())))
+                .collect(Collectors.toList());
+        pipeline.sync();
+        Set<Stack> res = new HashSet<>();
+        for (int i = 0; i < stacks.size(); i++) {
+            res.add(withBrickStates(stacks.get(i), brickStates.get(i).get()));
+        }
+        return header.toProject(res);
     }
 
+    @Override
+    public Set<String> getStackNames(String projectIdentifier) {
+        if (isBlank(projectIdentifier)) {
+            throw new IllegalArgumentException("projectIdentifier must be defined.");
+        }
+        byte[] projectKey = projectKey(projectIdentifier);
+        return read(projectKey, jedis -> {
+            Set<String> res = jedis.hkeys(projectKey).stream()
+                    .map(String::new)
+                    .filter(field -> field.startsWith(STACK_FIELD_PREFIX))
+                    .map(field -> field.substring(STACK_FIELD_PREFIX.length()))
+                    .collect(Collectors.toSet());
+            if (res.isEmpty()) {
+                Project legacyProject = readLegacyProject(jedis, projectIdentifier);
+                if (legacyProject != null) {
+                    legacyProject.getStacks().forEach(stack -> res.add(stack.getName()));
+                }
+            }
+            return res;
+        });
+    }
 
-    private String writeProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration) {
-        try (Jedis jedis = pool.getResource()) {
-            String identifier = projectConfiguration.getIdentifier();
-
-            ProjectConfigurationStoreModel toInsert = new ProjectConfigurationStoreModel(projectConfiguration.getEntityIdentifier(), identifier, projectConfiguration.getName(), projectConfiguration.getUserService(), projectConfiguration.getAdmins(), projectConfiguration.getStackConfigurations(), projectConfiguration.getUsers());
-            byte[] encryptedObject = RSAUtils.encryptObjectWithAES(key, toInsert);
-            jedis.set(RedisUtils.aggregateKey(PROJECTCONFIGURATION_PREFIX, identifier), encryptedObject);
-            writeUserToProjectConfigurationId(jedis, toInsert.getAdmins(), toInsert.getIdentifier());
-            writeUserToProjectConfigurationId(jedis, toInsert.getUsers(), toInsert.getIdentifier());
-            jedis.set(RedisUtils.aggregateKey(PROJECTCONFIG_NAME_TO_PROJECT_IDENTIFIER, projectConfiguration.getName()), identifier.getBytes());
-            return identifier;
+    @Override
+    public Stack getStack(String projectIdentifier, String stackName) {
+        if (isBlank(projectIdentifier)) {
+            throw new IllegalArgumentException("projectIdentifier must be defined.");
+        }
+        if (isBlank(stackName)) {
+            throw new IllegalArgumentException("stackName must be defined.");
+        }
+        byte[] projectKey = projectKey(projectIdentifier);
+        return read(projectKey, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            Response<byte[]> encryptedStack = pipeline.hget(projectKey, stackField(stackName));
+            Response<Map<byte[], byte[]>> brickStates = pipeline.hgetAll(stackKey(projectIdentifier, stackName));
+            pipeline.sync();
+            if (encryptedStack.get() != null) {
+                return withBrickStates(ModelCodecs.decodeEncrypted(key, StackCodec.INSTANCE, encryptedStack.get()), brickStates.get());
+            }
+            Project legacyProject = readLegacyProject(jedis, projectIdentifier);
+            if (legacyProject != null) {
+                return legacyProject.getStacks().stream()
+                        .filter(stack -> stackName.equals(stack.getName()))
+                        .findFirst()
+                        .orElse(null);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Iterator<ProjectConfigurationStoreModel> scanProjectConfigurations(int pageSize) {
+        return RedisScanIterator.scan(router.getPools(), PROJECTCONFIGURATION_PREFIX + "*", pageSize, keys -> getAll(keys.stream().map(String::getBytes).collect(Collectors.toList())).stream()
+                .filter(Objects::nonNull)
+                .map(encrypted -> ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, encrypted))
+                .collect(Collectors.toList()));
+    }
+
+    private Map<byte[], Map<byte[], byte[]>> encodeProject(Project project) {
+        String identifier = project.getIdentifier();
+        Map<byte[], byte[]> projectFields = new HashMap<>();
+        projectFields.put(PROJECT_FIELD.getBytes(), ModelCodecs.encodeEncrypted(key, ProjectHeaderRedisCodec.INSTANCE, new ProjectHeaderRedis(project), compressionDictionary, false));
+        Map<byte[], Map<byte[], byte[]>> res = new HashMap<>();
+        res.put(projectKey(identifier), projectFields);
+        for (Stack stack : project.getStacks()) {
+            Stack withoutBrickStates = new Stack(stack.getName(), stack.getStackType(), Collections.emptySet());
+            projectFields.put(stackField(stack.getName()), ModelCodecs.encodeEncrypted(key, StackCodec.INSTANCE, withoutBrickStates, compressionDictionary, false));
+            Map<byte[], byte[]> brickFields = new HashMap<>();
+            if (stack.getBrickStateEvents() != null) {
+                for (BrickStateEvent brickStateEvent : stack.getBrickStateEvents()) {
+                    brickFields.put(brickStateField(brickStateEvent), ModelCodecs.encodeEncrypted(key, BrickStateEventCodec.INSTANCE, brickStateEvent, compressionDictionary, false));
+                }
+            }
+            if (!brickFields.isEmpty()) {
+                res.put(stackKey(identifier, stack.getName()), brickFields);
+            }
         }
+        return res;
+    }
+
+    //  Previous versions only read this value.
+    private byte[] encodeLegacyProject(Project project) {
+        return ModelCodecs.encodeEncrypted(key, ProjectCodec.INSTANCE, project, compressionDictionary, true);
+    }
+
+    /**
+     * Replace a project by the one given update returns, in a transaction aborted if keys of the project are written meanwhile,
+     * then tried again. Update is given the connection to read the current project from.
+     * Given connection must be to the node serving the project.
+     *
+     * @param update Return the project to store, <code>null</code> to leave the project unchanged.
+     * @return <code>true</code> if the project was replaced.
+     */
+    private boolean replaceProject(Jedis jedis, String identifier, Function<Jedis, Project> update) {
+        byte[] projectKey = projectKey(identifier);
+        byte[] legacyProjectKey = legacyProjectKey(identifier);
+        for (int attempt = 0; attempt < MAX_REPLACE_ATTEMPTS; attempt++) {
+            jedis.watch(projectKey, legacyProjectKey);
+            //  A stack added meanwhile writes the project hash, already watched.
+            List<byte[]> stackKeys = jedis.hkeys(projectKey).stream()
+                    .map(String::new)
+                    .filter(field -> field.startsWith(STACK_FIELD_PREFIX))
+                    .map(field -> stackKey(identifier, field.substring(STACK_FIELD_PREFIX.length())))
+                    .collect(Collectors.toList());
+            if (!stackKeys.isEmpty()) {
+                jedis.watch(stackKeys.toArray(new byte[0][]));
+            }
+            Project project = update.apply(jedis);
+            if (project == null) {
+                jedis.unwatch();
+                return false;
+            }
+            Transaction transaction = jedis.multi();
+            transaction.del(projectKey);
+            stackKeys.forEach(transaction::del);
+            if (legacyFormat) {
+                transaction.set(legacyProjectKey, encodeLegacyProject(project));
+            } else {
+                transaction.del(legacyProjectKey);
+                encodeProject(project).forEach(transaction::hmset);
+            }
+            if (transaction.exec() != null) {
+                return true;
+            }
+            LOGGER.debug("Project {} was written while replaced, replacing it again.", identifier);
+        }
+        throw new IllegalStateException("Unable to replace project " + identifier + ", it was written by others on each of " + MAX_REPLACE_ATTEMPTS + " attempts.");
+    }
+
+    /**
+     * @return Given project with given state added to the stack of its brick, replacing an equal state,
+     * <code>null</code> if the project or this stack doesn't exist.
+     */
+    static Project withBrickState(Project project, BrickStateEvent brickStateEvent) {
+        if (project == null || project.getStacks().stream().noneMatch(stack -> stack.getName().equals(brickStateEvent.getStackName()))) {
+            return null;
+        }
+        Set<Stack> stacks = new HashSet<>();
+        for (Stack stack : project.getStacks()) {
+            if (stack.getName().equals(brickStateEvent.getStackName())) {
+                Set<BrickStateEvent> brickStateEvents = new HashSet<>();
+                if (stack.getBrickStateEvents() != null) {
+                    brickStateEvents.addAll(stack.getBrickStateEvents());
+                }
+                brickStateEvents.remove(brickStateEvent);
+                brickStateEvents.add(brickStateEvent);
+                stacks.add(new Stack(stack.getName(), stack.getStackType(), brickStateEvents));
+            } else {
+                stacks.add(stack);
+            }
+        }
+        return new Project(project.getIdentifier(), project.getProjectConfigurationIdentifier(), project.getName(), project.getSnapshotDate(), stacks);
+    }
+
+    /**
+     * @return Field of given state in the hash of its stack, equal for states equal by {@link BrickStateEvent#equals(Object)} in a stack.
+     */
+    static byte[] brickStateField(BrickStateEvent brickStateEvent) {
+        return (brickStateEvent.getBrickType() + "/" + brickStateEvent.getBrickName() + "/" + brickStateEvent.getVersion() + "/" + brickStateEvent.getState()).getBytes();
+    }
+
+    //  Given connection must be to the node serving the project hash, the legacy key is in the same partition.
+    private Project readLegacyProject(Jedis jedis, String identifier) {
+        byte[] encrypted = jedis.get(legacyProjectKey(identifier));
+        return encrypted == null ? null : ModelCodecs.decodeEncrypted(key, ProjectCodec.INSTANCE, encrypted);
+    }
+
+    private Stack withBrickStates(Stack stack, Map<byte[], byte[]> encryptedBrickStates) {
+        Set<BrickStateEvent> brickStateEvents = encryptedBrickStates.values().stream()
+                .map(encrypted -> ModelCodecs.decodeEncrypted(key, BrickStateEventCodec.INSTANCE, encrypted))
+                .collect(Collectors.toSet());
+        return new Stack(stack.getName(), stack.getStackType(), brickStateEvents);
+    }
+
+    private byte[] legacyProjectKey(String projectIdentifier) {
+        return entityKey(PROJECT_PREFIX, projectIdentifier);
+    }
+
+    private byte[] projectKey(String projectIdentifier) {
+        return entityKey(PROJECT_HASH_PREFIX, projectIdentifier);
+    }
+
+    private byte[] stackKey(String projectIdentifier, String stackName) {
+        return RedisUtils.aggregateKey(PROJECT_HASH_PREFIX, router.tag(projectIdentifier) + "/" + stackName);
+    }
+
+    private static byte[] stackField(String stackName) {
+        return (STACK_FIELD_PREFIX + stackName).getBytes();
+    }
+
+
+    private String writeProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration) {
+        String identifier = projectConfiguration.getIdentifier();
+
+        ProjectConfigurationStoreModel toInsert = new ProjectConfigurationStoreModel(projectConfiguration.getEntityIdentifier(), identifier, projectConfiguration.getName(), projectConfiguration.getUserService(), projectConfiguration.getAdmins(), projectConfiguration.getStackConfigurations(), projectConfiguration.getUsers());
+        byte[] encryptedObject = ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, toInsert, compressionDictionary, legacyFormat);
+        writeBatch(batch -> {
+            batch.set(entityKey(PROJECTCONFIGURATION_PREFIX, identifier), encryptedObject);
+            writeUserToProjectConfigurationId(batch, toInsert.getAdmins(), toInsert.getIdentifier());
+            writeUserToProjectConfigurationId(batch, toInsert.getUsers(), toInsert.getIdentifier());
+            batch.set(RedisUtils.aggregateKey(PROJECTCONFIG_NAME_TO_PROJECT_IDENTIFIER, projectConfiguration.getName()), identifier.getBytes());
+        });
+        return identifier;
     }
 
-    private void writeUserToProjectConfigurationId(Jedis jedis, List<String> users, String projectConfigurationId) {
+    private void writeUserToProjectConfigurationId(RedisWriteBatch batch, List<String> users, String projectConfigurationId) {
         byte[] projectConfId = projectConfigurationId.getBytes();
         Iterator<String> it = users.iterator();
         while (it.hasNext()) {
             String user = it.next();
             byte[] key = RedisUtils.aggregateKey(USER_TO_PROJECTCONFIGS_PREFIX, user);
-            jedis.sadd(key, projectConfId);
+            batch.sadd(key, projectConfId);
         }
     }
 
@@ -0,0 +1,143 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Iterate lazily over a Redis cursor: <code>SCAN</code> over the keys of every node, or <code>SSCAN</code> over the members of a set.
+ * Elements are read a page at a time, so memory is bounded by the page size whatever the number of elements.
+ * <p>
+ * As with <code>SCAN</code>, an element present during the whole iteration is returned at least once, and may be returned twice;
+ * an element added or removed meanwhile may be returned or not.
+ * </p>
+ */
+class RedisScanIterator<T> implements Iterator<T> {
+
+    //  Run a command on a node to scan.
+    private interface Node {
+        ScanResult<String> run(Function<Jedis, ScanResult<String>> command);
+    }
+
+    private final List<Node> nodes;
+
+    private final BiFunction<Jedis, String, ScanResult<String>> scan;
+
+    private final Function<List<String>, List<T>> pageReader;
+
+    private int node;
+
+    private String cursor = ScanParams.SCAN_POINTER_START;
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    /**
+     * @param nodes Run a scan on a node, one per node to scan.
+     * @param scan Scan from given cursor.
+     * @param pageReader Read the elements of a page of scanned keys or members, may skip some of them.
+     */
+    private RedisScanIterator(List<Node> nodes, BiFunction<Jedis, String, ScanResult<String>> scan, Function<List<String>, List<T>> pageReader) {
+        this.nodes = nodes;
+        this.scan = scan;
+        this.pageReader = pageReader;
+    }
+
+    /**
+     * Iterate over the keys matching given pattern, on each node in turn.
+     */
+    static <T> Iterator<T> scan(Collection<JedisPool> pools, String pattern, int pageSize, Function<List<String>, List<T>> pageReader) {
+        requireNonNull(pools, "pools must be defined.");
+        requireNonNull(pattern, "pattern must be defined.");
+        requireNonNull(pageReader, "pageReader must be defined.");
+        ScanParams scanParams = scanParams(pageSize).match(pattern);
+        List<Node> nodes = new ArrayList<>();
+        for (JedisPool pool : pools) {
+            nodes.add(command -> {
+                try (Jedis jedis = pool.getResource()) {
+                    return command.apply(jedis);
+                }
+            });
+        }
+        return new RedisScanIterator<>(nodes, (jedis, cursor) -> jedis.scan(cursor, scanParams), pageReader);
+    }
+
+    /**
+     * Iterate over the members of given set, read from the node serving it. A cursor is only valid on the node which returned it,
+     * so the node is chosen once for the whole iteration, rather than for each page like reads which may go to a replica.
+     */
+    static Iterator<String> sscan(RedisKeyRouter router, String key, int pageSize) {
+        requireNonNull(router, "router must be defined.");
+        requireNonNull(key, "key must be defined.");
+        ScanParams scanParams = scanParams(pageSize);
+        JedisPool pool = router.getPool(key.getBytes());
+        Node node = command -> {
+            try (Jedis jedis = pool.getResource()) {
+                return command.apply(jedis);
+            }
+        };
+        return new RedisScanIterator<>(Collections.singletonList(node),
+                (jedis, cursor) -> jedis.sscan(key, cursor, scanParams),
+                members -> members);
+    }
+
+    private static ScanParams scanParams(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be greater than 0.");
+        }
+        //  COUNT is a hint: a page may hold a few more or less elements.
+        return new ScanParams().count(pageSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && node < nodes.size()) {
+            ScanResult<String> result = nodes.get(node).run(jedis -> scan.apply(jedis, cursor));
+            cursor = result.getStringCursor();
+            if (ScanParams.SCAN_POINTER_START.equals(cursor)) {
+                node++;
+            }
+            if (!result.getResult().isEmpty()) {
+                page = pageReader.apply(result.getResult()).iterator();
+            }
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+}
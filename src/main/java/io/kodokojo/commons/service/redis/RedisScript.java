@@ -0,0 +1,68 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * A Lua script run with <code>EVALSHA</code>, so only its SHA-1 is sent on each call.
+ * The script is loaded again if Redis doesn't know it, after a restart or a <code>SCRIPT FLUSH</code>.
+ */
+public class RedisScript {
+
+    private static final String NOSCRIPT = "NOSCRIPT";
+
+    private final byte[] script;
+
+    private final byte[] sha;
+
+    public RedisScript(String script) {
+        if (isBlank(script)) {
+            throw new IllegalArgumentException("script must be defined.");
+        }
+        this.script = script.getBytes();
+        try {
+            this.sha = RedisUtils.hexEncode(MessageDigest.getInstance("SHA-1").digest(this.script)).getBytes();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to get instance of SHA-1 digest", e);
+        }
+    }
+
+    public void load(Jedis jedis) {
+        jedis.scriptLoad(script);
+    }
+
+    public Object eval(Jedis jedis, int keyCount, byte[]... params) {
+        try {
+            return jedis.evalsha(sha, keyCount, params);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith(NOSCRIPT)) {
+                throw e;
+            }
+            load(jedis);
+            return jedis.evalsha(sha, keyCount, params);
+        }
+    }
+
+}
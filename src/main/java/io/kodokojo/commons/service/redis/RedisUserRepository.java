@@ -24,16 +24,25 @@ import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.model.UserService;
 import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.commons.service.redis.codec.ModelCodecs;
+import io.kodokojo.commons.service.redis.codec.UserInWaitingListCodec;
+import io.kodokojo.commons.service.redis.codec.UserServiceValueCodec;
+import io.kodokojo.commons.service.redis.codec.UserValueCodec;
 import io.kodokojo.commons.service.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.Jedis;
 
-import java.io.*;
 import java.security.*;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang.StringUtils.isBlank;
@@ -46,8 +55,49 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
 
     private static final byte[] NEW_USER_CONTENT = new byte[]{0, 1, 1, 0};
 
+    //  KEYS[1] is the username key, KEYS[2] the new identifier marker and KEYS[3] the user key. ARGV[1] is the expected marker content, ARGV[2] the user and ARGV[3] its identifier.
+    private static final RedisScript ADD_USER_SCRIPT = new RedisScript("if redis.call('EXISTS', KEYS[1]) == 1 or redis.call('EXISTS', KEYS[3]) == 1 then return 0 end\n" +
+            "if redis.call('GET', KEYS[2]) ~= ARGV[1] then return 0 end\n" +
+            "redis.call('SET', KEYS[3], ARGV[2])\n" +
+            "redis.call('SET', KEYS[1], ARGV[3])\n" +
+            "redis.call('DEL', KEYS[2])\n" +
+            "return 1");
+
+    //  KEYS[1] is the user service key and KEYS[2] the user service name key. ARGV[1] is the user service and ARGV[2] its identifier.
+    private static final RedisScript ADD_USER_SERVICE_SCRIPT = new RedisScript("local id = redis.call('GET', KEYS[2])\n" +
+            "if id and id ~= ARGV[2] then return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "redis.call('SET', KEYS[2], ARGV[2])\n" +
+            "return 1");
+
+    //  KEYS[1] is the new identifier marker and KEYS[2] the user key. ARGV[1] is the expected marker content and ARGV[2] the user.
+    private static final RedisScript ADD_USER_BY_IDENTIFIER_SCRIPT = new RedisScript("if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end\n" +
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end\n" +
+            "redis.call('SET', KEYS[2], ARGV[2])\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "return 1");
+
+    //  KEYS[1] is a name key. ARGV[1] is the identifier claiming this name. Return 2 if the name was already claimed by this identifier.
+    private static final RedisScript CLAIM_NAME_SCRIPT = new RedisScript("local id = redis.call('GET', KEYS[1])\n" +
+            "if id then if id == ARGV[1] then return 2 end return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "return 1");
+
+    //  KEYS[1] is a name key. ARGV[1] is the identifier which claimed this name.
+    private static final RedisScript RELEASE_NAME_SCRIPT = new RedisScript("if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "return 1");
+
+    //  KEYS[1] is the user key. ARGV[1] is the user.
+    private static final RedisScript UPDATE_USER_SCRIPT = new RedisScript("if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "return 1");
+
     private static final int DEFAULT_NEW_ID_TTL = 5 * 60; //5 minutes
 
+    //  Below this size, deserialize and decrypt of users is faster on calling thread.
+    private static final int PARALLEL_DECODE_THRESHOLD = 32;
+
     public static final String NEW_ID_PREFIX = "newId/";
 
     public static final String USER_PREFIX = "user/";
@@ -60,26 +110,46 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
 
     public static final String USERSERVICENAME_PREFIX = "userservicename/";
 
-    private final MessageDigest messageDigest;
-
     private final int newIdExpirationTime;
 
-    public RedisUserRepository(Key key, String host, int port, String password, int newIdExpirationTime) {
-        super(key, host, port, password);
+    private final boolean legacyFormat;
 
-        this.newIdExpirationTime = newIdExpirationTime;
-        try {
-            messageDigest = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Unable to get instance of SHA-1 digest");
-        }
+    private final RedisNameFilter usernameFilter = new RedisNameFilter(USERNAME_PREFIX);
 
+    public RedisUserRepository(Key key, String host, int port, String password, int newIdExpirationTime) {
+        this(key, RedisKeyRouters.standalone(host, port, password), newIdExpirationTime, true, true);
     }
 
     public RedisUserRepository(Key key, String host, int port, String password) {
         this(key, host, port, password, DEFAULT_NEW_ID_TTL);
     }
 
+    public RedisUserRepository(Key key, RedisKeyRouter router, int newIdExpirationTime) {
+        this(key, router, newIdExpirationTime, true);
+    }
+
+    /**
+     * @param legacyFormat Write users, user services and passwords in the format of previous versions, see {@link ModelCodecs} and {@link RSAUtils}.
+     */
+    public RedisUserRepository(Key key, RedisKeyRouter router, int newIdExpirationTime, boolean legacyFormat) {
+        this(key, router, newIdExpirationTime, legacyFormat, false);
+    }
+
+    private RedisUserRepository(Key key, RedisKeyRouter router, int newIdExpirationTime, boolean legacyFormat, boolean routerOwned) {
+        super(key, router, routerOwned);
+
+        this.newIdExpirationTime = newIdExpirationTime;
+        this.legacyFormat = legacyFormat;
+    }
+
+    public RedisUserRepository(Key key, RedisKeyRouter router) {
+        this(key, router, DEFAULT_NEW_ID_TTL);
+    }
+
+    public RedisUserRepository(Key key, RedisKeyRouter router, boolean legacyFormat) {
+        this(key, router, DEFAULT_NEW_ID_TTL, legacyFormat);
+    }
+
     @Override
     protected String getStoreName() {
         return "RedisUserRepository";
@@ -87,19 +157,26 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
 
     @Override
     protected String getGenerateIdKey() {
-        return NEW_ID_PREFIX;
+        return ID_KEY;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        usernameFilter.load(router);
+    }
+
+    @Override
+    protected List<RedisScript> getScripts() {
+        return Arrays.asList(ADD_USER_SCRIPT, ADD_USER_SERVICE_SCRIPT, ADD_USER_BY_IDENTIFIER_SCRIPT, CLAIM_NAME_SCRIPT, RELEASE_NAME_SCRIPT, UPDATE_USER_SCRIPT);
     }
 
     @Override
     public String generateId() {
-        try (Jedis jedis = pool.getResource()) {
-            String id = saltKey + jedis.incr(ID_KEY).toString();
-            String newId = RedisUtils.hexEncode(messageDigest.digest(id.getBytes()));
-            byte[] prefixedKey = RedisUtils.aggregateKey(NEW_ID_PREFIX, newId);
-            jedis.set(prefixedKey, NEW_USER_CONTENT);
-            jedis.expire(prefixedKey, newIdExpirationTime);
-            return newId;
-        }
+        String newId = super.generateId();
+        byte[] prefixedKey = entityKey(NEW_ID_PREFIX, newId);
+        write(prefixedKey, jedis -> jedis.setex(prefixedKey, newIdExpirationTime, NEW_USER_CONTENT));
+        return newId;
     }
 
     @Override
@@ -107,87 +184,106 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
         if (isBlank(generatedId)) {
             throw new IllegalArgumentException("generatedId must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            return jedis.exists(RedisUtils.aggregateKey(NEW_ID_PREFIX, generatedId));
-        }
+        byte[] newIdKey = entityKey(NEW_ID_PREFIX, generatedId);
+        return read(newIdKey, jedis -> jedis.exists(newIdKey));
     }
 
     @Override
     public boolean addUser(User user) {
         requireNonNull(user, "user must be defined.");
-        ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
-        try (ObjectOutputStream out = new ObjectOutputStream(byteArray); Jedis jedis = pool.getResource()) {
-            if (jedis.get(RedisUtils.aggregateKey(USERNAME_PREFIX, user.getUsername())) == null) {
-                byte[] previous = jedis.get(RedisUtils.aggregateKey(NEW_ID_PREFIX, user.getIdentifier()));
-                if (Arrays.equals(previous, NEW_USER_CONTENT) &&
-                        !jedis.exists(RedisUtils.aggregateKey(USER_PREFIX, user.getIdentifier()))) {
-                    byte[] password = RSAUtils.encryptWithAES(key,user.getPassword());
-
-                    UserValue userValue = new UserValue(user, password);
-                    out.writeObject(userValue);
-
-                    jedis.set(RedisUtils.aggregateKey(USER_PREFIX, user.getIdentifier()), byteArray.toByteArray());
-                    jedis.set(USERNAME_PREFIX + user.getUsername(), user.getIdentifier());
-                    jedis.del((NEW_ID_PREFIX + user.getIdentifier()).getBytes());
-                    return true;
-                }
+        byte[] password = RSAUtils.encryptWithAES(key, user.getPassword(), legacyFormat);
+        UserValue userValue = new UserValue(user, password);
+        byte[] usernameKey = RedisUtils.aggregateKey(USERNAME_PREFIX, user.getUsername());
+        byte[] newIdKey = entityKey(NEW_ID_PREFIX, user.getIdentifier());
+        byte[] userKey = entityKey(USER_PREFIX, user.getIdentifier());
+        byte[] value = ModelCodecs.encode(UserValueCodec.INSTANCE, userValue, legacyFormat);
+        byte[] identifier = user.getIdentifier().getBytes();
+        boolean added;
+        if (router.isPartitioned()) {
+            added = addUserByClaimingUsername(usernameKey, newIdKey, userKey, value, identifier);
+        } else {
+            added = Long.valueOf(1).equals(write(usernameKey, jedis -> ADD_USER_SCRIPT.eval(jedis, 3, usernameKey, newIdKey, userKey, NEW_USER_CONTENT, value, identifier)));
+        }
+        if (added) {
+            usernameFilter.add(user.getUsername());
+        }
+        return added;
+    }
 
+    //  The username key isn't in the partition of the user: claim the username first, then release it if the user can't be added.
+    private boolean addUserByClaimingUsername(byte[] usernameKey, byte[] newIdKey, byte[] userKey, byte[] value, byte[] identifier) {
+        if (!Long.valueOf(1).equals(write(usernameKey, jedis -> jedis.setnx(usernameKey, identifier)))) {
+            return false;
+        }
+        boolean added = false;
+        try {
+            added = Long.valueOf(1).equals(write(newIdKey, jedis -> ADD_USER_BY_IDENTIFIER_SCRIPT.eval(jedis, 2, newIdKey, userKey, NEW_USER_CONTENT, value)));
+        } finally {
+            if (!added) {
+                write(usernameKey, jedis -> jedis.del(usernameKey));
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to serialized UserValue.", e);
         }
-        return false;
+        return added;
+    }
+
+    @Override
+    public boolean usernameIsAvailable(String username) {
+        if (isBlank(username)) {
+            throw new IllegalArgumentException("username must be defined.");
+        }
+        return !usernameFilter.exists(router, username);
     }
 
     @Override
     public boolean addUserToWaitingList( UserInWaitingList userInWaitingList ) {
         requireNonNull(userInWaitingList, "userInWaitingList must be defined.");
-        ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
-        try (ObjectOutputStream out = new ObjectOutputStream(byteArray); Jedis jedis = pool.getResource()) {
-            out.writeObject(userInWaitingList);
-            jedis.set(RedisUtils.aggregateKey(USER_WAITING_LIST_PREFIX, userInWaitingList.getUsername()), byteArray.toByteArray());
-            return true;
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to serialized a UserInWaitingList.", e);
-        }
+        byte[] waitingListKey = RedisUtils.aggregateKey(USER_WAITING_LIST_PREFIX, userInWaitingList.getUsername());
+        write(waitingListKey, jedis -> jedis.set(waitingListKey, ModelCodecs.encode(UserInWaitingListCodec.INSTANCE, userInWaitingList, legacyFormat)));
+        return true;
     }
 
     @Override
     public boolean updateUser(User user) {
         requireNonNull(user, "user must be defined.");
-        byte[] userKey = RedisUtils.aggregateKey(USER_PREFIX, user.getIdentifier());
-        ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
-        try (ObjectOutputStream out = new ObjectOutputStream(byteArray); Jedis jedis = pool.getResource()) {
-            if (jedis.exists(userKey)) {
-                byte[] password = RSAUtils.encryptWithAES(key,user.getPassword());
-                UserValue userValue = new UserValue(user, password);
-                out.writeObject(userValue);
-                jedis.set(userKey, byteArray.toByteArray());
-                return true;
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to serialized UserValue.", e);
-        }
-        return false;
+        byte[] userKey = entityKey(USER_PREFIX, user.getIdentifier());
+        byte[] password = RSAUtils.encryptWithAES(key, user.getPassword(), legacyFormat);
+        byte[] value = ModelCodecs.encode(UserValueCodec.INSTANCE, new UserValue(user, password), legacyFormat);
+        return Long.valueOf(1).equals(write(userKey, jedis -> UPDATE_USER_SCRIPT.eval(jedis, 1, userKey, value)));
     }
 
     @Override
     public boolean addUserService(UserService userService) {
         requireNonNull(userService, "userService must be defined.");
-        ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
-        try (ObjectOutputStream out = new ObjectOutputStream(byteArray); Jedis jedis = pool.getResource()) {
-            byte[] password = RSAUtils.encryptWithAES(key, userService.getPassword());
-            byte[] privateKey = RSAUtils.wrap(key, userService.getPrivateKey());
-            byte[] publicKey = RSAUtils.wrap(key, userService.getPublicKey());
-
-            UserServiceValue userServiceValue = new UserServiceValue(userService, password, privateKey, publicKey);
-            out.writeObject(userServiceValue);
-            jedis.set(RedisUtils.aggregateKey(USERSERVICE_PREFIX, userService.getIdentifier()), byteArray.toByteArray());
-            jedis.set(USERSERVICENAME_PREFIX + userService.getName(), userService.getIdentifier());
-            return true;
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to serialized UserValue.", e);
+        byte[] password = RSAUtils.encryptWithAES(key, userService.getPassword(), legacyFormat);
+        byte[] privateKey = RSAUtils.wrap(key, userService.getPrivateKey());
+        byte[] publicKey = RSAUtils.wrap(key, userService.getPublicKey());
+        UserServiceValue userServiceValue = new UserServiceValue(userService, password, privateKey, publicKey);
+        byte[] userServiceKey = entityKey(USERSERVICE_PREFIX, userService.getIdentifier());
+        byte[] nameKey = RedisUtils.aggregateKey(USERSERVICENAME_PREFIX, userService.getName());
+        byte[] value = ModelCodecs.encode(UserServiceValueCodec.INSTANCE, userServiceValue, legacyFormat);
+        byte[] identifier = userService.getIdentifier().getBytes();
+        if (!router.isPartitioned()) {
+            return Long.valueOf(1).equals(write(userServiceKey, jedis -> ADD_USER_SERVICE_SCRIPT.eval(jedis, 2, userServiceKey, nameKey, value, identifier)));
+        }
+        //  The name key isn't in the partition of the user service: claim the name, then write the user service.
+        Object claimed = write(nameKey, jedis -> CLAIM_NAME_SCRIPT.eval(jedis, 1, nameKey, identifier));
+        if (Long.valueOf(0).equals(claimed)) {
+            return false;
+        }
+        try {
+            write(userServiceKey, jedis -> jedis.set(userServiceKey, value));
+        } catch (RuntimeException e) {
+            //  Release a name claimed by this call only, a name already claimed belong to a user service written before.
+            if (Long.valueOf(1).equals(claimed)) {
+                try {
+                    write(nameKey, jedis -> RELEASE_NAME_SCRIPT.eval(jedis, 1, nameKey, identifier));
+                } catch (RuntimeException releaseException) {
+                    e.addSuppressed(releaseException);
+                }
+            }
+            throw e;
         }
+        return true;
     }
 
     @Override
@@ -195,13 +291,11 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
         if (isBlank(username)) {
             throw new IllegalArgumentException("username must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            String identifier = jedis.get(USERNAME_PREFIX + username);
-            if (isBlank(identifier)) {
-                return null;
-            }
-            return getUserByIdentifier(identifier);
+        byte[][] identifierAndValue = getByIndex((USERNAME_PREFIX + username).getBytes(), USER_PREFIX);
+        if (identifierAndValue == null) {
+            return null;
         }
+        return toUser(new String(identifierAndValue[0]), ModelCodecs.decode(UserValueCodec.INSTANCE, identifierAndValue[1]));
     }
 
     @Override
@@ -209,13 +303,11 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
         if (isBlank(name)) {
             throw new IllegalArgumentException("username must be defined.");
         }
-        try (Jedis jedis = pool.getResource()) {
-            String identifier = jedis.get(USERSERVICENAME_PREFIX + name);
-            if (isBlank(identifier)) {
-                return null;
-            }
-            return getUserServiceByIdentifier(identifier);
+        byte[][] identifierAndValue = getByIndex((USERSERVICENAME_PREFIX + name).getBytes(), USERSERVICE_PREFIX);
+        if (identifierAndValue == null) {
+            return null;
         }
+        return toUserService(new String(identifierAndValue[0]), ModelCodecs.decode(UserServiceValueCodec.INSTANCE, identifierAndValue[1]));
     }
 
     @Override
@@ -223,23 +315,58 @@ public class RedisUserRepository extends AbstractRedisStore implements UserRepos
         if (isBlank(identifier)) {
             throw new IllegalArgumentException("identifier must be defined.");
         }
-        UserValue userValue = (UserValue) RedisUtils.readFromRedis(pool, RedisUtils.aggregateKey(USER_PREFIX, identifier));
-        if (userValue == null) {
+        byte[] value = get(entityKey(USER_PREFIX, identifier));
+        if (value == null) {
             return null;
         }
+        return toUser(identifier, ModelCodecs.decode(UserValueCodec.INSTANCE, value));
+    }
+
+    private User toUser(String identifier, UserValue userValue) {
         String password = RSAUtils.decryptWithAES(key, userValue.getPassword());
         return new User(identifier,userValue.getEntityId() , userValue.getName(), userValue.getUsername(), userValue.getEmail(), password, userValue.getSshPublicKey());
     }
 
+    @Override
+    public List<User> getUsersByIdentifiers(Collection<String> identifiers) {
+        requireNonNull(identifiers, "identifiers must be defined.");
+        List<String> userIdentifiers = new ArrayList<>(identifiers);
+        if (userIdentifiers.stream().anyMatch(identifier -> isBlank(identifier))) {
+            throw new IllegalArgumentException("identifiers must not contain an empty identifier.");
+        }
+        List<byte[]> values = getAll(userIdentifiers.stream()
+                .map(identifier -> entityKey(USER_PREFIX, identifier))
+                .collect(Collectors.toList()));
+        IntStream indexes = IntStream.range(0, userIdentifiers.size());
+        if (userIdentifiers.size() >= PARALLEL_DECODE_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        return indexes.mapToObj(i -> values.get(i) == null ? null : toUser(userIdentifiers.get(i), ModelCodecs.decode(UserValueCodec.INSTANCE, values.get(i))))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public UserService getUserServiceByIdentifier(String identifier) {
         if (isBlank(identifier)) {
             throw new IllegalArgumentException("identifier must be defined.");
         }
-        UserServiceValue userServiceValue = (UserServiceValue) RedisUtils.readFromRedis(pool, RedisUtils.aggregateKey(USERSERVICE_PREFIX, identifier));
-        if (userServiceValue == null) {
+        byte[] value = get(entityKey(USERSERVICE_PREFIX, identifier));
+        if (value == null) {
             return null;
         }
+        return toUserService(identifier, ModelCodecs.decode(UserServiceValueCodec.INSTANCE, value));
+    }
+
+    @Override
+    public Iterator<User> scanUsers(int pageSize) {
+        return RedisScanIterator.scan(router.getPools(), USER_PREFIX + "*", pageSize, keys -> getUsersByIdentifiers(keys.stream()
+                .map(userKey -> entityIdentifier(USER_PREFIX, userKey))
+                .collect(Collectors.toList())).stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    private UserService toUserService(String identifier, UserServiceValue userServiceValue) {
         String password = RSAUtils.decryptWithAES(key, userServiceValue.getPassword());
         RSAPrivateKey privateKey = RSAUtils.unwrapPrivateRsaKey(key, userServiceValue.getPrivateKey());
         RSAPublicKey publicKey = RSAUtils.unwrapPublicRsaKey(key, userServiceValue.getPublicKey());
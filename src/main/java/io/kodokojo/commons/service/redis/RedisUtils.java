@@ -17,6 +17,8 @@
  */
 package io.kodokojo.commons.service.redis;
 
+import io.kodokojo.commons.service.redis.codec.ModelCodec;
+import io.kodokojo.commons.service.redis.codec.ModelCodecs;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
@@ -40,19 +42,39 @@ public class RedisUtils {
      */
     public static Object readFromRedis(JedisPool pool, byte[] key) {
         try (Jedis jedis = pool.getResource()) {
-            if (jedis.exists(key)) {
-                byte[] buffer = jedis.get(key);
-                ByteArrayInputStream input = new ByteArrayInputStream(buffer);
-                try (ObjectInputStream in = new ObjectInputStream(input)) {
-                    return in.readObject();
-                } catch (IOException e) {
-                    throw new RuntimeException("Unable to create Object input stream", e);
-                } catch (ClassNotFoundException e) {
-                    throw new IllegalStateException("Unable to found class Object ?", e);
-                }
-            }
+            byte[] buffer = jedis.get(key);
+            return buffer == null ? null : readObject(buffer);
+        }
+    }
+
+    /**
+     * Read a value encoded by given codec, or serialized by Java serialization, in a Redis value
+     * @param pool Jedis pool to connect to Redis
+     * @param key The key where find the expected value
+     * @param codec The codec of the expected value
+     * @return The decoded value, <code>null</code> if the key doesn't exist.
+     */
+    public static <T> T readFromRedis(JedisPool pool, byte[] key, ModelCodec<T> codec) {
+        try (Jedis jedis = pool.getResource()) {
+            byte[] buffer = jedis.get(key);
+            return buffer == null ? null : ModelCodecs.decode(codec, buffer);
+        }
+    }
+
+    /**
+     * Read a serialized Object
+     * @param buffer A Redis value which contain a serialized Object
+     * @return The serialized Object.
+     */
+    public static Object readObject(byte[] buffer) {
+        ByteArrayInputStream input = new ByteArrayInputStream(buffer);
+        try (ObjectInputStream in = new ObjectInputStream(input)) {
+            return in.readObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create Object input stream", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to found class Object ?", e);
         }
-        return null;
     }
 
     /**
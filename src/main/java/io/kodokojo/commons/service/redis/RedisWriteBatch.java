@@ -0,0 +1,104 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.PipelineBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes applied together, in one round trip per Redis node.
+ * <p>
+ * Writes of a partition are applied in a single MULTI/EXEC. Writes of several partitions are only atomic per partition:
+ * a node serving several of them receive one MULTI/EXEC per partition in a single pipeline.
+ * </p>
+ */
+public class RedisWriteBatch {
+
+    private final RedisKeyRouter router;
+
+    private final Map<JedisPool, Map<Object, List<Consumer<PipelineBase>>>> writesByNode = new LinkedHashMap<>();
+
+    RedisWriteBatch(RedisKeyRouter router) {
+        requireNonNull(router, "router must be defined.");
+        this.router = router;
+    }
+
+    public RedisWriteBatch set(byte[] key, byte[] value) {
+        return add(key, pipeline -> pipeline.set(key, value));
+    }
+
+    public RedisWriteBatch sadd(byte[] key, byte[]... members) {
+        return add(key, pipeline -> pipeline.sadd(key, members));
+    }
+
+    public RedisWriteBatch sadd(String key, String... members) {
+        return add(key.getBytes(), pipeline -> pipeline.sadd(key, members));
+    }
+
+    public RedisWriteBatch hmset(byte[] key, Map<byte[], byte[]> hash) {
+        return add(key, pipeline -> pipeline.hmset(key, hash));
+    }
+
+    public RedisWriteBatch del(byte[] key) {
+        return add(key, pipeline -> pipeline.del(key));
+    }
+
+    private RedisWriteBatch add(byte[] key, Consumer<PipelineBase> write) {
+        router.written(key);
+        writesByNode.computeIfAbsent(router.getPool(key), pool -> new LinkedHashMap<>())
+                .computeIfAbsent(router.getPartition(key), partition -> new ArrayList<>())
+                .add(write);
+        return this;
+    }
+
+    void execute() {
+        writesByNode.forEach((pool, writesByPartition) -> {
+            try (Jedis jedis = pool.getResource()) {
+                if (writesByPartition.size() == 1) {
+                    Transaction transaction = jedis.multi();
+                    writesByPartition.values().forEach(writes -> writes.forEach(write -> write.accept(transaction)));
+                    transaction.exec();
+                } else {
+                    Pipeline pipeline = jedis.pipelined();
+                    List<Response<List<Object>>> replies = new ArrayList<>();
+                    writesByPartition.values().forEach(writes -> {
+                        pipeline.multi();
+                        writes.forEach(write -> write.accept(pipeline));
+                        replies.add(pipeline.exec());
+                    });
+                    pipeline.sync();
+                    //  Throw the error of an aborted transaction, as Transaction.exec() does.
+                    replies.forEach(Response::get);
+                }
+            }
+        });
+    }
+
+}
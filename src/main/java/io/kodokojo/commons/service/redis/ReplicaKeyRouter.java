@@ -0,0 +1,216 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Send reads to replicas of a single Redis node, and everything else to the node itself.
+ * <p>
+ * Each read goes to the faster of two replicas picked at random, given the average latency of their last reads.
+ * A replica failing a read, or replying it is loading or lost its primary, is left aside for {@link #REPLICA_RETRY_DELAY_MILLIS}
+ * and the read is sent to the primary, as are all reads when no replica is available.
+ * During <code>readYourWritesMillis</code> after a write of this instance, reads are sent to the primary too,
+ * so a replica lagging behind doesn't hide this write.
+ * </p>
+ */
+public class ReplicaKeyRouter implements RedisKeyRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaKeyRouter.class);
+
+    static final long REPLICA_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    //  Weight of the last read in the average latency of a replica.
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final RedisKeyRouter primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final long readYourWritesMillis;
+
+    private volatile long lastWriteDate;
+
+    /**
+     * @param primary Router of the primary node, which must not be partitioned.
+     * @param replicas Pool of each replica, by replica name like <code>host:port</code>.
+     */
+    public ReplicaKeyRouter(RedisKeyRouter primary, Map<String, JedisPool> replicas, long readYourWritesMillis) {
+        requireNonNull(primary, "primary must be defined.");
+        requireNonNull(replicas, "replicas must be defined.");
+        if (primary.isPartitioned()) {
+            throw new IllegalArgumentException("primary must not be partitioned.");
+        }
+        if (readYourWritesMillis < 0) {
+            throw new IllegalArgumentException("readYourWritesMillis must be positive.");
+        }
+        this.primary = primary;
+        replicas.forEach((name, pool) -> this.replicas.add(new Replica(name, pool)));
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    @Override
+    public <T> T read(byte[] key, Function<Jedis, T> command) {
+        long now = System.currentTimeMillis();
+        if (now - lastWriteDate < readYourWritesMillis) {
+            return primary.read(key, command);
+        }
+        Replica replica = selectReplica(now);
+        if (replica == null) {
+            return primary.read(key, command);
+        }
+        long start = System.nanoTime();
+        try (Jedis jedis = replica.pool.getResource()) {
+            T res = command.apply(jedis);
+            replica.recordLatency(System.nanoTime() - start);
+            return res;
+        } catch (JedisConnectionException e) {
+            replica.unavailable(e);
+        } catch (JedisDataException e) {
+            if (!isReplicaUnavailable(e)) {
+                throw e;
+            }
+            replica.unavailable(e);
+        }
+        return primary.read(key, command);
+    }
+
+    @Override
+    public void written(byte[] key) {
+        lastWriteDate = System.currentTimeMillis();
+    }
+
+    //  Power of two choices: nearly as good as the fastest replica, without sending all reads to it.
+    Replica selectReplica(long now) {
+        List<Replica> available = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.isAvailable(now)) {
+                available.add(replica);
+            }
+        }
+        if (available.size() < 2) {
+            return available.isEmpty() ? null : available.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Replica firstReplica = available.get(first);
+        Replica secondReplica = available.get(second);
+        return firstReplica.latencyNanos <= secondReplica.latencyNanos ? firstReplica : secondReplica;
+    }
+
+    private static boolean isReplicaUnavailable(JedisDataException e) {
+        String message = e.getMessage();
+        return message != null && (message.startsWith("LOADING") || message.startsWith("MASTERDOWN"));
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public JedisPool getPool(byte[] key) {
+        return primary.getPool(key);
+    }
+
+    @Override
+    public Collection<JedisPool> getPools() {
+        return primary.getPools();
+    }
+
+    @Override
+    public Object getPartition(byte[] key) {
+        return primary.getPartition(key);
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        return false;
+    }
+
+    @Override
+    public String tag(String identifier) {
+        return primary.tag(identifier);
+    }
+
+    @Override
+    public void refresh() {
+        primary.refresh();
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        replicas.forEach(replica -> replica.pool.destroy());
+    }
+
+    static class Replica {
+
+        private final String name;
+
+        private final JedisPool pool;
+
+        //  Updates may be lost between concurrent reads, this is an estimate.
+        private volatile double latencyNanos;
+
+        private volatile long unavailableUntil;
+
+        Replica(String name, JedisPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        void recordLatency(long nanos) {
+            latencyNanos = latencyNanos == 0 ? nanos : latencyNanos + LATENCY_WEIGHT * (nanos - latencyNanos);
+        }
+
+        void unavailable(JedisException e) {
+            unavailableUntil = System.currentTimeMillis() + REPLICA_RETRY_DELAY_MILLIS;
+            LOGGER.warn("Redis replica {} is unavailable, reading from primary for {} ms.", name, REPLICA_RETRY_DELAY_MILLIS, e);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        boolean isAvailable(long now) {
+            return unavailableUntil <= now;
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keys spread over standalone Redis nodes by consistent hashing of their hash tag: each node owns many points of a ring,
+ * and a key belongs to the node owning the first point following its hash. Adding a node only moves the keys it takes over.
+ * Nodes are placed on the ring by name, so their order doesn't matter.
+ */
+public class ShardedKeyRouter implements RedisKeyRouter {
+
+    static final int POINTS_PER_NODE = 160;
+
+    private final TreeMap<Long, JedisPool> ring = new TreeMap<>();
+
+    private final Collection<JedisPool> pools;
+
+    /**
+     * @param pools Pool of each node, by node name like <code>host:port</code>.
+     */
+    public ShardedKeyRouter(Map<String, JedisPool> pools) {
+        if (pools == null || pools.isEmpty()) {
+            throw new IllegalArgumentException("pools must be defined.");
+        }
+        this.pools = new ArrayList<>(pools.values());
+        pools.forEach((name, pool) -> {
+            for (int i = 0; i < POINTS_PER_NODE; i++) {
+                byte[] point = (name + "-" + i).getBytes();
+                ring.put(hash(point, 0, point.length), pool);
+            }
+        });
+    }
+
+    @Override
+    public JedisPool getPool(byte[] key) {
+        int[] bounds = RedisKeyRouters.hashTagBounds(key);
+        Map.Entry<Long, JedisPool> entry = ring.ceilingEntry(hash(key, bounds[0], bounds[1]));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    @Override
+    public Collection<JedisPool> getPools() {
+        return pools;
+    }
+
+    @Override
+    public Object getPartition(byte[] key) {
+        //  A standalone node run transactions over any of its keys.
+        return getPool(key);
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        return true;
+    }
+
+    @Override
+    public String tag(String identifier) {
+        return "{" + identifier + "}";
+    }
+
+    @Override
+    public void refresh() {
+        //  Nodes never change.
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(JedisPool::destroy);
+    }
+
+    //  FNV-1a, then the finalizer of MurmurHash3 to spread close values over the ring.
+    private static long hash(byte[] value, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash ^= value[i] & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
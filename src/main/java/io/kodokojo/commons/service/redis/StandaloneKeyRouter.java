@@ -0,0 +1,76 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import redis.clients.jedis.JedisPool;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * All keys on a single Redis node.
+ */
+public class StandaloneKeyRouter implements RedisKeyRouter {
+
+    private static final Object PARTITION = "standalone";
+
+    private final JedisPool pool;
+
+    public StandaloneKeyRouter(JedisPool pool) {
+        requireNonNull(pool, "pool must be defined.");
+        this.pool = pool;
+    }
+
+    @Override
+    public JedisPool getPool(byte[] key) {
+        return pool;
+    }
+
+    @Override
+    public Collection<JedisPool> getPools() {
+        return Collections.singletonList(pool);
+    }
+
+    @Override
+    public Object getPartition(byte[] key) {
+        return PARTITION;
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        return false;
+    }
+
+    @Override
+    public String tag(String identifier) {
+        return identifier;
+    }
+
+    @Override
+    public void refresh() {
+        //  Nothing to do
+    }
+
+    @Override
+    public void close() {
+        pool.destroy();
+    }
+
+}
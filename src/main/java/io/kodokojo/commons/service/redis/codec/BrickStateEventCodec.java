@@ -0,0 +1,66 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+
+import java.io.IOException;
+
+public class BrickStateEventCodec implements ModelCodec<BrickStateEvent> {
+
+    public static final BrickStateEventCodec INSTANCE = new BrickStateEventCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(BrickStateEvent value, CodecOutput out) {
+        out.writeString(value.getProjectConfigurationIdentifier());
+        out.writeString(value.getStackName());
+        out.writeString(value.getBrickType());
+        out.writeString(value.getBrickName());
+        out.writeEnum(value.getOldState());
+        out.writeEnum(value.getState());
+        out.writeString(value.getUrl());
+        out.writeString(value.getMessage());
+        out.writeString(value.getVersion());
+    }
+
+    BrickStateEvent read(CodecInput in) throws IOException {
+        return read(in, VERSION);
+    }
+
+    @Override
+    public BrickStateEvent read(CodecInput in, int version) throws IOException {
+        String projectConfigurationIdentifier = in.readString();
+        String stackName = in.readString();
+        String brickType = in.readString();
+        String brickName = in.readString();
+        BrickStateEvent.State oldState = in.readEnum(BrickStateEvent.State.class);
+        BrickStateEvent.State state = in.readEnum(BrickStateEvent.State.class);
+        String url = in.readString();
+        String message = in.readString();
+        String brickVersion = in.readString();
+        return new BrickStateEvent(projectConfigurationIdentifier, stackName, brickType, brickName, oldState, state, url, message, brickVersion);
+    }
+
+}
@@ -0,0 +1,195 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntFunction;
+
+import static io.kodokojo.commons.service.redis.codec.CodecOutput.*;
+
+/**
+ * Read the fields written by a {@link CodecOutput}, in the same order.
+ */
+public class CodecInput {
+
+    @FunctionalInterface
+    public interface ElementReader<E> {
+        E read(CodecInput in) throws IOException;
+    }
+
+    private final byte[] buffer;
+
+    private int position;
+
+    CodecInput(byte[] buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    public int readByte() throws IOException {
+        if (position >= buffer.length) {
+            throw new EOFException("Unexpected end of encoded value.");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int current = readByte();
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length integer.");
+    }
+
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int current = readByte();
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length long.");
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public byte[] readBytes() throws IOException {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        byte[] res = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return res;
+    }
+
+    public String readString() throws IOException {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        String res = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return res;
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        String name = readString();
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    public <E, C extends Collection<E>> C readCollection(IntFunction<C> factory, ElementReader<E> reader) throws IOException {
+        int size = readVarInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        C res = factory.apply(size);
+        for (int i = 0; i < size; i++) {
+            res.add(reader.read(this));
+        }
+        return res;
+    }
+
+    public <E> Set<E> readSet(ElementReader<E> reader) throws IOException {
+        return readCollection(size -> new HashSet<>(Math.max(16, size * 2)), reader);
+    }
+
+    public <E> List<E> readList(ElementReader<E> reader) throws IOException {
+        return readCollection(ArrayList::new, reader);
+    }
+
+    public Set<String> readStringSet() throws IOException {
+        return readSet(CodecInput::readString);
+    }
+
+    public List<String> readStringList() throws IOException {
+        return readList(CodecInput::readString);
+    }
+
+    public Map<String, Serializable> readProperties() throws IOException {
+        int size = readVarInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        Map<String, Serializable> res = new HashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            String key = readString();
+            res.put(key, readValue());
+        }
+        return res;
+    }
+
+    public Serializable readValue() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString();
+            case TAG_INTEGER:
+                return readSignedVarInt();
+            case TAG_LONG:
+                return readSignedVarLong();
+            case TAG_BOOLEAN:
+                return readBoolean();
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(readVarLong());
+            case TAG_SERIALIZED:
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(readBytes()))) {
+                    return (Serializable) in.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new InvalidClassException("Unable to found class of a serialized property: " + e.getMessage());
+                }
+            default:
+                throw new StreamCorruptedException("Unknown value tag " + tag + ".");
+        }
+    }
+
+    private int readLength() throws IOException {
+        int length = readVarInt() - 1;
+        if (length > buffer.length - position) {
+            throw new EOFException("Encoded length " + length + " exceed the remaining " + (buffer.length - position) + " bytes.");
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,175 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Write the fields of a model in a compact binary form, read back by a {@link CodecInput}.
+ * <p>
+ * Integers, lengths and sizes are written as variable length integers, so small values take a single byte.
+ * Nullable strings, byte arrays and collections are prefixed by their length plus one, <code>0</code> meaning <code>null</code>.
+ * </p>
+ */
+public class CodecOutput {
+
+    static final int TAG_NULL = 0;
+
+    static final int TAG_STRING = 1;
+
+    static final int TAG_INTEGER = 2;
+
+    static final int TAG_LONG = 3;
+
+    static final int TAG_BOOLEAN = 4;
+
+    static final int TAG_DOUBLE = 5;
+
+    static final int TAG_SERIALIZED = 127;
+
+    @FunctionalInterface
+    public interface ElementWriter<E> {
+        void write(E element, CodecOutput out) throws IOException;
+    }
+
+    private final ByteArrayOutputStream out;
+
+    CodecOutput(ByteArrayOutputStream out) {
+        this.out = out;
+    }
+
+    public void writeByte(int value) {
+        out.write(value);
+    }
+
+    public void writeBoolean(boolean value) {
+        out.write(value ? 1 : 0);
+    }
+
+    public void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Zigzag encode the value, so small negative values, like {@link io.kodokojo.commons.model.PortDefinition#DYNAMIC_PORT}, stay small.
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeBytes(byte[] value) {
+        if (value == null) {
+            writeVarInt(0);
+        } else {
+            writeVarInt(value.length + 1);
+            out.write(value, 0, value.length);
+        }
+    }
+
+    public void writeString(String value) {
+        writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the name of the constant rather than its ordinal, so constants may be reordered without breaking stored values.
+     */
+    public void writeEnum(Enum<?> value) {
+        writeString(value == null ? null : value.name());
+    }
+
+    public <E> void writeCollection(Collection<E> values, ElementWriter<E> writer) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+        } else {
+            writeVarInt(values.size() + 1);
+            for (E value : values) {
+                writer.write(value, this);
+            }
+        }
+    }
+
+    public void writeStrings(Collection<String> values) throws IOException {
+        writeCollection(values, (value, output) -> output.writeString(value));
+    }
+
+    public void writeProperties(Map<String, ? extends Serializable> values) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+        } else {
+            writeVarInt(values.size() + 1);
+            for (Map.Entry<String, ? extends Serializable> entry : values.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Write a property value, tagged by its type. Types without a dedicated tag fall back to Java serialization.
+     */
+    public void writeValue(Serializable value) throws IOException {
+        if (value == null) {
+            writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            writeByte(TAG_STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            writeByte(TAG_INTEGER);
+            writeSignedVarInt((Integer) value);
+        } else if (value instanceof Long) {
+            writeByte(TAG_LONG);
+            writeSignedVarLong((Long) value);
+        } else if (value instanceof Boolean) {
+            writeByte(TAG_BOOLEAN);
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            writeByte(TAG_DOUBLE);
+            writeVarLong(Double.doubleToRawLongBits((Double) value));
+        } else {
+            writeByte(TAG_SERIALIZED);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(buffer)) {
+                objectOutputStream.writeObject(value);
+            }
+            writeBytes(buffer.toByteArray());
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Preset dictionaries given to <code>Deflater</code>, built from the fields which repeat across encoded models:
+ * constant names, brick names and versions, URLs.
+ * <p>
+ * Each entry is written as {@link CodecOutput#writeString(String)} does, so a match include its length prefix, and the most
+ * frequent entries come last, closest to the compressed data.
+ * The {@link #getId() id} of the dictionary is stored in each compressed value, so the content of an existing dictionary must
+ * never change; add a new constant with a new id instead.
+ * </p>
+ */
+public enum CompressionDictionary {
+
+    PROJECT(1,
+            "Unable to start", "Unable to configure", "http://", "https://", ".kodokojo.io", "-ce.0", "-alpine", "latest",
+            "haproxy", "dockerhub", "sonarqube", "nexus", "jenkins", "gitlab",
+            "LOADBALANCER", "AUTHENTIFICATOR", "MONITORING", "ALTERTING", "DEPENDENCY", "QA", "REPOSITORY", "CI", "SCM",
+            "TCP", "UDP", "WS", "WSS", "SSH", "HTTPS", "HTTP",
+            "UNKNOWN", "STOPPED", "ALREADYEXIST", "ONFAILURE", "STARTING", "CONFIGURING", "RUNNING",
+            "RUN", "BUILD", "build-A"),
+
+    ORGANISATION(2, "kodokojo");
+
+    private final int id;
+
+    private final byte[] content;
+
+    CompressionDictionary(int id, String... entries) {
+        this.id = id;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CodecOutput codecOutput = new CodecOutput(out);
+        for (String entry : entries) {
+            codecOutput.writeString(entry);
+        }
+        this.content = out.toByteArray();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    static CompressionDictionary fromId(int id) {
+        for (CompressionDictionary dictionary : values()) {
+            if (dictionary.id == id) {
+                return dictionary;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression dictionary " + id + ".");
+    }
+
+}
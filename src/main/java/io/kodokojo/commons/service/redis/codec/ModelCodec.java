@@ -0,0 +1,46 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import java.io.IOException;
+
+/**
+ * Hand written binary codec of a stored model.
+ * <p>
+ * Each stored value start with the {@link #version()} of the codec which wrote it. To evolve a model, append the new fields
+ * at the end of {@link #write(Object, CodecOutput)}, increase the version, and only read those fields in
+ * {@link #read(CodecInput, int)} when the version of the value allow it, using a default value otherwise.
+ * Fields must never be removed or reordered.
+ * </p>
+ * @param <T> Type of the model.
+ */
+public interface ModelCodec<T> {
+
+    /**
+     * @return The current version of the format, between 1 and 255.
+     */
+    int version();
+
+    void write(T value, CodecOutput out) throws IOException;
+
+    /**
+     * @param version The version of the codec which wrote the value, never greater than {@link #version()}.
+     */
+    T read(CodecInput in, int version) throws IOException;
+
+}
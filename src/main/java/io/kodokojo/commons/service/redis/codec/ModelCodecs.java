@@ -0,0 +1,194 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.AesGcmEngine;
+import io.kodokojo.commons.RSAUtils;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.Key;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encode and decode stored models with a {@link ModelCodec}.
+ * <p>
+ * An encoded value start with {@link #MAGIC} then the version of the codec. Values which doesn't start with this header
+ * were written by Java serialization and are still read that way, so existing data is migrated on its next write.
+ * Compressed values start with {@link ValueCompressor#DEFLATE_MAGIC} instead, and are decompressed before being decoded.
+ * </p>
+ */
+public final class ModelCodecs {
+
+    public static final int MAGIC = 0x4B;
+
+    //  Prefix of values encrypted with AES/CBC before AES-GCM. Older values are AES blocks, so their length is always a multiple of the block size; this marker breaks it.
+    static final int ENCRYPTED_MARKER = 0x4B;
+
+    private static final int AES_BLOCK_SIZE = 16;
+
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xAC;
+
+    private ModelCodecs() {
+        // Utility class.
+    }
+
+    public static <T> byte[] encode(ModelCodec<T> codec, T value) {
+        requireNonNull(codec, "codec must be defined.");
+        requireNonNull(value, "value must be defined.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(MAGIC);
+        out.write(codec.version());
+        try {
+            codec.write(value, new CodecOutput(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode " + value.getClass().getSimpleName() + ".", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param legacyFormat Write a {@link Serializable} value with Java serialization as previous versions did, so they can still read
+     *                     it during a rolling deploy. Values of other types are unknown to previous versions and always encoded.
+     */
+    public static <T> byte[] encode(ModelCodec<T> codec, T value, boolean legacyFormat) {
+        if (legacyFormat && value instanceof Serializable) {
+            return writeSerialized((Serializable) value);
+        }
+        return encode(codec, value);
+    }
+
+    /**
+     * Encode then compress the value with given dictionary, see {@link ValueCompressor}.
+     * @param dictionary The dictionary to compress with, <code>null</code> to not compress.
+     */
+    public static <T> byte[] encode(ModelCodec<T> codec, T value, CompressionDictionary dictionary) {
+        byte[] encoded = encode(codec, value);
+        return dictionary == null ? encoded : ValueCompressor.compress(encoded, dictionary);
+    }
+
+    /**
+     * Decode a value written by {@link #encode(ModelCodec, Object)} or {@link #encode(ModelCodec, Object, CompressionDictionary)}, or by Java serialization.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(ModelCodec<T> codec, byte[] buffer) {
+        requireNonNull(codec, "codec must be defined.");
+        requireNonNull(buffer, "buffer must be defined.");
+        if (ValueCompressor.isCompressed(buffer)) {
+            buffer = ValueCompressor.decompress(buffer);
+        }
+        if (buffer.length > 0 && (buffer[0] & 0xFF) == JAVA_SERIALIZATION_MAGIC) {
+            return (T) readSerialized(buffer);
+        }
+        if (buffer.length < 2 || (buffer[0] & 0xFF) != MAGIC) {
+            throw new IllegalArgumentException("buffer doesn't contain an encoded value.");
+        }
+        int version = buffer[1] & 0xFF;
+        if (version > codec.version()) {
+            throw new IllegalStateException("Unable to decode a value of version " + version + ", only version up to " + codec.version() + " are known.");
+        }
+        try {
+            return codec.read(new CodecInput(buffer, 2), version);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to decode a value of version " + version + ".", e);
+        }
+    }
+
+    /**
+     * Encode then encrypt the value once with given AES key, see {@link AesGcmEngine}.
+     */
+    public static <T> byte[] encodeEncrypted(Key key, ModelCodec<T> codec, T value) {
+        return encodeEncrypted(key, codec, value, null);
+    }
+
+    /**
+     * Encode, compress with given dictionary, then encrypt the value once with given AES key.
+     * @param dictionary The dictionary to compress with, <code>null</code> to not compress.
+     */
+    public static <T> byte[] encodeEncrypted(Key key, ModelCodec<T> codec, T value, CompressionDictionary dictionary) {
+        return encodeEncrypted(key, codec, value, dictionary, false);
+    }
+
+    /**
+     * @param dictionary The dictionary to compress with, <code>null</code> to not compress. Values in the legacy format aren't compressed.
+     * @param legacyFormat Write a {@link Serializable} value with {@link RSAUtils#encryptObjectWithAES(Key, Serializable, boolean)} in its
+     *                     legacy format, as previous versions did, so they can still read it during a rolling deploy. Values of other
+     *                     types are unknown to previous versions and always written in the current format.
+     */
+    public static <T> byte[] encodeEncrypted(Key key, ModelCodec<T> codec, T value, CompressionDictionary dictionary, boolean legacyFormat) {
+        if (legacyFormat && value instanceof Serializable) {
+            return RSAUtils.encryptObjectWithAES(key, (Serializable) value, true);
+        }
+        byte[] encoded = encode(codec, value, dictionary);
+        byte[] res = new byte[AesGcmEngine.encryptedLength(encoded.length)];
+        AesGcmEngine.encrypt(key, encoded, 0, encoded.length, res, 0);
+        return res;
+    }
+
+    /**
+     * Decrypt then decode a value written by {@link #encodeEncrypted(Key, ModelCodec, Object)}, or by one of its legacy forms:
+     * {@link ModelCodecs#ENCRYPTED_MARKER} followed by an AES/CBC value, or a <code>SealedObject</code> written by the previous
+     * {@link RSAUtils#encryptObjectWithAES(Key, java.io.Serializable)}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decodeEncrypted(Key key, ModelCodec<T> codec, byte[] encrypted) {
+        requireNonNull(encrypted, "encrypted must be defined.");
+        if (AesGcmEngine.isEncrypted(encrypted, 0, encrypted.length)) {
+            try {
+                return decode(codec, AesGcmEngine.decrypt(key, encrypted));
+            } catch (AEADBadTagException e) {
+                //  A legacy value which start with the same byte, by chance.
+            }
+        }
+        if (encrypted.length % AES_BLOCK_SIZE == 0) {
+            return (T) RSAUtils.decryptObjectWithAES(key, encrypted);
+        }
+        if ((encrypted[0] & 0xFF) != ENCRYPTED_MARKER) {
+            throw new IllegalArgumentException("encrypted doesn't contain an encrypted value.");
+        }
+        byte[] decrypted = RSAUtils.decryptBytesWithAES(key, encrypted, 1, encrypted.length - 1);
+        return decode(codec, decrypted);
+    }
+
+    private static byte[] writeSerialized(Serializable value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(out)) {
+            objectOutputStream.writeObject(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize " + value.getClass().getSimpleName() + ".", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static Object readSerialized(byte[] buffer) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer))) {
+            return in.readObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create Object input stream", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to found class Object ?", e);
+        }
+    }
+
+}
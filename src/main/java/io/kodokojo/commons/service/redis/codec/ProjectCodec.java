@@ -0,0 +1,57 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Set;
+
+public class ProjectCodec implements ModelCodec<Project> {
+
+    public static final ProjectCodec INSTANCE = new ProjectCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(Project value, CodecOutput out) throws IOException {
+        out.writeString(value.getIdentifier());
+        out.writeString(value.getProjectConfigurationIdentifier());
+        out.writeString(value.getName());
+        out.writeSignedVarLong(value.getSnapshotDate().getTime());
+        out.writeCollection(value.getStacks(), StackCodec.INSTANCE::write);
+    }
+
+    @Override
+    public Project read(CodecInput in, int version) throws IOException {
+        String identifier = in.readString();
+        String projectConfigurationIdentifier = in.readString();
+        String name = in.readString();
+        Date snapshotDate = new Date(in.readSignedVarLong());
+        Set<Stack> stacks = in.readSet(StackCodec.INSTANCE::read);
+        return new Project(identifier, projectConfigurationIdentifier, name, snapshotDate, stacks);
+    }
+
+}
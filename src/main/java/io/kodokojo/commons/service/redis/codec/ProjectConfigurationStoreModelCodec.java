@@ -0,0 +1,110 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProjectConfigurationStoreModelCodec implements ModelCodec<ProjectConfigurationStoreModel> {
+
+    public static final ProjectConfigurationStoreModelCodec INSTANCE = new ProjectConfigurationStoreModelCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(ProjectConfigurationStoreModel value, CodecOutput out) throws IOException {
+        out.writeString(value.getEntityIdentifier());
+        out.writeString(value.getIdentifier());
+        out.writeString(value.getName());
+        out.writeString(value.getUserService());
+        out.writeStrings(value.getAdmins());
+        out.writeCollection(value.getStackConfigurations(), ProjectConfigurationStoreModelCodec::writeStackConfiguration);
+        out.writeStrings(value.getUsers());
+    }
+
+    @Override
+    public ProjectConfigurationStoreModel read(CodecInput in, int version) throws IOException {
+        String entityIdentifier = in.readString();
+        String identifier = in.readString();
+        String name = in.readString();
+        String userService = in.readString();
+        List<String> admins = in.readStringList();
+        Set<StackConfiguration> stackConfigurations = in.readSet(ProjectConfigurationStoreModelCodec::readStackConfiguration);
+        List<String> users = in.readStringList();
+        return new ProjectConfigurationStoreModel(entityIdentifier, identifier, name, userService, admins, stackConfigurations, users);
+    }
+
+    private static void writeStackConfiguration(StackConfiguration stackConfiguration, CodecOutput out) throws IOException {
+        out.writeString(stackConfiguration.getName());
+        out.writeEnum(stackConfiguration.getType());
+        out.writeCollection(stackConfiguration.getBrickConfigurations(), ProjectConfigurationStoreModelCodec::writeBrickConfiguration);
+        out.writeSignedVarInt(stackConfiguration.getScmSshPort());
+    }
+
+    private static StackConfiguration readStackConfiguration(CodecInput in) throws IOException {
+        String name = in.readString();
+        StackType type = in.readEnum(StackType.class);
+        Set<BrickConfiguration> brickConfigurations = in.readSet(ProjectConfigurationStoreModelCodec::readBrickConfiguration);
+        return new StackConfiguration(name, type, brickConfigurations, in.readSignedVarInt());
+    }
+
+    private static void writeBrickConfiguration(BrickConfiguration brickConfiguration, CodecOutput out) throws IOException {
+        out.writeString(brickConfiguration.getName());
+        out.writeEnum(brickConfiguration.getType());
+        out.writeString(brickConfiguration.getVersion());
+        out.writeCollection(brickConfiguration.getPortDefinitions(), ProjectConfigurationStoreModelCodec::writePortDefinition);
+        out.writeCollection(brickConfiguration.getDependencies(), ProjectConfigurationStoreModelCodec::writeBrickConfiguration);
+        out.writeProperties(brickConfiguration.getProperties());
+    }
+
+    private static BrickConfiguration readBrickConfiguration(CodecInput in) throws IOException {
+        String name = in.readString();
+        BrickType type = in.readEnum(BrickType.class);
+        String version = in.readString();
+        Set<PortDefinition> portDefinitions = in.readSet(ProjectConfigurationStoreModelCodec::readPortDefinition);
+        Set<BrickConfiguration> dependencies = in.readSet(ProjectConfigurationStoreModelCodec::readBrickConfiguration);
+        Map<String, Serializable> properties = in.readProperties();
+        return new BrickConfiguration(name, type, version, portDefinitions, dependencies, properties);
+    }
+
+    private static void writePortDefinition(PortDefinition portDefinition, CodecOutput out) {
+        out.writeString(portDefinition.getName());
+        out.writeEnum(portDefinition.getType());
+        out.writeSignedVarInt(portDefinition.getHostPort());
+        out.writeSignedVarInt(portDefinition.getContainerPort());
+        out.writeSignedVarInt(portDefinition.getServicePort());
+    }
+
+    private static PortDefinition readPortDefinition(CodecInput in) throws IOException {
+        String name = in.readString();
+        PortDefinition.Type type = in.readEnum(PortDefinition.Type.class);
+        return new PortDefinition(name, type, in.readSignedVarInt(), in.readSignedVarInt(), in.readSignedVarInt());
+    }
+
+}
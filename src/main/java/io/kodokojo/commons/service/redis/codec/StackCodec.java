@@ -0,0 +1,54 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.model.StackType;
+
+import java.io.IOException;
+
+public class StackCodec implements ModelCodec<Stack> {
+
+    public static final StackCodec INSTANCE = new StackCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(Stack value, CodecOutput out) throws IOException {
+        out.writeString(value.getName());
+        out.writeEnum(value.getStackType());
+        out.writeCollection(value.getBrickStateEvents(), BrickStateEventCodec.INSTANCE::write);
+    }
+
+    Stack read(CodecInput in) throws IOException {
+        return read(in, VERSION);
+    }
+
+    @Override
+    public Stack read(CodecInput in, int version) throws IOException {
+        String name = in.readString();
+        StackType stackType = in.readEnum(StackType.class);
+        return new Stack(name, stackType, in.readSet(BrickStateEventCodec.INSTANCE::read));
+    }
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.model.UserInWaitingList;
+
+import java.io.IOException;
+
+public class UserInWaitingListCodec implements ModelCodec<UserInWaitingList> {
+
+    public static final UserInWaitingListCodec INSTANCE = new UserInWaitingListCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(UserInWaitingList value, CodecOutput out) throws IOException {
+        out.writeString(value.getUsername());
+        out.writeString(value.getEmail());
+        out.writeVarLong(value.getWaitingSince());
+    }
+
+    @Override
+    public UserInWaitingList read(CodecInput in, int version) throws IOException {
+        return new UserInWaitingList(in.readString(), in.readString(), in.readVarLong());
+    }
+
+}
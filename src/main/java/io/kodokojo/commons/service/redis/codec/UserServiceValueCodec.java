@@ -0,0 +1,49 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.service.redis.UserServiceValue;
+
+import java.io.IOException;
+
+public class UserServiceValueCodec implements ModelCodec<UserServiceValue> {
+
+    public static final UserServiceValueCodec INSTANCE = new UserServiceValueCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(UserServiceValue value, CodecOutput out) throws IOException {
+        out.writeString(value.getName());
+        out.writeString(value.getLogin());
+        out.writeBytes(value.getPassword());
+        out.writeBytes(value.getPrivateKey());
+        out.writeBytes(value.getPublicKey());
+    }
+
+    @Override
+    public UserServiceValue read(CodecInput in, int version) throws IOException {
+        return new UserServiceValue(in.readString(), in.readString(), in.readBytes(), in.readBytes(), in.readBytes());
+    }
+
+}
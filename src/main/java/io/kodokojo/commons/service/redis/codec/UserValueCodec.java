@@ -0,0 +1,52 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.service.redis.UserValue;
+
+import java.io.IOException;
+
+public class UserValueCodec implements ModelCodec<UserValue> {
+
+    public static final UserValueCodec INSTANCE = new UserValueCodec();
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(UserValue value, CodecOutput out) throws IOException {
+        out.writeString(value.getName());
+        out.writeString(value.getUsername());
+        out.writeStrings(value.getEntityId());
+        out.writeString(value.getEmail());
+        out.writeBytes(value.getPassword());
+        out.writeString(value.getSshPublicKey());
+    }
+
+    @Override
+    public UserValue read(CodecInput in, int version) throws IOException {
+        String name = in.readString();
+        String username = in.readString();
+        return new UserValue(name, username, in.readStringSet(), in.readString(), in.readBytes(), in.readString());
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compress encoded values with <code>Deflater</code> and a {@link CompressionDictionary}.
+ * <p>
+ * A compressed value is {@link #DEFLATE_MAGIC}, the id of the dictionary, the length of the encoded value, then the zlib
+ * stream. <code>Deflater</code> and <code>Inflater</code> instances are cached per thread.
+ * </p>
+ */
+public final class ValueCompressor {
+
+    public static final int DEFLATE_MAGIC = 0x44;
+
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+    private ValueCompressor() {
+        // Utility class.
+    }
+
+    public static boolean isCompressed(byte[] buffer) {
+        return buffer.length > 0 && (buffer[0] & 0xFF) == DEFLATE_MAGIC;
+    }
+
+    /**
+     * @return The compressed value, or given value when compression doesn't make it smaller, like for very short values.
+     */
+    public static byte[] compress(byte[] encoded, CompressionDictionary dictionary) {
+        requireNonNull(encoded, "encoded must be defined.");
+        requireNonNull(dictionary, "dictionary must be defined.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+        out.write(DEFLATE_MAGIC);
+        CodecOutput codecOutput = new CodecOutput(out);
+        codecOutput.writeVarInt(dictionary.getId());
+        codecOutput.writeVarInt(encoded.length);
+
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setDictionary(dictionary.getContent());
+        deflater.setInput(encoded);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, encoded.length)];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+            if (out.size() >= encoded.length) {
+                return encoded;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] compressed) {
+        requireNonNull(compressed, "compressed must be defined.");
+        if (!isCompressed(compressed)) {
+            throw new IllegalArgumentException("compressed doesn't contain a compressed value.");
+        }
+        CodecInput in = new CodecInput(compressed, 1);
+        try {
+            CompressionDictionary dictionary = CompressionDictionary.fromId(in.readVarInt());
+            byte[] res = new byte[in.readVarInt()];
+            Inflater inflater = INFLATERS.get();
+            inflater.reset();
+            inflater.setInput(compressed, in.getPosition(), compressed.length - in.getPosition());
+            int length = 0;
+            while (length < res.length) {
+                int inflated = inflater.inflate(res, length, res.length - length);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary.getContent());
+                    } else if (inflater.finished() || inflater.needsInput()) {
+                        throw new DataFormatException("Compressed value is truncated.");
+                    }
+                }
+                length += inflated;
+            }
+            return res;
+        } catch (DataFormatException | IOException e) {
+            throw new IllegalStateException("Unable to decompress value.", e);
+        }
+    }
+
+}
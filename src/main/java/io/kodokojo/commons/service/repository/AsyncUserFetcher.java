@@ -0,0 +1,45 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.model.UserService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@link UserFetcher}, completing without blocking the calling thread.
+ */
+public interface AsyncUserFetcher {
+
+    CompletableFuture<User> getUserByUsername(String username);
+
+    CompletableFuture<User> getUserByIdentifier(String identifier);
+
+    /**
+     * @return Users in the same order than given identifiers, <code>null</code> for an identifier which doesn't match any user.
+     */
+    CompletableFuture<List<User>> getUsersByIdentifiers(Collection<String> identifiers);
+
+    CompletableFuture<UserService> getUserServiceByName(String name);
+
+    CompletableFuture<UserService> getUserServiceByIdentifier(String identifier);
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.model.UserService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Run the calls of a {@link UserFetcher} on given executor.
+ * <p>
+ * In pipelined mode, users fetched by identifiers are read by a single task at a time: identifiers requested meanwhile
+ * are merged into a single {@link UserFetcher#getUsersByIdentifiers(Collection)}, read from Redis in one round trip
+ * on one connection, instead of one round trip per call on as many connections.
+ * </p>
+ */
+public class ExecutorAsyncUserFetcher implements AsyncUserFetcher {
+
+    static final int MAX_PIPELINED_IDENTIFIERS = 1000;
+
+    private final UserFetcher userFetcher;
+
+    protected final Executor executor;
+
+    private final boolean pipelined;
+
+    private final Queue<PendingFetch> pendingFetches = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean fetching = new AtomicBoolean();
+
+    public ExecutorAsyncUserFetcher(UserFetcher userFetcher, Executor executor, boolean pipelined) {
+        requireNonNull(userFetcher, "userFetcher must be defined.");
+        requireNonNull(executor, "executor must be defined.");
+        this.userFetcher = userFetcher;
+        this.executor = executor;
+        this.pipelined = pipelined;
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByUsername(String username) {
+        return CompletableFuture.supplyAsync(() -> userFetcher.getUserByUsername(username), executor);
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByIdentifier(String identifier) {
+        if (pipelined) {
+            return getUsersByIdentifiers(Collections.singletonList(identifier)).thenApply(users -> users.get(0));
+        }
+        return CompletableFuture.supplyAsync(() -> userFetcher.getUserByIdentifier(identifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getUsersByIdentifiers(Collection<String> identifiers) {
+        requireNonNull(identifiers, "identifiers must be defined.");
+        if (identifiers.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        if (!pipelined) {
+            return CompletableFuture.supplyAsync(() -> userFetcher.getUsersByIdentifiers(identifiers), executor);
+        }
+        PendingFetch pendingFetch = new PendingFetch(new ArrayList<>(identifiers));
+        pendingFetches.add(pendingFetch);
+        if (fetching.compareAndSet(false, true)) {
+            executor.execute(this::fetchPending);
+        }
+        return pendingFetch.users;
+    }
+
+    @Override
+    public CompletableFuture<UserService> getUserServiceByName(String name) {
+        return CompletableFuture.supplyAsync(() -> userFetcher.getUserServiceByName(name), executor);
+    }
+
+    @Override
+    public CompletableFuture<UserService> getUserServiceByIdentifier(String identifier) {
+        return CompletableFuture.supplyAsync(() -> userFetcher.getUserServiceByIdentifier(identifier), executor);
+    }
+
+    private void fetchPending() {
+        while (true) {
+            List<PendingFetch> batch = new ArrayList<>();
+            Set<String> identifiers = new LinkedHashSet<>();
+            PendingFetch pendingFetch;
+            while (identifiers.size() < MAX_PIPELINED_IDENTIFIERS && (pendingFetch = pendingFetches.poll()) != null) {
+                batch.add(pendingFetch);
+                identifiers.addAll(pendingFetch.identifiers);
+            }
+            if (batch.isEmpty()) {
+                fetching.set(false);
+                //  A fetch queued after the poll, but before fetching was reset, found fetching still set.
+                if (pendingFetches.isEmpty() || !fetching.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            fetch(batch, new ArrayList<>(identifiers));
+        }
+    }
+
+    private void fetch(List<PendingFetch> batch, List<String> identifiers) {
+        try {
+            List<User> users = userFetcher.getUsersByIdentifiers(identifiers);
+            Map<String, User> usersByIdentifier = new HashMap<>();
+            for (int i = 0; i < identifiers.size(); i++) {
+                usersByIdentifier.put(identifiers.get(i), users.get(i));
+            }
+            for (PendingFetch pendingFetch : batch) {
+                List<User> res = new ArrayList<>(pendingFetch.identifiers.size());
+                pendingFetch.identifiers.forEach(identifier -> res.add(usersByIdentifier.get(identifier)));
+                pendingFetch.users.complete(res);
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pendingFetch -> pendingFetch.users.completeExceptionally(e));
+        }
+    }
+
+    private static class PendingFetch {
+
+        private final List<String> identifiers;
+
+        private final CompletableFuture<List<User>> users = new CompletableFuture<>();
+
+        PendingFetch(List<String> identifiers) {
+            this.identifiers = identifiers;
+        }
+
+    }
+
+}
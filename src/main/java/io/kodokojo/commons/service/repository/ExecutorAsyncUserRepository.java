@@ -0,0 +1,74 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.model.UserInWaitingList;
+import io.kodokojo.commons.model.UserService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Run the calls of a {@link UserRepository} on given executor, see {@link ExecutorAsyncUserFetcher} for the pipelined mode.
+ */
+public class ExecutorAsyncUserRepository extends ExecutorAsyncUserFetcher implements AsyncUserRepository {
+
+    private final UserRepository userRepository;
+
+    public ExecutorAsyncUserRepository(UserRepository userRepository, Executor executor, boolean pipelined) {
+        super(userRepository, executor, pipelined);
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public CompletableFuture<String> generateId() {
+        return CompletableFuture.supplyAsync(userRepository::generateId, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> identifierExpectedNewUser(String generatedId) {
+        return CompletableFuture.supplyAsync(() -> userRepository.identifierExpectedNewUser(generatedId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addUser(User user) {
+        return CompletableFuture.supplyAsync(() -> userRepository.addUser(user), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> usernameIsAvailable(String username) {
+        return CompletableFuture.supplyAsync(() -> userRepository.usernameIsAvailable(username), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateUser(User user) {
+        return CompletableFuture.supplyAsync(() -> userRepository.updateUser(user), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addUserService(UserService userService) {
+        return CompletableFuture.supplyAsync(() -> userRepository.addUserService(userService), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addUserToWaitingList(UserInWaitingList userInWaitingList) {
+        return CompletableFuture.supplyAsync(() -> userRepository.addUserToWaitingList(userInWaitingList), executor);
+    }
+
+}
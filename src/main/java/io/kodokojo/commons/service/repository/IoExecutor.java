@@ -0,0 +1,77 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository;
+
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Bounded pool of threads running blocking store calls, so callers like actors don't wait for them.
+ * When all threads are busy and the queue is full, a call runs on the calling thread: callers are slowed down rather than failed.
+ */
+public class IoExecutor implements Executor, ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IoExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+
+    public IoExecutor(String name, int threads, int queueSize) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0.");
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("queueSize must be greater than 0.");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public void start() {
+        //  Threads are started on demand.
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("Stopping IoExecutor.");
+        executor.shutdown();
+    }
+
+}
@@ -19,6 +19,7 @@ package io.kodokojo.commons.service.repository;
 
 import io.kodokojo.commons.model.Project;
 import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.Stack;
 
 import java.util.Set;
 
@@ -35,4 +36,8 @@ public interface ProjectFetcher {
     String getProjectIdByProjectConfigurationId(String projectConfigurationId);
 
     Project getProjectByProjectConfigurationId(String projectConfigurationId);
+
+    Set<String> getStackNames(String projectIdentifier);
+
+    Stack getStack(String projectIdentifier, String stackName);
 }
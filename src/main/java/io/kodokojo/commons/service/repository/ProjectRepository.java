@@ -18,6 +18,7 @@
 package io.kodokojo.commons.service.repository;
 
 import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
 import io.kodokojo.commons.model.ProjectConfiguration;
 
 public interface ProjectRepository extends ProjectFetcher {
@@ -30,6 +31,8 @@ public interface ProjectRepository extends ProjectFetcher {
 
     void updateProject(Project project);
 
+    boolean updateBrickState(String projectIdentifier, BrickStateEvent brickStateEvent);
+
     void updateProjectConfiguration(ProjectConfiguration projectConfiguration);
 
 }
@@ -18,18 +18,28 @@
 package io.kodokojo.commons.service.repository;
 
 import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
 import io.kodokojo.commons.service.elasticsearch.ElasticSearchSearcher;
 import io.kodokojo.commons.service.repository.search.OrganisationSearchDto;
 import io.kodokojo.commons.service.repository.search.SoftwareFactorySearchDto;
 import io.kodokojo.commons.service.repository.search.UserSearchDto;
+import io.kodokojo.commons.service.repository.store.AsyncOrganisationStore;
+import io.kodokojo.commons.service.repository.store.AsyncProjectStore;
+import io.kodokojo.commons.service.repository.store.ExecutorAsyncOrganisationStore;
+import io.kodokojo.commons.service.repository.store.ExecutorAsyncProjectStore;
 import io.kodokojo.commons.service.repository.store.OrganisationStore;
 import io.kodokojo.commons.service.repository.store.OrganisationStoreModel;
 import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
 import io.kodokojo.commons.service.repository.store.ProjectStore;
 
 import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
@@ -47,22 +57,65 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
 
     private final ElasticSearchSearcher elasticSearchSearcher;
 
-    @Inject
+    private final AsyncUserFetcher asyncUserFetcher;
+
+    private final AsyncOrganisationStore asyncOrganisationStore;
+
+    private final AsyncProjectStore asyncProjectStore;
+
+    private final RepositoryWriteListener writeListener;
+
+    /**
+     * @param ioExecutor Executor of the fetches composed to read an organisation or a project configuration, which run concurrently.
+     * @param pipelined Merge users fetched concurrently into a single read, see {@link ExecutorAsyncUserFetcher}.
+     * @param writeListener Notified once an update of a user or of a project configuration succeeded.
+     */
     public Repository(UserRepository userRepository,
                       UserFetcher userFetcher,
                       OrganisationStore organisationStore,
                       ProjectStore projectStore,
-                      ElasticSearchSearcher elasticSearchSearcher
+                      ElasticSearchSearcher elasticSearchSearcher,
+                      Executor ioExecutor,
+                      boolean pipelined,
+                      RepositoryWriteListener writeListener
         ) {
         requireNonNull(userRepository, "userRepository must be defined.");
         requireNonNull(userFetcher, "userFetcher must be defined.");
         requireNonNull(organisationStore, "organisationStore must be defined.");
         requireNonNull(projectStore, "projectStore must be defined.");
+        requireNonNull(ioExecutor, "ioExecutor must be defined.");
+        requireNonNull(writeListener, "writeListener must be defined.");
         this.userRepository = userRepository;
         this.userFetcher = userFetcher;
         this.organisationStore = organisationStore;
         this.projectStore = projectStore;
         this.elasticSearchSearcher = elasticSearchSearcher;
+        this.asyncUserFetcher = new ExecutorAsyncUserFetcher(userFetcher, ioExecutor, pipelined);
+        this.asyncOrganisationStore = new ExecutorAsyncOrganisationStore(organisationStore, ioExecutor);
+        this.asyncProjectStore = new ExecutorAsyncProjectStore(projectStore, ioExecutor);
+        this.writeListener = writeListener;
+    }
+
+    public Repository(UserRepository userRepository,
+                      UserFetcher userFetcher,
+                      OrganisationStore organisationStore,
+                      ProjectStore projectStore,
+                      ElasticSearchSearcher elasticSearchSearcher,
+                      Executor ioExecutor,
+                      boolean pipelined
+        ) {
+        this(userRepository, userFetcher, organisationStore, projectStore, elasticSearchSearcher, ioExecutor, pipelined, RepositoryWriteListener.NONE);
+    }
+
+    @Inject
+    public Repository(UserRepository userRepository,
+                      UserFetcher userFetcher,
+                      OrganisationStore organisationStore,
+                      ProjectStore projectStore,
+                      ElasticSearchSearcher elasticSearchSearcher
+        ) {
+        //  Fetches run one after the other on the calling thread.
+        this(userRepository, userFetcher, organisationStore, projectStore, elasticSearchSearcher, Runnable::run, false);
     }
 
     public Repository(UserRepository userRepository,
@@ -116,14 +169,16 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
             throw new IllegalArgumentException("organisationIdentifier must be defined.");
         }
         OrganisationStoreModel organisationStoreModel = organisationStore.getOrganisationById(organisationIdentifier);
-        List<User> admins = organisationStoreModel.getAdmins().stream().map(userFetcher::getUserByIdentifier).collect(Collectors.toList());
-        List<User> users = organisationStoreModel.getUsers().stream().map(userFetcher::getUserByIdentifier).collect(Collectors.toList());
-        List<ProjectConfiguration> projectConfiguration = organisationStoreModel.getProjectConfigurations().stream().map(p -> {
-            ProjectConfigurationStoreModel model = projectStore.getProjectConfigurationById(p);
-            return convertToProjectConfiguration(model);
-        }).collect(Collectors.toList());
-
-        return new Organisation(organisationStoreModel.getIdentifier(), organisationStoreModel.getName(), organisationStoreModel.isConcrete(), projectConfiguration, admins, users);
+        CompletableFuture<List<User>> admins = asyncUserFetcher.getUsersByIdentifiers(organisationStoreModel.getAdmins());
+        CompletableFuture<List<User>> users = asyncUserFetcher.getUsersByIdentifiers(organisationStoreModel.getUsers());
+        List<CompletableFuture<ProjectConfiguration>> projectConfigurations = organisationStoreModel.getProjectConfigurations().stream()
+                .map(p -> asyncProjectStore.getProjectConfigurationById(p).thenCompose(this::convertToProjectConfigurationAsync))
+                .collect(Collectors.toList());
+        List<ProjectConfiguration> projectConfiguration = projectConfigurations.stream()
+                .map(Repository::await)
+                .collect(Collectors.toList());
+
+        return new Organisation(organisationStoreModel.getIdentifier(), organisationStoreModel.getName(), organisationStoreModel.isConcrete(), projectConfiguration, await(admins), await(users));
     }
 
     @Override
@@ -167,12 +222,24 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
         projectStore.updateProject(project);
     }
 
+    @Override
+    public boolean updateBrickState(String projectIdentifier, BrickStateEvent brickStateEvent) {
+        if (isBlank(projectIdentifier)) {
+            throw new IllegalArgumentException("projectIdentifier must be defined.");
+        }
+        if (brickStateEvent == null) {
+            throw new IllegalArgumentException("brickStateEvent must be defined.");
+        }
+        return projectStore.updateBrickState(projectIdentifier, brickStateEvent);
+    }
+
     @Override
     public void updateProjectConfiguration(ProjectConfiguration projectConfiguration) {
         if (projectConfiguration == null) {
             throw new IllegalArgumentException("projectConfiguration must be defined.");
         }
         projectStore.updateProjectConfiguration(new ProjectConfigurationStoreModel(projectConfiguration));
+        writeListener.projectConfigurationWritten(projectConfiguration.getIdentifier());
         if (elasticSearchSearcher != null) {
             SoftwareFactorySearchDto dto = SoftwareFactorySearchDto.convert(projectConfiguration);
             elasticSearchSearcher.addOrUpdate(dto);
@@ -237,6 +304,25 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
         return projectStore.getProjectByProjectConfigurationId(projectConfigurationId);
     }
 
+    @Override
+    public Set<String> getStackNames(String projectIdentifier) {
+        if (isBlank(projectIdentifier)) {
+            throw new IllegalArgumentException("projectIdentifier must be defined.");
+        }
+        return projectStore.getStackNames(projectIdentifier);
+    }
+
+    @Override
+    public Stack getStack(String projectIdentifier, String stackName) {
+        if (isBlank(projectIdentifier)) {
+            throw new IllegalArgumentException("projectIdentifier must be defined.");
+        }
+        if (isBlank(stackName)) {
+            throw new IllegalArgumentException("stackName must be defined.");
+        }
+        return projectStore.getStack(projectIdentifier, stackName);
+    }
+
     @Override
     public String generateId() {
         return userRepository.generateId();
@@ -250,6 +336,19 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
         return userRepository.identifierExpectedNewUser(generatedId);
     }
 
+    @Override
+    public Iterator<User> scanUsers(int pageSize) {
+        return userRepository.scanUsers(pageSize);
+    }
+
+    @Override
+    public boolean usernameIsAvailable(String username) {
+        if (isBlank(username)) {
+            throw new IllegalArgumentException("username must be defined.");
+        }
+        return userRepository.usernameIsAvailable(username);
+    }
+
     @Override
     public boolean addUser(User user) {
         boolean res = userRepository.addUser(user);
@@ -273,7 +372,11 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
             UserSearchDto dto = UserSearchDto.convert(user);
             elasticSearchSearcher.addOrUpdate(dto);
         }
-        return userRepository.updateUser(user);
+        boolean res = userRepository.updateUser(user);
+        if (res) {
+            writeListener.userWritten(user.getIdentifier());
+        }
+        return res;
     }
 
     @Override
@@ -291,6 +394,11 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
         return userRepository.getUserByIdentifier(identifier);
     }
 
+    @Override
+    public List<User> getUsersByIdentifiers(Collection<String> identifiers) {
+        return userRepository.getUsersByIdentifiers(identifiers);
+    }
+
     @Override
     public UserService getUserServiceByIdentifier(String identifier) {
         return userRepository.getUserServiceByIdentifier(identifier);
@@ -302,11 +410,27 @@ public class Repository implements UserRepository, ProjectRepository, Organisati
     }
 
     private ProjectConfiguration convertToProjectConfiguration(ProjectConfigurationStoreModel model) {
-        UserService userService = userFetcher.getUserServiceByIdentifier(model.getUserService());
-        List<User> adminsProjectConfig = model.getAdmins().stream().map(
-                userFetcher::getUserByIdentifier
-        ).collect(Collectors.toList());
-        List<User> usersProjectConfig = model.getUsers().stream().map(userFetcher::getUserByIdentifier).collect(Collectors.toList());
-        return new ProjectConfiguration(model.getEntityIdentifier(), model.getIdentifier(), model.getName(), userService, adminsProjectConfig, model.getStackConfigurations(), usersProjectConfig);
+        return await(convertToProjectConfigurationAsync(model));
+    }
+
+    //  User service, admins and users are fetched concurrently.
+    private CompletableFuture<ProjectConfiguration> convertToProjectConfigurationAsync(ProjectConfigurationStoreModel model) {
+        CompletableFuture<UserService> userService = asyncUserFetcher.getUserServiceByIdentifier(model.getUserService());
+        CompletableFuture<List<User>> adminsProjectConfig = asyncUserFetcher.getUsersByIdentifiers(model.getAdmins());
+        CompletableFuture<List<User>> usersProjectConfig = asyncUserFetcher.getUsersByIdentifiers(model.getUsers());
+        return CompletableFuture.allOf(userService, adminsProjectConfig, usersProjectConfig)
+                .thenApply(done -> new ProjectConfiguration(model.getEntityIdentifier(), model.getIdentifier(), model.getName(), userService.join(), adminsProjectConfig.join(), model.getStackConfigurations(), usersProjectConfig.join()));
+    }
+
+    //  Rethrow the failure of a fetch as the synchronous call would.
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 }
@@ -0,0 +1,41 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository;
+
+/**
+ * Notified by {@link Repository} once a write of a user or of a project configuration succeeded.
+ */
+public interface RepositoryWriteListener {
+
+    RepositoryWriteListener NONE = new RepositoryWriteListener() {
+        @Override
+        public void userWritten(String userIdentifier) {
+            //  Nothing to do.
+        }
+
+        @Override
+        public void projectConfigurationWritten(String projectConfigurationIdentifier) {
+            //  Nothing to do.
+        }
+    };
+
+    void userWritten(String userIdentifier);
+
+    void projectConfigurationWritten(String projectConfigurationIdentifier);
+
+}
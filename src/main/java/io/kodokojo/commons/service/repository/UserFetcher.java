@@ -20,6 +20,12 @@ package io.kodokojo.commons.service.repository;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.model.UserService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
 public interface UserFetcher {
 
 
@@ -27,6 +33,14 @@ public interface UserFetcher {
 
     User getUserByIdentifier(String identifier);
 
+    /**
+     * @return Users in the same order than given identifiers, <code>null</code> for an identifier which doesn't match any user.
+     */
+    default List<User> getUsersByIdentifiers(Collection<String> identifiers) {
+        requireNonNull(identifiers, "identifiers must be defined.");
+        return identifiers.stream().map(this::getUserByIdentifier).collect(Collectors.toList());
+    }
+
     UserService getUserServiceByName(String name);
 
     UserService getUserServiceByIdentifier(String identifier);
@@ -22,6 +22,8 @@ import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.model.UserInWaitingList;
 import io.kodokojo.commons.model.UserService;
 
+import java.util.Iterator;
+
 /**
  * Allow to manage {@link User} and {@link UserService}.
  */
@@ -33,9 +35,20 @@ public interface UserRepository extends UserFetcher {
 
     boolean addUser(User user);
 
+    /**
+     * Cheap enough to be called on each keystroke. A name taken meanwhile may still be refused by {@link #addUser(User)}.
+     */
+    boolean usernameIsAvailable(String username);
+
     boolean updateUser(User user);
 
     boolean addUserService(UserService userService);
 
     boolean addUserToWaitingList(UserInWaitingList userInWaitingList);
+
+    /**
+     * Iterate over all users, reading about <code>pageSize</code> of them at a time, for listings or migrations.
+     * Users added or removed meanwhile may be returned or not.
+     */
+    Iterator<User> scanUsers(int pageSize);
 }
@@ -0,0 +1,60 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository.store;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@link ProjectStore}, completing without blocking the calling thread.
+ */
+public interface AsyncProjectStore {
+
+    CompletableFuture<ProjectConfigurationStoreModel> getProjectConfigurationById(String identifier);
+
+    CompletableFuture<Project> getProjectByIdentifier(String identifier);
+
+    CompletableFuture<ProjectConfigurationStoreModel> getProjectConfigurationByName(String name);
+
+    CompletableFuture<Set<String>> getProjectConfigIdsByUserIdentifier(String userIdentifier);
+
+    CompletableFuture<String> getProjectIdByProjectConfigurationId(String projectConfigurationId);
+
+    CompletableFuture<Project> getProjectByProjectConfigurationId(String projectConfigurationId);
+
+    CompletableFuture<Set<String>> getStackNames(String projectIdentifier);
+
+    CompletableFuture<Stack> getStack(String projectIdentifier, String stackName);
+
+    CompletableFuture<Boolean> projectNameIsValid(String projectName);
+
+    CompletableFuture<String> addProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration);
+
+    CompletableFuture<String> addProject(Project project, String projectConfigurationIdentifier);
+
+    CompletableFuture<Void> updateProject(Project project);
+
+    CompletableFuture<Boolean> updateBrickState(String projectIdentifier, BrickStateEvent brickStateEvent);
+
+    CompletableFuture<Void> updateProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration);
+
+}
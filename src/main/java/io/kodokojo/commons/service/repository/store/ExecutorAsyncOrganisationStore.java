@@ -0,0 +1,61 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository.store;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Run the calls of an {@link OrganisationStore} on given executor.
+ */
+public class ExecutorAsyncOrganisationStore implements AsyncOrganisationStore {
+
+    private final OrganisationStore organisationStore;
+
+    private final Executor executor;
+
+    public ExecutorAsyncOrganisationStore(OrganisationStore organisationStore, Executor executor) {
+        requireNonNull(organisationStore, "organisationStore must be defined.");
+        requireNonNull(executor, "executor must be defined.");
+        this.organisationStore = organisationStore;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<OrganisationStoreModel> getOrganisationById(String organisationIdentifier) {
+        return CompletableFuture.supplyAsync(() -> organisationStore.getOrganisationById(organisationIdentifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<String> addOrganisation(OrganisationStoreModel organisation) {
+        return CompletableFuture.supplyAsync(() -> organisationStore.addOrganisation(organisation), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> addAdminToOrganisation(String userIdentifier, String organisationIdentifier) {
+        return CompletableFuture.runAsync(() -> organisationStore.addAdminToOrganisation(userIdentifier, organisationIdentifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> addUserToOrganisation(String userIdentifier, String organisationIdentifier) {
+        return CompletableFuture.runAsync(() -> organisationStore.addUserToOrganisation(userIdentifier, organisationIdentifier), executor);
+    }
+
+}
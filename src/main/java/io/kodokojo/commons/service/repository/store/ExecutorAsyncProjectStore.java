@@ -0,0 +1,116 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository.store;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Run the calls of a {@link ProjectStore} on given executor.
+ */
+public class ExecutorAsyncProjectStore implements AsyncProjectStore {
+
+    private final ProjectStore projectStore;
+
+    private final Executor executor;
+
+    public ExecutorAsyncProjectStore(ProjectStore projectStore, Executor executor) {
+        requireNonNull(projectStore, "projectStore must be defined.");
+        requireNonNull(executor, "executor must be defined.");
+        this.projectStore = projectStore;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<ProjectConfigurationStoreModel> getProjectConfigurationById(String identifier) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getProjectConfigurationById(identifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<Project> getProjectByIdentifier(String identifier) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getProjectByIdentifier(identifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<ProjectConfigurationStoreModel> getProjectConfigurationByName(String name) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getProjectConfigurationByName(name), executor);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getProjectConfigIdsByUserIdentifier(String userIdentifier) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getProjectConfigIdsByUserIdentifier(userIdentifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<String> getProjectIdByProjectConfigurationId(String projectConfigurationId) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getProjectIdByProjectConfigurationId(projectConfigurationId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Project> getProjectByProjectConfigurationId(String projectConfigurationId) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getProjectByProjectConfigurationId(projectConfigurationId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getStackNames(String projectIdentifier) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getStackNames(projectIdentifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<Stack> getStack(String projectIdentifier, String stackName) {
+        return CompletableFuture.supplyAsync(() -> projectStore.getStack(projectIdentifier, stackName), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> projectNameIsValid(String projectName) {
+        return CompletableFuture.supplyAsync(() -> projectStore.projectNameIsValid(projectName), executor);
+    }
+
+    @Override
+    public CompletableFuture<String> addProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration) {
+        return CompletableFuture.supplyAsync(() -> projectStore.addProjectConfiguration(projectConfiguration), executor);
+    }
+
+    @Override
+    public CompletableFuture<String> addProject(Project project, String projectConfigurationIdentifier) {
+        return CompletableFuture.supplyAsync(() -> projectStore.addProject(project, projectConfigurationIdentifier), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateProject(Project project) {
+        return CompletableFuture.runAsync(() -> projectStore.updateProject(project), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateBrickState(String projectIdentifier, BrickStateEvent brickStateEvent) {
+        return CompletableFuture.supplyAsync(() -> projectStore.updateBrickState(projectIdentifier, brickStateEvent), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration) {
+        return CompletableFuture.runAsync(() -> projectStore.updateProjectConfiguration(projectConfiguration), executor);
+    }
+
+}
@@ -17,6 +17,8 @@
  */
 package io.kodokojo.commons.service.repository.store;
 
+import java.util.Iterator;
+
 public interface OrganisationStore {
 
     OrganisationStoreModel getOrganisationById(String organisationIdentifier);
@@ -26,4 +28,16 @@ public interface OrganisationStore {
     void addAdminToOrganisation(String userIdentifier, String organisationIdentifier);
 
     void addUserToOrganisation(String userIdentifier, String organisationIdentifier);
+
+    /**
+     * Iterate over the user identifiers of given organisation, reading about <code>pageSize</code> of them at a time.
+     * Users added or removed meanwhile may be returned or not.
+     */
+    Iterator<String> scanOrganisationUsers(String organisationIdentifier, int pageSize);
+
+    /**
+     * Iterate over the admin identifiers of given organisation, reading about <code>pageSize</code> of them at a time.
+     * Admins added or removed meanwhile may be returned or not.
+     */
+    Iterator<String> scanOrganisationAdmins(String organisationIdentifier, int pageSize);
 }
@@ -19,7 +19,10 @@ package io.kodokojo.commons.service.repository.store;
 
 import io.kodokojo.commons.model.Project;
 import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
 
+import java.util.Iterator;
 import java.util.Set;
 
 public interface ProjectStore {
@@ -36,6 +39,16 @@ public interface ProjectStore {
 
     Project getProjectByProjectConfigurationId(String projectConfigurationId);
 
+    /**
+     * @return Names of the stacks of given project, without reading their brick states.
+     */
+    Set<String> getStackNames(String projectIdentifier);
+
+    /**
+     * @return Given stack of a project, or <code>null</code> if the project or the stack doesn't exist.
+     */
+    Stack getStack(String projectIdentifier, String stackName);
+
     boolean projectNameIsValid(String projectName);
 
     String addProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration);
@@ -44,6 +57,19 @@ public interface ProjectStore {
 
     void updateProject(Project project);
 
+    /**
+     * Add a state of a brick to an existing stack, leaving the rest of the project untouched.
+     * Like the set of brick states of a stack, an equal state (same brick, version and state) is replaced by the one written.
+     * @return <code>false</code> if the project or the stack of the brick doesn't exist.
+     */
+    boolean updateBrickState(String projectIdentifier, BrickStateEvent brickStateEvent);
+
     void updateProjectConfiguration(ProjectConfigurationStoreModel projectConfiguration);
 
+    /**
+     * Iterate over all project configurations, reading about <code>pageSize</code> of them at a time.
+     * Project configurations added or removed meanwhile may be returned or not.
+     */
+    Iterator<ProjectConfigurationStoreModel> scanProjectConfigurations(int pageSize);
+
 }
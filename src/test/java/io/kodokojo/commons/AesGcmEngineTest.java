@@ -0,0 +1,148 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons;
+
+import org.junit.Test;
+
+import javax.crypto.*;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AesGcmEngineTest {
+
+    private final SecretKey key = aesKey();
+
+    @Test
+    public void encrypted_value_round_trip() throws Exception {
+        byte[] plain = "Kodo Kojo".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encrypted = AesGcmEngine.encrypt(key, plain);
+
+        assertThat(encrypted.length).isEqualTo(AesGcmEngine.encryptedLength(plain.length));
+        assertThat(AesGcmEngine.decrypt(key, encrypted)).isEqualTo(plain);
+    }
+
+    @Test
+    public void each_encryption_use_a_new_nonce() {
+        byte[] plain = "Kodo Kojo".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(AesGcmEngine.encrypt(key, plain)).isNotEqualTo(AesGcmEngine.encrypt(key, plain));
+    }
+
+    @Test
+    public void encrypt_in_given_buffer() throws Exception {
+        byte[] plain = "Kodo Kojo".getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[AesGcmEngine.encryptedLength(plain.length) + 4];
+
+        int written = AesGcmEngine.encrypt(key, plain, 0, plain.length, buffer, 4);
+
+        assertThat(written).isEqualTo(AesGcmEngine.encryptedLength(plain.length));
+        assertThat(AesGcmEngine.decrypt(key, buffer, 4, written)).isEqualTo(plain);
+    }
+
+    @Test(expected = AEADBadTagException.class)
+    public void altered_value_is_rejected() throws Exception {
+        byte[] encrypted = AesGcmEngine.encrypt(key, "Kodo Kojo".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+
+        AesGcmEngine.decrypt(key, encrypted);
+    }
+
+    @Test
+    public void stream_round_trip() throws IOException {
+        byte[] plain = new byte[100000];
+        for (int i = 0; i < plain.length; i++) {
+            plain[i] = (byte) i;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream encrypting = AesGcmEngine.encryptingStream(key, out)) {
+            encrypting.write(plain);
+        }
+
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        try (InputStream decrypting = AesGcmEngine.decryptingStream(key, new ByteArrayInputStream(out.toByteArray()))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = decrypting.read(buffer)) > 0) {
+                decrypted.write(buffer, 0, read);
+            }
+        }
+
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @Test
+    public void read_legacy_ecb_value() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        byte[] legacy = cipher.doFinal("password".getBytes());
+
+        assertThat(RSAUtils.decryptWithAES(key, legacy)).isEqualTo("password");
+        assertThat(RSAUtils.decryptWithAES(key, RSAUtils.encryptWithAES(key, "password"))).isEqualTo("password");
+    }
+
+    @Test
+    public void read_legacy_sealed_object() throws Exception {
+        assertThat(RSAUtils.decryptObjectWithAES(key, legacySealedObject(key, "Kodo Kojo"))).isEqualTo("Kodo Kojo");
+        assertThat(RSAUtils.decryptObjectWithAES(key, RSAUtils.encryptObjectWithAES(key, "Kodo Kojo"))).isEqualTo("Kodo Kojo");
+    }
+
+    @Test
+    public void write_legacy_ecb_value() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+
+        assertThat(RSAUtils.encryptWithAES(key, "password", true)).isEqualTo(cipher.doFinal("password".getBytes()));
+    }
+
+    @Test
+    public void write_legacy_sealed_object() throws Exception {
+        byte[] encrypted = RSAUtils.encryptObjectWithAES(key, "Kodo Kojo", true);
+
+        assertThat(encrypted).isEqualTo(legacySealedObject(key, "Kodo Kojo"));
+        assertThat(RSAUtils.decryptObjectWithAES(key, encrypted)).isEqualTo("Kodo Kojo");
+    }
+
+    /**
+     * Previous format of {@link RSAUtils#encryptObjectWithAES(java.security.Key, Serializable)}.
+     */
+    public static byte[] legacySealedObject(SecretKey key, Serializable data) throws Exception {
+        Cipher cipher = Cipher.getInstance(RSAUtils.AES_CBC_PKCS5_PADDING);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec("0102030405060708".getBytes()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SealedObject sealedObject = new SealedObject(data, cipher);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new CipherOutputStream(out, cipher))) {
+            objectOutputStream.writeObject(sealedObject);
+        }
+        return out.toByteArray();
+    }
+
+    private static SecretKey aesKey() {
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+            keyGenerator.init(128);
+            return keyGenerator.generateKey();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
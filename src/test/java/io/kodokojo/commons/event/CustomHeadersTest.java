@@ -0,0 +1,74 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class CustomHeadersTest {
+
+    @Test
+    public void with_return_a_new_instance_and_keep_original_unchanged() {
+        CustomHeaders headers = CustomHeaders.EMPTY.with("a", "1");
+
+        CustomHeaders updated = headers.with("a", "2").with("b", "3");
+
+        assertThat(headers).containsOnly(entry("a", "1"));
+        assertThat(updated).containsOnly(entry("a", "2"), entry("b", "3"));
+        assertThat(headers.with("a", "1")).isSameAs(headers);
+        assertThat(updated.with("b", null)).containsOnly(entry("a", "2"));
+    }
+
+    @Test
+    public void well_known_keys_are_interned() {
+        Map<String, String> parsed = new HashMap<>();
+        parsed.put(new String(Event.REQUESTER_ID_CUSTOM_HEADER), "jpthiery");
+
+        CustomHeaders headers = CustomHeaders.copyOf(parsed);
+
+        assertThat(headers.keySet().iterator().next()).isSameAs(Event.REQUESTER_ID_CUSTOM_HEADER);
+        assertThat(headers.get(Event.REQUESTER_ID_CUSTOM_HEADER)).isEqualTo("jpthiery");
+    }
+
+    @Test
+    public void event_share_custom_headers_with_builder() {
+        Event event = new EventBuilder().setFrom("test").setEventType("test").setJsonPayload("{}")
+                .addCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER, "1234")
+                .build();
+
+        EventBuilder builder = new EventBuilder(event);
+        Event copy = builder.build();
+        Event updated = builder.addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, "jpthiery").build();
+
+        assertThat(copy.getCustom()).isSameAs(event.getCustom());
+        assertThat(event.getCustom()).hasSize(1);
+        assertThat(updated.getCustom()).hasSize(2);
+        assertThat(updated.getCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER)).isEqualTo("1234");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void custom_headers_are_read_only() {
+        CustomHeaders.EMPTY.with("a", "1").put("b", "2");
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplyEventTest {
+
+    @Test
+    public void single_reply_return_first_reply() throws InterruptedException {
+        ReplyEvent replyEvent = new ReplyEvent("1234");
+        Event reply = EventTest.buildTestEvent("first");
+        replyEvent.setReply(reply);
+        replyEvent.setReply(EventTest.buildTestEvent("second"));
+
+        assertThat(replyEvent.isComplete()).isTrue();
+        assertThat(replyEvent.getReply(10, TimeUnit.MILLISECONDS)).isEqualTo(reply);
+    }
+
+    @Test
+    public void multiple_replies_end_when_expected_count_reached() throws InterruptedException {
+        ReplyEvent replyEvent = new ReplyEvent("1234", 2);
+        new Thread(() -> {
+            replyEvent.setReply(EventTest.buildTestEvent("first"));
+            replyEvent.setReply(EventTest.buildTestEvent("second"));
+        }).start();
+
+        long begin = System.currentTimeMillis();
+        List<Event> replies = replyEvent.getReplies(1, TimeUnit.MINUTES);
+
+        assertThat(System.currentTimeMillis() - begin).isLessThan(TimeUnit.SECONDS.toMillis(30));
+        assertThat(replies).hasSize(2);
+        assertThat(replyEvent.isComplete()).isTrue();
+    }
+
+    @Test
+    public void multiple_replies_return_partial_result_on_timeout() throws InterruptedException {
+        ReplyEvent replyEvent = new ReplyEvent("1234", 3);
+        replyEvent.setReply(EventTest.buildTestEvent("first"));
+
+        List<Event> replies = replyEvent.getReplies(50, TimeUnit.MILLISECONDS);
+
+        assertThat(replies).hasSize(1);
+        assertThat(replyEvent.isComplete()).isFalse();
+    }
+
+}
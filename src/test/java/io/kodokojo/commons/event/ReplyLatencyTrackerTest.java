@@ -0,0 +1,98 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplyLatencyTrackerTest {
+
+    @Test
+    public void not_enough_samples_keep_max_timeout() {
+        ReplyLatencyTracker tracker = new ReplyLatencyTracker(100, 10, 3);
+        tracker.record("test", 100);
+
+        assertThat(tracker.percentile("test", 99)).isEqualTo(-1);
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(60000);
+        assertThat(tracker.hedgeDelay("test")).isEqualTo(-1);
+    }
+
+    @Test
+    public void timeout_is_a_multiple_of_p99() {
+        ReplyLatencyTracker tracker = new ReplyLatencyTracker(100, 10, 3);
+        tracker.enableAdaptiveTimeout("test");
+        for (int i = 1; i <= 100; i++) {
+            tracker.record("test", i * 10);
+        }
+
+        assertThat(tracker.percentile("test", 99)).isEqualTo(990);
+        assertThat(tracker.hedgeDelay("test")).isEqualTo(950);
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(2970);
+        assertThat(tracker.adaptTimeout("test", 1000)).isEqualTo(1000);
+    }
+
+    @Test
+    public void window_keep_only_latest_samples() {
+        ReplyLatencyTracker tracker = new ReplyLatencyTracker(10, 10, 3);
+        for (int i = 0; i < 10; i++) {
+            tracker.record("test", 5000);
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record("test", 100);
+        }
+
+        assertThat(tracker.sampleCount("test")).isEqualTo(10);
+        assertThat(tracker.percentile("test", 99)).isEqualTo(100);
+    }
+
+    @Test
+    public void timeout_of_event_type_not_enabled_is_not_adapted() {
+        ReplyLatencyTracker tracker = new ReplyLatencyTracker(10, 1, 3);
+        tracker.enableAdaptiveTimeout("other");
+        tracker.record("test", 10);
+
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(60000);
+        assertThat(tracker.hedgeDelay("test")).isEqualTo(10);
+    }
+
+    @Test
+    public void timed_out_requests_let_timeout_grow_back() {
+        ReplyLatencyTracker tracker = new ReplyLatencyTracker(10, 10, 3);
+        tracker.enableAdaptiveTimeout("test");
+        for (int i = 0; i < 10; i++) {
+            tracker.record("test", 100);
+        }
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(300);
+
+        tracker.record("test", tracker.adaptTimeout("test", 60000));
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(900);
+        tracker.record("test", tracker.adaptTimeout("test", 60000));
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(2700);
+    }
+
+    @Test
+    public void disabled_when_factor_lower_than_one() {
+        ReplyLatencyTracker tracker = new ReplyLatencyTracker(10, 1, 0);
+        tracker.enableAdaptiveTimeout("test");
+        tracker.record("test", 10);
+
+        assertThat(tracker.adaptTimeout("test", 60000)).isEqualTo(60000);
+    }
+
+}
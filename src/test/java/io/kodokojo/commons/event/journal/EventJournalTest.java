@@ -0,0 +1,147 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.journal;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import javaslang.control.Try;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventJournalTest {
+
+    private static final long START_DATE = 1000000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void replay_events_from_offset() throws Exception {
+        EventJournal journal = startJournal(temporaryFolder.getRoot());
+        appendEvents(journal, 100);
+
+        List<Event> replayed = new ArrayList<>();
+        long count = journal.replay(90, Collections.singleton(event -> Try.success(replayed.add(event))), 0);
+
+        assertThat(count).isEqualTo(10);
+        assertThat(replayed).extracting("creationDate").containsExactly(START_DATE + 90, START_DATE + 91, START_DATE + 92, START_DATE + 93, START_DATE + 94, START_DATE + 95, START_DATE + 96, START_DATE + 97, START_DATE + 98, START_DATE + 99);
+        journal.stop();
+    }
+
+    @Test
+    public void replay_events_between_creation_dates() throws Exception {
+        EventJournal journal = startJournal(temporaryFolder.getRoot());
+        appendEvents(journal, 100);
+
+        List<Event> replayed = new ArrayList<>();
+        long count = journal.replayBetween(START_DATE + 25, START_DATE + 34, Collections.singleton(event -> Try.success(replayed.add(event))), 0);
+
+        assertThat(count).isEqualTo(10);
+        assertThat(replayed.get(0).getCreationDate()).isEqualTo(START_DATE + 25);
+        journal.stop();
+    }
+
+    @Test
+    public void find_events_by_correlation_id() throws Exception {
+        EventJournal journal = startJournal(temporaryFolder.getRoot());
+        appendEvents(journal, 100);
+
+        List<Event> events = journal.findByCorrelationId("correlation-3");
+
+        assertThat(events).hasSize(10);
+        assertThat(events).extracting("correlationId").containsOnly("correlation-3");
+        journal.stop();
+    }
+
+    @Test
+    public void indexes_are_rebuilt_on_restart() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        EventJournal journal = startJournal(directory);
+        appendEvents(journal, 100);
+        journal.stop();
+
+        EventJournal restarted = startJournal(directory);
+
+        assertThat(restarted.getNextOffset()).isEqualTo(100);
+        assertThat(restarted.findByCorrelationId("correlation-7")).hasSize(10);
+        appendEvents(restarted, 10);
+        assertThat(directory.listFiles((dir, name) -> name.endsWith(EventJournal.SEGMENT_SUFFIX)).length).isGreaterThan(1);
+        List<Event> replayed = new ArrayList<>();
+        assertThat(restarted.replay(95, Collections.singleton(event -> Try.success(replayed.add(event))), 0)).isEqualTo(15);
+        restarted.stop();
+    }
+
+    @Test
+    public void oldest_segments_are_deleted_beyond_retention_size() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        EventJournal journal = new EventJournal(directory, 2048, 8, 8192, 0);
+        journal.start();
+        appendEvents(journal, 200);
+        appendEvents(journal, 1);
+
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(EventJournal.SEGMENT_SUFFIX));
+        long totalSize = 0;
+        for (File segment : segments) {
+            totalSize += segment.length();
+        }
+        assertThat(totalSize).isLessThanOrEqualTo(8192 + 2048);
+
+        List<Event> replayed = new ArrayList<>();
+        long count = journal.replay(0, Collections.singleton(event -> Try.success(replayed.add(event))), 0);
+        assertThat(count).isGreaterThan(0);
+        assertThat(count).isLessThan(201);
+        assertThat(replayed.get(replayed.size() - 1).getCreationDate()).isEqualTo(START_DATE);
+        assertThat(journal.findByCorrelationId("correlation-3").size()).isLessThan(20);
+        journal.stop();
+    }
+
+    private static EventJournal startJournal(File directory) {
+        EventJournal journal = new EventJournal(directory, 2048, 8);
+        journal.start();
+        return journal;
+    }
+
+    private static void appendEvents(EventJournal journal, int count) throws InterruptedException {
+        long expectedOffset = journal.getNextOffset() + count;
+        for (int i = 0; i < count; i++) {
+            long offset = journal.getNextOffset() + i;
+            Event event = new EventBuilder()
+                    .setFrom("test")
+                    .setEventType("journal.test")
+                    .setCreationDate(START_DATE + i)
+                    .setCorrelationId("correlation-" + (i % 10))
+                    .setJsonPayload("{\"offset\":" + offset + "}")
+                    .build();
+            assertThat(journal.append(event)).isTrue();
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getNextOffset() < expectedOffset && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(journal.getNextOffset()).isEqualTo(expectedOffset);
+    }
+
+}
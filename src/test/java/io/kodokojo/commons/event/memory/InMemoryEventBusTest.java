@@ -0,0 +1,156 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.memory;
+
+import io.kodokojo.commons.config.MicroServiceConfig;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBus;
+import javaslang.control.Try;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryEventBusTest {
+
+    private final InMemoryEventBroker broker = new InMemoryEventBroker();
+
+    private final List<EventBus> eventBuses = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        eventBuses.forEach(EventBus::disconnect);
+    }
+
+    @Test
+    public void broadcast_reach_all_instances_but_sender() throws InterruptedException {
+        EventBus sender = createEventBus("project", "1", 1);
+        Queue<Event> received = new ConcurrentLinkedQueue<>();
+        createEventBus("project", "2", 1).addEventListener(event -> Try.success(received.add(event)));
+        createEventBus("user", "3", 1).addEventListener(event -> Try.success(received.add(event)));
+        eventBuses.forEach(EventBus::connect);
+
+        sender.broadcast(buildEvent(sender));
+
+        waitFor(() -> received.size() == 2);
+        assertThat(received).hasSize(2);
+    }
+
+    @Test
+    public void business_event_is_processed_once_by_each_service() throws InterruptedException {
+        EventBus sender = createEventBus("gateway", "1", 1);
+        Queue<Event> projectReceived = new ConcurrentLinkedQueue<>();
+        Queue<Event> userReceived = new ConcurrentLinkedQueue<>();
+        createEventBus("project", "2", 4).addEventListener(event -> Try.success(projectReceived.add(event)));
+        createEventBus("project", "3", 4).addEventListener(event -> Try.success(projectReceived.add(event)));
+        createEventBus("user", "4", 1).addEventListener(event -> Try.success(userReceived.add(event)));
+        eventBuses.forEach(EventBus::connect);
+
+        for (int i = 0; i < 1000; i++) {
+            sender.send(buildEvent(sender));
+        }
+
+        waitFor(() -> projectReceived.size() == 1000 && userReceived.size() == 1000);
+        Thread.sleep(50);
+        assertThat(projectReceived).hasSize(1000);
+        assertThat(userReceived).hasSize(1000);
+    }
+
+    @Test
+    public void request_get_reply() throws InterruptedException {
+        EventBus requester = createEventBus("gateway", "1", 1);
+        EventBus responder = createEventBus("project", "2", 2);
+        responder.addEventListener(event -> {
+            if (event.getRequestReplyType() == Event.RequestReplyType.REQUEST) {
+                responder.reply(event, new EventBuilder().setFrom(responder.getFrom()).setEventType("pong").setJsonPayload("{}").build());
+            }
+            return Try.success(Boolean.TRUE);
+        });
+        eventBuses.forEach(EventBus::connect);
+
+        Event reply = requester.request(buildEvent(requester), 5, TimeUnit.SECONDS);
+
+        assertThat(reply).isNotNull();
+        assertThat(reply.getEventType()).isEqualTo("pong");
+        assertThat(reply.getRequestReplyType()).isEqualTo(Event.RequestReplyType.REPLY);
+    }
+
+    @Test
+    public void request_all_gather_replies_of_target_service_instances_only() throws InterruptedException {
+        EventBus requester = createEventBus("gateway", "1", 1);
+        createReplyingEventBus("project", "2");
+        createReplyingEventBus("project", "3");
+        createReplyingEventBus("user", "4");
+        eventBuses.forEach(EventBus::connect);
+
+        List<Event> replies = requester.requestAll(buildEvent(requester), "project", 3, 200, TimeUnit.MILLISECONDS);
+
+        assertThat(replies).hasSize(2);
+        assertThat(replies.stream().map(Event::getFrom).collect(Collectors.toList())).containsOnly("project@2", "project@3");
+    }
+
+    private void createReplyingEventBus(String name, String uuid) {
+        EventBus responder = createEventBus(name, uuid, 1);
+        responder.addEventListener(event -> {
+            if (event.getRequestReplyType() == Event.RequestReplyType.REQUEST) {
+                responder.reply(event, new EventBuilder().setFrom(responder.getFrom()).setEventType("pong").setJsonPayload("{}").build());
+            }
+            return Try.success(Boolean.TRUE);
+        });
+    }
+
+    private EventBus createEventBus(String name, String uuid, int instanceCount) {
+        EventBus eventBus = new InMemoryEventBus(broker, new MicroServiceConfig() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String uuid() {
+                return uuid;
+            }
+        }, instanceCount);
+        eventBuses.add(eventBus);
+        return eventBus;
+    }
+
+    private static Event buildEvent(EventBus eventBus) {
+        return new EventBuilder().setFrom(eventBus.getFrom()).setEventType("ping").setJsonPayload("{}").build();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.isVerified() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Condition {
+        boolean isVerified();
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.event.trace;
+
+import com.google.inject.Guice;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventTracerTest {
+
+    @Test
+    public void sampled_event_get_trace_headers() {
+        EventTracer eventTracer = new EventTracer(1, new InMemorySpanSink(10));
+
+        Event traced = eventTracer.trace(buildEvent());
+
+        assertThat(EventTracer.isTraced(traced)).isTrue();
+        assertThat(traced.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER)).isNotNull();
+        assertThat(traced.getCustomHeader(Event.PARENT_SPAN_ID_CUSTOM_HEADER)).isNull();
+    }
+
+    @Test
+    public void not_sampled_event_is_unchanged() {
+        Event event = buildEvent();
+
+        assertThat(new EventTracer(0, new InMemorySpanSink(10)).trace(event)).isSameAs(event);
+        assertThat(EventTracer.disabled().trace(event)).isSameAs(event);
+    }
+
+    @Test
+    public void continue_trace_use_parent_span() {
+        Event parent = new EventTracer(1, new InMemorySpanSink(10)).trace(buildEvent());
+
+        Event child = new EventBuilder().setFrom("test").setEventType("child").setJsonPayload("{}").continueTrace(parent).build();
+
+        assertThat(child.getCustomHeader(Event.TRACE_ID_CUSTOM_HEADER)).isEqualTo(parent.getCustomHeader(Event.TRACE_ID_CUSTOM_HEADER));
+        assertThat(child.getCustomHeader(Event.PARENT_SPAN_ID_CUSTOM_HEADER)).isEqualTo(parent.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER));
+        assertThat(child.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER)).isNotEqualTo(parent.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER));
+    }
+
+    @Test
+    public void record_export_span_of_traced_event() {
+        InMemorySpanSink spanSink = new InMemorySpanSink(10);
+        EventTracer eventTracer = new EventTracer(1, spanSink);
+        Event traced = eventTracer.trace(buildEvent());
+
+        eventTracer.record(traced, EventTracer.DECODE, TimeUnit.MILLISECONDS.toNanos(2));
+        eventTracer.record(buildEvent(), EventTracer.DECODE, TimeUnit.MILLISECONDS.toNanos(2));
+
+        List<Span> spans = spanSink.getSpans();
+        assertThat(spans).hasSize(1);
+        Span span = spans.get(0);
+        assertThat(span.getName()).isEqualTo(EventTracer.DECODE);
+        assertThat(span.getTraceId()).isEqualTo(traced.getCustomHeader(Event.TRACE_ID_CUSTOM_HEADER));
+        assertThat(span.getParentSpanId()).isEqualTo(traced.getCustomHeader(Event.SPAN_ID_CUSTOM_HEADER));
+        assertThat(span.getDurationMicros()).isEqualTo(2000);
+    }
+
+    @Test
+    public void in_memory_sink_drop_oldest_spans() {
+        InMemorySpanSink spanSink = new InMemorySpanSink(2);
+        for (int i = 0; i < 5; i++) {
+            spanSink.export(new Span("trace", "span" + i, null, "test", "test", "tester", 0, i));
+        }
+
+        assertThat(spanSink.getSpans()).extracting("spanId").containsExactly("span3", "span4");
+    }
+
+    @Test
+    public void injected_without_binding_is_disabled() {
+        EventTracer eventTracer = Guice.createInjector().getInstance(EventTracer.class);
+
+        assertThat(eventTracer.isEnabled()).isFalse();
+        Event event = buildEvent();
+        assertThat(eventTracer.trace(event)).isSameAs(event);
+    }
+
+    private static Event buildEvent() {
+        return new EventBuilder().setFrom("test").setEventType("test").setJsonPayload("{}").build();
+    }
+
+}
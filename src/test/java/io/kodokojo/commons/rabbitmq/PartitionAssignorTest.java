@@ -0,0 +1,80 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.rabbitmq;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartitionAssignorTest {
+
+    private static final int PARTITION_COUNT = 32;
+
+    @Test
+    public void each_partition_is_assigned_to_one_member() {
+        List<String> members = Arrays.asList("service@1", "service@2", "service@3");
+
+        Set<Integer> all = new HashSet<>();
+        int total = 0;
+        for (String member : members) {
+            Set<Integer> assigned = PartitionAssignor.assignedPartitions(member, members, PARTITION_COUNT);
+            assertThat(assigned).isNotEmpty();
+            all.addAll(assigned);
+            total += assigned.size();
+        }
+
+        assertThat(total).isEqualTo(PARTITION_COUNT);
+        assertThat(all).hasSize(PARTITION_COUNT);
+    }
+
+    @Test
+    public void only_partitions_of_leaving_member_move() {
+        List<String> before = Arrays.asList("service@1", "service@2", "service@3");
+        List<String> after = Arrays.asList("service@1", "service@3");
+
+        Set<Integer> firstBefore = PartitionAssignor.assignedPartitions("service@1", before, PARTITION_COUNT);
+        Set<Integer> firstAfter = PartitionAssignor.assignedPartitions("service@1", after, PARTITION_COUNT);
+        Set<Integer> thirdBefore = PartitionAssignor.assignedPartitions("service@3", before, PARTITION_COUNT);
+        Set<Integer> thirdAfter = PartitionAssignor.assignedPartitions("service@3", after, PARTITION_COUNT);
+
+        assertThat(firstAfter).containsAll(firstBefore);
+        assertThat(thirdAfter).containsAll(thirdBefore);
+        assertThat(firstAfter.size() + thirdAfter.size()).isEqualTo(PARTITION_COUNT);
+    }
+
+    @Test
+    public void partition_key_prefer_project_configuration() {
+        EventBuilder builder = new EventBuilder().setFrom("test").setEventType("test").setJsonPayload("{}")
+                .addCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER, "organisation");
+
+        assertThat(PartitionAssignor.partitionKey(builder.build())).isEqualTo("organisation");
+
+        builder.addCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER, "projectConfiguration");
+
+        assertThat(PartitionAssignor.partitionKey(builder.build())).isEqualTo("projectConfiguration");
+        assertThat(PartitionAssignor.partitionKey(new EventBuilder().setFrom("test").setEventType("test").setJsonPayload("{}").build())).isNull();
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.rabbitmq;
+
+import io.kodokojo.commons.config.MicroServiceConfig;
+import io.kodokojo.commons.config.RabbitMqConfig;
+import io.kodokojo.commons.event.JsonToEventConverter;
+import io.kodokojo.commons.model.ServiceInfo;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RabbitMqEventBusTest {
+
+    @Test
+    public void requests_are_hedged_with_a_single_business_queue() {
+        assertThat(eventBus(0).isHedgingEnabled()).isTrue();
+    }
+
+    @Test
+    public void requests_are_not_hedged_with_a_partitioned_business_queue() {
+        assertThat(eventBus(4).isHedgingEnabled()).isFalse();
+    }
+
+    private static RabbitMqEventBus eventBus(int partitionCount) {
+        RabbitMqConfig rabbitMqConfig = mock(RabbitMqConfig.class);
+        when(rabbitMqConfig.requestTimeoutMinSampleCount()).thenReturn(50);
+        when(rabbitMqConfig.requestTimeoutP99Factor()).thenReturn(0);
+        when(rabbitMqConfig.businessPartitionCount()).thenReturn(partitionCount);
+        return new RabbitMqEventBus(rabbitMqConfig, new RabbitMqConnectionFactory() {}, new JsonToEventConverter() {}, mock(MicroServiceConfig.class), mock(ServiceInfo.class));
+    }
+
+}
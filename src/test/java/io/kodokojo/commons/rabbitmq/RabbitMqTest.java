@@ -97,6 +97,31 @@ public class RabbitMqTest {
             public String virtualHost() {
                 return "/";
             }
+
+            @Override
+            public Integer requestTimeoutP99Factor() {
+                return 0;
+            }
+
+            @Override
+            public String requestTimeoutAdaptiveEventTypes() {
+                return null;
+            }
+
+            @Override
+            public Integer requestTimeoutMinSampleCount() {
+                return 50;
+            }
+
+            @Override
+            public Integer businessPartitionCount() {
+                return 0;
+            }
+
+            @Override
+            public Long businessPartitionHeartbeatMillis() {
+                return 5000L;
+            }
         };
         String uuid = UUID.randomUUID().toString();
         MicroServiceConfig microserviceConfig = new MicroServiceConfig() {
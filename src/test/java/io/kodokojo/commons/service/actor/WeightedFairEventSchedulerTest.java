@@ -0,0 +1,297 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.actor;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+import io.kodokojo.commons.config.MicroServiceConfig;
+import io.kodokojo.commons.config.RabbitMqConfig;
+import io.kodokojo.commons.event.CompositeEventListener;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.JsonToEventConverter;
+import io.kodokojo.commons.model.ServiceInfo;
+import io.kodokojo.commons.rabbitmq.RabbitMqConnectionFactory;
+import io.kodokojo.commons.rabbitmq.RabbitMqEventBus;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+import javaslang.control.Try;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeightedFairEventSchedulerTest {
+
+    @Test
+    public void organisations_are_served_in_round_robin() throws InterruptedException {
+        assertThat(processingOrder(Collections.emptyMap())).containsExactly("A1", "B1", "A2", "B2", "A3", "A4", "A5");
+    }
+
+    @Test
+    public void organisations_are_served_according_to_their_weight() throws InterruptedException {
+        assertThat(processingOrder(Collections.singletonMap("A", 2))).containsExactly("A1", "A2", "B1", "A3", "A4", "B2", "A5");
+    }
+
+    @Test
+    public void organisation_concurrency_is_capped() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch processed = new CountDownLatch(20);
+        WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(event -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            processed.countDown();
+            return Try.success(true);
+        }, 4, 100, 1, 2, 0, Collections.emptyMap(), new MetricRegistry());
+        scheduler.start();
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.receiveAsync(event("A", "A" + i));
+        }
+
+        assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+        scheduler.stop();
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void events_of_a_same_project_configuration_are_processed_one_at_a_time_in_order() throws InterruptedException {
+        Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Map<String, List<String>> processed = new ConcurrentHashMap<>();
+        CountDownLatch allProcessed = new CountDownLatch(20);
+        WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(event -> {
+            String projectConfigurationId = event.getCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER);
+            AtomicInteger projectInFlight = inFlight.computeIfAbsent(projectConfigurationId, key -> new AtomicInteger());
+            maxInFlight.accumulateAndGet(projectInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.computeIfAbsent(projectConfigurationId, key -> new CopyOnWriteArrayList<>()).add(event.getEventType());
+            projectInFlight.decrementAndGet();
+            allProcessed.countDown();
+            return Try.success(true);
+        }, 4, 100, 1, 4, 0, Collections.emptyMap(), new MetricRegistry());
+        scheduler.start();
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.receiveAsync(event("A", "P1", "P1-" + i));
+            scheduler.receiveAsync(event("A", "P2", "P2-" + i));
+        }
+
+        assertThat(allProcessed.await(10, TimeUnit.SECONDS)).isTrue();
+        scheduler.stop();
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(processed.get("P1")).containsExactly("P1-0", "P1-1", "P1-2", "P1-3", "P1-4", "P1-5", "P1-6", "P1-7", "P1-8", "P1-9");
+        assertThat(processed.get("P2")).containsExactly("P2-0", "P2-1", "P2-2", "P2-3", "P2-4", "P2-5", "P2-6", "P2-7", "P2-8", "P2-9");
+    }
+
+    @Test
+    public void event_is_completed_once_processed_by_delegate() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(event -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Try.success(true);
+        }, 1, 100, 1, 1, 0, Collections.emptyMap(), new MetricRegistry());
+        scheduler.start();
+
+        CompletableFuture<Boolean> processed = scheduler.receiveAsync(event("A", "A1"));
+
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(processed.isDone()).isFalse();
+        release.countDown();
+        assertThat(processed.get(10, TimeUnit.SECONDS)).isTrue();
+        scheduler.stop();
+    }
+
+    @Test
+    public void events_without_organisation_are_not_capped_by_organisation_concurrency() throws InterruptedException {
+        CountDownLatch allStarted = new CountDownLatch(4);
+        WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(event -> {
+            allStarted.countDown();
+            try {
+                //  Only returns once the 4 events are processed at the same time.
+                allStarted.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Try.success(true);
+        }, 4, 100, 1, 1, 0, Collections.emptyMap(), new MetricRegistry());
+        scheduler.start();
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.receiveAsync(event(null, "E" + i));
+        }
+
+        assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        scheduler.stop();
+    }
+
+    @Test
+    public void noisy_organisation_does_not_starve_another_one_on_the_endpoint_gateway_path() throws InterruptedException {
+        ActorSystem actorSystem = ActorSystem.create("test");
+        try {
+            List<String> processed = new CopyOnWriteArrayList<>();
+            CountDownLatch firstStarted = new CountDownLatch(1);
+            CountDownLatch releaseFirst = new CountDownLatch(1);
+            CountDownLatch allProcessed = new CountDownLatch(8);
+            ActorRef endpoint = actorSystem.actorOf(Props.create(RecordingEndpointActor.class, processed, firstStarted, releaseFirst, allProcessed));
+            CompositeEventListener scheduledListeners = new CompositeEventListener();
+            WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(scheduledListeners, 1, 100, 1, 1, 0, Collections.emptyMap(), new MetricRegistry());
+            RabbitMqConfig rabbitMqConfig = mock(RabbitMqConfig.class);
+            when(rabbitMqConfig.requestTimeoutMinSampleCount()).thenReturn(50);
+            when(rabbitMqConfig.requestTimeoutP99Factor()).thenReturn(0);
+            RabbitMqEventBus eventBus = new RabbitMqEventBus(rabbitMqConfig, new RabbitMqConnectionFactory() {}, new JsonToEventConverter() {}, mock(MicroServiceConfig.class), mock(ServiceInfo.class));
+            eventBus.scheduleEventListenersWith(scheduler, scheduledListeners);
+            eventBus.addEventListener(new EventToEndpointGateway(endpoint));
+            scheduler.start();
+
+            //  Keep the single worker busy on the endpoint while queuing events of both organisations.
+            scheduler.receiveAsync(event("A", "A0"));
+            assertThat(firstStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            for (int i = 1; i <= 5; i++) {
+                scheduler.receiveAsync(event("A", "A" + i));
+            }
+            scheduler.receiveAsync(event("B", "B1"));
+            scheduler.receiveAsync(event("B", "B2"));
+            releaseFirst.countDown();
+
+            assertThat(allProcessed.await(10, TimeUnit.SECONDS)).isTrue();
+            scheduler.stop();
+            assertThat(processed).containsExactly("A1", "B1", "A2", "B2", "A3", "A4", "A5");
+        } finally {
+            actorSystem.terminate();
+        }
+    }
+
+    @Test
+    public void parse_weights() {
+        Map<String, Integer> weights = WeightedFairEventScheduler.parseWeights("org-1:4, org-2:2");
+
+        assertThat(weights).containsOnlyKeys("org-1", "org-2");
+        assertThat(weights.get("org-1")).isEqualTo(4);
+        assertThat(WeightedFairEventScheduler.parseWeights(null)).isEmpty();
+    }
+
+    private List<String> processingOrder(Map<String, Integer> weights) throws InterruptedException {
+        List<String> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch allProcessed = new CountDownLatch(8);
+        WeightedFairEventScheduler scheduler = new WeightedFairEventScheduler(event -> {
+            if ("A0".equals(event.getEventType())) {
+                firstStarted.countDown();
+                try {
+                    releaseFirst.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                processed.add(event.getEventType());
+            }
+            allProcessed.countDown();
+            return Try.success(true);
+        }, 1, 100, 1, 1, 0, weights, new MetricRegistry());
+        scheduler.start();
+
+        //  Keep the single worker busy while queuing events of both organisations.
+        scheduler.receiveAsync(event("A", "A0"));
+        assertThat(firstStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 5; i++) {
+            scheduler.receiveAsync(event("A", "A" + i));
+        }
+        scheduler.receiveAsync(event("B", "B1"));
+        scheduler.receiveAsync(event("B", "B2"));
+        releaseFirst.countDown();
+
+        assertThat(allProcessed.await(10, TimeUnit.SECONDS)).isTrue();
+        scheduler.stop();
+        return processed;
+    }
+
+    public static class RecordingEndpointActor extends UntypedActor {
+
+        private final List<String> processed;
+
+        private final CountDownLatch firstStarted;
+
+        private final CountDownLatch releaseFirst;
+
+        private final CountDownLatch allProcessed;
+
+        public RecordingEndpointActor(List<String> processed, CountDownLatch firstStarted, CountDownLatch releaseFirst, CountDownLatch allProcessed) {
+            this.processed = processed;
+            this.firstStarted = firstStarted;
+            this.releaseFirst = releaseFirst;
+            this.allProcessed = allProcessed;
+        }
+
+        @Override
+        public void onReceive(Object message) throws Exception {
+            Event event = ((AbstractEventEndpointActor.EventFromEventBusWrapper) message).getEvent();
+            if ("A0".equals(event.getEventType())) {
+                firstStarted.countDown();
+                releaseFirst.await();
+            } else {
+                processed.add(event.getEventType());
+            }
+            allProcessed.countDown();
+            getSender().tell(Boolean.TRUE, getSelf());
+        }
+    }
+
+    private static Event event(String organisation, String eventType) {
+        return event(organisation, null, eventType);
+    }
+
+    private static Event event(String organisation, String projectConfigurationId, String eventType) {
+        EventBuilder builder = new EventBuilder().setFrom("test").setEventType(eventType).setJsonPayload("{}");
+        if (organisation != null) {
+            builder.addCustomHeader(Event.ORGANISATION_ID_CUSTOM_HEADER, organisation);
+        }
+        if (projectConfigurationId != null) {
+            builder.addCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER, projectConfigurationId);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BloomFilterTest {
+
+    @Test
+    public void never_miss_a_value_put() {
+        BloomFilter bloomFilter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            bloomFilter.put("user-" + i);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(bloomFilter.mightContain("user-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void false_positive_rate_is_near_the_expected_one() {
+        BloomFilter bloomFilter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            bloomFilter.put("user-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (bloomFilter.mightContain("project-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(2000);
+    }
+
+    @Test
+    public void size_the_filter_from_expected_insertions() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+
+        assertThat(bloomFilter.getBitCount()).isEqualTo(9600L);
+        assertThat(bloomFilter.getHashCount()).isEqualTo(7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fail_on_invalid_false_positive_probability() {
+        new BloomFilter(1000, 1);
+    }
+
+}
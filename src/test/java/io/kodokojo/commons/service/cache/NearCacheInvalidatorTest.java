@@ -0,0 +1,143 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class NearCacheInvalidatorTest {
+
+    private ProjectFetcher delegate;
+
+    private UserFetcher userDelegate;
+
+    private CachingProjectFetcher projectFetcher;
+
+    private CachingUserFetcher userFetcher;
+
+    private NearCacheInvalidator invalidator;
+
+    @Before
+    public void setup() {
+        delegate = mock(ProjectFetcher.class);
+        ProjectConfiguration projectConfiguration = projectConfiguration("1234", user("1"));
+        when(delegate.getProjectConfigurationById("1234")).thenReturn(projectConfiguration);
+        ProjectConfiguration otherProjectConfiguration = projectConfiguration("5678", user("2"));
+        when(delegate.getProjectConfigurationById("5678")).thenReturn(otherProjectConfiguration);
+        userDelegate = mock(UserFetcher.class);
+        User user = user("1");
+        when(userDelegate.getUserByIdentifier("1")).thenReturn(user);
+        User otherUser = user("2");
+        when(userDelegate.getUserByIdentifier("2")).thenReturn(otherUser);
+        projectFetcher = new CachingProjectFetcher(delegate, new NearCache<>("test", 10, 60000, p -> 1, new MetricRegistry()));
+        userFetcher = new CachingUserFetcher(userDelegate, new NearCache<>("test_users", 10, 60000, u -> 1, new MetricRegistry()));
+        invalidator = new NearCacheInvalidator(userFetcher, projectFetcher);
+    }
+
+    @Test
+    public void project_configuration_is_reloaded_after_published_invalidation() {
+        EventBus eventBus = mock(EventBus.class);
+        NearCacheInvalidationPublisher publisher = new NearCacheInvalidationPublisher(() -> eventBus, () -> new EventBuilder().setFrom("writer"));
+        projectFetcher.getProjectConfigurationById("1234");
+
+        publisher.projectConfigurationWritten("1234");
+        ArgumentCaptor<Event> invalidation = ArgumentCaptor.forClass(Event.class);
+        verify(eventBus).broadcast(invalidation.capture());
+        invalidator.receive(invalidation.getValue());
+        projectFetcher.getProjectConfigurationById("1234");
+
+        verify(delegate, times(2)).getProjectConfigurationById("1234");
+    }
+
+    @Test
+    public void user_invalidation_only_invalidates_this_user_and_its_project_configurations() {
+        EventBus eventBus = mock(EventBus.class);
+        NearCacheInvalidationPublisher publisher = new NearCacheInvalidationPublisher(() -> eventBus, () -> new EventBuilder().setFrom("writer"));
+        userFetcher.getUserByIdentifier("1");
+        userFetcher.getUserByIdentifier("2");
+        projectFetcher.getProjectConfigurationById("1234");
+        projectFetcher.getProjectConfigurationById("5678");
+
+        publisher.userWritten("1");
+        ArgumentCaptor<Event> invalidation = ArgumentCaptor.forClass(Event.class);
+        verify(eventBus).broadcast(invalidation.capture());
+        invalidator.receive(invalidation.getValue());
+        userFetcher.getUserByIdentifier("1");
+        userFetcher.getUserByIdentifier("2");
+        projectFetcher.getProjectConfigurationById("1234");
+        projectFetcher.getProjectConfigurationById("5678");
+
+        verify(userDelegate, times(2)).getUserByIdentifier("1");
+        verify(userDelegate, times(1)).getUserByIdentifier("2");
+        verify(delegate, times(2)).getProjectConfigurationById("1234");
+        verify(delegate, times(1)).getProjectConfigurationById("5678");
+    }
+
+    @Test
+    public void reply_does_not_invalidate() {
+        userFetcher.getUserByIdentifier("1");
+        projectFetcher.getProjectConfigurationById("1234");
+
+        invalidator.receive(new EventBuilder().setFrom("api").setEventType(Event.USER_UPDATE_REPLY).setJsonPayload("{}").build());
+        invalidator.receive(new EventBuilder().setFrom("api").setEventType(Event.PROJECTCONFIG_START_REPLY).addCustomHeader(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER, "1234").setJsonPayload("{}").build());
+        userFetcher.getUserByIdentifier("1");
+        projectFetcher.getProjectConfigurationById("1234");
+
+        verify(userDelegate, times(1)).getUserByIdentifier("1");
+        verify(delegate, times(1)).getProjectConfigurationById("1234");
+    }
+
+    @Test
+    public void user_update_request_does_not_invalidate() {
+        projectFetcher.getProjectConfigurationById("1234");
+
+        invalidator.receive(new EventBuilder().setFrom("api").setEventType(Event.USER_UPDATE_REQUEST).setJsonPayload("{}").build());
+        projectFetcher.getProjectConfigurationById("1234");
+
+        verify(delegate, times(1)).getProjectConfigurationById("1234");
+    }
+
+    private static ProjectConfiguration projectConfiguration(String identifier, User user) {
+        ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+        when(projectConfiguration.getIdentifier()).thenReturn(identifier);
+        when(projectConfiguration.getTeamLeaders()).thenAnswer(invocation -> Collections.<User>emptyIterator());
+        when(projectConfiguration.getUsers()).thenAnswer(invocation -> Collections.singletonList(user).iterator());
+        return projectConfiguration;
+    }
+
+    private static User user(String identifier) {
+        User user = mock(User.class);
+        when(user.getIdentifier()).thenReturn(identifier);
+        return user;
+    }
+
+}
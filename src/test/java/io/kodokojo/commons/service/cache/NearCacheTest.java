@@ -0,0 +1,106 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.cache;
+
+import io.kodokojo.commons.service.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final NearCache<String, String> cache = new NearCache<>("test", 10, 1000, String::length, new MetricRegistry(), now::get);
+
+    @Test
+    public void value_is_loaded_once() {
+        AtomicLong loadCount = new AtomicLong();
+
+        cache.get("a", key -> "value-" + loadCount.incrementAndGet());
+        String value = cache.get("a", key -> "value-" + loadCount.incrementAndGet());
+
+        assertThat(value).isEqualTo("value-1");
+        assertThat(loadCount.get()).isEqualTo(1);
+        assertThat(cache.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void value_expire_after_ttl() {
+        cache.put("a", "1");
+        now.addAndGet(999);
+        assertThat(cache.getIfPresent("a")).isEqualTo("1");
+
+        now.addAndGet(1);
+
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.getWeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void values_read_once_evict_before_values_read_twice() {
+        cache.put("frequent", "1");
+        cache.getIfPresent("frequent");
+
+        for (int i = 0; i < 20; i++) {
+            cache.put("scan-" + i, "1");
+        }
+
+        assertThat(cache.getIfPresent("frequent")).isEqualTo("1");
+        assertThat(cache.getIfPresent("scan-0")).isNull();
+        assertThat(cache.getWeight()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void weight_bound_the_cache() {
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        cache.put("c", "12");
+
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.getWeight()).isEqualTo(7);
+    }
+
+    @Test
+    public void value_loaded_during_invalidation_is_not_cached() {
+        String value = cache.get("a", key -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+
+        assertThat(value).isEqualTo("stale");
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+
+    @Test
+    public void invalidate_values_matching_predicate() {
+        cache.put("id/1", "one");
+        cache.put("name/one", "one");
+        cache.put("id/2", "two");
+
+        cache.invalidateIf("one"::equals);
+
+        assertThat(cache.getIfPresent("id/1")).isNull();
+        assertThat(cache.getIfPresent("name/one")).isNull();
+        assertThat(cache.getIfPresent("id/2")).isEqualTo("two");
+        assertThat(cache.getWeight()).isEqualTo(3);
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void histogram_percentiles_are_relatively_precise() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1000000);
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(500000L, 535000L);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(990000L, 1000000L);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1000000);
+    }
+
+    @Test
+    public void histogram_bucket_index_are_contiguous() {
+        long previousUpperBound = -1;
+        for (int index = 0; index < 200; index++) {
+            long upperBound = Histogram.highestEquivalentValue(index);
+            assertThat(Histogram.bucketIndex(previousUpperBound + 1)).isEqualTo(index);
+            assertThat(Histogram.bucketIndex(upperBound)).isEqualTo(index);
+            previousUpperBound = upperBound;
+        }
+    }
+
+    @Test
+    public void format_registry_in_prometheus_text() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("test_total", "A test counter.", "event_type", "user \"creation\"").add(3);
+        registry.gauge("test_gauge", "A test gauge.", () -> 42);
+        registry.histogram("test_duration_seconds", "A test summary.").record(2_000_000_000L);
+
+        String text = PrometheusTextFormatter.format(registry);
+
+        assertThat(text).contains("# TYPE test_total counter\n");
+        assertThat(text).contains("test_total{event_type=\"user \\\"creation\\\"\"} 3\n");
+        assertThat(text).contains("# HELP test_gauge A test gauge.\n");
+        assertThat(text).contains("test_gauge 42\n");
+        assertThat(text).contains("# TYPE test_duration_seconds summary\n");
+        assertThat(text).contains("test_duration_seconds_count 1\n");
+        assertThat(text).contains("test_duration_seconds_sum 2\n");
+        assertThat(text).contains("test_duration_seconds{quantile=\"0.5\"} 2\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fail_to_register_a_metric_with_another_type() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("test", "A test counter.");
+        registry.histogram("test", "A test summary.");
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisIdGeneratorTest {
+
+    @Test
+    public void lease_a_block_of_sequence_numbers_at_once() {
+        AtomicInteger leaseCount = new AtomicInteger();
+        AtomicLong sequence = new AtomicLong();
+        RedisIdGenerator idGenerator = new RedisIdGenerator(blockSize -> {
+            leaseCount.incrementAndGet();
+            return sequence.addAndGet(blockSize);
+        }, 10);
+
+        for (int i = 0; i < 25; i++) {
+            idGenerator.generateId();
+        }
+
+        assertThat(leaseCount.get()).isEqualTo(3);
+        assertThat(sequence.get()).isEqualTo(30);
+    }
+
+    @Test
+    public void generate_opaque_identifiers() {
+        AtomicLong sequence = new AtomicLong();
+        RedisIdGenerator idGenerator = new RedisIdGenerator(sequence::addAndGet, 10);
+
+        String first = idGenerator.generateId();
+        String second = idGenerator.generateId();
+
+        assertThat(first).matches("[0-9a-f]{32}");
+        assertThat(second).matches("[0-9a-f]{32}");
+        assertThat(first.substring(0, 16)).isNotEqualTo(second.substring(0, 16));
+    }
+
+    @Test
+    public void generate_unique_identifiers_from_several_threads() throws InterruptedException {
+        AtomicLong sequence = new AtomicLong();
+        RedisIdGenerator idGenerator = new RedisIdGenerator(sequence::addAndGet, 7);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    ids.add(idGenerator.generateId());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ids).hasSize(8000);
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPool;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisKeyRoutersTest {
+
+    @Test
+    public void hash_tag_is_between_first_braces() {
+        assertThat(hashTag("user/{1234}")).isEqualTo("1234");
+        assertThat(hashTag("entity/{1234}/admins")).isEqualTo("1234");
+        assertThat(hashTag("foo{bar}{zap}")).isEqualTo("bar");
+        assertThat(hashTag("foo{{bar}}zap")).isEqualTo("{bar");
+    }
+
+    @Test
+    public void whole_key_is_hashed_without_hash_tag() {
+        assertThat(hashTag("user/1234")).isEqualTo("user/1234");
+        assertThat(hashTag("foo{}{bar}")).isEqualTo("foo{}{bar}");
+        assertThat(hashTag("foo{bar")).isEqualTo("foo{bar");
+    }
+
+    @Test
+    public void slot_of_keys_match_redis_cluster() {
+        assertThat(ClusterKeyRouter.slot("123456789".getBytes())).isEqualTo(0x31C3);
+        assertThat(ClusterKeyRouter.slot("foo".getBytes())).isEqualTo(12182);
+        assertThat(ClusterKeyRouter.slot("bar".getBytes())).isEqualTo(5061);
+        assertThat(ClusterKeyRouter.slot("{user1000}.following".getBytes())).isEqualTo(ClusterKeyRouter.slot("{user1000}.followers".getBytes()));
+    }
+
+    @Test
+    public void keys_of_an_entity_are_on_same_sharded_node() {
+        ShardedKeyRouter router = new ShardedKeyRouter(pools("redis-1:6379", "redis-2:6379", "redis-3:6379"));
+
+        for (int i = 0; i < 100; i++) {
+            String tag = router.tag("entity-" + i);
+            JedisPool pool = router.getPool(("entity/" + tag).getBytes());
+            assertThat(router.getPool(("entity/" + tag + "/admins").getBytes())).isSameAs(pool);
+            assertThat(router.getPool(("entity/" + tag + "/users").getBytes())).isSameAs(pool);
+        }
+    }
+
+    @Test
+    public void keys_spread_over_sharded_nodes() {
+        Map<String, JedisPool> pools = pools("redis-1:6379", "redis-2:6379", "redis-3:6379");
+        ShardedKeyRouter router = new ShardedKeyRouter(pools);
+
+        Map<JedisPool, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30000; i++) {
+            counts.merge(router.getPool(("user/" + i).getBytes()), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        counts.values().forEach(count -> assertThat(count).isBetween(7000, 13000));
+    }
+
+    @Test
+    public void adding_a_sharded_node_only_moves_keys_to_it() {
+        Map<String, JedisPool> pools = pools("redis-1:6379", "redis-2:6379", "redis-3:6379");
+        ShardedKeyRouter router = new ShardedKeyRouter(pools);
+        JedisPool added = new JedisPool();
+        Map<String, JedisPool> morePools = new LinkedHashMap<>(pools);
+        morePools.put("redis-4:6379", added);
+        ShardedKeyRouter moreRouter = new ShardedKeyRouter(morePools);
+
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            byte[] key = ("user/" + i).getBytes();
+            JedisPool pool = moreRouter.getPool(key);
+            if (pool != router.getPool(key)) {
+                assertThat(pool).isSameAs(added);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(1500, 3500);
+    }
+
+    @Test
+    public void parse_nodes() {
+        List<HostAndPort> nodes = RedisKeyRouters.parseNodes("redis-1:6379, redis-2:6380");
+
+        assertThat(nodes).containsExactly(new HostAndPort("redis-1", 6379), new HostAndPort("redis-2", 6380));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fail_on_node_without_port() {
+        RedisKeyRouters.parseNodes("redis-1:6379,redis-2");
+    }
+
+    @Test
+    public void shared_router_is_closed_by_its_creator_only() {
+        AtomicInteger destroyed = new AtomicInteger();
+        RedisKeyRouter router = new StandaloneKeyRouter(new JedisPool() {
+            @Override
+            public void destroy() {
+                destroyed.incrementAndGet();
+            }
+        });
+        SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+        new RedisOrganisationStore(key, router, false, false).stop();
+        new RedisProjectStore(key, router, false, false).stop();
+
+        assertThat(destroyed.get()).isEqualTo(0);
+
+        RedisKeyRouters.closeOnStop(router).stop();
+
+        assertThat(destroyed.get()).isEqualTo(1);
+    }
+
+    private static String hashTag(String key) {
+        byte[] bytes = key.getBytes();
+        int[] bounds = RedisKeyRouters.hashTagBounds(bytes);
+        return new String(bytes, bounds[0], bounds[1] - bounds[0]);
+    }
+
+    private static Map<String, JedisPool> pools(String... names) {
+        Map<String, JedisPool> res = new LinkedHashMap<>();
+        for (String name : names) {
+            res.put(name, new JedisPool());
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.model.StackType;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisProjectStoreTest {
+
+    @Test
+    public void each_state_of_a_brick_has_its_own_field() {
+        BrickStateEvent configuring = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.STARTING, BrickStateEvent.State.CONFIGURING, null, null, "1.651");
+        BrickStateEvent running = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.CONFIGURING, BrickStateEvent.State.RUNNING, null, null, "1.651");
+        BrickStateEvent upgraded = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.STOPPED, BrickStateEvent.State.RUNNING, "http://jenkins", null, "1.99");
+        BrickStateEvent runningAgain = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.STOPPED, BrickStateEvent.State.RUNNING, "http://jenkins", null, "1.651");
+
+        assertThat(RedisProjectStore.brickStateField(configuring)).isNotEqualTo(RedisProjectStore.brickStateField(running));
+        assertThat(RedisProjectStore.brickStateField(running)).isNotEqualTo(RedisProjectStore.brickStateField(upgraded));
+        assertThat(RedisProjectStore.brickStateField(running)).isEqualTo(RedisProjectStore.brickStateField(runningAgain));
+    }
+
+    @Test
+    public void added_brick_state_keeps_other_states() {
+        BrickStateEvent configuring = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.STARTING, BrickStateEvent.State.CONFIGURING, null, null, "1.651");
+        BrickStateEvent gitlab = new BrickStateEvent("5678", "build-A", "SCM", "gitlab", BrickStateEvent.State.RUNNING, "8.5");
+        BrickStateEvent running = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.CONFIGURING, BrickStateEvent.State.RUNNING, null, null, "1.651");
+        Stack build = new Stack("build-A", StackType.BUILD, new HashSet<>(Arrays.asList(configuring, gitlab)));
+        Stack run = new Stack("run-A", StackType.RUN, Collections.emptySet());
+        Project project = new Project("1234", "5678", "acme", new Date(42), new HashSet<>(Arrays.asList(build, run)));
+
+        Project result = RedisProjectStore.withBrickState(project, running);
+
+        assertThat(result.getIdentifier()).isEqualTo("1234");
+        assertThat(result.getStacks()).hasSize(2);
+        Stack resultBuild = result.getStacks().stream().filter(stack -> "build-A".equals(stack.getName())).findFirst().get();
+        assertThat(resultBuild.getBrickStateEvents()).containsOnly(configuring, gitlab, running);
+    }
+
+    @Test
+    public void equal_brick_state_is_replaced() {
+        BrickStateEvent running = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.CONFIGURING, BrickStateEvent.State.RUNNING, null, null, "1.651");
+        BrickStateEvent runningWithUrl = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.CONFIGURING, BrickStateEvent.State.RUNNING, "http://jenkins", null, "1.651");
+        Stack build = new Stack("build-A", StackType.BUILD, Collections.singleton(running));
+        Project project = new Project("1234", "5678", "acme", new Date(42), Collections.singleton(build));
+
+        Project result = RedisProjectStore.withBrickState(project, runningWithUrl);
+
+        BrickStateEvent brickStateEvent = result.getStacks().iterator().next().getBrickStateEvents().iterator().next();
+        assertThat(brickStateEvent.getUrl()).isEqualTo("http://jenkins");
+    }
+
+    @Test
+    public void brick_state_of_an_unknown_stack_is_not_added() {
+        BrickStateEvent running = new BrickStateEvent("5678", "build-B", "CI", "jenkins", BrickStateEvent.State.RUNNING, "1.651");
+        Project project = new Project("1234", "5678", "acme", new Date(42), Collections.singleton(new Stack("build-A", StackType.BUILD, Collections.emptySet())));
+
+        assertThat(RedisProjectStore.withBrickState(project, running)).isNull();
+        assertThat(RedisProjectStore.withBrickState(null, running)).isNull();
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisScanIteratorTest {
+
+    @Test
+    public void iterate_over_keys_of_every_node() {
+        JedisPool first = pool(new AtomicInteger(), page("3", "user/1", "user/2"), page("0", "user/3"));
+        JedisPool second = pool(new AtomicInteger(), page("0", "user/4"));
+
+        Iterator<String> iterator = RedisScanIterator.scan(Arrays.asList(first, second), "user/*", 10, keys -> keys);
+
+        List<String> keys = new ArrayList<>();
+        iterator.forEachRemaining(keys::add);
+        assertThat(keys).containsExactly("user/1", "user/2", "user/3", "user/4");
+    }
+
+    @Test
+    public void read_pages_on_demand() {
+        AtomicInteger scans = new AtomicInteger();
+        JedisPool pool = pool(scans, page("3", "user/1", "user/2"), page("7"), page("0", "user/3"));
+        List<List<String>> pages = new ArrayList<>();
+
+        Iterator<String> iterator = RedisScanIterator.scan(Collections.singletonList(pool), "user/*", 10, keys -> {
+            pages.add(keys);
+            return keys.stream().map(key -> key.substring("user/".length())).collect(Collectors.toList());
+        });
+
+        assertThat(iterator.next()).isEqualTo("1");
+        assertThat(iterator.next()).isEqualTo("2");
+        assertThat(scans.get()).isEqualTo(1);
+        assertThat(iterator.next()).isEqualTo("3");
+        assertThat(iterator.hasNext()).isFalse();
+        assertThat(scans.get()).isEqualTo(3);
+        assertThat(pages).hasSize(2);
+    }
+
+    @Test
+    public void iterate_over_members_of_a_set_on_a_single_node() {
+        AtomicInteger primaryScans = new AtomicInteger();
+        JedisPool primary = setPool(primaryScans, page("5", "1", "2"), page("0", "3"));
+        AtomicInteger replicaScans = new AtomicInteger();
+        JedisPool replica = setPool(replicaScans, page("0", "4"));
+        RedisKeyRouter router = new StandaloneKeyRouter(primary) {
+            @Override
+            public <T> T read(byte[] key, Function<Jedis, T> command) {
+                try (Jedis jedis = replica.getResource()) {
+                    return command.apply(jedis);
+                }
+            }
+        };
+
+        List<String> members = new ArrayList<>();
+        RedisScanIterator.sscan(router, "organisation/1/users", 10).forEachRemaining(members::add);
+
+        assertThat(members).containsExactly("1", "2", "3");
+        assertThat(primaryScans.get()).isEqualTo(2);
+        assertThat(replicaScans.get()).isZero();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fail_on_invalid_page_size() {
+        RedisScanIterator.scan(Collections.emptyList(), "user/*", 0, keys -> keys);
+    }
+
+    private static ScanResult<String> page(String cursor, String... keys) {
+        return new ScanResult<>(cursor, Arrays.asList(keys));
+    }
+
+    @SafeVarargs
+    private static JedisPool pool(AtomicInteger scans, ScanResult<String>... pages) {
+        Iterator<ScanResult<String>> iterator = Arrays.asList(pages).iterator();
+        return new JedisPool() {
+            @Override
+            public Jedis getResource() {
+                return new Jedis() {
+                    @Override
+                    public ScanResult<String> scan(String cursor, ScanParams params) {
+                        scans.incrementAndGet();
+                        return iterator.next();
+                    }
+                };
+            }
+        };
+    }
+
+    @SafeVarargs
+    private static JedisPool setPool(AtomicInteger scans, ScanResult<String>... pages) {
+        Iterator<ScanResult<String>> iterator = Arrays.asList(pages).iterator();
+        return new JedisPool() {
+            @Override
+            public Jedis getResource() {
+                return new Jedis() {
+                    @Override
+                    public ScanResult<String> sscan(String key, String cursor, ScanParams params) {
+                        scans.incrementAndGet();
+                        return iterator.next();
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisScriptTest {
+
+    @Test
+    public void eval_script_by_its_sha() {
+        ScriptCache jedis = new ScriptCache();
+        jedis.scripts.add("return 1");
+        RedisScript script = new RedisScript("return 1");
+
+        Object reply = script.eval(jedis, 0);
+
+        assertThat(reply).isEqualTo(1L);
+        assertThat(jedis.evaluatedShas).containsExactly("e0e1f9fabfc9d4800c877a703b823ac0578ff8db");
+        assertThat(jedis.loadCount).isEqualTo(0);
+    }
+
+    @Test
+    public void load_script_unknown_by_redis() {
+        ScriptCache jedis = new ScriptCache();
+        RedisScript script = new RedisScript("return 1");
+
+        Object reply = script.eval(jedis, 0);
+
+        assertThat(reply).isEqualTo(1L);
+        assertThat(jedis.loadCount).isEqualTo(1);
+    }
+
+    @Test(expected = JedisDataException.class)
+    public void propagate_script_errors() {
+        ScriptCache jedis = new ScriptCache();
+        jedis.scripts.add("return 1");
+        jedis.error = "ERR Error running script";
+
+        new RedisScript("return 1").eval(jedis, 0);
+    }
+
+    //  Mimic the script cache of Redis, for scripts returning 1.
+    private static class ScriptCache extends Jedis {
+
+        private final List<String> scripts = new ArrayList<>();
+
+        private final List<String> evaluatedShas = new ArrayList<>();
+
+        private int loadCount;
+
+        private String error;
+
+        @Override
+        public Object evalsha(byte[] sha1, int keyCount, byte[]... params) {
+            String sha = new String(sha1);
+            evaluatedShas.add(sha);
+            if (error != null) {
+                throw new JedisDataException(error);
+            }
+            if (scripts.stream().noneMatch(script -> sha.equals(sha(script)))) {
+                throw new JedisDataException("NOSCRIPT No matching script. Please use EVAL.");
+            }
+            return 1L;
+        }
+
+        @Override
+        public byte[] scriptLoad(byte[] script) {
+            loadCount++;
+            scripts.add(new String(script));
+            return sha(new String(script)).getBytes();
+        }
+
+        private static String sha(String script) {
+            return "return 1".equals(script) ? "e0e1f9fabfc9d4800c877a703b823ac0578ff8db" : "";
+        }
+    }
+
+}
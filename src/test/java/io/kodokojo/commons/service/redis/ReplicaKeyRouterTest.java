@@ -0,0 +1,119 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis;
+
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicaKeyRouterTest {
+
+    private static final byte[] KEY = "user/1234".getBytes();
+
+    @Test
+    public void reads_are_sent_to_replicas() {
+        ReplicaKeyRouter router = new ReplicaKeyRouter(new StandaloneKeyRouter(pool("primary")), replicas(pool("replica")), 1000);
+
+        assertThat(read(router)).isEqualTo("replica");
+    }
+
+    @Test
+    public void reads_following_a_write_are_sent_to_primary() {
+        ReplicaKeyRouter router = new ReplicaKeyRouter(new StandaloneKeyRouter(pool("primary")), replicas(pool("replica")), 60000);
+
+        router.written(KEY);
+
+        assertThat(read(router)).isEqualTo("primary");
+    }
+
+    @Test
+    public void only_writes_send_following_reads_to_primary() {
+        ReplicaKeyRouter router = new ReplicaKeyRouter(new StandaloneKeyRouter(pool("primary")), replicas(pool("replica")), 60000);
+
+        RedisKeyRouters.execute(router, KEY, jedis -> jedis.get(KEY));
+
+        assertThat(read(router)).isEqualTo("replica");
+
+        RedisKeyRouters.write(router, KEY, jedis -> jedis.get(KEY));
+
+        assertThat(read(router)).isEqualTo("primary");
+    }
+
+    @Test
+    public void unavailable_replica_is_left_aside() {
+        AtomicInteger replicaReads = new AtomicInteger();
+        JedisPool failingReplica = new JedisPool() {
+            @Override
+            public Jedis getResource() {
+                replicaReads.incrementAndGet();
+                throw new JedisConnectionException("Connection refused");
+            }
+        };
+        ReplicaKeyRouter router = new ReplicaKeyRouter(new StandaloneKeyRouter(pool("primary")), replicas(failingReplica), 0);
+
+        assertThat(read(router)).isEqualTo("primary");
+        assertThat(read(router)).isEqualTo("primary");
+        assertThat(replicaReads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void faster_replica_is_selected() {
+        ReplicaKeyRouter router = new ReplicaKeyRouter(new StandaloneKeyRouter(pool("primary")), replicas(pool("slow"), pool("fast")), 0);
+        router.getReplicas().get(0).recordLatency(5000000);
+        router.getReplicas().get(1).recordLatency(500000);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(router.selectReplica(System.currentTimeMillis()).getName()).isEqualTo("replica-1");
+        }
+    }
+
+    private static String read(ReplicaKeyRouter router) {
+        byte[] value = router.read(KEY, jedis -> jedis.get(KEY));
+        return new String(value);
+    }
+
+    private static Map<String, JedisPool> replicas(JedisPool... pools) {
+        Map<String, JedisPool> res = new LinkedHashMap<>();
+        for (int i = 0; i < pools.length; i++) {
+            res.put("replica-" + i, pools[i]);
+        }
+        return res;
+    }
+
+    private static JedisPool pool(String value) {
+        return new JedisPool() {
+            @Override
+            public Jedis getResource() {
+                return new Jedis() {
+                    @Override
+                    public byte[] get(byte[] key) {
+                        return value.getBytes();
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.AesGcmEngineTest;
+import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.commons.service.redis.UserValue;
+import io.kodokojo.commons.service.repository.store.ProjectConfigurationStoreModel;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModelCodecsTest {
+
+    @Test
+    public void user_value_round_trip() {
+        UserValue userValue = new UserValue("Jean-Pascal THIERY", "jpthiery", Collections.singleton("1234"), "jpthiery@kodokojo.io", new byte[]{1, 2, 3}, "ssh-rsa AAAA");
+
+        UserValue result = ModelCodecs.decode(UserValueCodec.INSTANCE, ModelCodecs.encode(UserValueCodec.INSTANCE, userValue));
+
+        assertThat(result.getName()).isEqualTo("Jean-Pascal THIERY");
+        assertThat(result.getUsername()).isEqualTo("jpthiery");
+        assertThat(result.getEntityId()).containsExactly("1234");
+        assertThat(result.getEmail()).isEqualTo("jpthiery@kodokojo.io");
+        assertThat(result.getPassword()).containsExactly(new byte[]{1, 2, 3});
+        assertThat(result.getSshPublicKey()).isEqualTo("ssh-rsa AAAA");
+    }
+
+    @Test
+    public void null_fields_round_trip() {
+        UserInWaitingList userInWaitingList = new UserInWaitingList("jpthiery", null, -1);
+
+        UserInWaitingList result = ModelCodecs.decode(UserInWaitingListCodec.INSTANCE, ModelCodecs.encode(UserInWaitingListCodec.INSTANCE, userInWaitingList));
+
+        assertThat(result.getUsername()).isEqualTo("jpthiery");
+        assertThat(result.getEmail()).isNull();
+        assertThat(result.getWaitingSince()).isEqualTo(-1);
+    }
+
+    @Test
+    public void encrypted_project_configuration_round_trip() throws Exception {
+        SecretKey key = aesKey();
+        ProjectConfigurationStoreModel projectConfiguration = projectConfiguration();
+
+        byte[] encrypted = ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration);
+        ProjectConfigurationStoreModel result = ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, encrypted);
+
+        assertThat(result.getIdentifier()).isEqualTo("5678");
+        assertThat(result.getAdmins()).containsExactly("1234");
+        assertThat(result.getUsers()).containsExactly("1234", "4321");
+        StackConfiguration stackConfiguration = result.getStackConfigurations().iterator().next();
+        assertThat(stackConfiguration.getScmSshPort()).isEqualTo(10022);
+        BrickConfiguration brickConfiguration = stackConfiguration.getBrickConfigurations().iterator().next();
+        assertThat(brickConfiguration.getType()).isEqualTo(BrickType.CI);
+        assertThat(brickConfiguration.getPortDefinitions()).containsExactly(new PortDefinition(8080));
+        assertThat(brickConfiguration.getProperties()).containsEntry("memory", 512).containsEntry("url", "http://jenkins").containsEntry("since", new Date(42));
+    }
+
+    @Test
+    public void encrypted_brick_state_round_trip() throws Exception {
+        SecretKey key = aesKey();
+        BrickStateEvent brickStateEvent = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.STARTING, BrickStateEvent.State.RUNNING, "http://jenkins", null, "1.651");
+
+        byte[] encrypted = ModelCodecs.encodeEncrypted(key, BrickStateEventCodec.INSTANCE, brickStateEvent, CompressionDictionary.PROJECT);
+        BrickStateEvent result = ModelCodecs.decodeEncrypted(key, BrickStateEventCodec.INSTANCE, encrypted);
+
+        assertThat(result).isEqualTo(brickStateEvent);
+        assertThat(result.getOldState()).isEqualTo(BrickStateEvent.State.STARTING);
+        assertThat(result.getUrl()).isEqualTo("http://jenkins");
+        assertThat(result.getMessage()).isNull();
+    }
+
+    @Test
+    public void stack_round_trip() {
+        BrickStateEvent brickStateEvent = new BrickStateEvent("5678", "build-A", "CI", "jenkins", BrickStateEvent.State.RUNNING, "1.651");
+        Stack stack = new Stack("build-A", StackType.BUILD, Collections.singleton(brickStateEvent));
+
+        Stack result = ModelCodecs.decode(StackCodec.INSTANCE, ModelCodecs.encode(StackCodec.INSTANCE, stack));
+
+        assertThat(result).isEqualTo(stack);
+    }
+
+    @Test
+    public void read_legacy_serialized_value() throws IOException {
+        UserInWaitingList userInWaitingList = new UserInWaitingList("jpthiery", "jpthiery@kodokojo.io", 42);
+
+        UserInWaitingList result = ModelCodecs.decode(UserInWaitingListCodec.INSTANCE, serialize(userInWaitingList));
+
+        assertThat(result.getEmail()).isEqualTo("jpthiery@kodokojo.io");
+        assertThat(result.getWaitingSince()).isEqualTo(42);
+    }
+
+    @Test
+    public void read_legacy_encrypted_value() throws Exception {
+        SecretKey key = aesKey();
+        byte[] encrypted = AesGcmEngineTest.legacySealedObject(key, projectConfiguration());
+
+        ProjectConfigurationStoreModel result = ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, encrypted);
+
+        assertThat(result.getName()).isEqualTo("acme");
+    }
+
+    @Test
+    public void read_legacy_cbc_value() throws Exception {
+        SecretKey key = aesKey();
+        Cipher cipher = Cipher.getInstance(RSAUtils.AES_CBC_PKCS5_PADDING);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec("0102030405060708".getBytes()));
+        byte[] encrypted = cipher.doFinal(ModelCodecs.encode(ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration()));
+        byte[] legacy = new byte[encrypted.length + 1];
+        legacy[0] = (byte) ModelCodecs.ENCRYPTED_MARKER;
+        System.arraycopy(encrypted, 0, legacy, 1, encrypted.length);
+
+        ProjectConfigurationStoreModel result = ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, legacy);
+
+        assertThat(result.getName()).isEqualTo("acme");
+    }
+
+    @Test
+    public void write_legacy_serialized_value() throws IOException {
+        UserInWaitingList userInWaitingList = new UserInWaitingList("jpthiery", "jpthiery@kodokojo.io", 42);
+
+        byte[] encoded = ModelCodecs.encode(UserInWaitingListCodec.INSTANCE, userInWaitingList, true);
+
+        assertThat(encoded).isEqualTo(serialize(userInWaitingList));
+        assertThat(ModelCodecs.decode(UserInWaitingListCodec.INSTANCE, encoded).getEmail()).isEqualTo("jpthiery@kodokojo.io");
+    }
+
+    @Test
+    public void write_legacy_encrypted_value() throws Exception {
+        SecretKey key = aesKey();
+        ProjectConfigurationStoreModel projectConfiguration = projectConfiguration();
+
+        byte[] encrypted = ModelCodecs.encodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration, CompressionDictionary.PROJECT, true);
+
+        assertThat(encrypted).isEqualTo(AesGcmEngineTest.legacySealedObject(key, projectConfiguration));
+        assertThat(ModelCodecs.decodeEncrypted(key, ProjectConfigurationStoreModelCodec.INSTANCE, encrypted).getName()).isEqualTo("acme");
+    }
+
+    @Test
+    public void encoded_value_is_smaller_than_serialized_value() throws IOException {
+        ProjectConfigurationStoreModel projectConfiguration = projectConfiguration();
+
+        byte[] encoded = ModelCodecs.encode(ProjectConfigurationStoreModelCodec.INSTANCE, projectConfiguration);
+
+        assertThat(encoded.length).isLessThan(serialize(projectConfiguration).length / 4);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void fail_to_decode_value_of_unknown_version() {
+        byte[] encoded = ModelCodecs.encode(UserInWaitingListCodec.INSTANCE, new UserInWaitingList("jpthiery", "jpthiery@kodokojo.io", 42));
+        encoded[1] = (byte) (UserInWaitingListCodec.INSTANCE.version() + 1);
+
+        ModelCodecs.decode(UserInWaitingListCodec.INSTANCE, encoded);
+    }
+
+    private static ProjectConfigurationStoreModel projectConfiguration() {
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put("memory", 512);
+        properties.put("url", "http://jenkins");
+        properties.put("since", new Date(42));
+        BrickConfiguration brickConfiguration = new BrickConfiguration("jenkins", BrickType.CI, "1.651", Collections.singleton(new PortDefinition(8080)), properties);
+        StackConfiguration stackConfiguration = new StackConfiguration("build-A", StackType.BUILD, Collections.singleton(brickConfiguration), 10022);
+        return new ProjectConfigurationStoreModel("1111", "5678", "acme", "acme-service", Collections.singletonList("1234"), Collections.singleton(stackConfiguration), Arrays.asList("1234", "4321"));
+    }
+
+    private static SecretKey aesKey() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        return keyGenerator.generateKey();
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(out)) {
+            objectOutputStream.writeObject(value);
+        }
+        return out.toByteArray();
+    }
+
+}
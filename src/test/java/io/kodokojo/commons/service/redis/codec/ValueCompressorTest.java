@@ -0,0 +1,89 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.redis.codec;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.model.StackType;
+import io.kodokojo.commons.model.UserInWaitingList;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import org.junit.Test;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ValueCompressorTest {
+
+    @Test
+    public void compressed_value_round_trip() {
+        byte[] encoded = ModelCodecs.encode(ProjectCodec.INSTANCE, project());
+
+        byte[] compressed = ValueCompressor.compress(encoded, CompressionDictionary.PROJECT);
+
+        assertThat(ValueCompressor.isCompressed(compressed)).isTrue();
+        assertThat(compressed.length).isLessThan(encoded.length / 2);
+        assertThat(ValueCompressor.decompress(compressed)).isEqualTo(encoded);
+    }
+
+    @Test
+    public void compressed_and_encrypted_project_round_trip() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        SecretKey key = keyGenerator.generateKey();
+        Project project = project();
+
+        byte[] encrypted = ModelCodecs.encodeEncrypted(key, ProjectCodec.INSTANCE, project, CompressionDictionary.PROJECT);
+
+        assertThat(encrypted.length).isLessThan(ModelCodecs.encodeEncrypted(key, ProjectCodec.INSTANCE, project).length / 2);
+        assertThat(ModelCodecs.decodeEncrypted(key, ProjectCodec.INSTANCE, encrypted)).isEqualTo(project);
+    }
+
+    @Test
+    public void short_value_is_not_compressed() {
+        byte[] encoded = ModelCodecs.encode(UserInWaitingListCodec.INSTANCE, new UserInWaitingList("jpthiery", "jpthiery@kodokojo.io", 42));
+
+        assertThat(ValueCompressor.compress(encoded, CompressionDictionary.ORGANISATION)).isSameAs(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fail_to_decompress_with_unknown_dictionary() {
+        byte[] compressed = ValueCompressor.compress(ModelCodecs.encode(ProjectCodec.INSTANCE, project()), CompressionDictionary.PROJECT);
+        compressed[1] = 127;
+
+        ValueCompressor.decompress(compressed);
+    }
+
+    private static Project project() {
+        String projectConfigurationIdentifier = "2b5e6d3f4a1c8e9b0d7f6a5c4b3e2d1f0a9b8c7d";
+        Set<BrickStateEvent> brickStateEvents = new HashSet<>();
+        for (String brickName : new String[]{"gitlab", "jenkins", "nexus"}) {
+            String url = "https://" + brickName + "-acme.kodokojo.io";
+            brickStateEvents.add(new BrickStateEvent(projectConfigurationIdentifier, "build-A", "CI", brickName, BrickStateEvent.State.STARTING, BrickStateEvent.State.CONFIGURING, url, null, "1.0"));
+            brickStateEvents.add(new BrickStateEvent(projectConfigurationIdentifier, "build-A", "CI", brickName, BrickStateEvent.State.CONFIGURING, BrickStateEvent.State.RUNNING, url, null, "1.0"));
+        }
+        Stack stack = new Stack("build-A", StackType.BUILD, brickStateEvents);
+        return new Project("8f7e6d5c4b3a29180f1e2d3c4b5a69788f9e0d1c", projectConfigurationIdentifier, "acme", new Date(1476453600000L), Collections.singleton(stack));
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Kodo Kojo - Software factory done right
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.commons.service.repository;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.model.UserService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutorAsyncUserFetcherTest {
+
+    @Test
+    public void pipelined_fetches_are_merged_in_a_single_read() throws Exception {
+        Queue<Runnable> tasks = new LinkedList<>();
+        FakeUserFetcher userFetcher = new FakeUserFetcher();
+        ExecutorAsyncUserFetcher asyncUserFetcher = new ExecutorAsyncUserFetcher(userFetcher, tasks::add, true);
+
+        CompletableFuture<List<User>> admins = asyncUserFetcher.getUsersByIdentifiers(Arrays.asList("1", "2"));
+        CompletableFuture<List<User>> users = asyncUserFetcher.getUsersByIdentifiers(Arrays.asList("2", "unknown"));
+        CompletableFuture<User> user = asyncUserFetcher.getUserByIdentifier("3");
+        assertThat(tasks).hasSize(1);
+        tasks.poll().run();
+
+        assertThat(userFetcher.reads).containsExactly(Arrays.asList("1", "2", "unknown", "3"));
+        assertThat(identifiers(admins.get())).containsExactly("1", "2");
+        assertThat(identifiers(users.get())).containsExactly("2", null);
+        assertThat(user.get().getIdentifier()).isEqualTo("3");
+    }
+
+    @Test
+    public void fetches_are_run_by_executor() throws Exception {
+        Queue<Runnable> tasks = new LinkedList<>();
+        FakeUserFetcher userFetcher = new FakeUserFetcher();
+        ExecutorAsyncUserFetcher asyncUserFetcher = new ExecutorAsyncUserFetcher(userFetcher, tasks::add, false);
+
+        CompletableFuture<List<User>> admins = asyncUserFetcher.getUsersByIdentifiers(Arrays.asList("1", "2"));
+        CompletableFuture<List<User>> users = asyncUserFetcher.getUsersByIdentifiers(Arrays.asList("3"));
+        assertThat(admins.isDone()).isFalse();
+        tasks.forEach(Runnable::run);
+
+        assertThat(userFetcher.reads).hasSize(2);
+        assertThat(identifiers(admins.get())).containsExactly("1", "2");
+        assertThat(identifiers(users.get())).containsExactly("3");
+    }
+
+    @Test
+    public void failed_read_fail_all_merged_fetches() {
+        Queue<Runnable> tasks = new LinkedList<>();
+        FakeUserFetcher userFetcher = new FakeUserFetcher();
+        userFetcher.failure = new IllegalStateException("Redis is down.");
+        ExecutorAsyncUserFetcher asyncUserFetcher = new ExecutorAsyncUserFetcher(userFetcher, tasks::add, true);
+
+        CompletableFuture<List<User>> admins = asyncUserFetcher.getUsersByIdentifiers(Arrays.asList("1"));
+        CompletableFuture<List<User>> users = asyncUserFetcher.getUsersByIdentifiers(Arrays.asList("2"));
+        tasks.poll().run();
+
+        assertThat(admins.isCompletedExceptionally()).isTrue();
+        assertThat(users.isCompletedExceptionally()).isTrue();
+        try {
+            users.get();
+        } catch (InterruptedException | ExecutionException e) {
+            assertThat(e.getCause()).isSameAs(userFetcher.failure);
+        }
+    }
+
+    private static List<String> identifiers(List<User> users) {
+        return users.stream().map(user -> user == null ? null : user.getIdentifier()).collect(Collectors.toList());
+    }
+
+    private static class FakeUserFetcher implements UserFetcher {
+
+        private final List<List<String>> reads = new ArrayList<>();
+
+        private RuntimeException failure;
+
+        @Override
+        public List<User> getUsersByIdentifiers(Collection<String> identifiers) {
+            reads.add(new ArrayList<>(identifiers));
+            if (failure != null) {
+                throw failure;
+            }
+            return identifiers.stream().map(this::getUserByIdentifier).collect(Collectors.toList());
+        }
+
+        @Override
+        public User getUserByIdentifier(String identifier) {
+            if ("unknown".equals(identifier)) {
+                return null;
+            }
+            return new User(identifier, "entity", "John Doe", "jdoe" + identifier, "jdoe@kodokojo.io", "password", "ssh-rsa AAA");
+        }
+
+        @Override
+        public User getUserByUsername(String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UserService getUserServiceByName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UserService getUserServiceByIdentifier(String identifier) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}